@@ -16,6 +16,7 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 
 public class ShellImpl implements Shell {
+    private final ApplicationRunner appRunner = new ApplicationRunner();
 
     /**
      * Main method for the Shell Interpreter program.
@@ -52,7 +53,7 @@ public class ShellImpl implements Shell {
     @Override
     public void parseAndEvaluate(String commandString, OutputStream stdout)
             throws AbstractApplicationException, ShellException, FileNotFoundException {
-        Command command = CommandBuilder.parseCommand(commandString, new ApplicationRunner());
+        Command command = CommandBuilder.parseCommand(commandString, appRunner);
         command.evaluate(System.in, stdout);
     }
 }
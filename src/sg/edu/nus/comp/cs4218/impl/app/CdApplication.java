@@ -3,6 +3,7 @@ package sg.edu.nus.comp.cs4218.impl.app;
 import sg.edu.nus.comp.cs4218.Environment;
 import sg.edu.nus.comp.cs4218.app.CdInterface;
 import sg.edu.nus.comp.cs4218.exception.CdException;
+import sg.edu.nus.comp.cs4218.impl.util.DirectoryCache;
 import sg.edu.nus.comp.cs4218.impl.util.IOUtils;
 import sg.edu.nus.comp.cs4218.impl.util.StringUtils;
 
@@ -90,11 +91,12 @@ public class CdApplication implements CdInterface {
             path = Paths.get(Environment.getCurrentDirectory(), pathStr);
         }
 
-        if (!Files.exists(path)) {
+        DirectoryCache.Entry entry = DirectoryCache.getEntry(path);
+        if (entry == null || !entry.exists()) {
             throw new CdException(String.format(E_FILE_NOT_FOUND, pathStr));
         }
 
-        if (!Files.isDirectory(path)) {
+        if (!entry.isDirectory()) {
             throw new CdException(String.format(E_IS_NOT_DIR, pathStr));
         }
 
@@ -5,6 +5,7 @@ import sg.edu.nus.comp.cs4218.exception.AbstractApplicationException;
 import sg.edu.nus.comp.cs4218.exception.CpException;
 import sg.edu.nus.comp.cs4218.exception.InvalidArgsException;
 import sg.edu.nus.comp.cs4218.impl.parser.CpArgsParser;
+import sg.edu.nus.comp.cs4218.impl.util.DirectoryCache;
 import sg.edu.nus.comp.cs4218.impl.util.IOUtils;
 
 import java.io.File;
@@ -107,6 +108,7 @@ public class CpApplication implements CpInterface {
                 throw new Exception(E_IO_EXCEPTION, e);
             }
         }
+        DirectoryCache.invalidate(dst);
     }
 
     @Override
@@ -153,6 +155,7 @@ public class CpApplication implements CpInterface {
                 copyFile(srcPath, dstPath, cpExceptions);
             }
         }
+        DirectoryCache.invalidate(dstPath);
 
         handleCpExceptions(cpExceptions);
     }
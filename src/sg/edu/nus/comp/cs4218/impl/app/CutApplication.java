@@ -7,6 +7,7 @@ import sg.edu.nus.comp.cs4218.exception.InvalidArgsException;
 import sg.edu.nus.comp.cs4218.exception.ShellException;
 import sg.edu.nus.comp.cs4218.impl.parser.CutArgsParser;
 import sg.edu.nus.comp.cs4218.impl.util.IOUtils;
+import sg.edu.nus.comp.cs4218.impl.util.ParallelLineEngine;
 
 import java.io.File;
 import java.io.IOException;
@@ -22,6 +23,7 @@ import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_IS_DIR;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NO_PERM;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NULL_ARGS;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NULL_POINTER;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_STREAM_CLOSED;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_WRITE_STREAM;
 import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
 
@@ -151,37 +153,50 @@ public class CutApplication implements CutInterface {
      * @throws ShellException
      */
     protected List<String> cutLines(Boolean isCharPo, Boolean isBytePo, List<int[]> ranges, InputStream input) throws ShellException {
-        List<String> lines = IOUtils.getLinesFromInputStream(input);
+        List<String> output = new ArrayList<>();
+        try {
+            ParallelLineEngine.processLines(input,
+                    lines -> lines.stream()
+                            .map(line -> cutLine(isCharPo, ranges, line))
+                            .collect(Collectors.toList()),
+                    output::addAll);
+        } catch (IOException e) {
+            throw new ShellException(E_STREAM_CLOSED, e);
+        }
+        IOUtils.closeInputStream(input);
+        return output;
+    }
 
-        return lines.stream()
-                .map(line -> { // do this for each line
-                    return ranges.stream()
-                            .map(range -> {
-                                int start = range[0] - 1;
-                                int end = range[1];
+    /**
+     * Cuts out the selected portions of a single line. Safe to call concurrently.
+     */
+    private static String cutLine(Boolean isCharPo, List<int[]> ranges, String line) {
+        return ranges.stream()
+                .map(range -> {
+                    int start = range[0] - 1;
+                    int end = range[1];
 
-                                if (isCharPo) {
-                                    if (line.length() < end) {
-                                        if (range[0] == range[1]) {
-                                            return "";
-                                        } else {
-                                            end = line.length();
-                                        }
-                                    }
-                                    return line.substring(start, end);
-                                } else {
-                                    byte[] bytes = line.getBytes();
-                                    if (bytes.length < end) {
-                                        if (range[0] == range[1]) {
-                                            return "";
-                                        } else {
-                                            end = bytes.length;
-                                        }
-                                    }
-                                    return new String(Arrays.copyOfRange(bytes, start, end));
-                                }
-                            })
-                            .reduce("", (x, y) -> x + y);
-                }).collect(Collectors.toList());
+                    if (isCharPo) {
+                        if (line.length() < end) {
+                            if (range[0] == range[1]) {
+                                return "";
+                            } else {
+                                end = line.length();
+                            }
+                        }
+                        return line.substring(start, end);
+                    } else {
+                        byte[] bytes = line.getBytes();
+                        if (bytes.length < end) {
+                            if (range[0] == range[1]) {
+                                return "";
+                            } else {
+                                end = bytes.length;
+                            }
+                        }
+                        return new String(Arrays.copyOfRange(bytes, start, end));
+                    }
+                })
+                .reduce("", (x, y) -> x + y);
     }
 }
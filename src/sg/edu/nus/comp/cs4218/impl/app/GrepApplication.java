@@ -3,33 +3,65 @@ package sg.edu.nus.comp.cs4218.impl.app;
 import sg.edu.nus.comp.cs4218.app.GrepInterface;
 import sg.edu.nus.comp.cs4218.exception.GrepException;
 import sg.edu.nus.comp.cs4218.exception.InvalidArgsException;
+import sg.edu.nus.comp.cs4218.exception.ShellException;
+import sg.edu.nus.comp.cs4218.impl.app.helper.ContextLineWriter;
+import sg.edu.nus.comp.cs4218.impl.app.helper.FileTreeWalker;
+import sg.edu.nus.comp.cs4218.impl.app.helper.GrepHelper;
+import sg.edu.nus.comp.cs4218.impl.app.helper.MappedFileSearcher;
 import sg.edu.nus.comp.cs4218.impl.parser.GrepArgsParser;
 import sg.edu.nus.comp.cs4218.impl.util.ErrorConstants;
+import sg.edu.nus.comp.cs4218.impl.util.IOUtils;
 import sg.edu.nus.comp.cs4218.impl.util.StringUtils;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.StringJoiner;
-import java.util.regex.Matcher;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
 
 import static sg.edu.nus.comp.cs4218.impl.app.helper.GrepHelper.checkRunExceptions;
 import static sg.edu.nus.comp.cs4218.impl.app.helper.GrepHelper.grepResultsFromFiles;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_EMPTY_PATTERN;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_FILE_NOT_FOUND;
-import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_INVALID_REGEX;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_IO_EXCEPTION;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_IS_DIR;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NULL_POINTER;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_SYNTAX;
 import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
 
 public class GrepApplication implements GrepInterface {
+    private static final String STANDARD_INPUT = "(standard input)";
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Options that only {@link #run} takes; the other methods search every input to its end.
+     */
+    private long maxCount = Long.MAX_VALUE;
+    private boolean isQuiet;
+    private boolean isListFiles;
+    private boolean isContext;
+    private int beforeContext;
+    private int afterContext;
+    /**
+     * Set once a quiet grep finds a match, after which no further input is searched.
+     */
+    private volatile boolean hasQuietMatch;
+    /**
+     * Set once a group of context lines is written, so that the groups of later inputs are separated from it.
+     */
+    private boolean isGroupWritten;
 
     /**
      * Returns result after searching for lines containing match to pattern present in file, depending on boolean options;
@@ -71,7 +103,8 @@ public class GrepApplication implements GrepInterface {
 
     /**
      * Returns result after searching for lines containing match to pattern present in stdin,
-     * based on boolean options.
+     * based on boolean options. Every matched line ends with a newline, so a single matched empty line
+     * gives a newline rather than nothing, as in grep.
      *
      * @param pattern           String specifying a regular expression in JAVA format
      * @param isCaseInsensitive Boolean option to perform case insensitive matching
@@ -83,51 +116,245 @@ public class GrepApplication implements GrepInterface {
      */
     @Override
     public String grepFromStdin(String pattern, Boolean isCaseInsensitive, Boolean isCountLines, Boolean isPrefixFileName, InputStream stdin) throws Exception {
+        StringWriter writer = new StringWriter();
+        writeFromStdin(pattern, isCaseInsensitive, isCountLines, isPrefixFileName, stdin, writer);
+        return writer.toString();
+    }
+
+    /**
+     * Writes the lines of stdin containing a match to pattern to writer as they are found, or their count,
+     * based on boolean options. Writes the same output that {@link #grepFromStdin} returns.
+     *
+     * @param pattern           String specifying a regular expression in JAVA format
+     * @param isCaseInsensitive Boolean option to perform case insensitive matching
+     * @param isCountLines      Boolean option to only write out a count of matched lines
+     * @param isPrefixFileName  Boolean option to print file name with output lines
+     * @param stdin             InputStream containing arguments from Stdin
+     * @param writer            Writer that the output is written to
+     * @throws Exception if regex is invalid, stdin is missing or writer cannot be written
+     */
+    protected void writeFromStdin(String pattern, Boolean isCaseInsensitive, Boolean isCountLines,
+                                  Boolean isPrefixFileName, InputStream stdin, Writer writer) throws Exception {
         if (StringUtils.isBlank(pattern)) {
             throw new GrepException(ErrorConstants.E_EMPTY_PATTERN);
         }
-        int count = 0;
-        StringJoiner stringJoiner = new StringJoiner(STRING_NEWLINE);
-
+        Pattern compiledPattern = GrepHelper.compilePattern(pattern, isCaseInsensitive);
+        String prefix = isPrefixFileName ? STANDARD_INPUT + ": " : "";
+        long count;
         try {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(stdin));
-            String line;
-            Pattern compiledPattern;
-            if (isCaseInsensitive) {
-                compiledPattern = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE);
+            if (hasContext(isCountLines)) {
+                ContextLineWriter context = newContextWriter(prefix,
+                        isPrefixFileName ? STANDARD_INPUT + "- " : "", isGroupWritten, writer);
+                count = GrepHelper.writeMatches(stdin, compiledPattern, context);
+                isGroupWritten |= count > 0;
             } else {
-                compiledPattern = Pattern.compile(pattern);
+                count = GrepHelper.writeMatches(stdin, compiledPattern, prefix, !isLinesWritten(isCountLines),
+                        getSearchLimit(), writer);
             }
-            while ((line = reader.readLine()) != null) {
-                Matcher matcher = compiledPattern.matcher(line);
-                if (matcher.find()) {
-                    if (isPrefixFileName) {
-                        stringJoiner.add("(standard input): " + line);
-                    } else {
-                        stringJoiner.add(line);
-                    }
-                    count++;
-                }
-            }
-            reader.close();
-        } catch (PatternSyntaxException pse) {
-            throw new GrepException(E_INVALID_REGEX, pse);
+            stdin.close();
         } catch (NullPointerException npe) {
             throw new GrepException(E_FILE_NOT_FOUND, npe);
         }
+        writeSummary(STANDARD_INPUT, prefix, count, isCountLines, writer);
+    }
 
-        String results = "";
-        if (isCountLines) {
-            if (isPrefixFileName) {
-                results += "(standard input): ";
+    /**
+     * Returns whether matched lines are written, rather than counted, listed or only looked for.
+     */
+    private boolean isLinesWritten(boolean isCountLines) {
+        return !isCountLines && !isQuiet && !isListFiles;
+    }
+
+    /**
+     * Returns whether matched lines are written in groups with the lines around them, if any.
+     */
+    private boolean hasContext(boolean isCountLines) {
+        return isLinesWritten(isCountLines) && isContext;
+    }
+
+    /**
+     * Returns a writer of the context lines of one input, whose context lines are marked with '-' where
+     * its matched lines have ':', as grep does.
+     */
+    private ContextLineWriter newContextWriter(String prefix, String contextPrefix, boolean isAfterGroup,
+                                               Writer writer) {
+        return new ContextLineWriter(prefix, contextPrefix, beforeContext, afterContext, maxCount, isAfterGroup,
+                writer);
+    }
+
+    /**
+     * Returns how many matched lines of each input to look for: one is enough to list it or to answer quietly.
+     */
+    private long getSearchLimit() {
+        return isQuiet || isListFiles ? Math.min(maxCount, 1) : maxCount;
+    }
+
+    /**
+     * Writes what follows the matched lines of an input: nothing if quiet, its name if files are listed and
+     * it matched, or its count if lines are counted.
+     */
+    private void writeSummary(String name, String prefix, long count, boolean isCountLines, Writer writer)
+            throws IOException {
+        if (isQuiet) {
+            if (count > 0) {
+                hasQuietMatch = true;
+            }
+        } else if (isListFiles) {
+            if (count > 0) {
+                writer.write(name + STRING_NEWLINE);
             }
-            results += count + STRING_NEWLINE;
+        } else if (isCountLines) {
+            writer.write(prefix + count + STRING_NEWLINE);
+        }
+    }
+
+    /**
+     * Writes the lines of files containing a match to pattern to writer as they are found, or their count,
+     * based on boolean options. Files that are missing or are directories get an error line in their place.
+     * Writes the same output that {@link #grepFromFiles} returns.
+     *
+     * @param pattern           String specifying a regular expression in JAVA format
+     * @param isCaseInsensitive Boolean option to perform case insensitive matching
+     * @param isCountLines      Boolean option to only write out a count of matched lines
+     * @param isPrefixFileName  Boolean option to print file name with output lines
+     * @param writer            Writer that the output is written to
+     * @param fileNames         Array of file names (not including "-" for reading from stdin)
+     * @throws Exception if regex is invalid, or a file or writer cannot be accessed
+     */
+    protected void writeFromFiles(String pattern, Boolean isCaseInsensitive, Boolean isCountLines,
+                                  Boolean isPrefixFileName, Writer writer, String... fileNames) throws Exception {
+        if (fileNames == null || pattern == null) {
+            throw new GrepException(E_NULL_POINTER);
+        }
+        if (StringUtils.isBlank(pattern)) {
+            throw new GrepException(ErrorConstants.E_EMPTY_PATTERN);
+        }
+        File[] files = GrepHelper.resolveFiles(fileNames);
+        // an invalid regex fails before anything is written, unless no file is ever searched
+        Pattern compiledPattern = GrepHelper.isAnySearched(files)
+                ? GrepHelper.compilePattern(pattern, isCaseInsensitive)
+                : null;
+        // the mapped searcher only decodes matched lines, and context lines are needed too
+        MappedFileSearcher mappedSearcher = compiledPattern == null || hasContext(isCountLines)
+                ? null
+                : MappedFileSearcher.forPattern(compiledPattern);
+        boolean isSingleFile = fileNames.length == 1;
+        if (isSingleFile) {
+            String prefixFileName = isPrefixFileName ? fileNames[0] : "";
+            isGroupWritten |= writeFile(fileNames[0], files[0], compiledPattern, mappedSearcher, prefixFileName,
+                    isCountLines, isGroupWritten, writer);
+            return;
+        }
+        // each file is buffered until the files before it are written; a quiet grep stops at the first file
+        // that matches, so later files are neither searched nor have their errors written
+        AtomicInteger firstQuietMatch = new AtomicInteger(Integer.MAX_VALUE);
+        int[] consumed = {0};
+        GrepHelper.searchFiles(fileNames.length, index -> {
+            if (index > firstQuietMatch.get()) {
+                return new FileOutput("", false);
+            }
+            StringWriter output = new StringWriter();
+            boolean isMatched = writeFile(fileNames[index], files[index], compiledPattern, mappedSearcher,
+                    fileNames[index], isCountLines, false, output);
+            if (isMatched && isQuiet) {
+                firstQuietMatch.accumulateAndGet(index, Math::min);
+            }
+            return new FileOutput(output.toString(), isMatched);
+        }, output -> {
+            if (consumed[0]++ <= firstQuietMatch.get()) {
+                if (output.isMatched && isGroupWritten && hasContext(isCountLines)) {
+                    writer.write(ContextLineWriter.GROUP_SEPARATOR + STRING_NEWLINE);
+                }
+                isGroupWritten |= output.isMatched;
+                writer.write(output.text);
+            }
+        });
+    }
+
+    /**
+     * Writes the matched lines of file, with their context if any, or their count, or an error line if file
+     * is missing or a directory, and returns whether any line matched. Lines are prefixed with
+     * prefixFileName unless it is empty. A regular file is searched through mappedSearcher if there is one,
+     * which finds the same lines.
+     */
+    private boolean writeFile(String fileName, File file, Pattern compiledPattern, MappedFileSearcher mappedSearcher,
+                              String prefixFileName, boolean isCountLines, boolean isAfterGroup, Writer writer)
+            throws IOException {
+        String prefix = prefixFileName.isEmpty() ? "" : prefixFileName + ": ";
+        if (!file.exists()) {
+            writer.write(fileName + ": " + E_FILE_NOT_FOUND + STRING_NEWLINE);
+            return false;
+        }
+        if (file.isDirectory()) {
+            writer.write(fileName + ": " + E_IS_DIR + STRING_NEWLINE);
+            return false;
+        }
+        boolean isOnlyCounted = !isLinesWritten(isCountLines);
+        long count;
+        if (hasContext(isCountLines)) {
+            String contextPrefix = prefixFileName.isEmpty() ? "" : prefixFileName + "- ";
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                count = GrepHelper.writeMatches(reader, compiledPattern,
+                        newContextWriter(prefix, contextPrefix, isAfterGroup, writer));
+            }
+        } else if (mappedSearcher != null && file.isFile()) {
+            count = mappedSearcher.writeMatches(file, prefix, isOnlyCounted, getSearchLimit(), writer);
         } else {
-            if (!stringJoiner.toString().isEmpty()) {
-                results = stringJoiner.toString() + STRING_NEWLINE;
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                count = GrepHelper.writeMatches(reader, compiledPattern, prefix, isOnlyCounted, getSearchLimit(),
+                        writer);
             }
         }
-        return results;
+        writeSummary(fileName, prefix, count, isCountLines, writer);
+        return count > 0;
+    }
+
+    /**
+     * Writes the output of {@link #grepFromFileAndStdin} to writer, each file as it is searched.
+     *
+     * @param pattern           String specifying a regular expression in JAVA format
+     * @param isCaseInsensitive Boolean option to perform case insensitive matching
+     * @param isCountLines      Boolean option to only write out a count of matched lines
+     * @param isPrefixFileName  Boolean option to print file name with output lines
+     * @param stdin             InputStream containing arguments from Stdin
+     * @param writer            Writer that the output is written to
+     * @param fileNames         Array of file names (including "-" for reading from stdin)
+     * @throws Exception if exception encountered in writeFromStdin or writeFromFiles
+     */
+    protected void writeFromFileAndStdin(String pattern, Boolean isCaseInsensitive, Boolean isCountLines,
+                                         Boolean isPrefixFileName, InputStream stdin, Writer writer,
+                                         String... fileNames) throws Exception {
+        if (StringUtils.isBlank(pattern)) {
+            throw new GrepException(ErrorConstants.E_EMPTY_PATTERN);
+        }
+        if (Arrays.asList(fileNames).contains("-") || GrepHelper.isAnySearched(GrepHelper.resolveFiles(fileNames))) {
+            GrepHelper.compilePattern(pattern, isCaseInsensitive);
+        }
+        Boolean usePrefixFileName = isPrefixFileName || fileNames.length > 1;
+        int index = 0;
+        while (index < fileNames.length && !hasQuietMatch) {
+            if (("-").equals(fileNames[index])) {
+                writeFromStdin(pattern, isCaseInsensitive, isCountLines, usePrefixFileName, stdin, writer);
+                index++;
+                continue;
+            }
+            // consecutive files are searched together, so that they can be searched concurrently
+            int end = nextStdin(fileNames, index);
+            writeFromFiles(pattern, isCaseInsensitive, isCountLines, usePrefixFileName, writer,
+                    Arrays.copyOfRange(fileNames, index, end));
+            index = end;
+        }
+    }
+
+    /**
+     * Returns the index of the first "-" in fileNames from start, or the length of fileNames if there is none.
+     */
+    private static int nextStdin(String[] fileNames, int start) {
+        int index = start;
+        while (index < fileNames.length && !("-").equals(fileNames[index])) {
+            index++;
+        }
+        return index;
     }
 
     /**
@@ -146,6 +373,27 @@ public class GrepApplication implements GrepInterface {
         return parser;
     }
 
+    /**
+     * Returns pattern with the lines of every pattern file added to it as further patterns of its set.
+     *
+     * @throws ShellException if a pattern file cannot be opened
+     * @throws IOException    if a pattern file cannot be read
+     */
+    private static String addPatternFiles(String pattern, List<String> patternFiles)
+            throws ShellException, IOException {
+        StringJoiner patterns = new StringJoiner(GrepArgsParser.PATTERN_SEPARATOR);
+        if (!pattern.isEmpty()) {
+            patterns.add(pattern);
+        }
+        for (String patternFile : patternFiles) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    IOUtils.openInputStream(patternFile)))) {
+                reader.lines().forEach(patterns::add);
+            }
+        }
+        return patterns.toString();
+    }
+
     /**
      * Runs the grep application with the specified arguments.
      *
@@ -158,27 +406,45 @@ public class GrepApplication implements GrepInterface {
     public void run(String[] args, InputStream stdin, OutputStream stdout) throws GrepException {
         try {
             ArrayList<String> inputFiles;
-            String result;
 
             GrepArgsParser grepArgsParser = parseArgs(args);
+            maxCount = grepArgsParser.getMaxCount();
+            isQuiet = grepArgsParser.isQuiet();
+            isListFiles = grepArgsParser.isListFiles();
+            isContext = grepArgsParser.hasContext();
+            beforeContext = grepArgsParser.getBeforeContext();
+            afterContext = grepArgsParser.getAfterContext();
+            hasQuietMatch = false;
+            isGroupWritten = false;
 
-            String pattern = grepArgsParser.getPattern();
+            String pattern = addPatternFiles(grepArgsParser.getPattern(), grepArgsParser.getPatternFiles());
             inputFiles = new ArrayList<>(Arrays.asList(grepArgsParser.getFileNames()));
 
             checkRunExceptions(pattern, inputFiles, stdin, stdout);
 
             if (pattern.isEmpty()) {
                 throw new GrepException(E_EMPTY_PATTERN);
-            } else {
+            }
+            Boolean isPrefixFileName = grepArgsParser.isPrintFileName();
+            if (grepArgsParser.isRecursive()) {
+                // the files under a directory are searched as if they were given, and named in the output
+                String[] operands = inputFiles.toArray(new String[0]);
+                isPrefixFileName = isPrefixFileName || FileTreeWalker.hasDirectory(operands);
+                inputFiles = new ArrayList<>(FileTreeWalker.listFiles(operands));
                 if (inputFiles.isEmpty()) {
-                    result = grepFromStdin(pattern, grepArgsParser.isCaseInsensitive(), grepArgsParser.isCount(), grepArgsParser.isPrintFileName(), stdin);
-                } else {
-                    String[] inputFilesArray = new String[inputFiles.size()];
-                    inputFilesArray = inputFiles.toArray(inputFilesArray);
-                    result = grepFromFileAndStdin(pattern, grepArgsParser.isCaseInsensitive(), grepArgsParser.isCount(), grepArgsParser.isPrintFileName(), stdin, inputFilesArray);
+                    return;
                 }
             }
-            stdout.write(result.getBytes());
+            // matches go out as they are found rather than after the whole input is searched
+            Writer writer = new BufferedWriter(new OutputStreamWriter(stdout), OUTPUT_BUFFER_SIZE);
+            if (inputFiles.isEmpty()) {
+                writeFromStdin(pattern, grepArgsParser.isCaseInsensitive(), grepArgsParser.isCount(), isPrefixFileName, stdin, writer);
+            } else {
+                String[] inputFilesArray = new String[inputFiles.size()];
+                inputFilesArray = inputFiles.toArray(inputFilesArray);
+                writeFromFileAndStdin(pattern, grepArgsParser.isCaseInsensitive(), grepArgsParser.isCount(), isPrefixFileName, stdin, writer, inputFilesArray);
+            }
+            writer.flush();
         } catch (GrepException grepException) {
             throw grepException;
         } catch (IOException e) {
@@ -208,12 +474,17 @@ public class GrepApplication implements GrepInterface {
         Boolean usePrefixFileName = (isPrefixFileName || fileNames.length > 1);
 
         try {
-            for (String f : fileNames) {
-                if (("-").equals(f)) {
+            int index = 0;
+            while (index < fileNames.length) {
+                if (("-").equals(fileNames[index])) {
                     stringJoiner.add(grepFromStdin(pattern, isCaseInsensitive, isCountLines, usePrefixFileName, stdin));
-                } else {
-                    stringJoiner.add(grepFromFiles(pattern, isCaseInsensitive, isCountLines, usePrefixFileName, f));
+                    index++;
+                    continue;
                 }
+                int end = nextStdin(fileNames, index);
+                stringJoiner.add(grepFromFiles(pattern, isCaseInsensitive, isCountLines, usePrefixFileName,
+                        Arrays.copyOfRange(fileNames, index, end)));
+                index = end;
             }
         } catch (GrepException e) {
             throw e;
@@ -225,4 +496,17 @@ public class GrepApplication implements GrepInterface {
         }
         return results;
     }
+
+    /**
+     * What a file adds to the output of several files, and whether any of its lines matched.
+     */
+    private static final class FileOutput {
+        private final String text;
+        private final boolean isMatched;
+
+        private FileOutput(String text, boolean isMatched) {
+            this.text = text;
+            this.isMatched = isMatched;
+        }
+    }
 }
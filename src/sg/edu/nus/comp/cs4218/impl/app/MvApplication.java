@@ -4,6 +4,7 @@ import sg.edu.nus.comp.cs4218.app.MvInterface;
 import sg.edu.nus.comp.cs4218.exception.InvalidArgsException;
 import sg.edu.nus.comp.cs4218.exception.MvException;
 import sg.edu.nus.comp.cs4218.impl.parser.MvArgsParser;
+import sg.edu.nus.comp.cs4218.impl.util.DirectoryCache;
 import sg.edu.nus.comp.cs4218.impl.util.IOUtils;
 
 import java.io.File;
@@ -49,6 +50,8 @@ public class MvApplication implements MvInterface {
 
             if (!target.exists() || isOverwrite) {
                 Files.move(srcPath, destPath, StandardCopyOption.REPLACE_EXISTING);
+                DirectoryCache.invalidate(srcPath);
+                DirectoryCache.invalidate(destPath);
             }
 
             return null;
@@ -94,6 +97,8 @@ public class MvApplication implements MvInterface {
 
                 if (!target.exists() || isOverwrite) {
                     Files.move(srcPath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+                    DirectoryCache.invalidate(srcPath);
+                    DirectoryCache.invalidate(targetPath);
                 }
             }
             return null;
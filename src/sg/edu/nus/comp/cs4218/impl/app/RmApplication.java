@@ -6,6 +6,7 @@ import sg.edu.nus.comp.cs4218.exception.InvalidArgsException;
 import sg.edu.nus.comp.cs4218.exception.RmException;
 import sg.edu.nus.comp.cs4218.exception.ShellException;
 import sg.edu.nus.comp.cs4218.impl.parser.RmArgsParser;
+import sg.edu.nus.comp.cs4218.impl.util.DirectoryCache;
 import sg.edu.nus.comp.cs4218.impl.util.IOUtils;
 
 import java.io.File;
@@ -92,7 +93,9 @@ public class RmApplication implements RmInterface {
                 if (isEmptyFolder && folderIsEmpty) {
                     node.delete();
                 } else if (isRecursive) {
-                    if (!deleteDirectory(node)) {
+                    boolean isDeleted = deleteDirectory(node);
+                    DirectoryCache.invalidate(node.toPath());
+                    if (!isDeleted) {
                         throw new RmException(E_NULL_POINTER);
                     }
                 } else {
@@ -101,6 +104,7 @@ public class RmApplication implements RmInterface {
             } else {
                 node.delete();
             }
+            DirectoryCache.invalidate(node.toPath());
         }
     }
 
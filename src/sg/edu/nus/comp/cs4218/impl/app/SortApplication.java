@@ -5,25 +5,35 @@ import sg.edu.nus.comp.cs4218.exception.AbstractApplicationException;
 import sg.edu.nus.comp.cs4218.exception.InvalidArgsException;
 import sg.edu.nus.comp.cs4218.exception.ShellException;
 import sg.edu.nus.comp.cs4218.exception.SortException;
+import sg.edu.nus.comp.cs4218.impl.app.helper.ExternalSorter;
+import sg.edu.nus.comp.cs4218.impl.app.helper.LineMerger;
+import sg.edu.nus.comp.cs4218.impl.app.helper.SortHelper;
+import sg.edu.nus.comp.cs4218.impl.app.helper.SortOrder;
 import sg.edu.nus.comp.cs4218.impl.parser.SortArgsParser;
 import sg.edu.nus.comp.cs4218.impl.util.IOUtils;
+import sg.edu.nus.comp.cs4218.impl.util.ShellOptions;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.math.BigInteger;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Locale;
 
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_FILE_NOT_FOUND;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_IS_DIR;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NO_PERM;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NULL_ARGS;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NULL_POINTER;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_READING_FILE;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_STREAM_CLOSED;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_SYNTAX;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_TOO_MANY_ARGS;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_WRITE_STREAM;
 import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
 
@@ -31,6 +41,12 @@ public class SortApplication implements SortInterface {
 
     /**
      * Runs the sort application with the specified arguments.
+     * <p>
+     * The sorted lines are written to stdout as they are merged, and inputs larger than
+     * {@link ShellOptions#getSortMemory()} are sorted through temporary files. With <code>-m</code>, the
+     * inputs are taken to be sorted already and are only merged; with <code>-c</code>, the single input is
+     * checked to be sorted and nothing is written. Lines are compared by the fields given with
+     * <code>-k</code> and <code>-t</code>, and <code>-u</code> drops lines equal to the line before them.
      *
      * @param args   Array of arguments for the application. Each array element is the path to a
      *               file. If no files are specified stdin is used.
@@ -41,27 +57,213 @@ public class SortApplication implements SortInterface {
      */
     @Override
     public void run(String[] args, InputStream stdin, OutputStream stdout) throws AbstractApplicationException {
-        // Format: sort [-nrf] [FILES]
+        // Format: sort [-nrfmcu] [-k START[,END]] [-t DELIM] [FILES]
         if (stdout == null) {
             throw new SortException(E_NULL_POINTER);
         }
         SortArgsParser sortArgs = parseArgs(args);
-        StringBuilder output = new StringBuilder();
-        try {
+        SortOrder order = new SortOrder(sortArgs.isFirstWordNumber(), sortArgs.isReverseOrder(),
+                sortArgs.isCaseIndependent(), sortArgs.isUnique(), sortArgs.getKeyFields(), sortArgs.getDelimiter(),
+                ShellOptions.getSortLocale());
+        if (sortArgs.isCheck() && sortArgs.isMerge()) {
+            throw new SortException(E_SYNTAX);
+        }
+        if (sortArgs.isCheck()) {
+            checkSorted(order, sortArgs.getFiles(), stdin);
+            return;
+        }
+        if (sortArgs.isMerge()) {
+            mergeSorted(order, sortArgs.getFiles(), stdin, stdout);
+            return;
+        }
+        try (ExternalSorter sorter = new ExternalSorter(order, ShellOptions.getSortMemory())) {
             if (sortArgs.isReadingFromStdin()) {
-                output.append(sortFromStdin(sortArgs.isFirstWordNumber(), sortArgs.isReverseOrder(), sortArgs.isCaseIndependent(), stdin));
+                if (stdin == null) {
+                    throw new SortException(E_NULL_POINTER);
+                }
+                addLines(sorter, stdin);
             } else {
-                output.append(sortFromFiles(sortArgs.isFirstWordNumber(), sortArgs.isReverseOrder(), sortArgs.isCaseIndependent(), sortArgs.getFiles().toArray(new String[0])));
+                String[] fileNames = sortArgs.getFiles().toArray(new String[0]);
+                for (String file : fileNames) {
+                    checkReadable(file);
+                }
+                for (String file : fileNames) {
+                    InputStream input = IOUtils.openInputStream(file);
+                    try {
+                        addLines(sorter, input);
+                    } finally {
+                        IOUtils.closeInputStream(input);
+                    }
+                }
+            }
+            try {
+                sorter.writeTo(stdout);
+            } catch (IOException e) {
+                throw new SortException(E_WRITE_STREAM, e);
             }
-        } catch (SortException e) {
-            throw e;
+        } catch (ShellException e) {
+            throw new SortException(e.getMessage(), e);
         }
+    }
+
+    /**
+     * Reads every line of input into sorter.
+     */
+    private void addLines(ExternalSorter sorter, InputStream input) throws SortException {
+        InputStream remainder;
         try {
-            if (!output.toString().isEmpty()) {
-                stdout.write(output.toString().getBytes());
+            remainder = sorter.readBytes(input);
+        } catch (IOException e) {
+            throw new SortException(E_STREAM_CLOSED, e);
+        }
+        if (remainder == null) {
+            return;
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(remainder));
+        while (true) {
+            String line;
+            try {
+                line = reader.readLine();
+            } catch (IOException e) {
+                throw new SortException(E_STREAM_CLOSED, e);
+            }
+            if (line == null) {
+                return;
+            }
+            try {
+                sorter.add(line);
+            } catch (IOException e) {
+                throw new SortException(E_WRITE_STREAM, e);
+            }
+        }
+    }
+
+    /**
+     * Writes the lines of inputs that are each sorted in order, merged into one sorted sequence. Only the
+     * next line of every input is held in memory. "-" and no inputs stand for stdin.
+     */
+    private void mergeSorted(SortOrder order, List<String> files, InputStream stdin, OutputStream stdout)
+            throws SortException {
+        List<String> names = files.isEmpty() ? List.of("-") : files;
+        List<InputStream> inputs = new ArrayList<>();
+        List<MergeInput> readers = new ArrayList<>();
+        try {
+            for (String name : names) {
+                if (!"-".equals(name)) {
+                    checkReadable(name);
+                }
+            }
+            try {
+                for (String name : names) {
+                    InputStream input = openInput(name, stdin);
+                    inputs.add(input);
+                    readers.add(new MergeInput(input));
+                }
+                Writer writer = new BufferedWriter(new OutputStreamWriter(stdout));
+                if (LineMerger.merge(new ArrayList<>(readers), order, writer, STRING_NEWLINE) == 0) {
+                    writer.write(STRING_NEWLINE);
+                }
+                writer.flush();
+            } finally {
+                for (InputStream input : inputs) {
+                    if (input != stdin) {
+                        IOUtils.closeInputStream(input);
+                    }
+                }
             }
         } catch (IOException e) {
-            throw new SortException(E_WRITE_STREAM, e);
+            boolean isReadFailure = readers.stream().anyMatch(reader -> reader.isFailed);
+            throw new SortException(isReadFailure ? E_READING_FILE : E_WRITE_STREAM, e);
+        } catch (ShellException e) {
+            throw new SortException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reader of one input of a merge that remembers whether reading it failed, so that the failure is
+     * reported as a read error rather than as a failure to write the merged lines.
+     */
+    private static final class MergeInput extends BufferedReader {
+        private boolean isFailed;
+
+        private MergeInput(InputStream input) {
+            super(new InputStreamReader(input));
+        }
+
+        @Override
+        public String readLine() throws IOException {
+            try {
+                return super.readLine();
+            } catch (IOException e) {
+                isFailed = true;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Checks in one pass, without storing lines, that the lines of the single input are sorted in order,
+     * and with <code>-u</code> that no two are equal, throwing an exception that names the first line out
+     * of order. "-" and no input stand for stdin.
+     */
+    private void checkSorted(SortOrder order, List<String> files, InputStream stdin) throws SortException {
+        if (files.size() > 1) {
+            throw new SortException(E_TOO_MANY_ARGS);
+        }
+        String name = files.isEmpty() ? "-" : files.get(0);
+        try {
+            if (!"-".equals(name)) {
+                checkReadable(name);
+            }
+            InputStream input = openInput(name, stdin);
+            try {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(input));
+                SortOrder.Key previous = null;
+                long lineNumber = 0;
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    lineNumber++;
+                    SortOrder.Key current = order.keyOf(line, 0);
+                    if (previous != null) {
+                        int result = order.compare(previous, current);
+                        boolean isDisordered = order.isReverseOrder() ? result < 0 : result > 0;
+                        if (isDisordered || order.isUnique() && result == 0) {
+                            throw new SortException(name + ":" + lineNumber + ": disorder: " + line);
+                        }
+                    }
+                    previous = current;
+                }
+            } finally {
+                if (input != stdin) {
+                    IOUtils.closeInputStream(input);
+                }
+            }
+        } catch (IOException e) {
+            throw new SortException(E_STREAM_CLOSED, e);
+        } catch (ShellException e) {
+            throw new SortException(e.getMessage(), e);
+        }
+    }
+
+    private InputStream openInput(String name, InputStream stdin) throws SortException, ShellException {
+        if (!"-".equals(name)) {
+            return IOUtils.openInputStream(name);
+        }
+        if (stdin == null) {
+            throw new SortException(E_NULL_POINTER);
+        }
+        return stdin;
+    }
+
+    private void checkReadable(String file) throws SortException, ShellException {
+        File node = IOUtils.resolveFilePath(file).toFile();
+        if (!node.exists()) {
+            throw new SortException(node.getName() + ": " + E_FILE_NOT_FOUND);
+        }
+        if (node.isDirectory()) {
+            throw new SortException(node.getName() + ": " + E_IS_DIR);
+        }
+        if (!node.canRead()) {
+            throw new SortException(node.getName() + ": " + E_NO_PERM);
         }
     }
 
@@ -99,16 +301,7 @@ public class SortApplication implements SortInterface {
         List<String> lines = new ArrayList<>();
         try {
             for (String file : fileNames) {
-                File node = IOUtils.resolveFilePath(file).toFile();
-                if (!node.exists()) {
-                    throw new SortException(node.getName() + ": " + E_FILE_NOT_FOUND);
-                }
-                if (node.isDirectory()) {
-                    throw new SortException(node.getName() + ": " + E_IS_DIR);
-                }
-                if (!node.canRead()) {
-                    throw new SortException(node.getName() + ": " + E_NO_PERM);
-                }
+                checkReadable(file);
                 InputStream input = IOUtils.openInputStream(file);
                 lines.addAll(IOUtils.getLinesFromInputStream(input));
                 IOUtils.closeInputStream(input);
@@ -154,44 +347,8 @@ public class SortApplication implements SortInterface {
      */
     protected void sortInputString(Boolean isFirstWordNumber, Boolean isReverseOrder, Boolean isCaseIndependent,
                                    List<String> input) {
-        Collections.sort(input, new Comparator<String>() {
-            @Override
-            public int compare(String str1, String str2) {
-                String temp1 = isCaseIndependent ? str1.toLowerCase(Locale.ENGLISH) : str1;
-                String temp2 = isCaseIndependent ? str2.toLowerCase(Locale.ENGLISH) : str2;
-
-                // Extract the first group of numbers if possible.
-                if (isFirstWordNumber && !temp1.isEmpty() && !temp2.isEmpty()) {
-                    String chunk1 = getChunk(temp1);
-                    String chunk2 = getChunk(temp2);
-
-                    char chunk1FirstChar = chunk1.length() == 1
-                            ? chunk1.charAt(0)
-                            : chunk1.charAt(0) == '-' ? chunk1.charAt(1) : chunk1.charAt(0);
-                    char chunk2FirstChar = chunk2.length() == 1
-                            ? chunk2.charAt(0)
-                            : chunk2.charAt(0) == '-' ? chunk2.charAt(1) : chunk2.charAt(0);
-
-                    // If both chunks can be represented as numbers, sort them numerically.
-                    int result = 0;
-
-                    if (Character.isDigit(chunk1FirstChar) && Character.isDigit(chunk2FirstChar)) {
-                        result = new BigInteger(chunk1).compareTo(new BigInteger(chunk2));
-                    } else {
-                        result = chunk1.compareTo(chunk2);
-                    }
-                    if (result != 0) {
-                        return result;
-                    }
-                    return temp1.substring(chunk1.length()).compareTo(temp2.substring(chunk2.length()));
-                }
-
-                return temp1.compareTo(temp2);
-            }
-        });
-        if (isReverseOrder) {
-            Collections.reverse(input);
-        }
+        new SortOrder(isFirstWordNumber, isReverseOrder, isCaseIndependent, false, List.of(), null,
+                ShellOptions.getSortLocale()).sort(input);
     }
 
     /**
@@ -200,19 +357,6 @@ public class SortApplication implements SortInterface {
      * @param str Input string to read from
      */
     protected String getChunk(String str) {
-        int startIndexLocal = 0;
-        StringBuilder chunk = new StringBuilder();
-        final int strLen = str.length();
-        char chr = str.charAt(startIndexLocal++);
-        chunk.append(chr);
-        final boolean extractDigit = Character.isDigit(chr) || chr == '-';
-        while (startIndexLocal < strLen) {
-            char nextChr = str.charAt(startIndexLocal++);
-            if ((extractDigit && !Character.isDigit(nextChr)) || (!extractDigit && Character.isDigit(nextChr))) {
-                break;
-            }
-            chunk.append(nextChr);
-        }
-        return chunk.toString();
+        return SortHelper.getChunk(str);
     }
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import sg.edu.nus.comp.cs4218.exception.InvalidArgsException;
 import sg.edu.nus.comp.cs4218.exception.ShellException;
 import sg.edu.nus.comp.cs4218.exception.TeeException;
 import sg.edu.nus.comp.cs4218.impl.parser.TeeArgsParser;
+import sg.edu.nus.comp.cs4218.impl.util.DirectoryCache;
 import sg.edu.nus.comp.cs4218.impl.util.IOUtils;
 
 import java.io.BufferedWriter;
@@ -105,7 +106,9 @@ public class TeeApplication implements TeeInterface {
         File node;
         try {
             node = IOUtils.resolveFilePath(file).toFile();
-            node.createNewFile();
+            if (node.createNewFile()) {
+                DirectoryCache.invalidate(node.toPath());
+            }
         } catch (ShellException | IOException e) {
             throw new TeeException(e.getMessage(), e);
         }
@@ -0,0 +1,182 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Finds any of a set of fixed strings in lines with an Aho-Corasick automaton, for grep patterns that are
+ * alternations of plain text, such as the pattern a set of plain text patterns given with -e or -f
+ * compiles to.
+ * <p>
+ * A pattern is such an alternation if it has at least two alternatives separated by '|', none of them
+ * empty, and is otherwise plain text as {@link LiteralSearcher} takes it. A line contains a match of the
+ * pattern exactly when it contains one of the alternatives, which the automaton finds in a single pass
+ * over the line, however many alternatives there are.
+ * <p>
+ * The automaton is a complete transition table in one int array, one row per state and one column per
+ * class of characters: every character of the alternatives has its own class, and every other character
+ * shares class 0, which leads back to the start. A case-insensitive pattern puts both cases of an ASCII
+ * letter in one class, and folds no other characters, as the regex engine does without
+ * {@link Pattern#UNICODE_CASE}.
+ * <p>
+ * Instances are immutable and may be shared between threads.
+ */
+public final class AhoCorasickSearcher {
+    private static final String ALTERNATION = "\\|";
+
+    /**
+     * The searcher last built, as lines are searched in chunks that each look up the searcher again.
+     */
+    private static volatile AhoCorasickSearcher lastBuilt;
+
+    private final Pattern compiledPattern;
+    /**
+     * Class of each character up to the largest one in the alternatives.
+     */
+    private final int[] charClasses;
+    private final int classCount;
+    /**
+     * Next state of each state and class, at index state * classCount + class.
+     */
+    private final int[] transitions;
+    /**
+     * Whether a state ends an alternative, itself or through a suffix.
+     */
+    private final boolean[] isMatch;
+
+    private AhoCorasickSearcher(Pattern compiledPattern, List<String> alternatives, boolean isCaseInsensitive) {
+        this.compiledPattern = compiledPattern;
+        char maxChar = 0;
+        for (String alternative : alternatives) {
+            for (int i = 0; i < alternative.length(); i++) {
+                maxChar = (char) Math.max(maxChar, fold(alternative.charAt(i), isCaseInsensitive));
+            }
+        }
+        this.charClasses = new int[maxChar + 1];
+        int classes = 1;
+        for (String alternative : alternatives) {
+            for (int i = 0; i < alternative.length(); i++) {
+                char c = fold(alternative.charAt(i), isCaseInsensitive);
+                if (charClasses[c] == 0) {
+                    charClasses[c] = classes++;
+                }
+            }
+        }
+        if (isCaseInsensitive) {
+            for (char c = 'A'; c <= 'Z'; c++) {
+                char lower = fold(c, true);
+                if (lower <= maxChar) {
+                    charClasses[c] = charClasses[lower];
+                }
+            }
+        }
+        this.classCount = classes;
+
+        int maxStates = 1;
+        for (String alternative : alternatives) {
+            maxStates += alternative.length();
+        }
+        int[] table = new int[maxStates * classCount];
+        Arrays.fill(table, -1);
+        boolean[] matches = new boolean[maxStates];
+        int states = 1;
+        for (String alternative : alternatives) {
+            int state = 0;
+            for (int i = 0; i < alternative.length(); i++) {
+                int index = state * classCount + charClasses[fold(alternative.charAt(i), isCaseInsensitive)];
+                if (table[index] < 0) {
+                    table[index] = states++;
+                }
+                state = table[index];
+            }
+            matches[state] = true;
+        }
+        this.transitions = Arrays.copyOf(table, states * classCount);
+        this.isMatch = Arrays.copyOf(matches, states);
+        completeTransitions(states);
+    }
+
+    /**
+     * Turns the trie into a complete automaton, visiting states breadth first so that the state a missing
+     * transition falls back to is complete before it is used.
+     */
+    private void completeTransitions(int states) {
+        int[] fallbacks = new int[states];
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        for (int c = 0; c < classCount; c++) {
+            int next = transitions[c];
+            if (next > 0) {
+                fallbacks[next] = 0;
+                queue[tail++] = next;
+            } else {
+                transitions[c] = 0;
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            int row = state * classCount;
+            int fallbackRow = fallbacks[state] * classCount;
+            for (int c = 0; c < classCount; c++) {
+                int next = transitions[row + c];
+                if (next < 0) {
+                    transitions[row + c] = transitions[fallbackRow + c];
+                } else {
+                    fallbacks[next] = transitions[fallbackRow + c];
+                    isMatch[next] |= isMatch[fallbacks[next]];
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a searcher that finds the same lines as compiledPattern, or null if the pattern is not an
+     * alternation of plain text.
+     */
+    public static AhoCorasickSearcher forPattern(Pattern compiledPattern) {
+        AhoCorasickSearcher last = lastBuilt;
+        if (last != null && last.compiledPattern == compiledPattern) {
+            return last;
+        }
+        if ((compiledPattern.flags() & ~Pattern.CASE_INSENSITIVE) != 0) {
+            return null;
+        }
+        String[] alternatives = compiledPattern.pattern().split(ALTERNATION, -1);
+        if (alternatives.length < 2) {
+            return null;
+        }
+        for (String alternative : alternatives) {
+            if (!LiteralSearcher.isPlainText(alternative)) {
+                return null;
+            }
+        }
+        AhoCorasickSearcher searcher = new AhoCorasickSearcher(compiledPattern, Arrays.asList(alternatives),
+                (compiledPattern.flags() & Pattern.CASE_INSENSITIVE) != 0);
+        lastBuilt = searcher;
+        return searcher;
+    }
+
+    /**
+     * Returns whether line contains any of the alternatives, ignoring the case of ASCII letters if
+     * case-insensitive.
+     */
+    public boolean find(String line) {
+        int state = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            int charClass = c < charClasses.length ? charClasses[c] : 0;
+            state = transitions[state * classCount + charClass];
+            if (isMatch[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static char fold(char c, boolean isCaseInsensitive) {
+        return isCaseInsensitive && c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
@@ -0,0 +1,164 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.BitSet;
+import java.util.List;
+
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
+
+/**
+ * Writes the matched lines of one input with the lines before and after them, as grep -A, -B and -C do.
+ * Lines are given in input order, a chunk at a time, each marked as matched or not.
+ * <p>
+ * The lines before a match are held in a ring buffer of line slots that only ever holds the last
+ * beforeContext lines not yet written, so memory does not grow with the size of the input. Slots are
+ * allocated up front, up to {@link #MAX_PREALLOCATED_SLOTS}; a larger context grows the ring as it fills.
+ * A line is written at most once: windows that overlap or touch are merged into one group, and groups
+ * with lines between them are separated by a {@link #GROUP_SEPARATOR} line.
+ * <p>
+ * Matched lines are preceded by prefix and context lines by contextPrefix. After maxCount matched lines,
+ * only the trailing context of the last one is written.
+ */
+public final class ContextLineWriter {
+    public static final String GROUP_SEPARATOR = "--";
+    private static final int MAX_PREALLOCATED_SLOTS = 1024;
+
+    private final String prefix;
+    private final String contextPrefix;
+    private final int beforeContext;
+    private final int afterContext;
+    private final long maxCount;
+    private final boolean isAfterGroup;
+    private final Writer writer;
+
+    private String[] slots;
+    private int head;
+    private int size;
+    private long lineNumber;
+    /**
+     * Number of the last line written, or -1 if none is.
+     */
+    private long lastWritten = -1;
+    private int afterRemaining;
+    private long count;
+
+    /**
+     * @param prefix        String to add in front of every matched line, may be empty
+     * @param contextPrefix String to add in front of every context line, may be empty
+     * @param beforeContext number of lines to write before each matched line
+     * @param afterContext  number of lines to write after each matched line
+     * @param maxCount      largest number of matched lines to write
+     * @param isAfterGroup  whether a group of an earlier input was written, so that the first group of this
+     *                      one is separated from it
+     * @param writer        Writer that the lines are written to
+     */
+    public ContextLineWriter(String prefix, String contextPrefix, int beforeContext, int afterContext,
+                             long maxCount, boolean isAfterGroup, Writer writer) {
+        this.prefix = prefix;
+        this.contextPrefix = contextPrefix;
+        this.beforeContext = Math.max(0, beforeContext);
+        this.afterContext = Math.max(0, afterContext);
+        this.maxCount = maxCount;
+        this.isAfterGroup = isAfterGroup;
+        this.writer = writer;
+        this.slots = new String[Math.min(this.beforeContext, MAX_PREALLOCATED_SLOTS)];
+    }
+
+    /**
+     * Writes the lines of the next chunk of the input that belong to a group, and holds the rest that may
+     * precede a later match.
+     *
+     * @param lines   consecutive lines of the input, following those of the previous chunk
+     * @param matches indices of the lines that contain a match
+     * @throws IOException if the writer cannot be written
+     */
+    public void write(List<String> lines, BitSet matches) throws IOException {
+        for (int i = 0; i < lines.size() && !isFinished(); i++) {
+            String line = lines.get(i);
+            if (matches.get(i) && count < maxCount) {
+                writeBeforeContext();
+                writeLine(prefix, line);
+                count++;
+                afterRemaining = afterContext;
+            } else if (afterRemaining > 0) {
+                writeLine(contextPrefix, line);
+                afterRemaining--;
+            } else {
+                hold(line);
+            }
+            lineNumber++;
+        }
+    }
+
+    /**
+     * Returns whether every line to write is written, so that the rest of the input need not be read.
+     */
+    public boolean isFinished() {
+        return count >= maxCount && afterRemaining == 0;
+    }
+
+    /**
+     * Returns the number of matched lines written.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public long getMaxCount() {
+        return maxCount;
+    }
+
+    /**
+     * Writes the held lines before the current line, after a separator if a line was skipped since the
+     * last group.
+     */
+    private void writeBeforeContext() throws IOException {
+        long first = lineNumber - size;
+        boolean isSeparated = lastWritten < 0 ? isAfterGroup : first > lastWritten + 1;
+        if (isSeparated) {
+            writer.write(GROUP_SEPARATOR);
+            writer.write(STRING_NEWLINE);
+        }
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % slots.length;
+            writer.write(contextPrefix);
+            writer.write(slots[slot]);
+            writer.write(STRING_NEWLINE);
+            slots[slot] = null;
+        }
+        head = 0;
+        size = 0;
+    }
+
+    private void writeLine(String linePrefix, String line) throws IOException {
+        writer.write(linePrefix);
+        writer.write(line);
+        writer.write(STRING_NEWLINE);
+        lastWritten = lineNumber;
+    }
+
+    /**
+     * Holds line in the ring, in place of the oldest line held once it holds beforeContext lines.
+     */
+    private void hold(String line) {
+        if (beforeContext == 0) {
+            return;
+        }
+        if (size == beforeContext) {
+            slots[head] = line;
+            head = (head + 1) % slots.length;
+            return;
+        }
+        if (size == slots.length) {
+            String[] grown = new String[(int) Math.min(beforeContext, 2L * slots.length)];
+            for (int i = 0; i < size; i++) {
+                grown[i] = slots[(head + i) % slots.length];
+            }
+            slots = grown;
+            head = 0;
+        }
+        slots[(head + size) % slots.length] = line;
+        size++;
+    }
+}
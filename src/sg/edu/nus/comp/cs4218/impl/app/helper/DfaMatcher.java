@@ -0,0 +1,334 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Finds matches of a regular grep pattern in lines in time linear in the length of the line, whatever the
+ * pattern, by running its {@link NfaProgram} as a lazily built DFA. The regex engine backtracks, and takes
+ * time exponential in the length of the line for patterns such as <code>(a|aa)*b</code>.
+ * <p>
+ * Each DFA state is a set of NFA states, built the first time a transition leads to it and cached. The cache
+ * is bounded: once it holds as many states as its table has room for, it is cleared and built again from the
+ * states in use. A pattern whose DFA keeps filling the cache makes this matcher switch to simulating the NFA
+ * on sets of states, which builds nothing. Either way every character of a line costs at most one step over
+ * every NFA state.
+ * <p>
+ * '^' only holds at the start of a line, which the start state alone takes into account. '$' only holds in
+ * the last two positions of a line at most, which the DFA does not cover: they are matched by simulating the
+ * NFA.
+ * <p>
+ * Lines are read by code point, as the regex engine reads them: a surrogate pair is one character and a lone
+ * surrogate is a character of its own.
+ * <p>
+ * The cache makes instances unsafe to share between threads; the compiled program is shared.
+ */
+public final class DfaMatcher {
+    /**
+     * Most entries of the transition table of the cache.
+     */
+    private static final int MAX_TABLE_SIZE = 1 << 20;
+    private static final int MIN_CACHED_STATES = 16;
+    /**
+     * Times the cache may be cleared before the DFA is given up for the NFA.
+     */
+    private static final int MAX_CACHE_RESETS = 8;
+    private static final int UNKNOWN = -1;
+
+    /**
+     * The pattern last compiled and its program, or null if it is not regular, as lines are matched in
+     * chunks that each look up the matcher again.
+     */
+    private static volatile Compiled lastCompiled;
+
+    private final NfaProgram program;
+    private final int classCount;
+    private final int maxStates;
+    /**
+     * Marks of the states visited by the closure being computed.
+     */
+    private final int[] visited;
+    private int visitMark;
+    private final int[] stack;
+    private final int[] closureStates;
+
+    private final Map<StateSet, Integer> stateIds = new HashMap<>();
+    private final List<int[]> stateSets = new ArrayList<>();
+    private boolean[] isMatch = new boolean[MIN_CACHED_STATES];
+    /**
+     * Next DFA state of each state and class, at index state * classCount + class, or UNKNOWN.
+     */
+    private int[] transitions;
+    private int startState;
+    private int cacheResets;
+    private boolean isNfaOnly;
+
+    private DfaMatcher(NfaProgram program) {
+        this.program = program;
+        this.classCount = program.classCount;
+        this.maxStates = Math.max(MIN_CACHED_STATES, MAX_TABLE_SIZE / classCount);
+        this.visited = new int[program.types.length];
+        this.stack = new int[program.types.length];
+        this.closureStates = new int[program.types.length];
+        this.transitions = new int[MIN_CACHED_STATES * classCount];
+        resetCache();
+    }
+
+    /**
+     * Returns a new matcher that finds the same lines as compiledPattern, or null if the pattern is not
+     * regular as {@link NfaProgram} takes it.
+     */
+    public static DfaMatcher forPattern(Pattern compiledPattern) {
+        NfaProgram program = compile(compiledPattern);
+        return program == null ? null : new DfaMatcher(program);
+    }
+
+    /**
+     * Returns whether the pattern is regular as {@link NfaProgram} takes it, so that this matcher finds it.
+     */
+    public static boolean isSupported(Pattern compiledPattern) {
+        return compile(compiledPattern) != null;
+    }
+
+    private static NfaProgram compile(Pattern compiledPattern) {
+        Compiled last = lastCompiled;
+        if (last != null && last.compiledPattern == compiledPattern) {
+            return last.program;
+        }
+        NfaProgram program = NfaProgram.compile(compiledPattern);
+        lastCompiled = new Compiled(compiledPattern, program);
+        return program;
+    }
+
+    /**
+     * Returns whether line contains a match of the pattern.
+     */
+    public boolean find(String line) {
+        int length = line.length();
+        int dfaEnd = length;
+        if (program.hasEnd) {
+            // '$' holds at most at the last two positions
+            for (int i = Math.max(0, length - 2); i <= length; i++) {
+                if (NfaProgram.isDollarAt(line, i)) {
+                    dfaEnd = i;
+                    break;
+                }
+            }
+        }
+        if (isNfaOnly) {
+            return simulate(line, 0, new int[]{program.start});
+        }
+        int state = startState;
+        if (isMatch[state]) {
+            return true;
+        }
+        int i = 0;
+        while (i < dfaEnd) {
+            int codePoint = line.codePointAt(i);
+            int next = transitions[state * classCount + program.classOf(codePoint)];
+            if (next == UNKNOWN) {
+                int[] set = stateSets.get(state);
+                next = addTransition(state, program.classOf(codePoint));
+                if (isNfaOnly) {
+                    return simulate(line, i, set);
+                }
+            }
+            state = next;
+            i += Character.charCount(codePoint);
+            if (isMatch[state]) {
+                return true;
+            }
+        }
+        return program.hasEnd && simulate(line, i, stateSets.get(state));
+    }
+
+    /**
+     * Simulates the NFA on line from index, starting from the given states, which are closed but for the
+     * END states left pending.
+     */
+    private boolean simulate(String line, int index, int[] states) {
+        int i = index;
+        int[] current = closure(states, i == 0, NfaProgram.isDollarAt(line, i));
+        while (true) {
+            if (containsMatch(current)) {
+                return true;
+            }
+            if (i >= line.length()) {
+                return false;
+            }
+            int codePoint = line.codePointAt(i);
+            int[] seeds = step(current, program.classOf(codePoint));
+            i += Character.charCount(codePoint);
+            current = closure(seeds, false, NfaProgram.isDollarAt(line, i));
+        }
+    }
+
+    /**
+     * Computes, caches and returns the DFA state that state leads to on a character of the class, or returns
+     * UNKNOWN if the cache is given up for the NFA.
+     */
+    private int addTransition(int state, int charClass) {
+        int[] set = stateSets.get(state);
+        int[] next = closure(step(set, charClass), false, false);
+        int from = state;
+        if (stateSets.size() >= maxStates && !stateIds.containsKey(new StateSet(next))) {
+            if (++cacheResets > MAX_CACHE_RESETS) {
+                isNfaOnly = true;
+                return UNKNOWN;
+            }
+            resetCache();
+            from = intern(set);
+        }
+        int nextState = intern(next);
+        transitions[from * classCount + charClass] = nextState;
+        return nextState;
+    }
+
+    /**
+     * Returns the seeds of the next closure: the states that CHAR states of set lead to on a character of
+     * the class, and the start of the program, as a match may start at any position.
+     */
+    private int[] step(int[] set, int charClass) {
+        int[] seeds = new int[set.length + 1];
+        int size = 0;
+        for (int state : set) {
+            if (program.types[state] == NfaProgram.CHAR
+                    && program.accepts[state * classCount + charClass]) {
+                seeds[size++] = program.outs[state];
+            }
+        }
+        seeds[size++] = program.start;
+        return Arrays.copyOf(seeds, size);
+    }
+
+    /**
+     * Returns the sorted CHAR, MATCH and pending END states reachable from seeds without reading a character,
+     * following BEGIN states if at the start of the line and END states if '$' holds.
+     */
+    private int[] closure(int[] seeds, boolean isAtStart, boolean isAtEnd) {
+        if (++visitMark == 0) {
+            Arrays.fill(visited, 0);
+            visitMark = 1;
+        }
+        int size = 0;
+        int top = 0;
+        for (int seed : seeds) {
+            top = push(seed, top);
+        }
+        while (top > 0) {
+            int state = stack[--top];
+            switch (program.types[state]) {
+            case NfaProgram.SPLIT:
+                top = push(program.alternativeOuts[state], top);
+                top = push(program.outs[state], top);
+                break;
+            case NfaProgram.BEGIN:
+                if (isAtStart) {
+                    top = push(program.outs[state], top);
+                }
+                break;
+            case NfaProgram.END:
+                if (isAtEnd) {
+                    top = push(program.outs[state], top);
+                } else {
+                    closureStates[size++] = state;
+                }
+                break;
+            default:
+                closureStates[size++] = state;
+                break;
+            }
+        }
+        int[] set = Arrays.copyOf(closureStates, size);
+        Arrays.sort(set);
+        return set;
+    }
+
+    /**
+     * Pushes state on the stack of the closure unless it was visited, and returns the new top.
+     */
+    private int push(int state, int top) {
+        if (visited[state] == visitMark) {
+            return top;
+        }
+        visited[state] = visitMark;
+        stack[top] = state;
+        return top + 1;
+    }
+
+    private boolean containsMatch(int[] set) {
+        for (int state : set) {
+            if (program.types[state] == NfaProgram.MATCH) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int intern(int[] set) {
+        StateSet key = new StateSet(set);
+        Integer id = stateIds.get(key);
+        if (id != null) {
+            return id;
+        }
+        int state = stateSets.size();
+        if ((state + 1) * classCount > transitions.length) {
+            int capacity = Math.min(maxStates, 2 * (state + 1));
+            int oldLength = transitions.length;
+            transitions = Arrays.copyOf(transitions, capacity * classCount);
+            Arrays.fill(transitions, oldLength, transitions.length, UNKNOWN);
+            isMatch = Arrays.copyOf(isMatch, capacity);
+        }
+        stateIds.put(key, state);
+        stateSets.add(set);
+        isMatch[state] = containsMatch(set);
+        return state;
+    }
+
+    private void resetCache() {
+        stateIds.clear();
+        stateSets.clear();
+        Arrays.fill(transitions, UNKNOWN);
+        startState = intern(closure(new int[]{program.start}, true, false));
+    }
+
+    /**
+     * A pattern and its program, null if the pattern is not regular.
+     */
+    private static final class Compiled {
+        private final Pattern compiledPattern;
+        private final NfaProgram program;
+
+        private Compiled(Pattern compiledPattern, NfaProgram program) {
+            this.compiledPattern = compiledPattern;
+            this.program = program;
+        }
+    }
+
+    /**
+     * A sorted set of NFA states, as the key of a DFA state.
+     */
+    private static final class StateSet {
+        private final int[] states;
+        private final int hash;
+
+        private StateSet(int[] states) {
+            this.states = states;
+            this.hash = Arrays.hashCode(states);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof StateSet && Arrays.equals(states, ((StateSet) other).states);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
+
+/**
+ * Sorts any number of lines within a memory budget.
+ * <p>
+ * Lines are collected until their estimated size reaches the budget. They are then sorted and written to
+ * a temporary file as one run. At the end, the runs are merged through a heap straight into the output,
+ * at most MAX_MERGE_WIDTH at a time. Input that fits the budget is sorted in memory without temporary
+ * files.
+ * <p>
+ * The result is the same as sorting all the lines stably and, in reverse order, reversing them: lines
+ * that compare equal keep their input order, or the opposite order when reversed. The memory budget
+ * includes the sort keys of {@link SortOrder}.
+ * <p>
+ * In the default order, input read through {@link #readBytes} is kept as raw bytes and sorted by a
+ * {@link RadixSorter}, for as long as it fits the budget and its byte order is its order as Strings.
+ */
+public final class ExternalSorter implements Closeable {
+    static final int MAX_MERGE_WIDTH = 64;
+
+    /**
+     * Approximate bytes taken by a line besides its characters: the String and array headers, and the
+     * reference to it.
+     */
+    private static final int LINE_OVERHEAD = 64;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SortOrder order;
+    private final long memoryBudget;
+    private final List<String> lines = new ArrayList<>();
+    private final List<Path> runs = new ArrayList<>();
+    private long memoryUsed;
+    private RadixSorter radixSorter;
+    private RadixSorter pendingLines;
+
+    /**
+     * @param order        Order of the lines
+     * @param memoryBudget Approximate number of bytes of lines to hold in memory
+     */
+    public ExternalSorter(SortOrder order, long memoryBudget) {
+        this.order = order;
+        this.memoryBudget = memoryBudget;
+        Charset charset = Charset.defaultCharset();
+        if (!order.hasKeys() && RadixSorter.isSupported(charset)) {
+            radixSorter = new RadixSorter(charset, memoryBudget);
+        }
+    }
+
+    /**
+     * Reads the lines of input in the default charset as raw bytes, if they can still be sorted by them.
+     * Otherwise, returns a stream of the part of input not read, whose lines must be passed to
+     * {@link #add}.
+     *
+     * @return Null if every line of input was read, or else the rest of input
+     * @throws IOException If input cannot be read
+     */
+    public InputStream readBytes(InputStream input) throws IOException {
+        if (radixSorter == null) {
+            return input;
+        }
+        if (radixSorter.read(input)) {
+            return null;
+        }
+        InputStream remainder = radixSorter.getRemainder(input);
+        leaveByteMode();
+        return remainder;
+    }
+
+    /**
+     * Adds a line, which must not contain line terminators, spilling a run if the budget is reached.
+     *
+     * @throws IOException If a run cannot be written
+     */
+    public void add(String line) throws IOException {
+        leaveByteMode();
+        addPendingLines();
+        lines.add(line);
+        memoryUsed += LINE_OVERHEAD + 2L * line.length() + order.estimateKeySize(line);
+        if (memoryUsed >= memoryBudget) {
+            spill();
+        }
+    }
+
+    /**
+     * Writes every line added so far in sorted order, each followed by a newline. Like sort, writes a
+     * single newline if there are no lines. The output is flushed but not closed.
+     *
+     * @throws IOException If the runs cannot be read or output cannot be written
+     */
+    public void writeTo(OutputStream output) throws IOException {
+        if (radixSorter != null && radixSorter.isByteOrderExact()) {
+            radixSorter.writeTo(output, order.isReverseOrder(), order.isUnique());
+            return;
+        }
+        leaveByteMode();
+        addPendingLines();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output), BUFFER_SIZE);
+        boolean isEmpty;
+        if (runs.isEmpty()) {
+            order.sort(lines);
+            isEmpty = lines.isEmpty();
+            for (String line : lines) {
+                writer.write(line);
+                writer.write(STRING_NEWLINE);
+            }
+        } else {
+            if (!lines.isEmpty()) {
+                spill();
+            }
+            while (runs.size() > MAX_MERGE_WIDTH) {
+                mergePass();
+            }
+            isEmpty = false;
+            merge(runs, writer, STRING_NEWLINE);
+        }
+        if (isEmpty) {
+            writer.write(STRING_NEWLINE);
+        }
+        writer.flush();
+    }
+
+    int getRunCount() {
+        return runs.size();
+    }
+
+    /**
+     * Deletes the temporary files of the runs.
+     */
+    @Override
+    public void close() {
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException e) {
+                // left for the operating system to clean up
+            }
+        }
+        runs.clear();
+    }
+
+    /**
+     * Stops keeping lines as bytes. The lines kept so far are added as Strings by {@link #addPendingLines}.
+     */
+    private void leaveByteMode() {
+        if (radixSorter != null) {
+            pendingLines = radixSorter;
+            radixSorter = null;
+        }
+    }
+
+    private void addPendingLines() throws IOException {
+        if (pendingLines == null) {
+            return;
+        }
+        RadixSorter source = pendingLines;
+        pendingLines = null;
+        for (int i = 0; i < source.getLineCount(); i++) {
+            add(source.getLine(i));
+        }
+    }
+
+    private void spill() throws IOException {
+        order.sort(lines);
+        Path run = createRun();
+        try (Writer writer = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        lines.clear();
+        memoryUsed = 0;
+    }
+
+    private Path createRun() throws IOException {
+        Path run = Files.createTempFile("sort", ".run");
+        run.toFile().deleteOnExit();
+        runs.add(run);
+        return run;
+    }
+
+    /**
+     * Merges consecutive groups of MAX_MERGE_WIDTH runs into one run each, so that the order of equal
+     * lines across runs is kept.
+     */
+    private void mergePass() throws IOException {
+        List<Path> sources = new ArrayList<>(runs);
+        runs.clear();
+        try {
+            for (int start = 0; start < sources.size(); start += MAX_MERGE_WIDTH) {
+                List<Path> group = sources.subList(start, Math.min(start + MAX_MERGE_WIDTH, sources.size()));
+                Path run = createRun();
+                try (Writer writer = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+                    merge(group, writer, "\n");
+                }
+                for (Path source : group) {
+                    Files.deleteIfExists(source);
+                }
+            }
+        } finally {
+            // leave every file that still exists to close()
+            for (Path source : sources) {
+                if (Files.exists(source)) {
+                    runs.add(source);
+                }
+            }
+        }
+    }
+
+    private void merge(List<Path> sources, Writer writer, String separator) throws IOException {
+        List<BufferedReader> readers = new ArrayList<>();
+        try {
+            for (Path source : sources) {
+                readers.add(Files.newBufferedReader(source, StandardCharsets.UTF_8));
+            }
+            LineMerger.merge(readers, order, writer, separator);
+        } finally {
+            for (BufferedReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+}
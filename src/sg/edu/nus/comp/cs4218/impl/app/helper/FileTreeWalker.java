@@ -0,0 +1,219 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import sg.edu.nus.comp.cs4218.exception.ShellException;
+import sg.edu.nus.comp.cs4218.impl.util.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Lists the files under the directories given to a recursive grep, in a deterministic order.
+ * <p>
+ * Directories are walked on the common {@link ForkJoinPool}: every directory is a task that forks a task
+ * for each of its subdirectories, so idle threads steal whole subtrees, and the files of a directory are
+ * checked in batches that are split the same way. The entries of a directory are listed in name order and
+ * each subdirectory is listed where its name falls, so the result does not depend on the threads.
+ * <p>
+ * Like GNU grep, symbolic links met during the walk are not followed, and files that are not regular files
+ * are left out. So are files that look binary, having a NUL byte in their first {@link #SNIFF_SIZE} bytes,
+ * and files or directories that cannot be read.
+ */
+public final class FileTreeWalker {
+    /**
+     * Bytes read from the start of a file to decide whether it is binary.
+     */
+    static final int SNIFF_SIZE = 8 * 1024;
+    /**
+     * Files checked in sequence by a single task.
+     */
+    private static final int SNIFF_BATCH = 64;
+    private static final String STDIN = "-";
+    private static final String CURRENT_DIRECTORY = ".";
+
+    private FileTreeWalker() {
+    }
+
+    /**
+     * Returns fileNames with every directory replaced by the text files under it. A file under a directory
+     * is named by the name of the directory and its path within it, or by that path alone for ".", except
+     * that a file named "-" there is named "./-" so that it is not read as stdin. Other names, including "-"
+     * and names that do not exist, are kept as they are.
+     *
+     * @param fileNames Array of file names given to grep
+     * @return list of the names of the files to search, in order
+     * @throws ShellException if a file name is not a valid path
+     */
+    public static List<String> listFiles(String... fileNames) throws ShellException {
+        List<String> result = new ArrayList<>();
+        for (String fileName : fileNames) {
+            if (!isDirectory(fileName)) {
+                result.add(fileName);
+                continue;
+            }
+            String prefix;
+            if (CURRENT_DIRECTORY.equals(fileName)) {
+                prefix = "";
+            } else {
+                prefix = fileName.endsWith(File.separator) ? fileName : fileName + File.separator;
+            }
+            Path directory = IOUtils.resolveFilePath(fileName);
+            result.addAll(ForkJoinPool.commonPool().invoke(new DirectoryTask(directory, prefix)));
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether any of fileNames is a directory, whose files a recursive grep searches.
+     *
+     * @throws ShellException if a file name is not a valid path
+     */
+    public static boolean hasDirectory(String... fileNames) throws ShellException {
+        for (String fileName : fileNames) {
+            if (isDirectory(fileName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDirectory(String fileName) throws ShellException {
+        return !STDIN.equals(fileName) && Files.isDirectory(IOUtils.resolveFilePath(fileName));
+    }
+
+    /**
+     * Returns whether the file can be read and has no NUL byte in its first {@link #SNIFF_SIZE} bytes.
+     */
+    static boolean isText(Path file) {
+        byte[] buffer = new byte[SNIFF_SIZE];
+        try (InputStream input = Files.newInputStream(file)) {
+            int length = input.readNBytes(buffer, 0, buffer.length);
+            for (int i = 0; i < length; i++) {
+                if (buffer[i] == 0) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Lists the text files under one directory, each named by prefix and its path within the directory.
+     */
+    private static final class DirectoryTask extends RecursiveTask<List<String>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+        private final String prefix;
+
+        private DirectoryTask(Path directory, String prefix) {
+            this.directory = directory;
+            this.prefix = prefix;
+        }
+
+        @Override
+        protected List<String> compute() {
+            List<Path> entries = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                stream.forEach(entries::add);
+            } catch (IOException | DirectoryIteratorException e) {
+                return Collections.emptyList();
+            }
+            // entries are kept as listed, as a name need not convert back to the same path
+            entries.sort(Comparator.comparing(entry -> entry.getFileName().toString()));
+
+            // files between two subdirectories are checked together, so the parts stay in name order
+            List<ForkJoinTask<List<String>>> parts = new ArrayList<>();
+            List<Path> files = new ArrayList<>();
+            List<String> fileNames = new ArrayList<>();
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    continue;
+                }
+                if (attributes.isDirectory()) {
+                    addFiles(parts, files, fileNames);
+                    parts.add(new DirectoryTask(entry, prefix + name + File.separator));
+                } else if (attributes.isRegularFile()) {
+                    files.add(entry);
+                    fileNames.add(STDIN.equals(prefix + name) ? CURRENT_DIRECTORY + File.separator + name
+                            : prefix + name);
+                }
+            }
+            addFiles(parts, files, fileNames);
+
+            List<String> result = new ArrayList<>();
+            for (ForkJoinTask<List<String>> part : ForkJoinTask.invokeAll(parts)) {
+                result.addAll(part.join());
+            }
+            return result;
+        }
+
+        private static void addFiles(List<ForkJoinTask<List<String>>> parts, List<Path> files,
+                                     List<String> fileNames) {
+            if (!files.isEmpty()) {
+                parts.add(new SniffTask(new ArrayList<>(files), new ArrayList<>(fileNames), 0, files.size()));
+                files.clear();
+                fileNames.clear();
+            }
+        }
+    }
+
+    /**
+     * Keeps the names of the text files among files[from, to), splitting into halves while the range is
+     * larger than {@link #SNIFF_BATCH}.
+     */
+    private static final class SniffTask extends RecursiveTask<List<String>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> files;
+        private final List<String> fileNames;
+        private final int from;
+        private final int to;
+
+        private SniffTask(List<Path> files, List<String> fileNames, int from, int to) {
+            this.files = files;
+            this.fileNames = fileNames;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<String> compute() {
+            if (to - from > SNIFF_BATCH) {
+                int middle = (from + to) >>> 1;
+                SniffTask left = new SniffTask(files, fileNames, from, middle);
+                SniffTask right = new SniffTask(files, fileNames, middle, to);
+                invokeAll(left, right);
+                List<String> result = new ArrayList<>(left.join());
+                result.addAll(right.join());
+                return result;
+            }
+            List<String> result = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                if (isText(files.get(i))) {
+                    result.add(fileNames.get(i));
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package sg.edu.nus.comp.cs4218.impl.app.helper;
 
 import sg.edu.nus.comp.cs4218.exception.GrepException;
+import sg.edu.nus.comp.cs4218.exception.ShellException;
 import sg.edu.nus.comp.cs4218.impl.util.ErrorConstants;
 import sg.edu.nus.comp.cs4218.impl.util.IOUtils;
+import sg.edu.nus.comp.cs4218.impl.util.ParallelLineEngine;
+import sg.edu.nus.comp.cs4218.impl.util.ShellOptions;
+import sg.edu.nus.comp.cs4218.impl.util.ShellOptions.GrepEngine;
 import sg.edu.nus.comp.cs4218.impl.util.StringUtils;
+import sg.edu.nus.comp.cs4218.impl.util.ThreadUtils;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -11,23 +16,40 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
 import java.util.StringJoiner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_FILE_NOT_FOUND;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_INTERRUPTED;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_INVALID_REGEX;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_IS_DIR;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NO_INPUT;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NO_ISTREAM;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NO_OSTREAM;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NOT_REGULAR;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_SYNTAX;
 import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
 
 public final class GrepHelper {
+    /**
+     * At least two threads search files, so that reading one file overlaps with matching another.
+     */
+    private static final int MAX_SEARCH_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final char PATTERN_SEPARATOR = '\n';
 
     private GrepHelper() {
     }
@@ -44,31 +66,315 @@ public final class GrepHelper {
      */
     public static ArrayList<StringJoiner> buildResults(BufferedReader reader, String file, Pattern compiledPattern, boolean isSingleFile, boolean isPrefixFileName,
                                                        StringJoiner lineResults, StringJoiner countResults) throws IOException {
-        int count = 0;
-        String line;
-        while ((line = reader.readLine()) != null) {
-            Matcher matcher = compiledPattern.matcher(line);
-            if (matcher.find()) { // match
-                if (isSingleFile) {
-                    if (isPrefixFileName) {
-                        lineResults.add(file + ": " + line);
-                    } else {
-                        lineResults.add(line);
-                    }
-                } else {
-                    lineResults.add(file + ": " + line);
-                }
-                count++;
-            }
-        }
+        String prefix = !isSingleFile || isPrefixFileName ? file + ": " : "";
+        int[] count = {0};
+        ParallelLineEngine.processLines(reader, lines -> matchLines(lines, compiledPattern, prefix), matched -> {
+            matched.getLines().forEach(lineResults::add);
+            count[0] += matched.getLines().size();
+        });
         if (!isPrefixFileName && isSingleFile) {
-            countResults.add("" + count);
+            countResults.add("" + count[0]);
         } else {
-            countResults.add(file + ": " + count);
+            countResults.add(file + ": " + count[0]);
         }
         return new ArrayList<>(Arrays.asList(lineResults, countResults));
     }
 
+    /**
+     * Writes the lines of input that contain a match of the pattern as they are found, each preceded by
+     * prefix and followed by a newline. The input is read to the end but not closed.
+     *
+     * @param input           InputStream containing the lines
+     * @param compiledPattern pattern that is being matched for with the lines
+     * @param prefix          String to add in front of every matched line, may be empty
+     * @param isCountLines    boolean option to only count the matched lines instead of writing them
+     * @param writer          Writer that the matched lines are written to
+     * @return number of matched lines
+     * @throws IOException if the input cannot be read or the writer cannot be written
+     */
+    public static long writeMatches(InputStream input, Pattern compiledPattern, String prefix, boolean isCountLines,
+                                    Writer writer) throws IOException {
+        return writeMatches(input, compiledPattern, prefix, isCountLines, Long.MAX_VALUE, writer);
+    }
+
+    /**
+     * Writes the first maxCount lines of input that contain a match of the pattern as they are found, each
+     * preceded by prefix and followed by a newline. The input is read no further than needed to find them,
+     * and not closed.
+     *
+     * @param input           InputStream containing the lines
+     * @param compiledPattern pattern that is being matched for with the lines
+     * @param prefix          String to add in front of every matched line, may be empty
+     * @param isCountLines    boolean option to only count the matched lines instead of writing them
+     * @param maxCount        largest number of matched lines to write or count
+     * @param writer          Writer that the matched lines are written to
+     * @return number of matched lines, at most maxCount
+     * @throws IOException if the input cannot be read or the writer cannot be written
+     */
+    public static long writeMatches(InputStream input, Pattern compiledPattern, String prefix, boolean isCountLines,
+                                    long maxCount, Writer writer) throws IOException {
+        if (maxCount <= 0) {
+            return 0;
+        }
+        long[] count = {0};
+        String linePrefix = isCountLines ? "" : prefix;
+        ParallelLineEngine.processLines(input, lines -> matchLines(lines, compiledPattern, linePrefix, maxCount),
+                matched -> writeMatched(matched, isCountLines, maxCount, writer, count), () -> count[0] >= maxCount);
+        return count[0];
+    }
+
+    /**
+     * Writes the lines of reader that contain a match of the pattern as they are found, each preceded by
+     * prefix and followed by a newline. The reader is read to the end but not closed.
+     *
+     * @param reader          reader that reads lines from file
+     * @param compiledPattern pattern that is being matched for with the lines
+     * @param prefix          String to add in front of every matched line, may be empty
+     * @param isCountLines    boolean option to only count the matched lines instead of writing them
+     * @param writer          Writer that the matched lines are written to
+     * @return number of matched lines
+     * @throws IOException if the reader cannot be read or the writer cannot be written
+     */
+    public static long writeMatches(BufferedReader reader, Pattern compiledPattern, String prefix,
+                                    boolean isCountLines, Writer writer) throws IOException {
+        return writeMatches(reader, compiledPattern, prefix, isCountLines, Long.MAX_VALUE, writer);
+    }
+
+    /**
+     * Writes the first maxCount lines of reader that contain a match of the pattern as they are found, each
+     * preceded by prefix and followed by a newline. The reader is read no further than needed to find them,
+     * and not closed.
+     *
+     * @param reader          reader that reads lines from file
+     * @param compiledPattern pattern that is being matched for with the lines
+     * @param prefix          String to add in front of every matched line, may be empty
+     * @param isCountLines    boolean option to only count the matched lines instead of writing them
+     * @param maxCount        largest number of matched lines to write or count
+     * @param writer          Writer that the matched lines are written to
+     * @return number of matched lines, at most maxCount
+     * @throws IOException if the reader cannot be read or the writer cannot be written
+     */
+    public static long writeMatches(BufferedReader reader, Pattern compiledPattern, String prefix,
+                                    boolean isCountLines, long maxCount, Writer writer) throws IOException {
+        if (maxCount <= 0) {
+            return 0;
+        }
+        long[] count = {0};
+        String linePrefix = isCountLines ? "" : prefix;
+        ParallelLineEngine.processLines(reader, lines -> matchLines(lines, compiledPattern, linePrefix, maxCount),
+                matched -> writeMatched(matched, isCountLines, maxCount, writer, count), () -> count[0] >= maxCount);
+        return count[0];
+    }
+
+    /**
+     * Writes the matched lines of input with the lines around them through context, as they are found.
+     * The input is read no further than context needs, and not closed.
+     *
+     * @param input           InputStream containing the lines
+     * @param compiledPattern pattern that is being matched for with the lines
+     * @param context         ContextLineWriter that writes the lines of this input
+     * @return number of matched lines
+     * @throws IOException if the input cannot be read or the lines cannot be written
+     */
+    public static long writeMatches(InputStream input, Pattern compiledPattern, ContextLineWriter context)
+            throws IOException {
+        if (context.isFinished()) {
+            return 0;
+        }
+        ParallelLineEngine.processLines(input, lines -> markLines(lines, compiledPattern, context.getMaxCount()),
+                marked -> context.write(marked.getLines(), marked.getMatches()), context::isFinished);
+        return context.getCount();
+    }
+
+    /**
+     * Writes the matched lines of reader with the lines around them through context, as they are found.
+     * The reader is read no further than context needs, and not closed.
+     *
+     * @param reader          reader that reads lines from file
+     * @param compiledPattern pattern that is being matched for with the lines
+     * @param context         ContextLineWriter that writes the lines of this input
+     * @return number of matched lines
+     * @throws IOException if the reader cannot be read or the lines cannot be written
+     */
+    public static long writeMatches(BufferedReader reader, Pattern compiledPattern, ContextLineWriter context)
+            throws IOException {
+        if (context.isFinished()) {
+            return 0;
+        }
+        ParallelLineEngine.processLines(reader, lines -> markLines(lines, compiledPattern, context.getMaxCount()),
+                marked -> context.write(marked.getLines(), marked.getMatches()), context::isFinished);
+        return context.getCount();
+    }
+
+    /**
+     * Writes the matched lines of a chunk, or only counts them, up to maxCount lines in all.
+     */
+    private static void writeMatched(MatchedLines matched, boolean isCountLines, long maxCount, Writer writer,
+                                     long[] count) throws IOException {
+        List<String> lines = matched.getLines();
+        int taken = (int) Math.min(lines.size(), maxCount - count[0]);
+        count[0] += taken;
+        if (isCountLines) {
+            return;
+        }
+        for (String line : lines.subList(0, taken)) {
+            writer.write(line);
+            writer.write(STRING_NEWLINE);
+        }
+    }
+
+    /**
+     * Compiles the pattern, ignoring case if isCaseInsensitive is set. A pattern of several lines, as -e and
+     * -f give, is a set of patterns that a line matches if it matches any of them.
+     *
+     * @throws GrepException if the pattern is not a valid regular expression, or the DFA engine is forced
+     *                       and the pattern is not regular
+     */
+    public static Pattern compilePattern(String pattern, boolean isCaseInsensitive) throws GrepException {
+        String regex = pattern.indexOf(PATTERN_SEPARATOR) < 0 ? pattern : joinPatterns(pattern);
+        Pattern compiledPattern;
+        try {
+            compiledPattern = isCaseInsensitive
+                    ? Pattern.compile(regex, Pattern.CASE_INSENSITIVE)
+                    : Pattern.compile(regex);
+        } catch (PatternSyntaxException pse) {
+            throw new GrepException(E_INVALID_REGEX, pse);
+        }
+        if (ShellOptions.getGrepEngine() == GrepEngine.DFA && !DfaMatcher.isSupported(compiledPattern)) {
+            throw new GrepException(E_NOT_REGULAR);
+        }
+        return compiledPattern;
+    }
+
+    /**
+     * Joins the lines of a pattern set into a single alternation. Plain text lines are joined as they are,
+     * so that a set of them is found by {@link AhoCorasickSearcher}; any other line is put in a group of its
+     * own, so that it is matched on its own.
+     */
+    private static String joinPatterns(String patterns) {
+        StringJoiner alternation = new StringJoiner("|");
+        for (String pattern : patterns.split(String.valueOf(PATTERN_SEPARATOR), -1)) {
+            alternation.add(LiteralSearcher.isPlainText(pattern) ? pattern : "(?:" + pattern + ")");
+        }
+        return alternation.toString();
+    }
+
+    /**
+     * Returns the lines that contain a match of the pattern, each preceded by prefix.
+     * Safe to call concurrently on different chunks of the same input.
+     *
+     * @param lines           consecutive lines of the input
+     * @param compiledPattern pattern that is being matched for with the lines
+     * @param prefix          String to add in front of every matched line, may be empty
+     */
+    public static MatchedLines matchLines(List<String> lines, Pattern compiledPattern, String prefix) {
+        return matchLines(lines, compiledPattern, prefix, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the first maxMatches lines that contain a match of the pattern, each preceded by prefix.
+     * Safe to call concurrently on different chunks of the same input.
+     *
+     * @param lines           consecutive lines of the input
+     * @param compiledPattern pattern that is being matched for with the lines
+     * @param prefix          String to add in front of every matched line, may be empty
+     * @param maxMatches      largest number of lines to return
+     */
+    public static MatchedLines matchLines(List<String> lines, Pattern compiledPattern, String prefix,
+                                          long maxMatches) {
+        List<String> matched = new ArrayList<>();
+        Predicate<String> finder = newLineFinder(compiledPattern);
+        for (String line : lines) {
+            if (matched.size() >= maxMatches) {
+                break;
+            }
+            if (finder.test(line)) {
+                matched.add(prefix.isEmpty() ? line : prefix + line);
+            }
+        }
+        return new MatchedLines(matched);
+    }
+
+    /**
+     * Returns the lines with the first maxMatches of them that contain a match of the pattern marked, as
+     * context lines are written around them. Safe to call concurrently on different chunks of the same input.
+     *
+     * @param lines           consecutive lines of the input
+     * @param compiledPattern pattern that is being matched for with the lines
+     * @param maxMatches      largest number of lines to mark
+     */
+    public static MarkedLines markLines(List<String> lines, Pattern compiledPattern, long maxMatches) {
+        BitSet matches = new BitSet(lines.size());
+        Predicate<String> finder = newLineFinder(compiledPattern);
+        long marked = 0;
+        for (int i = 0; i < lines.size() && marked < maxMatches; i++) {
+            if (finder.test(lines.get(i))) {
+                matches.set(i);
+                marked++;
+            }
+        }
+        return new MarkedLines(lines, matches);
+    }
+
+    /**
+     * Returns a test of whether a line contains a match of the pattern, for a single thread to use.
+     */
+    private static Predicate<String> newLineFinder(Pattern compiledPattern) {
+        // plain text patterns, which most are, and sets of them skip the regex engine
+        LiteralSearcher literal = LiteralSearcher.forPattern(compiledPattern);
+        if (literal != null) {
+            return literal::find;
+        }
+        AhoCorasickSearcher literals = AhoCorasickSearcher.forPattern(compiledPattern);
+        if (literals != null) {
+            return literals::find;
+        }
+        // as do regular patterns, unless the regex engine is asked for; a DfaMatcher is not shared between chunks
+        DfaMatcher dfa = ShellOptions.getGrepEngine() == GrepEngine.REGEX
+                ? null : DfaMatcher.forPattern(compiledPattern);
+        if (dfa != null) {
+            return dfa::find;
+        }
+        Matcher matcher = compiledPattern.matcher("");
+        return line -> matcher.reset(line).find();
+    }
+
+    /**
+     * Matched lines of one chunk of input, in input order.
+     */
+    public static final class MatchedLines {
+        private final List<String> lines;
+
+        private MatchedLines(List<String> lines) {
+            this.lines = lines;
+        }
+
+        public List<String> getLines() {
+            return lines;
+        }
+    }
+
+    /**
+     * All lines of one chunk of input, in input order, with the indices of those that matched.
+     */
+    public static final class MarkedLines {
+        private final List<String> lines;
+        private final BitSet matches;
+
+        private MarkedLines(List<String> lines, BitSet matches) {
+            this.lines = lines;
+            this.matches = matches;
+        }
+
+        public List<String> getLines() {
+            return lines;
+        }
+
+        public BitSet getMatches() {
+            return matches;
+        }
+    }
+
     /**
      * Returns an ArrayList of lineResults and countResults. The lines and count number of lines for grep from files and insert them into
      * lineResults and countResults respectively.
@@ -82,42 +388,112 @@ public final class GrepHelper {
             throw new GrepException(ErrorConstants.E_EMPTY_PATTERN);
         }
         boolean isSingleFile = (fileNames.length == 1);
+        File[] files = resolveFiles(fileNames);
+        // an invalid regex is only an error if some file is searched with it
+        Pattern compiledPattern = isAnySearched(files) ? compilePattern(pattern, isCaseInsensitive) : null;
         StringJoiner lineResults = new StringJoiner(STRING_NEWLINE);
         StringJoiner countResults = new StringJoiner(STRING_NEWLINE);
-        for (String f : fileNames) {
-            BufferedReader reader = null;
-            try {
-                File file = IOUtils.resolveFilePath(f).toFile();
-                if (!file.exists()) {
-                    lineResults.add(f + ": " + E_FILE_NOT_FOUND);
-                    countResults.add(f + ": " + E_FILE_NOT_FOUND);
-                    continue;
-                }
-                if (file.isDirectory()) { // ignore if it's a directory
-                    lineResults.add(f + ": " + E_IS_DIR);
-                    countResults.add(f + ": " + E_IS_DIR);
-                    continue;
-                }
-                reader = new BufferedReader(new FileReader(file));
-                Pattern compiledPattern;
-                if (isCaseInsensitive) {
-                    compiledPattern = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE);
-                } else {
-                    compiledPattern = Pattern.compile(pattern);
-                }
-                ArrayList<StringJoiner> stringJoinRes = buildResults(reader, f, compiledPattern, isSingleFile, isPrefixFileName, lineResults, countResults);
-                lineResults = stringJoinRes.get(0);
-                countResults = stringJoinRes.get(1);
-                reader.close();
-            } catch (PatternSyntaxException pse) {
-                throw new GrepException(E_INVALID_REGEX, pse);
-            } finally {
-                if (reader != null) {
-                    reader.close();
+        searchFiles(fileNames.length, index -> {
+            String f = fileNames[index];
+            StringJoiner fileLines = new StringJoiner(STRING_NEWLINE);
+            StringJoiner fileCount = new StringJoiner(STRING_NEWLINE);
+            if (!files[index].exists()) {
+                return new ArrayList<>(Arrays.asList(fileLines.add(f + ": " + E_FILE_NOT_FOUND),
+                        fileCount.add(f + ": " + E_FILE_NOT_FOUND)));
+            }
+            if (files[index].isDirectory()) { // ignore if it's a directory
+                return new ArrayList<>(Arrays.asList(fileLines.add(f + ": " + E_IS_DIR),
+                        fileCount.add(f + ": " + E_IS_DIR)));
+            }
+            try (BufferedReader reader = new BufferedReader(new FileReader(files[index]))) {
+                return buildResults(reader, f, compiledPattern, isSingleFile, isPrefixFileName, fileLines, fileCount);
+            }
+        }, results -> {
+            lineResults.merge(results.get(0));
+            countResults.merge(results.get(1));
+        });
+        return new ArrayList<>(Arrays.asList(lineResults.toString(), countResults.toString()));
+    }
+
+    /**
+     * Searches one file of a call to {@link #searchFiles}.
+     */
+    public interface FileSearch<R> {
+        R search(int index) throws Exception;
+    }
+
+    /**
+     * Runs search on the files at indices 0 to fileCount - 1 and hands their results to consumer on the
+     * calling thread, in index order. With more than one file, files are searched concurrently on a pool of
+     * at most {@link #MAX_SEARCH_THREADS} threads, a bounded number of results ahead of the file being
+     * consumed; a single file is searched on the calling thread. If a search fails, the results of the
+     * files before it are consumed first and then its exception is thrown, as a serial loop would.
+     *
+     * @param fileCount number of files
+     * @param search    FileSearch run on each file, safe to call from several threads
+     * @param consumer  ResultConsumer receiving the results in order
+     * @throws Exception if a search or consumer fails
+     */
+    public static <R> void searchFiles(int fileCount, FileSearch<R> search,
+                                       ParallelLineEngine.ResultConsumer<R> consumer) throws Exception {
+        if (fileCount == 1) {
+            consumer.accept(search.search(0));
+            return;
+        }
+        int threads = Math.min(fileCount, MAX_SEARCH_THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                ThreadUtils.newThreadFactory(false, "grep-worker"));
+        Deque<Future<R>> inFlight = new ArrayDeque<>();
+        try {
+            int next = 0;
+            while (next < fileCount || !inFlight.isEmpty()) {
+                while (next < fileCount && inFlight.size() < 2 * threads) {
+                    int index = next++;
+                    inFlight.addLast(executor.submit(() -> search.search(index)));
                 }
+                consumer.accept(await(inFlight.removeFirst()));
             }
+        } finally {
+            executor.shutdownNow();
         }
-        return new ArrayList<>(Arrays.asList(lineResults.toString(), countResults.toString()));
+    }
+
+    private static <R> R await(Future<R> future) throws Exception {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GrepException(E_INTERRUPTED, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    /**
+     * Resolves every file name against the current directory, once.
+     */
+    public static File[] resolveFiles(String... fileNames) throws ShellException {
+        File[] files = new File[fileNames.length];
+        for (int i = 0; i < fileNames.length; i++) {
+            files[i] = IOUtils.resolveFilePath(fileNames[i]).toFile();
+        }
+        return files;
+    }
+
+    /**
+     * Returns whether any of files exists and is not a directory, so that its lines are searched.
+     */
+    public static boolean isAnySearched(File... files) {
+        for (File file : files) {
+            if (file.exists() && !file.isDirectory()) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
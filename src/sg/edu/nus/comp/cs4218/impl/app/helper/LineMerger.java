@@ -0,0 +1,86 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges sources of lines that are each sorted in a {@link SortOrder} into one sorted stream, through a heap
+ * that holds the next line of every source, so that memory grows only with the number of sources.
+ * <p>
+ * Equal lines come from the earlier source first, or from the later source first in reverse order, which
+ * is where sorting the sources together would place them. With <code>-u</code>, only the first of lines
+ * that compare equal is written.
+ */
+public final class LineMerger {
+
+    private LineMerger() {
+    }
+
+    /**
+     * Writes every line of sources in merged order, each followed by separator. The sources are read to
+     * their end but not closed.
+     *
+     * @param sources   Readers of sorted lines
+     * @param order     Order of the lines in every source
+     * @param writer    Destination of the merged lines
+     * @param separator String written after each line
+     * @return Number of lines written
+     * @throws IOException If a source cannot be read or writer cannot be written
+     */
+    public static long merge(List<BufferedReader> sources, SortOrder order, Writer writer, String separator)
+            throws IOException {
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(Math.max(1, sources.size()),
+            (cursor1, cursor2) -> compare(order, cursor1, cursor2));
+        for (int i = 0; i < sources.size(); i++) {
+            Cursor cursor = new Cursor(sources.get(i), i, order);
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        long count = 0;
+        SortOrder.Key last = null;
+        while (!heap.isEmpty()) {
+            Cursor cursor = heap.poll();
+            if (!order.isUnique() || last == null || order.compare(last, cursor.key) != 0) {
+                writer.write(cursor.key.getLine());
+                writer.write(separator);
+                count++;
+                last = cursor.key;
+            }
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        return count;
+    }
+
+    private static int compare(SortOrder order, Cursor cursor1, Cursor cursor2) {
+        int result = order.compare(cursor1.key, cursor2.key);
+        if (result == 0) {
+            result = Integer.compare(cursor1.index, cursor2.index);
+        }
+        return order.isReverseOrder() ? -result : result;
+    }
+
+    private static final class Cursor {
+        private final BufferedReader reader;
+        private final int index;
+        private final SortOrder order;
+        private SortOrder.Key key;
+
+        private Cursor(BufferedReader reader, int index, SortOrder order) {
+            this.reader = reader;
+            this.index = index;
+            this.order = order;
+        }
+
+        private boolean advance() throws IOException {
+            String line = reader.readLine();
+            key = line == null ? null : order.keyOf(line, index);
+            return line != null;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Finds a fixed string in lines, for grep patterns that are plain text.
+ * <p>
+ * A pattern is plain text if it has no regex metacharacters and no surrogates, and its only flag is
+ * {@link Pattern#CASE_INSENSITIVE}. Such a pattern finds a match in a line exactly when the line contains
+ * the pattern. Without {@link Pattern#UNICODE_CASE}, a case-insensitive pattern only folds ASCII letters.
+ * <p>
+ * Text that is matched exactly is found with {@link String#indexOf}, which the JVM implements with vector
+ * instructions and is faster than any search written in Java here. Text with ASCII letters to fold is
+ * found with a Boyer-Moore-Horspool search, which folds characters through a table of the ASCII
+ * characters and compares the others as they are; a single letter is found as either of its cases.
+ * <p>
+ * Instances are immutable and may be shared between threads.
+ */
+public final class LiteralSearcher {
+    private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+    private static final int ASCII_SIZE = 128;
+    private static final int SHIFT_TABLE_SIZE = 256;
+    private static final char[] ASCII_LOWER = new char[ASCII_SIZE];
+
+    static {
+        for (char c = 0; c < ASCII_SIZE; c++) {
+            ASCII_LOWER[c] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+    }
+
+    private final String literal;
+    private final char[] needle;
+    private final boolean isFolded;
+    /**
+     * Distance to move the window by, given the low byte of the character under its last position; the
+     * smallest distance of every needle character with that low byte.
+     */
+    private final int[] shifts;
+
+    private LiteralSearcher(String literal, boolean isCaseInsensitive) {
+        this.literal = literal;
+        this.needle = new char[literal.length()];
+        boolean hasLetter = false;
+        for (int i = 0; i < needle.length; i++) {
+            needle[i] = fold(literal.charAt(i));
+            hasLetter |= needle[i] >= 'a' && needle[i] <= 'z';
+        }
+        this.isFolded = isCaseInsensitive && hasLetter;
+        this.shifts = new int[SHIFT_TABLE_SIZE];
+        Arrays.fill(shifts, needle.length);
+        for (int i = 0; i < needle.length - 1; i++) {
+            int slot = needle[i] & (SHIFT_TABLE_SIZE - 1);
+            shifts[slot] = Math.min(shifts[slot], needle.length - 1 - i);
+        }
+    }
+
+    /**
+     * Returns a searcher that finds the same lines as compiledPattern, or null if the pattern is not plain
+     * text.
+     */
+    public static LiteralSearcher forPattern(Pattern compiledPattern) {
+        String pattern = compiledPattern.pattern();
+        if (!isPlainText(pattern) || (compiledPattern.flags() & ~Pattern.CASE_INSENSITIVE) != 0) {
+            return null;
+        }
+        return new LiteralSearcher(pattern, (compiledPattern.flags() & Pattern.CASE_INSENSITIVE) != 0);
+    }
+
+    /**
+     * Returns whether pattern is plain text: not empty, without regex metacharacters and without surrogates.
+     */
+    static boolean isPlainText(String pattern) {
+        if (pattern.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (METACHARACTERS.indexOf(c) >= 0 || Character.isSurrogate(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether line contains the text, ignoring the case of ASCII letters if case-insensitive.
+     */
+    public boolean find(String line) {
+        if (!isFolded) {
+            return line.contains(literal);
+        }
+        if (needle.length == 1) {
+            return line.indexOf(needle[0]) >= 0 || line.indexOf(needle[0] - ('a' - 'A')) >= 0;
+        }
+        int last = needle.length - 1;
+        char lastChar = needle[last];
+        int limit = line.length() - needle.length;
+        int start = 0;
+        while (start <= limit) {
+            char current = fold(line.charAt(start + last));
+            if (current == lastChar && matchesAt(line, start, last)) {
+                return true;
+            }
+            start += shifts[current & (SHIFT_TABLE_SIZE - 1)];
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the first length characters of the needle are at start in line.
+     */
+    private boolean matchesAt(String line, int start, int length) {
+        for (int i = 0; i < length; i++) {
+            if (fold(line.charAt(start + i)) != needle[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char fold(char c) {
+        return c < ASCII_SIZE ? ASCII_LOWER[c] : c;
+    }
+}
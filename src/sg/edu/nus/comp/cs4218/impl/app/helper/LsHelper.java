@@ -2,10 +2,10 @@ package sg.edu.nus.comp.cs4218.impl.app.helper;
 
 import sg.edu.nus.comp.cs4218.Environment;
 import sg.edu.nus.comp.cs4218.exception.InvalidDirectoryException;
+import sg.edu.nus.comp.cs4218.impl.util.DirectoryCache;
 import sg.edu.nus.comp.cs4218.impl.util.StringUtils;
 
-import java.io.File;
-import java.nio.file.Files;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -116,26 +116,24 @@ public final class LsHelper {
     }
 
     /**
-     * Gets the contents in a single specified directory.
+     * Gets the contents in a single specified directory, through the session's DirectoryCache.
      *
      * @param directory
      * @return List of files + directories in the passed directory.
      */
     public static List<Path> getContents(Path directory)
             throws InvalidDirectoryException {
-        if (!Files.exists(directory)) {
-            throw new InvalidDirectoryException(getRelativeToCwd(directory).toString());
-        }
-
-        if (!Files.isDirectory(directory)) {
+        List<DirectoryCache.Entry> entries;
+        try {
+            entries = DirectoryCache.list(directory);
+        } catch (IOException e) {
             throw new InvalidDirectoryException(getRelativeToCwd(directory).toString());
         }
 
         List<Path> result = new ArrayList<>();
-        File pwd = directory.toFile();
-        for (File f : pwd.listFiles()) {
-            if (!f.isHidden()) {
-                result.add(f.toPath());
+        for (DirectoryCache.Entry entry : entries) {
+            if (!entry.isHidden()) {
+                result.add(directory.resolve(entry.getName()));
             }
         }
 
@@ -0,0 +1,250 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
+
+/**
+ * Finds the lines of a file that contain a plain text pattern by searching the raw bytes of the file,
+ * memory-mapped, and decodes only the lines that match.
+ * <p>
+ * A hit is searched for with Boyer-Moore-Horspool over the bytes, and only then are the ends of its line
+ * found, by scanning to the line terminators on either side. In the charsets supported, a line terminator
+ * byte is always a terminator and the bytes of the pattern match exactly where its characters do, so the
+ * result is that of decoding the file and matching every line. Case-insensitive patterns fold only ASCII
+ * letters, as the regex engine does without {@link Pattern#UNICODE_CASE}, which bytes can do too.
+ * <p>
+ * Files are mapped in windows that end at a line terminator. A window without one, which holds part of a
+ * single line longer than the window, leaves the rest of the file to be read line by line.
+ * <p>
+ * Lines end at '\n', '\r' or "\r\n", like BufferedReader.readLine. Instances are immutable.
+ */
+public final class MappedFileSearcher {
+    /**
+     * Bytes mapped at a time, well within the limit of a single mapping.
+     */
+    static final long DEFAULT_WINDOW_SIZE = 1L << 30;
+
+    private static final int BYTE_VALUES = 256;
+    private static final byte[] ASCII_LOWER = new byte[BYTE_VALUES];
+
+    static {
+        for (int b = 0; b < BYTE_VALUES; b++) {
+            ASCII_LOWER[b] = (byte) (b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b);
+        }
+    }
+
+    private final Pattern compiledPattern;
+    private final Charset charset;
+    private final long windowSize;
+    private final byte[] needle;
+    private final boolean isFolded;
+    /**
+     * Distance to move the window by, given the byte under its last position.
+     */
+    private final int[] shifts;
+
+    private MappedFileSearcher(Pattern compiledPattern, Charset charset, long windowSize, boolean isFolded) {
+        this.compiledPattern = compiledPattern;
+        this.charset = charset;
+        this.windowSize = windowSize;
+        this.isFolded = isFolded;
+        this.needle = compiledPattern.pattern().getBytes(charset);
+        if (isFolded) {
+            for (int i = 0; i < needle.length; i++) {
+                needle[i] = fold(needle[i]);
+            }
+        }
+        this.shifts = new int[BYTE_VALUES];
+        Arrays.fill(shifts, needle.length);
+        for (int i = 0; i < needle.length - 1; i++) {
+            shifts[needle[i] & 0xFF] = needle.length - 1 - i;
+        }
+    }
+
+    /**
+     * Returns a searcher for files in the default charset that finds the same lines as compiledPattern, or
+     * null if the pattern is not plain text or cannot be searched for as bytes.
+     */
+    public static MappedFileSearcher forPattern(Pattern compiledPattern) {
+        return forPattern(compiledPattern, Charset.defaultCharset(), DEFAULT_WINDOW_SIZE);
+    }
+
+    static MappedFileSearcher forPattern(Pattern compiledPattern, Charset charset, long windowSize) {
+        if (LiteralSearcher.forPattern(compiledPattern) == null || !isSupported(charset)) {
+            return null;
+        }
+        String pattern = compiledPattern.pattern();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            // decoding makes U+FFFD of invalid bytes, and the other characters never occur within a line
+            boolean isUnencodable = StandardCharsets.US_ASCII.equals(charset) ? c >= 0x80
+                    : StandardCharsets.ISO_8859_1.equals(charset) && c > 0xFF;
+            if (c == '\n' || c == '\r' || c == '\uFFFD' || isUnencodable) {
+                return null;
+            }
+        }
+        boolean isCaseInsensitive = (compiledPattern.flags() & Pattern.CASE_INSENSITIVE) != 0;
+        return new MappedFileSearcher(compiledPattern, charset, windowSize, isCaseInsensitive);
+    }
+
+    private static boolean isSupported(Charset charset) {
+        return StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset)
+                || StandardCharsets.ISO_8859_1.equals(charset);
+    }
+
+    /**
+     * Writes the lines of file that contain the pattern as they are found, each preceded by prefix and
+     * followed by a newline, and returns how many there were. With isCountLines, only counts them.
+     *
+     * @param file         File to search, which must be a regular file
+     * @param prefix       String to add in front of every matched line, may be empty
+     * @param isCountLines boolean option to only count the matched lines instead of writing them
+     * @param writer       Writer that the matched lines are written to
+     * @return number of matched lines
+     * @throws IOException if the file cannot be read or the writer cannot be written
+     */
+    public long writeMatches(File file, String prefix, boolean isCountLines, Writer writer) throws IOException {
+        return writeMatches(file, prefix, isCountLines, Long.MAX_VALUE, writer);
+    }
+
+    /**
+     * Writes the first maxCount lines of file that contain the pattern, as {@link #writeMatches(File, String,
+     * boolean, Writer)} does, and reads no further than the last of them.
+     *
+     * @param file         File to search, which must be a regular file
+     * @param prefix       String to add in front of every matched line, may be empty
+     * @param isCountLines boolean option to only count the matched lines instead of writing them
+     * @param maxCount     largest number of matched lines to write or count
+     * @param writer       Writer that the matched lines are written to
+     * @return number of matched lines, at most maxCount
+     * @throws IOException if the file cannot be read or the writer cannot be written
+     */
+    public long writeMatches(File file, String prefix, boolean isCountLines, long maxCount, Writer writer)
+            throws IOException {
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size && count < maxCount) {
+                long length = Math.min(windowSize, size - position);
+                ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int limit = (int) length;
+                if (position + length < size) {
+                    limit = lastLineEnd(window, limit);
+                    if (limit == 0) {
+                        return count + readRemainder(channel, position, prefix, isCountLines, maxCount - count,
+                                writer);
+                    }
+                }
+                count += searchWindow(window, limit, prefix, isCountLines, maxCount - count, writer);
+                position += limit;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Searches window[0, limit), which starts at the start of a line and ends at the end of one, for at
+     * most maxCount lines.
+     */
+    private long searchWindow(ByteBuffer window, int limit, String prefix, boolean isCountLines, long maxCount,
+                              Writer writer) throws IOException {
+        long count = 0;
+        int from = 0;
+        int hit;
+        while (count < maxCount && (hit = indexOf(window, from, limit)) >= 0) {
+            int lineStart = hit;
+            while (lineStart > 0 && !isLineEnd(window.get(lineStart - 1))) {
+                lineStart--;
+            }
+            int lineEnd = hit + needle.length;
+            while (lineEnd < limit && !isLineEnd(window.get(lineEnd))) {
+                lineEnd++;
+            }
+            count++;
+            if (!isCountLines) {
+                byte[] line = new byte[lineEnd - lineStart];
+                ByteBuffer view = window.duplicate();
+                view.position(lineStart);
+                view.get(line);
+                writer.write(prefix);
+                writer.write(new String(line, charset));
+                writer.write(STRING_NEWLINE);
+            }
+            from = lineEnd;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the index of the first hit of the needle in window[from, limit), or -1 if there is none.
+     */
+    private int indexOf(ByteBuffer window, int from, int limit) {
+        int last = needle.length - 1;
+        byte lastByte = needle[last];
+        int start = from;
+        while (start <= limit - needle.length) {
+            byte current = window.get(start + last);
+            if (isFolded) {
+                current = fold(current);
+            }
+            if (current == lastByte && matchesAt(window, start, last)) {
+                return start;
+            }
+            start += shifts[current & 0xFF];
+        }
+        return -1;
+    }
+
+    private boolean matchesAt(ByteBuffer window, int start, int length) {
+        for (int i = 0; i < length; i++) {
+            byte current = window.get(start + i);
+            if ((isFolded ? fold(current) : current) != needle[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index just past the last line terminator in window[0, limit), or 0 if there is none.
+     */
+    private static int lastLineEnd(ByteBuffer window, int limit) {
+        int index = limit;
+        while (index > 0 && !isLineEnd(window.get(index - 1))) {
+            index--;
+        }
+        return index;
+    }
+
+    /**
+     * Searches the file from position, a line start, to its end by decoding every line.
+     */
+    private long readRemainder(FileChannel channel, long position, String prefix, boolean isCountLines,
+                               long maxCount, Writer writer) throws IOException {
+        channel.position(position);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), charset));
+        return GrepHelper.writeMatches(reader, compiledPattern, prefix, isCountLines, maxCount, writer);
+    }
+
+    private static boolean isLineEnd(byte current) {
+        return current == '\n' || current == '\r';
+    }
+
+    private static byte fold(byte current) {
+        return ASCII_LOWER[current & 0xFF];
+    }
+}
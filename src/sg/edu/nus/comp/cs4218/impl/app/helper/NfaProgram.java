@@ -0,0 +1,668 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * A grep pattern compiled to a Thompson NFA over code points, for the patterns that describe a regular
+ * language: those without backreferences, lookaround or other constructs that backtracking alone can
+ * match. {@link DfaMatcher} runs the program.
+ * <p>
+ * The syntax taken is that of {@link Pattern}, with the same meaning:
+ * <ul>
+ *     <li>literals, escaped metacharacters, <code>\t \n \r \f \a \e \xhh \\uhhhh</code> and '.'</li>
+ *     <li>the classes <code>\d \D \w \W \s \S</code>, and bracket classes of characters, ranges and those
+ *     classes, optionally negated, but not nested or intersected</li>
+ *     <li>capturing, named and non-capturing groups, and alternation</li>
+ *     <li>greedy and reluctant quantifiers <code>* + ? {n} {n,} {n,m}</code>, which find the same lines</li>
+ *     <li>'^' and '$', with their meaning without {@link Pattern#MULTILINE}, outside quantified parts</li>
+ * </ul>
+ * and the only flag taken is {@link Pattern#CASE_INSENSITIVE}, which folds ASCII letters only. Anything
+ * else, such as possessive quantifiers, inline flags, <code>\b</code> or <code>\p{..}</code>, leaves the
+ * pattern to the regex engine.
+ * <p>
+ * Code points are grouped into classes that no character set of the program tells apart, so that the
+ * automaton has one transition per class rather than per code point. Instances are immutable.
+ */
+final class NfaProgram {
+    static final int CHAR = 0;
+    static final int SPLIT = 1;
+    static final int BEGIN = 2;
+    static final int END = 3;
+    static final int MATCH = 4;
+
+    /**
+     * Most states a program may have, as bounded repetitions are expanded into copies of what they repeat.
+     */
+    static final int MAX_STATES = 10_000;
+    /**
+     * Most entries of the table of which classes each state accepts.
+     */
+    private static final int MAX_TABLE_SIZE = 1 << 24;
+    private static final int MAX_CODE_POINT = Character.MAX_CODE_POINT;
+    private static final int ASCII_SIZE = 128;
+    private static final String LINE_TERMINATORS = "\n\r\u0085\u2028\u2029";
+
+    final int[] types;
+    final int[] outs;
+    final int[] alternativeOuts;
+    final int start;
+    final boolean hasEnd;
+    final int classCount;
+    /**
+     * Whether the CHAR state accepts the class, at index state * classCount + class.
+     */
+    final boolean[] accepts;
+    /**
+     * First code point of each class, in increasing order.
+     */
+    private final int[] classStarts;
+    private final int[] asciiClasses;
+
+    private NfaProgram(Builder builder, int start, int[] classStarts) {
+        int size = builder.types.size();
+        this.types = new int[size];
+        this.outs = new int[size];
+        this.alternativeOuts = new int[size];
+        for (int i = 0; i < size; i++) {
+            types[i] = builder.types.get(i);
+            outs[i] = builder.outs.get(i);
+            alternativeOuts[i] = builder.alternativeOuts.get(i);
+        }
+        this.start = start;
+        this.hasEnd = builder.types.contains(END);
+        this.classStarts = classStarts;
+        this.classCount = classStarts.length;
+        this.accepts = new boolean[size * classCount];
+        for (int state = 0; state < size; state++) {
+            if (types[state] == CHAR) {
+                int[] ranges = builder.sets.get(builder.setIndices.get(state));
+                for (int c = 0; c < classCount; c++) {
+                    accepts[state * classCount + c] = contains(ranges, classStarts[c]);
+                }
+            }
+        }
+        this.asciiClasses = new int[ASCII_SIZE];
+        for (int c = 0; c < ASCII_SIZE; c++) {
+            asciiClasses[c] = findClass(c);
+        }
+    }
+
+    /**
+     * Compiles compiledPattern, or returns null if it uses syntax or flags outside the regular subset, or
+     * needs more than {@link #MAX_STATES} states.
+     */
+    static NfaProgram compile(Pattern compiledPattern) {
+        if ((compiledPattern.flags() & ~Pattern.CASE_INSENSITIVE) != 0) {
+            return null;
+        }
+        Parser parser = new Parser(compiledPattern.pattern(),
+                (compiledPattern.flags() & Pattern.CASE_INSENSITIVE) != 0);
+        try {
+            Node root = parser.parse();
+            Builder builder = new Builder();
+            int match = builder.add(MATCH, -1, -1, null);
+            int start = root.compile(builder, match);
+            int[] classStarts = classStarts(builder.sets);
+            if (builder.types.size() * (long) classStarts.length > MAX_TABLE_SIZE) {
+                return null;
+            }
+            return new NfaProgram(builder, start, classStarts);
+        } catch (UnsupportedSyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the first code point of each class of code points that no set tells apart, in increasing order.
+     */
+    private static int[] classStarts(List<int[]> sets) {
+        TreeSet<Integer> starts = new TreeSet<>();
+        starts.add(0);
+        for (int[] ranges : sets) {
+            for (int i = 0; i < ranges.length; i += 2) {
+                starts.add(ranges[i]);
+                if (ranges[i + 1] < MAX_CODE_POINT) {
+                    starts.add(ranges[i + 1] + 1);
+                }
+            }
+        }
+        return starts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Returns the class of a code point.
+     */
+    int classOf(int codePoint) {
+        return codePoint < ASCII_SIZE ? asciiClasses[codePoint] : findClass(codePoint);
+    }
+
+    private int findClass(int codePoint) {
+        int index = Arrays.binarySearch(classStarts, codePoint);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Returns whether '$' matches at index of line: at its end, or before a line terminator that ends it.
+     */
+    static boolean isDollarAt(String line, int index) {
+        int length = line.length();
+        if (index == length) {
+            return true;
+        }
+        if (index == length - 1) {
+            char c = line.charAt(index);
+            if (c == '\n') {
+                return index == 0 || line.charAt(index - 1) != '\r';
+            }
+            return LINE_TERMINATORS.indexOf(c) >= 0;
+        }
+        return index == length - 2 && line.charAt(index) == '\r' && line.charAt(index + 1) == '\n';
+    }
+
+    private static boolean contains(int[] ranges, int codePoint) {
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (codePoint >= ranges[i] && codePoint <= ranges[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Thrown when a pattern uses syntax outside the regular subset.
+     */
+    private static final class UnsupportedSyntaxException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private UnsupportedSyntaxException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * States of a program being compiled.
+     */
+    private static final class Builder {
+        private final List<Integer> types = new ArrayList<>();
+        private final List<Integer> outs = new ArrayList<>();
+        private final List<Integer> alternativeOuts = new ArrayList<>();
+        private final List<Integer> setIndices = new ArrayList<>();
+        private final List<int[]> sets = new ArrayList<>();
+
+        private int add(int type, int out, int alternativeOut, int[] set) throws UnsupportedSyntaxException {
+            if (types.size() >= MAX_STATES) {
+                throw new UnsupportedSyntaxException();
+            }
+            types.add(type);
+            outs.add(out);
+            alternativeOuts.add(alternativeOut);
+            if (set == null) {
+                setIndices.add(-1);
+            } else {
+                setIndices.add(sets.size());
+                sets.add(set);
+            }
+            return types.size() - 1;
+        }
+    }
+
+    /**
+     * Part of a parsed pattern, compiled backwards: each part is compiled in front of the states that follow.
+     */
+    private interface Node {
+        /**
+         * Adds the states of this part, leading to next, and returns the first of them.
+         */
+        int compile(Builder builder, int next) throws UnsupportedSyntaxException;
+    }
+
+    private static final class CharSetNode implements Node {
+        private final int[] ranges;
+
+        private CharSetNode(int[] ranges) {
+            this.ranges = ranges;
+        }
+
+        @Override
+        public int compile(Builder builder, int next) throws UnsupportedSyntaxException {
+            return builder.add(CHAR, next, -1, ranges);
+        }
+    }
+
+    private static final class AssertionNode implements Node {
+        private final int type;
+
+        private AssertionNode(int type) {
+            this.type = type;
+        }
+
+        @Override
+        public int compile(Builder builder, int next) throws UnsupportedSyntaxException {
+            return builder.add(type, next, -1, null);
+        }
+    }
+
+    private static final class ConcatNode implements Node {
+        private final List<Node> parts;
+
+        private ConcatNode(List<Node> parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        public int compile(Builder builder, int next) throws UnsupportedSyntaxException {
+            int state = next;
+            for (int i = parts.size() - 1; i >= 0; i--) {
+                state = parts.get(i).compile(builder, state);
+            }
+            return state;
+        }
+    }
+
+    private static final class AlternationNode implements Node {
+        private final List<Node> alternatives;
+
+        private AlternationNode(List<Node> alternatives) {
+            this.alternatives = alternatives;
+        }
+
+        @Override
+        public int compile(Builder builder, int next) throws UnsupportedSyntaxException {
+            int state = alternatives.get(alternatives.size() - 1).compile(builder, next);
+            for (int i = alternatives.size() - 2; i >= 0; i--) {
+                state = builder.add(SPLIT, alternatives.get(i).compile(builder, next), state, null);
+            }
+            return state;
+        }
+    }
+
+    private static final class RepeatNode implements Node {
+        private final Node body;
+        private final int min;
+        /**
+         * Largest number of repetitions, or -1 for no limit.
+         */
+        private final int max;
+
+        private RepeatNode(Node body, int min, int max) {
+            this.body = body;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public int compile(Builder builder, int next) throws UnsupportedSyntaxException {
+            int state;
+            if (max < 0) {
+                int loop = builder.add(SPLIT, -1, next, null);
+                builder.outs.set(loop, body.compile(builder, loop));
+                state = loop;
+            } else {
+                // x{0,k} as (x(x(...)?)?)?, so that skipping ends the repetition at once
+                state = next;
+                for (int i = min; i < max; i++) {
+                    state = builder.add(SPLIT, body.compile(builder, state), next, null);
+                }
+            }
+            for (int i = 0; i < min; i++) {
+                state = body.compile(builder, state);
+            }
+            return state;
+        }
+    }
+
+    /**
+     * Recursive descent parser of the pattern, over code points.
+     */
+    private static final class Parser {
+        private static final int[] DIGITS = {'0', '9'};
+        private static final int[] WORD = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+        private static final int[] SPACES = {'\t', '\r', ' ', ' '};
+
+        private final String pattern;
+        private final boolean isCaseInsensitive;
+        private int index;
+        private int assertionCount;
+
+        private Parser(String pattern, boolean isCaseInsensitive) {
+            this.pattern = pattern;
+            this.isCaseInsensitive = isCaseInsensitive;
+        }
+
+        private Node parse() throws UnsupportedSyntaxException {
+            Node node = parseAlternation();
+            if (index < pattern.length()) {
+                throw new UnsupportedSyntaxException();
+            }
+            return node;
+        }
+
+        private Node parseAlternation() throws UnsupportedSyntaxException {
+            List<Node> alternatives = new ArrayList<>();
+            alternatives.add(parseConcat());
+            while (index < pattern.length() && pattern.charAt(index) == '|') {
+                index++;
+                alternatives.add(parseConcat());
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : new AlternationNode(alternatives);
+        }
+
+        private Node parseConcat() throws UnsupportedSyntaxException {
+            List<Node> parts = new ArrayList<>();
+            while (index < pattern.length() && pattern.charAt(index) != '|' && pattern.charAt(index) != ')') {
+                int assertionsBefore = assertionCount;
+                Node atom = parseAtom();
+                parts.add(parseQuantifier(atom, assertionCount > assertionsBefore));
+            }
+            return parts.size() == 1 ? parts.get(0) : new ConcatNode(parts);
+        }
+
+        private Node parseAtom() throws UnsupportedSyntaxException {
+            int c = pattern.codePointAt(index);
+            index += Character.charCount(c);
+            switch (c) {
+            case '(':
+                return parseGroup();
+            case '[':
+                return new CharSetNode(parseClass());
+            case '.':
+                return new CharSetNode(complement(ranges(LINE_TERMINATORS)));
+            case '^':
+                assertionCount++;
+                return new AssertionNode(BEGIN);
+            case '$':
+                assertionCount++;
+                return new AssertionNode(END);
+            case '\\':
+                int[] escaped = parseEscape(false);
+                return new CharSetNode(escaped.length == 1 ? single(escaped[0]) : escaped);
+            case '*':
+            case '+':
+            case '?':
+            case '{':
+                throw new UnsupportedSyntaxException();
+            default:
+                return new CharSetNode(single(checkCodePoint(c)));
+            }
+        }
+
+        private Node parseGroup() throws UnsupportedSyntaxException {
+            if (pattern.startsWith("?:", index)) {
+                index += 2;
+            } else if (pattern.startsWith("?<", index) && index + 2 < pattern.length()
+                    && Character.isLetter(pattern.charAt(index + 2))) {
+                // a named group, which only captures
+                int close = pattern.indexOf('>', index);
+                if (close < 0) {
+                    throw new UnsupportedSyntaxException();
+                }
+                index = close + 1;
+            } else if (pattern.startsWith("?", index)) {
+                throw new UnsupportedSyntaxException();
+            }
+            Node node = parseAlternation();
+            if (index >= pattern.length() || pattern.charAt(index) != ')') {
+                throw new UnsupportedSyntaxException();
+            }
+            index++;
+            return node;
+        }
+
+        /**
+         * Parses the quantifier of atom, if any. An atom with '^' or '$' may not be quantified: the regex
+         * engine stops repeating at an empty repetition, as if the remaining ones were empty too, which
+         * only holds where they match.
+         */
+        private Node parseQuantifier(Node atom, boolean hasAssertion) throws UnsupportedSyntaxException {
+            if (index >= pattern.length()) {
+                return atom;
+            }
+            int min;
+            int max;
+            char c = pattern.charAt(index);
+            if (c == '*' || c == '+' || c == '?') {
+                index++;
+                min = c == '+' ? 1 : 0;
+                max = c == '?' ? 1 : -1;
+            } else if (c == '{') {
+                int close = pattern.indexOf('}', index);
+                if (close < 0 || !pattern.substring(index + 1, close).matches("[0-9]{1,5}(,[0-9]{0,5})?")) {
+                    throw new UnsupportedSyntaxException();
+                }
+                String[] bounds = pattern.substring(index + 1, close).split(",", -1);
+                min = Integer.parseInt(bounds[0]);
+                max = bounds.length == 1 ? min : bounds[1].isEmpty() ? -1 : Integer.parseInt(bounds[1]);
+                index = close + 1;
+            } else {
+                return atom;
+            }
+            if (hasAssertion || max >= 0 && max < min) {
+                throw new UnsupportedSyntaxException();
+            }
+            if (index < pattern.length() && pattern.charAt(index) == '?') {
+                index++; // reluctant, which finds the same lines
+            }
+            if (index < pattern.length() && "*+?{".indexOf(pattern.charAt(index)) >= 0) {
+                throw new UnsupportedSyntaxException(); // possessive, or quantified again
+            }
+            return new RepeatNode(atom, min, max);
+        }
+
+        /**
+         * Parses a bracket class after its '[' up to and including its ']'.
+         */
+        private int[] parseClass() throws UnsupportedSyntaxException {
+            boolean isNegated = index < pattern.length() && pattern.charAt(index) == '^';
+            if (isNegated) {
+                index++;
+            }
+            if (index < pattern.length() && pattern.charAt(index) == ']') {
+                throw new UnsupportedSyntaxException();
+            }
+            int[] set = new int[0];
+            while (true) {
+                if (index >= pattern.length()) {
+                    throw new UnsupportedSyntaxException();
+                }
+                int c = pattern.codePointAt(index);
+                if (c == ']') {
+                    index++;
+                    break;
+                }
+                if (c == '[' || pattern.startsWith("&&", index) || pattern.startsWith("--", index)) {
+                    throw new UnsupportedSyntaxException();
+                }
+                int[] item = parseClassItem();
+                if (item.length > 1) {
+                    if (pattern.startsWith("-", index) && !pattern.startsWith("-]", index)) {
+                        throw new UnsupportedSyntaxException();
+                    }
+                    set = union(set, item);
+                    continue;
+                }
+                int low = item[0];
+                if (pattern.startsWith("-", index) && index + 1 < pattern.length()
+                        && pattern.charAt(index + 1) != ']') {
+                    index++;
+                    if (pattern.charAt(index) == '[' || pattern.charAt(index) == '-') {
+                        throw new UnsupportedSyntaxException();
+                    }
+                    int[] high = parseClassItem();
+                    if (high.length > 1 || high[0] < low) {
+                        throw new UnsupportedSyntaxException();
+                    }
+                    set = union(set, range(low, high[0]));
+                } else {
+                    set = union(set, single(low));
+                }
+            }
+            return isNegated ? complement(set) : set;
+        }
+
+        /**
+         * Parses one character of a bracket class, returned as a single code point, or a class escape,
+         * returned as its ranges.
+         */
+        private int[] parseClassItem() throws UnsupportedSyntaxException {
+            int c = pattern.codePointAt(index);
+            index += Character.charCount(c);
+            if (c == '\\') {
+                return parseEscape(true);
+            }
+            return new int[]{checkCodePoint(c)};
+        }
+
+        /**
+         * Parses an escape after its backslash, returned as a single code point, or as the ranges of a class.
+         */
+        private int[] parseEscape(boolean isInClass) throws UnsupportedSyntaxException {
+            if (index >= pattern.length()) {
+                throw new UnsupportedSyntaxException();
+            }
+            int c = pattern.codePointAt(index);
+            index += Character.charCount(c);
+            switch (c) {
+            case 't':
+                return new int[]{'\t'};
+            case 'n':
+                return new int[]{'\n'};
+            case 'r':
+                return new int[]{'\r'};
+            case 'f':
+                return new int[]{'\f'};
+            case 'a':
+                return new int[]{'\u0007'};
+            case 'e':
+                return new int[]{'\u001B'};
+            case 'x':
+                return new int[]{parseHex(2)};
+            case 'u':
+                return new int[]{checkCodePoint(parseHex(4))};
+            case 'd':
+                return DIGITS.clone();
+            case 'D':
+                return complement(DIGITS);
+            case 'w':
+                return WORD.clone();
+            case 'W':
+                return complement(WORD);
+            case 's':
+                return SPACES.clone();
+            case 'S':
+                return complement(SPACES);
+            default:
+                if (c < ASCII_SIZE && Character.isLetterOrDigit(c)) {
+                    throw new UnsupportedSyntaxException();
+                }
+                return new int[]{checkCodePoint(c)};
+            }
+        }
+
+        private int parseHex(int digits) throws UnsupportedSyntaxException {
+            if (index + digits > pattern.length()
+                    || !pattern.substring(index, index + digits).matches("[0-9a-fA-F]+")) {
+                throw new UnsupportedSyntaxException();
+            }
+            int value = Integer.parseInt(pattern.substring(index, index + digits), 16);
+            index += digits;
+            return value;
+        }
+
+        private static int checkCodePoint(int c) throws UnsupportedSyntaxException {
+            if (c <= Character.MAX_VALUE && Character.isSurrogate((char) c)) {
+                throw new UnsupportedSyntaxException();
+            }
+            return c;
+        }
+
+        /**
+         * Returns the ranges a single character matches, with the other case of an ASCII letter if
+         * case-insensitive.
+         */
+        private int[] single(int c) {
+            int[] set = {c, c};
+            if (isCaseInsensitive && c < ASCII_SIZE && Character.isLetter(c)) {
+                int other = Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c);
+                set = union(set, new int[]{other, other});
+            }
+            return set;
+        }
+
+        /**
+         * Returns the ranges a class range matches, with every ASCII character whose other case is in the
+         * range if case-insensitive.
+         */
+        private int[] range(int low, int high) {
+            int[] set = {low, high};
+            if (isCaseInsensitive) {
+                for (int c = 0; c < ASCII_SIZE; c++) {
+                    int upper = Character.isLowerCase(c) ? Character.toUpperCase(c) : c;
+                    int lower = Character.isUpperCase(c) ? Character.toLowerCase(c) : c;
+                    if (upper >= low && upper <= high || lower >= low && lower <= high) {
+                        set = union(set, new int[]{c, c});
+                    }
+                }
+            }
+            return set;
+        }
+
+        private static int[] ranges(String characters) {
+            int[] set = new int[0];
+            for (int i = 0; i < characters.length(); i++) {
+                set = union(set, new int[]{characters.charAt(i), characters.charAt(i)});
+            }
+            return set;
+        }
+    }
+
+    /**
+     * Returns the union of two sets of sorted, disjoint, inclusive ranges, in the same form.
+     */
+    private static int[] union(int[] first, int[] second) {
+        int[] all = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+        Integer[] order = new Integer[all.length / 2];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(all[2 * a], all[2 * b]));
+        int[] merged = new int[all.length];
+        int size = 0;
+        for (int i : order) {
+            int low = all[2 * i];
+            int high = all[2 * i + 1];
+            if (size > 0 && low <= merged[size - 1] + 1) {
+                merged[size - 1] = Math.max(merged[size - 1], high);
+            } else {
+                merged[size++] = low;
+                merged[size++] = high;
+            }
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    /**
+     * Returns the code points that are not in a set of sorted, disjoint, inclusive ranges.
+     */
+    private static int[] complement(int[] set) {
+        int[] result = new int[set.length + 2];
+        int size = 0;
+        int next = 0;
+        for (int i = 0; i < set.length; i += 2) {
+            if (set[i] > next) {
+                result[size++] = next;
+                result[size++] = set[i] - 1;
+            }
+            next = set[i + 1] + 1;
+        }
+        if (next <= MAX_CODE_POINT) {
+            result[size++] = next;
+            result[size++] = MAX_CODE_POINT;
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
@@ -0,0 +1,340 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
+
+/**
+ * Sorts lines in the default order by their raw bytes, with a most-significant-digit radix sort, without
+ * decoding them or comparing them as Strings.
+ * <p>
+ * For input that is valid in the charset, the result is the same as String.compareTo on the decoded
+ * lines: byte order is code point order in UTF-8, which is UTF-16 order except between supplementary
+ * characters and U+E000 to U+FFFF. Input that is invalid, that holds both of those kinds of characters,
+ * or that does not fit the memory budget is left to be sorted as Strings.
+ * <p>
+ * Lines end at '\n', '\r' or "\r\n", like BufferedReader.readLine.
+ */
+final class RadixSorter {
+    /**
+     * Approximate bytes taken by a line besides its bytes: its offset, its length and its place in the two
+     * index arrays of the sort.
+     */
+    static final int LINE_OVERHEAD = 16;
+
+    /**
+     * Ranges of at most this many lines are sorted by insertion, which is faster there than counting.
+     */
+    private static final int INSERTION_CUTOFF = 32;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Charset charset;
+    private final boolean isUtf8;
+    private final boolean isAscii;
+    private final long memoryBudget;
+    private byte[] data = new byte[0];
+    private int size;
+    private int[] starts = new int[0];
+    private int[] lengths = new int[0];
+    private int count;
+    private int segmentStart;
+    private boolean hasSupplementary;
+    private boolean hasUpperBmp;
+
+    /**
+     * @param charset      Charset of the input, which must be supported
+     * @param memoryBudget Approximate number of bytes of lines to hold in memory
+     */
+    RadixSorter(Charset charset, long memoryBudget) {
+        this.charset = charset;
+        this.isUtf8 = StandardCharsets.UTF_8.equals(charset);
+        this.isAscii = StandardCharsets.US_ASCII.equals(charset);
+        this.memoryBudget = Math.min(memoryBudget, MAX_CAPACITY);
+    }
+
+    /**
+     * Returns whether lines in charset can be sorted by their bytes.
+     */
+    static boolean isSupported(Charset charset) {
+        return StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset)
+                || StandardCharsets.ISO_8859_1.equals(charset);
+    }
+
+    /**
+     * Reads every line of input. If they do not fit the budget or cannot be sorted by their bytes, none of
+     * them are kept, and {@link #getRemainder} returns the input from its start.
+     *
+     * @return Whether the lines of input were kept
+     * @throws IOException If input cannot be read
+     */
+    boolean read(InputStream input) throws IOException {
+        segmentStart = size;
+        while (true) {
+            if (size == data.length && !grow()) {
+                return false;
+            }
+            int read = input.read(data, size, data.length - size);
+            if (read < 0) {
+                break;
+            }
+            size += read;
+        }
+        int firstLine = count;
+        boolean hadSupplementary = hasSupplementary;
+        boolean hadUpperBmp = hasUpperBmp;
+        if (!splitLines(segmentStart, size) || size + (long) LINE_OVERHEAD * count > memoryBudget) {
+            count = firstLine;
+            hasSupplementary = hadSupplementary;
+            hasUpperBmp = hadUpperBmp;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the bytes of the input that {@link #read} did not keep, followed by the rest of input.
+     */
+    InputStream getRemainder(InputStream input) {
+        ByteArrayInputStream head = new ByteArrayInputStream(data, segmentStart, size - segmentStart);
+        size = segmentStart;
+        return new SequenceInputStream(head, input);
+    }
+
+    int getLineCount() {
+        return count;
+    }
+
+    /**
+     * Returns the index-th line kept, decoded.
+     */
+    String getLine(int index) {
+        return new String(data, starts[index], lengths[index], charset);
+    }
+
+    /**
+     * Returns whether the byte order of the lines kept is their order as Strings.
+     */
+    boolean isByteOrderExact() {
+        return !(hasSupplementary && hasUpperBmp);
+    }
+
+    /**
+     * Writes every line kept in sorted order, each followed by a newline, or a single newline if there are
+     * none. If isUnique is set, lines identical to the line before them are skipped. The output is flushed
+     * but not closed.
+     *
+     * @throws IOException If output cannot be written
+     */
+    void writeTo(OutputStream output, boolean isReverseOrder, boolean isUnique) throws IOException {
+        byte[] newline = STRING_NEWLINE.getBytes(charset);
+        OutputStream buffered = new BufferedOutputStream(output, BUFFER_SIZE);
+        if (count == 0) {
+            buffered.write(newline);
+        }
+        int[] order = sort();
+        int previous = -1;
+        for (int i = 0; i < count; i++) {
+            int line = order[isReverseOrder ? count - 1 - i : i];
+            if (isUnique && previous >= 0 && compare(previous, line, 0) == 0) {
+                continue;
+            }
+            previous = line;
+            buffered.write(data, starts[line], lengths[line]);
+            buffered.write(newline);
+        }
+        buffered.flush();
+    }
+
+    /**
+     * Returns the indices of the lines kept in ascending byte order.
+     */
+    int[] sort() {
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        int[] aux = new int[count];
+        // ranges still to sort, as (start, end, depth), in place of recursion as deep as the longest prefix
+        int[] stack = new int[3 * 64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = count;
+        stack[top++] = 0;
+        int[] bounds = new int[258];
+        while (top > 0) {
+            int depth = stack[--top];
+            int end = stack[--top];
+            int start = stack[--top];
+            if (end - start <= INSERTION_CUTOFF) {
+                insertionSort(order, start, end, depth);
+                continue;
+            }
+
+            // bucket 0 holds lines that end at depth, and bucket b + 1 those whose byte at depth is b
+            Arrays.fill(bounds, 0);
+            for (int i = start; i < end; i++) {
+                bounds[byteAt(order[i], depth) + 2]++;
+            }
+            for (int b = 0; b < 257; b++) {
+                bounds[b + 1] += bounds[b];
+            }
+            for (int i = start; i < end; i++) {
+                aux[bounds[byteAt(order[i], depth) + 1]++] = order[i];
+            }
+            System.arraycopy(aux, 0, order, start, end - start);
+
+            // after distributing, bounds[b] is the end of bucket b; lines that ended are all equal
+            for (int b = 1; b < 257; b++) {
+                int bucketStart = start + bounds[b - 1];
+                int bucketEnd = start + bounds[b];
+                if (bucketEnd - bucketStart > 1) {
+                    if (top + 3 > stack.length) {
+                        stack = Arrays.copyOf(stack, 2 * stack.length);
+                    }
+                    stack[top++] = bucketStart;
+                    stack[top++] = bucketEnd;
+                    stack[top++] = depth + 1;
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Returns the byte of line at depth as an unsigned value, or -1 if the line is shorter.
+     */
+    private int byteAt(int line, int depth) {
+        return depth < lengths[line] ? data[starts[line] + depth] & 0xFF : -1;
+    }
+
+    private void insertionSort(int[] order, int start, int end, int depth) {
+        for (int i = start + 1; i < end; i++) {
+            int line = order[i];
+            int j = i;
+            while (j > start && compare(order[j - 1], line, depth) > 0) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = line;
+        }
+    }
+
+    /**
+     * Compares two lines that are equal before depth.
+     */
+    private int compare(int line1, int line2, int depth) {
+        return Arrays.compareUnsigned(data, starts[line1] + depth, starts[line1] + lengths[line1],
+                data, starts[line2] + depth, starts[line2] + lengths[line2]);
+    }
+
+    /**
+     * Grows the buffer within the budget, returning false if it cannot grow.
+     */
+    private boolean grow() {
+        if (data.length >= memoryBudget) {
+            return false;
+        }
+        long capacity = Math.max(INITIAL_CAPACITY, 2L * data.length);
+        data = Arrays.copyOf(data, (int) Math.min(capacity, memoryBudget));
+        return true;
+    }
+
+    /**
+     * Records the lines of data[from, to), returning false if a byte is invalid in the charset.
+     */
+    private boolean splitLines(int from, int to) {
+        int lineStart = from;
+        int i = from;
+        while (i < to) {
+            byte current = data[i];
+            if (current == '\n' || current == '\r') {
+                addLine(lineStart, i);
+                i += current == '\r' && i + 1 < to && data[i + 1] == '\n' ? 2 : 1;
+                lineStart = i;
+            } else if (current >= 0) {
+                i++;
+            } else if (isUtf8) {
+                int length = utf8Length(i, to);
+                if (length == 0) {
+                    return false;
+                }
+                i += length;
+            } else if (isAscii) {
+                return false;
+            } else {
+                i++;
+            }
+        }
+        if (lineStart < to) {
+            addLine(lineStart, to);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the length of the valid UTF-8 sequence of more than one byte at data[index], or 0 if there is
+     * none before to. Notes supplementary characters and characters from U+E000, whose orders as bytes and
+     * as UTF-16 differ.
+     */
+    private int utf8Length(int index, int to) {
+        int lead = data[index] & 0xFF;
+        int length;
+        int min = 0x80;
+        int max = 0xBF;
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            length = 2;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            length = 3;
+            if (lead == 0xE0) {
+                min = 0xA0;
+            } else if (lead == 0xED) {
+                // surrogates
+                max = 0x9F;
+            }
+            hasUpperBmp |= lead >= 0xEE;
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            length = 4;
+            if (lead == 0xF0) {
+                min = 0x90;
+            } else if (lead == 0xF4) {
+                max = 0x8F;
+            }
+            hasSupplementary = true;
+        } else {
+            return 0;
+        }
+        if (index + length > to) {
+            return 0;
+        }
+        for (int i = 1; i < length; i++) {
+            int next = data[index + i] & 0xFF;
+            if (next < min || next > max) {
+                return 0;
+            }
+            min = 0x80;
+            max = 0xBF;
+        }
+        return length;
+    }
+
+    private void addLine(int start, int end) {
+        if (count == starts.length) {
+            int capacity = Math.max(1024, 2 * count);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        starts[count] = start;
+        lengths[count] = end - start;
+        count++;
+    }
+}
@@ -0,0 +1,29 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+public final class SortHelper {
+
+    private SortHelper() {
+    }
+
+    /**
+     * Extracts a chunk of numbers or non-numbers from str starting from index 0.
+     *
+     * @param str Input string to read from
+     */
+    public static String getChunk(String str) {
+        int startIndexLocal = 0;
+        StringBuilder chunk = new StringBuilder();
+        final int strLen = str.length();
+        char chr = str.charAt(startIndexLocal++);
+        chunk.append(chr);
+        final boolean extractDigit = Character.isDigit(chr) || chr == '-';
+        while (startIndexLocal < strLen) {
+            char nextChr = str.charAt(startIndexLocal++);
+            if ((extractDigit && !Character.isDigit(nextChr)) || (!extractDigit && Character.isDigit(nextChr))) {
+                break;
+            }
+            chunk.append(nextChr);
+        }
+        return chunk.toString();
+    }
+}
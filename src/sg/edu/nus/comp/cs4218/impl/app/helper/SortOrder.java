@@ -0,0 +1,406 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import java.math.BigInteger;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * Order in which sort places lines for the <code>-n</code>, <code>-f</code>, <code>-r</code>, <code>-k</code>,
+ * <code>-t</code> and <code>-u</code> options.
+ * <p>
+ * With <code>-n</code>, <code>-f</code> or <code>-k</code>, the work that a comparison would otherwise repeat
+ * is done once per line, into a {@link Key}: the case-folded line, the offsets of its key fields, and for
+ * each field the end of its first chunk of digits or non-digits, with the value of that chunk if it is a
+ * number, held in a long unless it overflows. Without <code>-k</code>, the whole line is the only field.
+ * Lines without any of these options are compared as they are.
+ * <p>
+ * Lines are sorted with {@link Arrays#parallelSort}. Lines that compare equal keep their input order, or
+ * the opposite order with <code>-r</code>, as if the lines were sorted stably and then reversed. With
+ * <code>-u</code>, only the first of lines that compare equal is kept.
+ * <p>
+ * Given a collation locale, fields are compared by their {@link java.text.CollationKey} in that locale,
+ * computed once per line as bytes, instead of by code unit; <code>-f</code> then ignores case as the
+ * locale does. With <code>-n</code>, fields that start with a number come first, in numeric order, and the
+ * text after the number breaks ties.
+ */
+public final class SortOrder {
+    /**
+     * Approximate bytes taken by a Key besides its case-folded copy of the line and its fields.
+     */
+    static final int KEY_OVERHEAD = 64;
+
+    /**
+     * Approximate bytes taken by each field of a Key.
+     */
+    private static final int FIELD_OVERHEAD = 32;
+
+    /**
+     * Numbers of at most this many digits always fit in a long.
+     */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    /**
+     * Lists of at least this many lines have their keys computed in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private final boolean isFirstWordNumber;
+    private final boolean isCaseIndependent;
+    private final boolean isReverseOrder;
+    private final boolean isUnique;
+    private final int[][] keyFields;
+    private final Character delimiter;
+    private final ThreadLocal<Collator> collators;
+
+    /**
+     * @param isFirstWordNumber Boolean option to treat the first word of a line as a number
+     * @param isReverseOrder    Boolean option to sort in reverse order
+     * @param isCaseIndependent Boolean option to perform case-independent sorting
+     */
+    public SortOrder(boolean isFirstWordNumber, boolean isReverseOrder, boolean isCaseIndependent) {
+        this(isFirstWordNumber, isReverseOrder, isCaseIndependent, false, List.of(), null, null);
+    }
+
+    /**
+     * @param isFirstWordNumber Boolean option to treat the first word of a key as a number
+     * @param isReverseOrder    Boolean option to sort in reverse order
+     * @param isCaseIndependent Boolean option to perform case-independent sorting
+     * @param isUnique          Boolean option to keep only the first of lines that compare equal
+     * @param keyFields         Fields compared in turn, each {start, end} counted from 1, where end 0 is the
+     *                          end of the line; the whole line if empty
+     * @param delimiter         Character that separates fields, or null for fields that start at blanks
+     * @param collationLocale   Locale whose collation compares text, or null to compare it by code unit
+     */
+    public SortOrder(boolean isFirstWordNumber, boolean isReverseOrder, boolean isCaseIndependent,
+                     boolean isUnique, List<int[]> keyFields, Character delimiter, Locale collationLocale) {
+        this.isFirstWordNumber = isFirstWordNumber;
+        this.isCaseIndependent = isCaseIndependent;
+        this.isReverseOrder = isReverseOrder;
+        this.isUnique = isUnique;
+        this.keyFields = keyFields.toArray(new int[0][]);
+        this.delimiter = delimiter;
+        // collators are not thread-safe, and keys are computed in parallel
+        this.collators = collationLocale == null ? null : ThreadLocal.withInitial(() -> {
+            Collator collator = Collator.getInstance(collationLocale);
+            collator.setStrength(isCaseIndependent ? Collator.SECONDARY : Collator.TERTIARY);
+            collator.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+            return collator;
+        });
+    }
+
+    public boolean isReverseOrder() {
+        return isReverseOrder;
+    }
+
+    public boolean isUnique() {
+        return isUnique;
+    }
+
+    /**
+     * Returns whether lines are compared through keys, rather than as they are.
+     */
+    public boolean hasKeys() {
+        return isFirstWordNumber || isCaseIndependent || keyFields.length > 0 || collators != null;
+    }
+
+    /**
+     * Sorts lines in place. With <code>-u</code>, lines that compare equal to the line before them are
+     * removed.
+     *
+     * @param lines Modifiable list of lines; its size may be fixed unless lines are unique
+     */
+    public void sort(List<String> lines) {
+        if (!hasKeys()) {
+            // equal lines are identical, so their order does not matter
+            String[] sorted = lines.toArray(new String[0]);
+            Arrays.parallelSort(sorted, isReverseOrder ? Collections.reverseOrder() : Comparator.naturalOrder());
+            int count = 0;
+            for (String line : sorted) {
+                if (!isUnique || count == 0 || !line.equals(lines.get(count - 1))) {
+                    lines.set(count++, line);
+                }
+            }
+            truncate(lines, count);
+            return;
+        }
+
+        Key[] keys = new Key[lines.size()];
+        IntStream indices = IntStream.range(0, keys.length);
+        if (keys.length >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> keys[i] = keyOf(lines.get(i), i));
+
+        // the index makes the order total, so that reversing it also reverses the order of equal lines
+        Comparator<Key> order = (key1, key2) -> {
+            int result = compare(key1, key2);
+            return result == 0 ? Integer.compare(key1.index, key2.index) : result;
+        };
+        Arrays.parallelSort(keys, isReverseOrder ? order.reversed() : order);
+
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (!isUnique || i == 0 || compare(keys[i - 1], keys[i]) != 0) {
+                lines.set(count++, keys[i].line);
+            }
+        }
+        truncate(lines, count);
+    }
+
+    /**
+     * Returns the approximate number of bytes that the key of line takes while it is sorted.
+     */
+    public long estimateKeySize(String line) {
+        if (!hasKeys()) {
+            return 0;
+        }
+        if (collators != null) {
+            // collation keys take a few bytes per character, for each of their levels
+            return KEY_OVERHEAD + (long) (FIELD_OVERHEAD + KEY_OVERHEAD) * Math.max(1, keyFields.length)
+                    + 6L * line.length();
+        }
+        return KEY_OVERHEAD + (long) FIELD_OVERHEAD * Math.max(1, keyFields.length)
+                + (isCaseIndependent ? KEY_OVERHEAD + 2L * line.length() : 0);
+    }
+
+    /**
+     * Computes the key of line, which is the index-th line of its input.
+     */
+    public Key keyOf(String line, int index) {
+        String folded = isCaseIndependent && collators == null ? line.toLowerCase(Locale.ENGLISH) : line;
+        int fieldCount = Math.max(1, keyFields.length);
+        int[] bounds = new int[3 * fieldCount];
+        long[] numbers = isFirstWordNumber ? new long[fieldCount] : null;
+        BigInteger[] bigNumbers = null;
+        byte[][] collationKeys = collators == null ? null : new byte[fieldCount][];
+        for (int i = 0; i < fieldCount; i++) {
+            int start = 0;
+            int end = folded.length();
+            if (keyFields.length > 0) {
+                start = fieldStart(folded, keyFields[i][0]);
+                if (keyFields[i][1] > 0) {
+                    end = Math.max(start, fieldEnd(folded, fieldStart(folded, keyFields[i][1])));
+                }
+                // numbers in fields may follow the blanks that start them
+                while (isFirstWordNumber && start < end && isBlank(folded.charAt(start))) {
+                    start++;
+                }
+            }
+            bounds[3 * i] = start;
+            bounds[3 * i + 1] = end;
+            bounds[3 * i + 2] = end;
+            if (isFirstWordNumber && start < end) {
+                BigInteger bigNumber = parseChunk(folded, bounds, 3 * i, numbers, i);
+                if (bigNumber != null) {
+                    if (bigNumbers == null) {
+                        bigNumbers = new BigInteger[fieldCount];
+                    }
+                    bigNumbers[i] = bigNumber;
+                }
+            }
+            if (collationKeys != null) {
+                // the text after a number only breaks ties between equal numbers
+                int textStart = bounds[3 * i + 2] < 0 ? -bounds[3 * i + 2] : start;
+                collationKeys[i] = collators.get().getCollationKey(folded.substring(textStart, end)).toByteArray();
+            }
+        }
+        return new Key(line, folded, index, bounds, numbers, bigNumbers, collationKeys);
+    }
+
+    /**
+     * Finds the first chunk of the field of folded at bounds[offset], a run of digits, which may start with
+     * '-', or a run of other characters. Stores its end at bounds[offset + 2], negated if the chunk is a
+     * number. The number is stored in numbers[field], or returned if it does not fit in a long.
+     */
+    private static BigInteger parseChunk(String folded, int[] bounds, int offset, long[] numbers, int field) {
+        int start = bounds[offset];
+        int end = bounds[offset + 1];
+        char first = folded.charAt(start);
+        boolean isDigitChunk = Character.isDigit(first) || first == '-';
+        int chunkEnd = start + 1;
+        while (chunkEnd < end && Character.isDigit(folded.charAt(chunkEnd)) == isDigitChunk) {
+            chunkEnd++;
+        }
+        bounds[offset + 2] = chunkEnd;
+        boolean isNegative = first == '-';
+        int digitStart = isNegative ? start + 1 : start;
+        if (!isDigitChunk || chunkEnd == digitStart) {
+            return null;
+        }
+        bounds[offset + 2] = -chunkEnd;
+        if (chunkEnd - digitStart > MAX_LONG_DIGITS) {
+            return new BigInteger(folded.substring(start, chunkEnd));
+        }
+        long number = 0;
+        for (int i = digitStart; i < chunkEnd; i++) {
+            number = number * 10 + Character.digit(folded.charAt(i), 10);
+        }
+        numbers[field] = isNegative ? -number : number;
+        return null;
+    }
+
+    /**
+     * Compares two keys field by field, without reversal and without considering the input order.
+     */
+    public int compare(Key key1, Key key2) {
+        for (int offset = 0; offset < key1.bounds.length; offset += 3) {
+            int result = compareField(key1, key2, offset);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private int compareField(Key key1, Key key2, int offset) {
+        if (collators != null) {
+            return compareCollatedField(key1, key2, offset);
+        }
+        String str1 = key1.folded;
+        String str2 = key2.folded;
+        int start1 = key1.bounds[offset];
+        int end1 = key1.bounds[offset + 1];
+        int start2 = key2.bounds[offset];
+        int end2 = key2.bounds[offset + 1];
+        if (!isFirstWordNumber || start1 == end1 || start2 == end2) {
+            return compareRange(str1, start1, end1, str2, start2, end2);
+        }
+
+        int chunkEnd1 = Math.abs(key1.bounds[offset + 2]);
+        int chunkEnd2 = Math.abs(key2.bounds[offset + 2]);
+        int result;
+        if (key1.bounds[offset + 2] < 0 && key2.bounds[offset + 2] < 0) {
+            result = compareNumbers(key1, key2, offset / 3);
+        } else {
+            result = compareRange(str1, start1, chunkEnd1, str2, start2, chunkEnd2);
+        }
+        if (result != 0) {
+            return result;
+        }
+        return compareRange(str1, chunkEnd1, end1, str2, chunkEnd2, end2);
+    }
+
+    private int compareCollatedField(Key key1, Key key2, int offset) {
+        int field = offset / 3;
+        if (isFirstWordNumber) {
+            boolean isNumber1 = key1.bounds[offset + 2] < 0;
+            boolean isNumber2 = key2.bounds[offset + 2] < 0;
+            int result = isNumber1 && isNumber2
+                    ? compareNumbers(key1, key2, field)
+                    : Boolean.compare(isNumber2, isNumber1);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Arrays.compareUnsigned(key1.collationKeys[field], key2.collationKeys[field]);
+    }
+
+    private static int compareNumbers(Key key1, Key key2, int field) {
+        BigInteger big1 = key1.bigNumbers == null ? null : key1.bigNumbers[field];
+        BigInteger big2 = key2.bigNumbers == null ? null : key2.bigNumbers[field];
+        if (big1 == null && big2 == null) {
+            return Long.compare(key1.numbers[field], key2.numbers[field]);
+        }
+        return toBigInteger(big1, key1.numbers[field]).compareTo(toBigInteger(big2, key2.numbers[field]));
+    }
+
+    private static BigInteger toBigInteger(BigInteger bigNumber, long number) {
+        return bigNumber == null ? BigInteger.valueOf(number) : bigNumber;
+    }
+
+    /**
+     * Compares str1[start1, end1) with str2[start2, end2) like String.compareTo, without copying them.
+     */
+    private static int compareRange(String str1, int start1, int end1, String str2, int start2, int end2) {
+        int length = Math.min(end1 - start1, end2 - start2);
+        for (int i = 0; i < length; i++) {
+            char chr1 = str1.charAt(start1 + i);
+            char chr2 = str2.charAt(start2 + i);
+            if (chr1 != chr2) {
+                return chr1 - chr2;
+            }
+        }
+        return (end1 - start1) - (end2 - start2);
+    }
+
+    /**
+     * Returns where the field-th field of str starts, or the end of str if it has fewer fields.
+     */
+    private int fieldStart(String str, int field) {
+        int index = 0;
+        for (int i = 1; i < field && index < str.length(); i++) {
+            index = fieldEnd(str, index);
+            if (delimiter != null && index < str.length()) {
+                index++;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns where the field of str that starts at start ends. Without a delimiter, a field is a run of
+     * blanks followed by a run of other characters.
+     */
+    private int fieldEnd(String str, int start) {
+        int index = start;
+        if (delimiter != null) {
+            while (index < str.length() && str.charAt(index) != delimiter) {
+                index++;
+            }
+            return index;
+        }
+        while (index < str.length() && isBlank(str.charAt(index))) {
+            index++;
+        }
+        while (index < str.length() && !isBlank(str.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isBlank(char chr) {
+        return chr == ' ' || chr == '\t';
+    }
+
+    private static void truncate(List<String> lines, int size) {
+        if (size < lines.size()) {
+            lines.subList(size, lines.size()).clear();
+        }
+    }
+
+    /**
+     * Sort key of one line. Field i of the case-folded line is [bounds[3i], bounds[3i + 1]). With
+     * <code>-n</code>, the first chunk of the field ends at |bounds[3i + 2]|, and is a number if that is
+     * negative: bigNumbers[i] if it does not fit in a long, numbers[i] otherwise. With a collation locale,
+     * collationKeys[i] holds the collation key of the field, or of its text after the number.
+     */
+    public static final class Key {
+        private final String line;
+        private final String folded;
+        private final int index;
+        private final int[] bounds;
+        private final long[] numbers;
+        private final BigInteger[] bigNumbers;
+        private final byte[][] collationKeys;
+
+        private Key(String line, String folded, int index, int[] bounds, long[] numbers,
+                    BigInteger[] bigNumbers, byte[][] collationKeys) {
+            this.line = line;
+            this.folded = folded;
+            this.index = index;
+            this.bounds = bounds;
+            this.numbers = numbers;
+            this.bigNumbers = bigNumbers;
+            this.collationKeys = collationKeys;
+        }
+
+        public String getLine() {
+            return line;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package sg.edu.nus.comp.cs4218.impl.cmd;
+
+import sg.edu.nus.comp.cs4218.Command;
+import sg.edu.nus.comp.cs4218.exception.AbstractApplicationException;
+import sg.edu.nus.comp.cs4218.exception.ShellException;
+import sg.edu.nus.comp.cs4218.impl.util.IOUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_IO_EXCEPTION;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
+
+/**
+ * Fused form of <code>cat FILES | consumer</code> created by the pipeline optimizer.
+ * <p>
+ * The consumer reads the files straight from disk, through a stream that reproduces the output of
+ * cat byte for byte, instead of reading a full in-memory copy of it. If any file is not a readable
+ * regular file when the command runs, both original commands run instead, so error messages do not
+ * change.
+ */
+public class FileInputCommand implements Command {
+    private final CallCommand catCommand;
+    private final Command consumer;
+    private final List<String> fileNames;
+
+    public FileInputCommand(CallCommand catCommand, Command consumer, List<String> fileNames) {
+        this.catCommand = catCommand;
+        this.consumer = consumer;
+        this.fileNames = fileNames;
+    }
+
+    @Override
+    public void evaluate(InputStream stdin, OutputStream stdout)
+            throws AbstractApplicationException, ShellException, FileNotFoundException {
+        List<Path> paths = resolveReadableFiles(fileNames);
+        if (paths == null) {
+            evaluateUnfused(stdin, stdout);
+            return;
+        }
+
+        InputStream input = new CatInputStream(paths);
+        try {
+            consumer.evaluate(input, stdout);
+        } finally {
+            try {
+                input.close();
+            } catch (IOException e) {
+                throw new ShellException(E_IO_EXCEPTION, e);
+            }
+        }
+    }
+
+    /**
+     * Resolves the file names, or returns null if any of them is not a readable regular file.
+     */
+    static List<Path> resolveReadableFiles(List<String> fileNames) {
+        List<Path> paths = new ArrayList<>();
+        for (String fileName : fileNames) {
+            Path path;
+            try {
+                path = IOUtils.resolveFilePath(fileName);
+            } catch (ShellException e) {
+                return null;
+            }
+            if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+                return null;
+            }
+            paths.add(path);
+        }
+        return paths;
+    }
+
+    private void evaluateUnfused(InputStream stdin, OutputStream stdout)
+            throws AbstractApplicationException, ShellException, FileNotFoundException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        catCommand.evaluate(stdin, buffer);
+        consumer.evaluate(new ByteArrayInputStream(buffer.toByteArray()), stdout);
+    }
+
+    @Override
+    public void terminate() {
+        consumer.terminate();
+    }
+
+    public CallCommand getCatCommand() {
+        return catCommand;
+    }
+
+    public Command getConsumer() {
+        return consumer;
+    }
+
+    public List<String> getFileNames() {
+        return fileNames;
+    }
+
+    /**
+     * Produces exactly what <code>cat FILES</code> writes: the lines of every file joined by newlines
+     * with trailing whitespace stripped, the files joined by newlines, trailing whitespace of the whole
+     * output stripped, and a final newline.
+     * <p>
+     * Whitespace is held back until a later character shows that it is not trailing.
+     */
+    static final class CatInputStream extends InputStream {
+        private static final int BATCH_SIZE = 8192;
+
+        private final List<Path> paths;
+        private final StringBuilder pending = new StringBuilder();
+        private final StringBuilder output = new StringBuilder();
+        private int fileIndex = -1;
+        private BufferedReader reader;
+        private boolean isFirstLine;
+        private int fileStart;
+        private boolean isFinished;
+        private byte[] buffer = new byte[0];
+        private int position;
+
+        CatInputStream(List<Path> paths) {
+            this.paths = paths;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.length - position);
+            System.arraycopy(buffer, position, bytes, offset, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            isFinished = true;
+            if (reader != null) {
+                reader.close();
+                reader = null;
+            }
+        }
+
+        /**
+         * Makes sure there are unread bytes in the buffer, returning false at the end of the output.
+         */
+        private boolean fill() throws IOException {
+            while (position == buffer.length) {
+                if (isFinished && output.length() == 0) {
+                    return false;
+                }
+                while (output.length() < BATCH_SIZE && !isFinished) {
+                    advance();
+                }
+                buffer = output.toString().getBytes();
+                position = 0;
+                output.setLength(0);
+            }
+            return true;
+        }
+
+        /**
+         * Moves to the next line, the next file or the end of the output.
+         */
+        private void advance() throws IOException {
+            if (reader == null) {
+                fileIndex++;
+                if (fileIndex == paths.size()) {
+                    pending.setLength(0);
+                    output.append(STRING_NEWLINE);
+                    close();
+                    return;
+                }
+                if (fileIndex > 0) {
+                    pending.append(STRING_NEWLINE);
+                }
+                fileStart = pending.length();
+                isFirstLine = true;
+                reader = new BufferedReader(new InputStreamReader(Files.newInputStream(paths.get(fileIndex))));
+                return;
+            }
+
+            String line = reader.readLine();
+            if (line == null) {
+                pending.setLength(fileStart);
+                reader.close();
+                reader = null;
+                return;
+            }
+            if (!isFirstLine) {
+                append(STRING_NEWLINE);
+            }
+            isFirstLine = false;
+            append(line);
+        }
+
+        private void append(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                char chr = text.charAt(i);
+                if (Character.isWhitespace(chr)) {
+                    pending.append(chr);
+                    continue;
+                }
+                output.append(pending).append(chr);
+                pending.setLength(0);
+                fileStart = 0;
+            }
+        }
+    }
+}
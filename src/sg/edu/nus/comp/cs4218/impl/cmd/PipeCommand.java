@@ -3,51 +3,96 @@ package sg.edu.nus.comp.cs4218.impl.cmd;
 import sg.edu.nus.comp.cs4218.Command;
 import sg.edu.nus.comp.cs4218.exception.AbstractApplicationException;
 import sg.edu.nus.comp.cs4218.exception.ShellException;
+import sg.edu.nus.comp.cs4218.impl.util.BoundedPipe;
+import sg.edu.nus.comp.cs4218.impl.util.PipelineOptimizer;
+import sg.edu.nus.comp.cs4218.impl.util.ShellOptions;
+import sg.edu.nus.comp.cs4218.impl.util.ShellOptions.PipeMode;
+import sg.edu.nus.comp.cs4218.impl.util.ThreadUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_INTERRUPTED;
 
 /**
  * A Pipe Command is a sub-command consisting of two Call Commands separated with a pipe,
  * or a Pipe Command and a Call Command separated with a pipe.
  * <p>
  * Command format: <Call> | <Call> or <Pipe> | <Call>
+ * <p>
+ * In SERIAL mode each Call Command runs to completion before the next one starts. In the concurrent
+ * modes every Call Command runs at the same time on its own thread, connected by bounded pipes, so
+ * memory use does not grow with the size of the data and output appears as soon as it is produced.
+ * A stage that fails in a concurrent mode closes its pipes, so the stages after it see end of input
+ * rather than being skipped. A stage that finishes while the stage before it still runs, such as a
+ * <code>grep -q</code> that found its match, only closes its end of the pipe: the stage before stops
+ * at its next write to that pipe, and the broken pipe this causes is not reported. Work that stage does
+ * elsewhere, such as writing to a redirected file, is never cut off.
+ * <p>
+ * Unless turned off, {@link PipelineOptimizer} first rewrites the Call Commands into an equivalent
+ * cheaper plan, which is what actually runs.
  */
 public class PipeCommand implements Command {
     private final List<CallCommand> callCommands;
+    private final PipeMode pipeMode;
+    private final boolean isOptimized;
 
     public PipeCommand(List<CallCommand> callCommands) {
+        this(callCommands, ShellOptions.getPipeMode());
+    }
+
+    public PipeCommand(List<CallCommand> callCommands, PipeMode pipeMode) {
+        this(callCommands, pipeMode, ShellOptions.isPipeOptimized());
+    }
+
+    public PipeCommand(List<CallCommand> callCommands, PipeMode pipeMode, boolean isOptimized) {
         this.callCommands = callCommands;
+        this.pipeMode = pipeMode == null ? PipeMode.SERIAL : pipeMode;
+        this.isOptimized = isOptimized;
     }
 
     @Override
     public void evaluate(InputStream stdin, OutputStream stdout)
             throws AbstractApplicationException, ShellException, FileNotFoundException {
+        List<Command> stages = isOptimized
+                ? PipelineOptimizer.optimize(callCommands)
+                : new ArrayList<>(callCommands);
+        if (pipeMode == PipeMode.SERIAL) {
+            evaluateSerially(stages, stdin, stdout);
+        } else {
+            evaluateConcurrently(stages, stdin, stdout);
+        }
+    }
+
+    private static void evaluateSerially(List<Command> stages, InputStream stdin, OutputStream stdout)
+            throws AbstractApplicationException, ShellException, FileNotFoundException {
         AbstractApplicationException absAppException = null;
         ShellException shellException = null;
 
         InputStream nextInputStream = stdin;
         OutputStream nextOutputStream;
 
-        for (int i = 0; i < callCommands.size(); i++) {
-            CallCommand callCommand = callCommands.get(i);
+        for (int i = 0; i < stages.size(); i++) {
+            Command stage = stages.get(i);
 
             if (absAppException != null || shellException != null) {
-                callCommand.terminate();
+                stage.terminate();
                 continue;
             }
 
             try {
                 nextOutputStream = new ByteArrayOutputStream();
-                if (i == callCommands.size() - 1) {
+                if (i == stages.size() - 1) {
                     nextOutputStream = stdout;
                 }
-                callCommand.evaluate(nextInputStream, nextOutputStream);
-                if (i != callCommands.size()) {
+                stage.evaluate(nextInputStream, nextOutputStream);
+                if (i != stages.size()) {
                     nextInputStream = new ByteArrayInputStream(nextOutputStream.toString().getBytes());
                 }
             } catch (AbstractApplicationException e) {
@@ -65,6 +110,80 @@ public class PipeCommand implements Command {
         }
     }
 
+    private void evaluateConcurrently(List<Command> stages, InputStream stdin, OutputStream stdout)
+            throws AbstractApplicationException, ShellException, FileNotFoundException {
+        int numOfStages = stages.size();
+        BoundedPipe[] pipes = new BoundedPipe[Math.max(numOfStages - 1, 0)];
+        for (int i = 0; i < pipes.length; i++) {
+            pipes[i] = new BoundedPipe(ShellOptions.getPipeBufferSize());
+        }
+
+        ThreadFactory threadFactory = ThreadUtils.newThreadFactory(pipeMode == PipeMode.VIRTUAL, "pipe-stage");
+        Throwable[] failures = new Throwable[numOfStages];
+        Thread[] threads = new Thread[numOfStages];
+        for (int i = 0; i < numOfStages; i++) {
+            InputStream stageInput = i == 0 ? stdin : pipes[i - 1].getInputStream();
+            OutputStream stageOutput = i == numOfStages - 1 ? stdout : pipes[i].getOutputStream();
+            Stage stage = new Stage(stages.get(i), i, stageInput, stageOutput, pipes, failures);
+            threads[i] = threadFactory.newThread(stage);
+            threads[i].start();
+        }
+
+        boolean isInterrupted = false;
+        for (Thread thread : threads) {
+            if (!ThreadUtils.joinQuietly(thread)) {
+                isInterrupted = true;
+                break;
+            }
+        }
+        if (isInterrupted) {
+            terminateStages(threads, pipes);
+            throw new ShellException(E_INTERRUPTED);
+        }
+
+        rethrowFirstFailure(failures, pipes);
+    }
+
+    /**
+     * Rethrows the failure of the earliest stage, ignoring stages that only failed because a later
+     * stage stopped reading their output.
+     */
+    private static void rethrowFirstFailure(Throwable[] failures, BoundedPipe... pipes)
+            throws AbstractApplicationException, ShellException, FileNotFoundException {
+        for (int i = 0; i < failures.length; i++) {
+            Throwable failure = failures[i];
+            if (failure == null) {
+                continue;
+            }
+            if (i < pipes.length && pipes[i].isReaderClosed() && BoundedPipe.isBrokenPipe(failure)) {
+                continue;
+            }
+            if (failure instanceof AbstractApplicationException) {
+                throw (AbstractApplicationException) failure;
+            }
+            if (failure instanceof ShellException) {
+                throw (ShellException) failure;
+            }
+            if (failure instanceof FileNotFoundException) {
+                throw (FileNotFoundException) failure;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            throw (Error) failure;
+        }
+    }
+
+    private static void terminateStages(Thread[] threads, BoundedPipe... pipes) {
+        for (BoundedPipe pipe : pipes) {
+            pipe.closeReader();
+            pipe.closeWriter();
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+    }
+
     @Override
     public void terminate() {
         // Unused for now
@@ -73,4 +192,50 @@ public class PipeCommand implements Command {
     public List<CallCommand> getCallCommands() {
         return callCommands;
     }
+
+    public PipeMode getPipeMode() {
+        return pipeMode;
+    }
+
+    public boolean isOptimized() {
+        return isOptimized;
+    }
+
+    /**
+     * One stage of a concurrently evaluated pipe. Closes the pipe ends it owns once its Command
+     * finishes, whether or not it succeeded, so that neighbouring stages never wait forever.
+     */
+    private static final class Stage implements Runnable {
+        private final Command command;
+        private final int index;
+        private final InputStream input;
+        private final OutputStream output;
+        private final BoundedPipe[] pipes;
+        private final Throwable[] failures;
+
+        private Stage(Command command, int index, InputStream input, OutputStream output, BoundedPipe[] pipes, Throwable... failures) {
+            this.command = command;
+            this.index = index;
+            this.input = input;
+            this.output = output;
+            this.pipes = pipes;
+            this.failures = failures;
+        }
+
+        @Override
+        public void run() {
+            try {
+                command.evaluate(input, output);
+            } catch (Exception | Error e) {
+                failures[index] = e;
+            } finally {
+                if (index > 0) {
+                    pipes[index - 1].closeReader();
+                }
+                if (index < pipes.length) {
+                    pipes[index].closeWriter();
+                }
+            }
+        }
+    }
 }
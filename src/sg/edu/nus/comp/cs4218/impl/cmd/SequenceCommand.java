@@ -4,63 +4,154 @@ import sg.edu.nus.comp.cs4218.Command;
 import sg.edu.nus.comp.cs4218.exception.AbstractApplicationException;
 import sg.edu.nus.comp.cs4218.exception.ExitException;
 import sg.edu.nus.comp.cs4218.exception.ShellException;
+import sg.edu.nus.comp.cs4218.impl.util.ConcurrencyAnalyzer;
+import sg.edu.nus.comp.cs4218.impl.util.NonClosingOutputStream;
+import sg.edu.nus.comp.cs4218.impl.util.ShellOptions;
+import sg.edu.nus.comp.cs4218.impl.util.ThreadUtils;
 
 import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_INTERRUPTED;
 import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
 
 /**
  * A Sequence Command is a sub-command consisting of two Commands separated with a semicolon.
  * <p>
  * Command format: <Command> ; <Command>
+ * <p>
+ * Each Command writes straight through to stdout while it runs, in the order the Commands appear.
+ * The error message of a failed Command is written in its place and the next Command still runs.
+ * <p>
+ * With a parallelism above 1, consecutive Commands that {@link ConcurrencyAnalyzer} considers safe
+ * run together on a bounded pool into private buffers, which are written out in the original order.
+ * Every other Command acts as a barrier: it starts after everything before it has finished, and
+ * nothing after it starts until it has finished.
  */
 public class SequenceCommand implements Command {
     private final List<Command> commands;
+    private final int parallelism;
 
     public SequenceCommand(List<Command> commands) {
+        this(commands, ShellOptions.getSequenceParallelism());
+    }
+
+    public SequenceCommand(List<Command> commands, int parallelism) {
         this.commands = commands;
+        this.parallelism = Math.max(parallelism, 1);
     }
 
     @Override
     public void evaluate(InputStream stdin, OutputStream stdout)
             throws AbstractApplicationException, ShellException, FileNotFoundException {
         ExitException exitException = null;
-        List<String> outputLines = new LinkedList<>();
+        NonClosingOutputStream outputStream = new NonClosingOutputStream(stdout);
+        ExecutorService executor = parallelism > 1
+                ? Executors.newFixedThreadPool(parallelism, ThreadUtils.newThreadFactory(false, "sequence-worker"))
+                : null;
 
-        for (Command command : commands) {
-            try {
-                OutputStream outputStream = new ByteArrayOutputStream();
-                command.evaluate(stdin, outputStream);
-
-                String outputLine = outputStream.toString();
-                if (!outputLine.isEmpty()) {
-                    outputLines.add(outputLine);
+        try {
+            int index = 0;
+            while (index < commands.size()) {
+                int batchEnd = executor == null ? index : findBatchEnd(index);
+                if (batchEnd - index > 1) {
+                    evaluateBatch(executor, commands.subList(index, batchEnd), stdin, outputStream);
+                    index = batchEnd;
+                    continue;
                 }
-            } catch (ExitException e) {
-                exitException = e;
+                try {
+                    commands.get(index).evaluate(stdin, outputStream);
+                } catch (ExitException e) {
+                    exitException = e;
 
-            } catch (AbstractApplicationException | ShellException e) {
-                outputLines.add(e.getMessage() + STRING_NEWLINE);
+                } catch (AbstractApplicationException | ShellException e) {
+                    outputStream.write((e.getMessage() + STRING_NEWLINE).getBytes());
+                }
+                outputStream.flush();
+                index++;
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
             }
         }
 
-        for (String outputLine : outputLines) {
+        IOException writeException = outputStream.getWriteException();
+        if (writeException != null) {
+            throw new ShellException(writeException.getMessage(), writeException);
+        }
+
+        if (exitException != null) {
+            throw exitException;
+        }
+    }
+
+    /**
+     * Returns the index just past the run of concurrency safe commands starting at start.
+     */
+    private int findBatchEnd(int start) {
+        int end = start;
+        while (end < commands.size() && ConcurrencyAnalyzer.isConcurrencySafe(commands.get(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Evaluates the batch concurrently and writes each command's output, or error message, in order as
+     * soon as it and every command before it have finished.
+     */
+    private static void evaluateBatch(ExecutorService executor, List<Command> batch, InputStream stdin,
+                                      OutputStream outputStream)
+            throws AbstractApplicationException, ShellException, FileNotFoundException {
+        List<Future<byte[]>> results = new ArrayList<>(batch.size());
+        for (Command command : batch) {
+            results.add(executor.submit(() -> evaluateIntoBuffer(command, stdin)));
+        }
+
+        for (Future<byte[]> result : results) {
             try {
-                stdout.write(outputLine.getBytes());
+                outputStream.write(result.get());
+                outputStream.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ShellException(E_INTERRUPTED, e);
             } catch (IOException e) {
                 throw new ShellException(e.getMessage(), e);
+            } catch (ExecutionException e) {
+                rethrow(e.getCause());
             }
         }
+    }
 
-        if (exitException != null) {
-            throw exitException;
+    private static byte[] evaluateIntoBuffer(Command command, InputStream stdin)
+            throws AbstractApplicationException, ShellException, FileNotFoundException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try {
+            command.evaluate(stdin, buffer);
+        } catch (AbstractApplicationException | ShellException e) {
+            buffer.writeBytes((e.getMessage() + STRING_NEWLINE).getBytes());
         }
+        return buffer.toByteArray();
+    }
+
+    private static void rethrow(Throwable cause) throws FileNotFoundException {
+        if (cause instanceof FileNotFoundException) {
+            throw (FileNotFoundException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        throw (Error) cause;
     }
 
     @Override
@@ -71,4 +162,8 @@ public class SequenceCommand implements Command {
     public List<Command> getCommands() {
         return commands;
     }
+
+    public int getParallelism() {
+        return parallelism;
+    }
 }
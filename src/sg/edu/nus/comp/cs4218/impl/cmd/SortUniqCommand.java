@@ -0,0 +1,162 @@
+package sg.edu.nus.comp.cs4218.impl.cmd;
+
+import sg.edu.nus.comp.cs4218.Command;
+import sg.edu.nus.comp.cs4218.exception.AbstractApplicationException;
+import sg.edu.nus.comp.cs4218.exception.ShellException;
+import sg.edu.nus.comp.cs4218.exception.SortException;
+import sg.edu.nus.comp.cs4218.exception.UniqException;
+import sg.edu.nus.comp.cs4218.impl.util.IOUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NULL_POINTER;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_READING_FILE;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_WRITE_STREAM;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
+
+/**
+ * Fused form of <code>sort [-r] [FILES] | uniq [-c]</code> created by the pipeline optimizer.
+ * <p>
+ * Instead of sorting every line and then dropping adjacent duplicates, the lines are counted in a
+ * hash map and only the distinct lines are sorted. This gives the same output because the default
+ * sort order only considers two lines equal when they are identical. If any file is not a readable
+ * regular file when the command runs, both original commands run instead, so error messages do not
+ * change.
+ */
+public class SortUniqCommand implements Command {
+    private final CallCommand sortCommand;
+    private final CallCommand uniqCommand;
+    private final List<String> fileNames;
+    private final boolean isReverseOrder;
+    private final boolean isCount;
+
+    public SortUniqCommand(CallCommand sortCommand, CallCommand uniqCommand, List<String> fileNames,
+                           boolean isReverseOrder, boolean isCount) {
+        this.sortCommand = sortCommand;
+        this.uniqCommand = uniqCommand;
+        this.fileNames = fileNames;
+        this.isReverseOrder = isReverseOrder;
+        this.isCount = isCount;
+    }
+
+    @Override
+    public void evaluate(InputStream stdin, OutputStream stdout)
+            throws AbstractApplicationException, ShellException, FileNotFoundException {
+        List<Path> paths = FileInputCommand.resolveReadableFiles(fileNames);
+        if (paths == null) {
+            evaluateUnfused(stdin, stdout);
+            return;
+        }
+        if (paths.isEmpty() && stdin == null) {
+            throw new SortException(E_NULL_POINTER);
+        }
+
+        Map<String, Integer> counts = new HashMap<>();
+        try {
+            if (paths.isEmpty()) {
+                countLines(stdin, counts);
+            } else {
+                for (Path path : paths) {
+                    try (InputStream input = Files.newInputStream(path)) {
+                        countLines(input, counts);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new SortException(E_READING_FILE, e);
+        }
+        if (counts.isEmpty()) {
+            // sort writes a single newline for empty input, which uniq reads as one empty line
+            counts.put("", 1);
+        }
+
+        List<String> distinctLines = new ArrayList<>(counts.keySet());
+        distinctLines.sort(isReverseOrder ? Collections.reverseOrder() : Comparator.naturalOrder());
+        writeGroups(distinctLines, counts, stdout);
+
+        IOUtils.closeInputStream(stdin);
+        IOUtils.closeOutputStream(stdout);
+    }
+
+    private static void countLines(InputStream input, Map<String, Integer> counts) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            counts.merge(line, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Writes one line per group in the format of uniq, which drops the leading whitespace of a line
+     * unless counts are shown.
+     */
+    private void writeGroups(List<String> distinctLines, Map<String, Integer> counts, OutputStream stdout)
+            throws UniqException {
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(stdout));
+            for (String line : distinctLines) {
+                String group = counts.get(line) + " " + line;
+                if (isCount) {
+                    writer.write('\t');
+                    writer.write(group);
+                } else {
+                    writer.write(group.split("\\s+", 2)[1]);
+                }
+                writer.write(STRING_NEWLINE);
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UniqException(E_WRITE_STREAM, e);
+        }
+    }
+
+    private void evaluateUnfused(InputStream stdin, OutputStream stdout)
+            throws AbstractApplicationException, ShellException, FileNotFoundException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        sortCommand.evaluate(stdin, buffer);
+        uniqCommand.evaluate(new ByteArrayInputStream(buffer.toByteArray()), stdout);
+    }
+
+    @Override
+    public void terminate() {
+        // Unused for now
+    }
+
+    public CallCommand getSortCommand() {
+        return sortCommand;
+    }
+
+    public CallCommand getUniqCommand() {
+        return uniqCommand;
+    }
+
+    public List<String> getFileNames() {
+        return fileNames;
+    }
+
+    public boolean isReverseOrder() {
+        return isReverseOrder;
+    }
+
+    public boolean isCount() {
+        return isCount;
+    }
+}
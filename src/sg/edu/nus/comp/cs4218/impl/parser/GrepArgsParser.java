@@ -4,23 +4,149 @@ import sg.edu.nus.comp.cs4218.exception.InvalidArgsException;
 import sg.edu.nus.comp.cs4218.impl.util.ErrorConstants;
 import sg.edu.nus.comp.cs4218.impl.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_MISSING_ARG;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_SYNTAX;
+
 public class GrepArgsParser extends ArgsParser {
+    /**
+     * Separates the patterns of a pattern set, which is how grep takes several patterns as one.
+     */
+    public final static String PATTERN_SEPARATOR = "\n";
+
     private final static char FLAG_IS_INSEN = 'i';
 
     private final static char FLAG_IS_COUNT = 'c';
 
     private final static char FLAG_IS_PRINT = 'H';
+
+    private final static char FLAG_IS_RECURSIVE = 'r';
+
+    private final static char FLAG_IS_QUIET = 'q';
+
+    private final static char FLAG_IS_LIST_FILES = 'l';
+
+    private final static char FLAG_PATTERN = 'e';
+
+    private final static char FLAG_PATTERN_FILE = 'f';
+
+    private final static char FLAG_MAX_COUNT = 'm';
+
+    private final static char FLAG_AFTER_CONTEXT = 'A';
+
+    private final static char FLAG_BEFORE_CONTEXT = 'B';
+
+    private final static char FLAG_CONTEXT = 'C';
+
+    /**
+     * Flags that take a value.
+     */
+    private final static String VALUE_FLAGS = new String(new char[]{FLAG_PATTERN, FLAG_PATTERN_FILE,
+        FLAG_MAX_COUNT, FLAG_AFTER_CONTEXT, FLAG_BEFORE_CONTEXT, FLAG_CONTEXT});
     private final static int INDEX_PATTERN = 0;
     private final static int INDEX_FILES = 1;
+    private final List<String> patterns = new ArrayList<>();
+    private final List<String> patternFiles = new ArrayList<>();
+    private long maxCount = Long.MAX_VALUE;
+    /**
+     * Context lines given with -A, -B and -C, or -1 if not given; -C counts for whichever of -A and -B is not.
+     */
+    private long afterContext = -1;
+    private long beforeContext = -1;
+    private long context = -1;
 
     public GrepArgsParser() {
         super();
         legalFlags.add(FLAG_IS_COUNT);
         legalFlags.add(FLAG_IS_INSEN);
         legalFlags.add(FLAG_IS_PRINT);
+        legalFlags.add(FLAG_IS_RECURSIVE);
+        legalFlags.add(FLAG_IS_QUIET);
+        legalFlags.add(FLAG_IS_LIST_FILES);
+    }
+
+    /**
+     * Takes the values of <code>-e</code>, <code>-f</code>, <code>-m</code>, <code>-A</code>,
+     * <code>-B</code> and <code>-C</code> out of the leading options, either attached to the flag or as the
+     * next argument, and parses the remaining arguments as flags, pattern and files. <code>-e</code> and
+     * <code>-f</code> may be repeated; once either is given, every remaining argument is a file. Of the
+     * other options the last one counts, and <code>-A</code> and <code>-B</code> override <code>-C</code>.
+     *
+     * @param args Arguments of grep
+     * @throws InvalidArgsException If a value is missing, a pattern is invalid or a count is not a number
+     */
+    @Override
+    public void parse(String... args) throws InvalidArgsException {
+        List<String> remaining = new ArrayList<>();
+        int index = 0;
+        while (index < args.length && isOption(args[index])) {
+            String arg = args[index++];
+            StringBuilder flagsOnly = new StringBuilder("-");
+            for (int i = 1; i < arg.length(); i++) {
+                char flag = arg.charAt(i);
+                if (VALUE_FLAGS.indexOf(flag) < 0) {
+                    flagsOnly.append(flag);
+                    continue;
+                }
+                String value;
+                if (i + 1 < arg.length()) {
+                    value = arg.substring(i + 1);
+                } else if (index < args.length) {
+                    value = args[index++];
+                } else {
+                    throw new InvalidArgsException(E_MISSING_ARG);
+                }
+                setValue(flag, value);
+                break;
+            }
+            if (flagsOnly.length() > 1) {
+                remaining.add(flagsOnly.toString());
+            }
+        }
+        remaining.addAll(Arrays.asList(args).subList(index, args.length));
+        super.parse(remaining.toArray(new String[0]));
+    }
+
+    private void setValue(char flag, String value) throws InvalidArgsException {
+        switch (flag) {
+        case FLAG_PATTERN:
+            patterns.add(value);
+            break;
+        case FLAG_PATTERN_FILE:
+            patternFiles.add(value);
+            break;
+        case FLAG_MAX_COUNT:
+            maxCount = parseCount(value);
+            break;
+        case FLAG_AFTER_CONTEXT:
+            afterContext = parseCount(value);
+            break;
+        case FLAG_BEFORE_CONTEXT:
+            beforeContext = parseCount(value);
+            break;
+        default:
+            context = parseCount(value);
+            break;
+        }
+    }
+
+    private static boolean isOption(String arg) {
+        return arg.length() > 1 && arg.charAt(0) == '-' && arg.charAt(1) != '-';
+    }
+
+    /**
+     * Parses a count of lines, a number from 0.
+     */
+    private static long parseCount(String value) throws InvalidArgsException {
+        if (!value.matches("[0-9]{1,18}")) {
+            throw new InvalidArgsException(E_SYNTAX);
+        }
+        return Long.parseLong(value);
     }
 
     @Override
@@ -28,8 +154,14 @@ public class GrepArgsParser extends ArgsParser {
         super.validateArgs();
 
         try {
-            String userInputPattern = getPattern();
-            Pattern.compile(userInputPattern);
+            if (hasPatternOptions()) {
+                for (String pattern : patterns) {
+                    Pattern.compile(pattern);
+                }
+            } else {
+                String userInputPattern = getPattern();
+                Pattern.compile(userInputPattern);
+            }
         } catch (InvalidArgsException e) {
             throw new InvalidArgsException(e.getMessage(), e);
         } catch (PatternSyntaxException exception) {
@@ -50,7 +182,64 @@ public class GrepArgsParser extends ArgsParser {
         return flags.contains(FLAG_IS_PRINT);
     }
 
+    public Boolean isRecursive() {
+        return flags.contains(FLAG_IS_RECURSIVE);
+    }
+
+    public Boolean isQuiet() {
+        return flags.contains(FLAG_IS_QUIET);
+    }
+
+    public Boolean isListFiles() {
+        return flags.contains(FLAG_IS_LIST_FILES);
+    }
+
+    /**
+     * Returns the number of matched lines after which each input is no longer read, as given with -m, or
+     * Long.MAX_VALUE if there is no limit.
+     */
+    public long getMaxCount() {
+        return maxCount;
+    }
+
+    /**
+     * Returns the number of lines to write after each matched line, as given with -A or -C, at most
+     * Integer.MAX_VALUE.
+     */
+    public int getAfterContext() {
+        return (int) Math.min(afterContext < 0 ? Math.max(context, 0) : afterContext, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of lines to write before each matched line, as given with -B or -C, at most
+     * Integer.MAX_VALUE.
+     */
+    public int getBeforeContext() {
+        return (int) Math.min(beforeContext < 0 ? Math.max(context, 0) : beforeContext, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns whether any of -A, -B and -C is given, even with 0 lines, in which case groups of matched lines
+     * are still separated as grep does.
+     */
+    public boolean hasContext() {
+        return afterContext >= 0 || beforeContext >= 0 || context >= 0;
+    }
+
+    /**
+     * Returns whether the patterns were given with -e or -f rather than as the first argument.
+     */
+    public boolean hasPatternOptions() {
+        return !patterns.isEmpty() || !patternFiles.isEmpty();
+    }
+
+    /**
+     * Returns the pattern, or the patterns given with -e, one per line.
+     */
     public String getPattern() throws InvalidArgsException {
+        if (hasPatternOptions()) {
+            return String.join(PATTERN_SEPARATOR, patterns);
+        }
         try {
             if (StringUtils.isBlank(nonFlagArgs.get(0))) {
                 throw new InvalidArgsException(ErrorConstants.E_NO_REGEX);
@@ -62,8 +251,22 @@ public class GrepArgsParser extends ArgsParser {
         }
     }
 
+    /**
+     * Returns the names of the files given with -f, whose lines are patterns too.
+     */
+    public List<String> getPatternFiles() {
+        return patternFiles;
+    }
+
+    /**
+     * Returns the file names, or "-" for stdin if there are none; a recursive grep searches the current
+     * directory instead.
+     */
     public String[] getFileNames() {
-        return nonFlagArgs.size() <= 1 ? new String[]{"-"} : nonFlagArgs.subList(INDEX_FILES, nonFlagArgs.size())
-                .toArray(new String[0]);
+        int firstFile = hasPatternOptions() ? INDEX_PATTERN : INDEX_FILES;
+        if (nonFlagArgs.size() <= firstFile) {
+            return new String[]{isRecursive() ? "." : "-"};
+        }
+        return nonFlagArgs.subList(firstFile, nonFlagArgs.size()).toArray(new String[0]);
     }
 }
@@ -1,17 +1,106 @@
 package sg.edu.nus.comp.cs4218.impl.parser;
 
+import sg.edu.nus.comp.cs4218.exception.InvalidArgsException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_MISSING_ARG;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_SYNTAX;
+
 public class SortArgsParser extends ArgsParser {
     public static final char FLAG_FIRST_W_NUM = 'n';
     public static final char FLAG_REV_ORDER = 'r';
     public static final char FLAG_CASE_IGNORE = 'f';
+    public static final char FLAG_MERGE = 'm';
+    public static final char FLAG_CHECK = 'c';
+    public static final char FLAG_UNIQUE = 'u';
+    public static final char FLAG_KEY = 'k';
+    public static final char FLAG_DELIMITER = 't';
+    private final List<int[]> keyFields = new ArrayList<>();
+    private Character delimiter;
 
     public SortArgsParser() {
         super();
         legalFlags.add(FLAG_FIRST_W_NUM);
         legalFlags.add(FLAG_REV_ORDER);
         legalFlags.add(FLAG_CASE_IGNORE);
+        legalFlags.add(FLAG_MERGE);
+        legalFlags.add(FLAG_CHECK);
+        legalFlags.add(FLAG_UNIQUE);
+    }
+
+    /**
+     * Takes the values of <code>-k</code> and <code>-t</code> out of the leading options, either attached to
+     * the flag or as the next argument, and parses the remaining arguments as flags and files.
+     *
+     * @param args Arguments of sort
+     * @throws InvalidArgsException If a key field or delimiter is missing or malformed
+     */
+    @Override
+    public void parse(String... args) throws InvalidArgsException {
+        List<String> remaining = new ArrayList<>();
+        int index = 0;
+        while (index < args.length && isOption(args[index])) {
+            String arg = args[index++];
+            StringBuilder flagsOnly = new StringBuilder("-");
+            for (int i = 1; i < arg.length(); i++) {
+                char flag = arg.charAt(i);
+                if (flag != FLAG_KEY && flag != FLAG_DELIMITER) {
+                    flagsOnly.append(flag);
+                    continue;
+                }
+                String value;
+                if (i + 1 < arg.length()) {
+                    value = arg.substring(i + 1);
+                } else if (index < args.length) {
+                    value = args[index++];
+                } else {
+                    throw new InvalidArgsException(E_MISSING_ARG);
+                }
+                if (flag == FLAG_KEY) {
+                    keyFields.add(parseKeyField(value));
+                } else {
+                    parseDelimiter(value);
+                }
+                break;
+            }
+            if (flagsOnly.length() > 1) {
+                remaining.add(flagsOnly.toString());
+            }
+        }
+        remaining.addAll(Arrays.asList(args).subList(index, args.length));
+        super.parse(remaining.toArray(new String[0]));
+    }
+
+    private static boolean isOption(String arg) {
+        return arg.length() > 1 && arg.charAt(0) == '-' && arg.charAt(1) != '-';
+    }
+
+    /**
+     * Parses a key field of the form <code>start[,end]</code>, where both are field numbers from 1.
+     *
+     * @return {start, end}, where end 0 is the end of the line
+     */
+    private static int[] parseKeyField(String value) throws InvalidArgsException {
+        if (!value.matches("[0-9]{1,9}(,[0-9]{1,9})?")) {
+            throw new InvalidArgsException(E_SYNTAX);
+        }
+        int comma = value.indexOf(',');
+        int start = Integer.parseInt(comma < 0 ? value : value.substring(0, comma));
+        int end = comma < 0 ? 0 : Integer.parseInt(value.substring(comma + 1));
+        if (start == 0 || comma >= 0 && end == 0) {
+            throw new InvalidArgsException(E_SYNTAX);
+        }
+        return new int[]{start, end};
+    }
+
+    private void parseDelimiter(String value) throws InvalidArgsException {
+        if (value.length() != 1 || delimiter != null && delimiter != value.charAt(0)) {
+            throw new InvalidArgsException(E_SYNTAX);
+        }
+        delimiter = value.charAt(0);
     }
 
     public List<String> getFiles() {
@@ -30,6 +119,32 @@ public class SortArgsParser extends ArgsParser {
         return flags.contains(FLAG_CASE_IGNORE);
     }
 
+    public boolean isMerge() {
+        return flags.contains(FLAG_MERGE);
+    }
+
+    public boolean isCheck() {
+        return flags.contains(FLAG_CHECK);
+    }
+
+    public boolean isUnique() {
+        return flags.contains(FLAG_UNIQUE);
+    }
+
+    /**
+     * Returns the key fields in the order given, each {start, end}, where end 0 is the end of the line.
+     */
+    public List<int[]> getKeyFields() {
+        return keyFields;
+    }
+
+    /**
+     * Returns the field delimiter, or null if fields are separated by blanks.
+     */
+    public Character getDelimiter() {
+        return delimiter;
+    }
+
     public boolean isReadingFromStdin() {
         return nonFlagArgs.contains("-") || nonFlagArgs.isEmpty();
     }
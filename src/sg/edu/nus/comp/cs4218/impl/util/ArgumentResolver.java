@@ -8,13 +8,16 @@ import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Stack;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_ASTERISK;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_INTERRUPTED;
 import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_BACK_QUOTE;
 import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_DOUBLE_QUOTE;
 import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_SINGLE_QUOTE;
@@ -22,12 +25,43 @@ import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_SPACE;
 import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
 
 public final class ArgumentResolver {
+    /**
+     * Shared so that repeated substitutions of the same command string hit the parsed-command cache.
+     */
+    private static final ApplicationRunner APP_RUNNER = new ApplicationRunner();
+
+    /**
+     * Maximum number of command substitutions of one command line that are evaluated at the same time.
+     */
+    private static final int MAX_SUBSTITUTION_THREADS = 8;
+
+    /**
+     * Characters with a meaning in a {@link GlobPattern} when they are not quoted; those among them
+     * in {@link GlobPattern#WILDCARD_CHARS} make a word a pattern.
+     */
+    private static final String GLOB_CHARS = "*?[]{},";
+
+    /*
+     * Quoting states while scanning an argument. A back quote inside double quotes returns to the
+     * double quotes when it ends, so it has a state of its own.
+     */
+    private static final int UNQUOTED = 0;
+    private static final int SINGLE_QUOTED = 1;
+    private static final int DOUBLE_QUOTED = 2;
+    private static final int BACK_QUOTED = 3;
+    private static final int BACK_QUOTED_IN_DOUBLE = 4;
 
     private ArgumentResolver() {
     }
 
     /**
      * Handle quoting + globing + command substitution for a list of arguments.
+     * <p>
+     * Arguments are resolved from left to right, so that globing an argument sees the effects of the
+     * command substitutions in it and before it, but not after it. The command substitutions up to the
+     * next argument with an unquoted wildcard are evaluated before those arguments are resolved. If there
+     * are several and {@link ConcurrencyAnalyzer} considers all of them safe, they are evaluated at the
+     * same time. Otherwise they are evaluated one after another, from left to right.
      *
      * @param argsList The original list of arguments.
      * @return The list of parsed arguments.
@@ -35,15 +69,27 @@ public final class ArgumentResolver {
      */
     public static List<String> parseArguments(List<String> argsList) throws AbstractApplicationException, ShellException, FileNotFoundException {
         List<String> parsedArgsList = new LinkedList<>();
-        for (String arg : argsList) {
-            parsedArgsList.addAll(resolveOneArgument(arg));
+        List<String> subCommands = new ArrayList<>();
+        int batchStart = 0;
+        for (int i = 0; i < argsList.size(); i++) {
+            String arg = argsList.get(i);
+            collectSubCommands(arg, subCommands);
+            if (i < argsList.size() - 1 && !hasUnquotedWildcard(arg)) {
+                continue;
+            }
+            Iterator<String> subOutputs = evaluateSubCommands(subCommands).iterator();
+            for (String batchArg : argsList.subList(batchStart, i + 1)) {
+                resolveArgument(batchArg, subOutputs, parsedArgsList);
+            }
+            subCommands.clear();
+            batchStart = i + 1;
         }
         return parsedArgsList;
     }
 
     /**
      * Unwraps single and double quotes from one argument.
-     * Performs globing when there are unquoted asterisks.
+     * Performs globing when there are unquoted wildcards (<code>* ? [ {</code>).
      * Performs command substitution.
      * <p>
      * Single quotes disable the interpretation of all special characters.
@@ -53,132 +99,132 @@ public final class ArgumentResolver {
      * @return A list containing one or more parsed args, depending on the outcome of the parsing.
      */
     public static List<String> resolveOneArgument(String arg) throws AbstractApplicationException, ShellException, FileNotFoundException {
-        Stack<Character> unmatchedQuotes = new Stack<>();
-        LinkedList<RegexArgument> parsedArgsSegment = new LinkedList<>();
-        RegexArgument parsedArg = makeRegexArgument();
-        StringBuilder subCommand = new StringBuilder();
+        List<String> subCommands = new ArrayList<>();
+        collectSubCommands(arg, subCommands);
 
-        for (int i = 0; i < arg.length(); i++) {
-            char chr = arg.charAt(i);
+        List<String> parsedArgs = new LinkedList<>();
+        resolveArgument(arg, evaluateSubCommands(subCommands).iterator(), parsedArgs);
+        return parsedArgs;
+    }
 
-            if (chr == CHAR_BACK_QUOTE) {
-                boolean resetParseArgs = parseBackQuote(chr, unmatchedQuotes, parsedArgsSegment, parsedArg, subCommand);
-                if (resetParseArgs) {
-                    parsedArg = makeRegexArgument();
+    private static int nextState(int state, char chr) {
+        switch (state) {
+            case UNQUOTED:
+                if (chr == CHAR_SINGLE_QUOTE) {
+                    return SINGLE_QUOTED;
                 }
-            } else if (chr == CHAR_SINGLE_QUOTE || chr == CHAR_DOUBLE_QUOTE) {
-                parseSingleDoubleQuote(chr, unmatchedQuotes, parsedArgsSegment, parsedArg, subCommand);
-            } else if (chr == CHAR_ASTERISK) {
-                parseAsterisk(chr, unmatchedQuotes, parsedArg, subCommand);
-            } else {
-                parseOthers(chr, unmatchedQuotes, parsedArg, subCommand);
-            }
-        }
-
-        if (!parsedArg.isEmpty()) {
-            appendParsedArgIntoSegment(parsedArgsSegment, parsedArg);
+                if (chr == CHAR_DOUBLE_QUOTE) {
+                    return DOUBLE_QUOTED;
+                }
+                return chr == CHAR_BACK_QUOTE ? BACK_QUOTED : UNQUOTED;
+            case SINGLE_QUOTED:
+                return chr == CHAR_SINGLE_QUOTE ? UNQUOTED : SINGLE_QUOTED;
+            case DOUBLE_QUOTED:
+                if (chr == CHAR_DOUBLE_QUOTE) {
+                    return UNQUOTED;
+                }
+                return chr == CHAR_BACK_QUOTE ? BACK_QUOTED_IN_DOUBLE : DOUBLE_QUOTED;
+            case BACK_QUOTED:
+                return chr == CHAR_BACK_QUOTE ? UNQUOTED : BACK_QUOTED;
+            default:
+                return chr == CHAR_BACK_QUOTE ? DOUBLE_QUOTED : BACK_QUOTED_IN_DOUBLE;
         }
+    }
 
-        // perform globing
-        return parsedArgsSegment.stream()
-                .flatMap(regexArgument -> regexArgument.globFiles().stream())
-                .collect(Collectors.toList());
+    private static boolean isBackQuoted(int state) {
+        return state == BACK_QUOTED || state == BACK_QUOTED_IN_DOUBLE;
     }
 
-    private static void parseOthers(char chr, Stack<Character> unmatchedQuotes, RegexArgument parsedArg, StringBuilder subCommand) {
-        if (unmatchedQuotes.isEmpty()) {
-            // not a special character
-            parsedArg.append(chr);
-        } else if (unmatchedQuotes.peek() == CHAR_BACK_QUOTE) {
-            // ongoing back quote: add chr to subCommand
-            subCommand.append(chr);
-        } else {
-            // ongoing single/double quote
-            parsedArg.append(chr);
+    /**
+     * Adds the command string of every complete command substitution in arg to subCommands, in order.
+     */
+    private static void collectSubCommands(String arg, List<String> subCommands) {
+        if (arg.indexOf(CHAR_BACK_QUOTE) < 0) {
+            return;
+        }
+        int state = UNQUOTED;
+        int subCommandStart = 0;
+        for (int i = 0; i < arg.length(); i++) {
+            int next = nextState(state, arg.charAt(i));
+            if (isBackQuoted(next) && !isBackQuoted(state)) {
+                subCommandStart = i + 1;
+            } else if (isBackQuoted(state) && !isBackQuoted(next)) {
+                subCommands.add(arg.substring(subCommandStart, i));
+            }
+            state = next;
         }
     }
 
-    private static void parseAsterisk(char chr, Stack<Character> unmatchedQuotes, RegexArgument parsedArg, StringBuilder subCommand) {
-        if (unmatchedQuotes.isEmpty()) {
-            // each unquoted * matches a (possibly empty) sequence of non-slash chars
-            parsedArg.appendAsterisk();
-        } else if (unmatchedQuotes.peek() == CHAR_BACK_QUOTE) {
-            // ongoing back quote: add chr to subCommand
-            subCommand.append(chr);
-        } else {
-            // ongoing single/double quote
-            parsedArg.append(chr);
+    /**
+     * Returns true if arg has a wildcard outside of quotes and command substitutions, so that it is globed.
+     */
+    private static boolean hasUnquotedWildcard(String arg) {
+        int state = UNQUOTED;
+        for (int i = 0; i < arg.length(); i++) {
+            char chr = arg.charAt(i);
+            int next = nextState(state, chr);
+            if (state == UNQUOTED && next == UNQUOTED && GlobPattern.WILDCARD_CHARS.indexOf(chr) >= 0) {
+                return true;
+            }
+            state = next;
         }
+        return false;
     }
 
-    private static void parseSingleDoubleQuote(char chr, Stack<Character> unmatchedQuotes, LinkedList<RegexArgument> parsedArgsSegment, RegexArgument parsedArg, StringBuilder subCommand) {
-        if (unmatchedQuotes.isEmpty()) {
-            // start of quote
-            unmatchedQuotes.add(chr);
-        } else if (unmatchedQuotes.peek() == chr) {
-            // end of quote
-            unmatchedQuotes.pop();
+    /**
+     * Resolves arg into parsedArgs, taking the output of each of its command substitutions from subOutputs.
+     */
+    private static void resolveArgument(String arg, Iterator<String> subOutputs, List<String> parsedArgs) {
+        if (!hasSpecialChar(arg)) {
+            if (!arg.isEmpty()) {
+                parsedArgs.add(arg);
+            }
+            return;
+        }
 
-            // make sure parsedArgsSegment is not empty
-            appendParsedArgIntoSegment(parsedArgsSegment, makeRegexArgument());
-        } else if (unmatchedQuotes.peek() == CHAR_BACK_QUOTE) {
-            // ongoing back quote: add chr to subCommand
-            subCommand.append(chr);
-        } else {
-            // ongoing single/double quote
-            parsedArg.append(chr);
-        }
-    }
-
-    private static boolean parseBackQuote(char chr, Stack<Character> unmatchedQuotes,
-                                          LinkedList<RegexArgument> parsedArgsSegment,
-                                          RegexArgument parsedArg, StringBuilder subCommand)
-            throws FileNotFoundException, AbstractApplicationException, ShellException {
-        boolean resetParsedArgs = false;
-        if (unmatchedQuotes.isEmpty() || unmatchedQuotes.peek() == CHAR_DOUBLE_QUOTE) {
-            // start of command substitution
-            if (!parsedArg.isEmpty()) {
-                appendParsedArgIntoSegment(parsedArgsSegment, parsedArg);
-                resetParsedArgs = true;
-            }
-
-            unmatchedQuotes.add(chr);
-
-        } else if (unmatchedQuotes.peek() == chr) {
-            // end of command substitution
-            unmatchedQuotes.pop();
-
-            // evaluate subCommand and get the output
-            String subCommandOutput = evaluateSubCommand(subCommand.toString());
-            subCommand.setLength(0); // Clear the previous subCommand registered
-
-            // check if back quotes are nested
-            if (unmatchedQuotes.isEmpty()) {
-                List<RegexArgument> subOutputSegment = Stream
-                        .of(StringUtils.tokenize(subCommandOutput))
-                        .map(str -> makeRegexArgument(str))
-                        .collect(Collectors.toList());
-
-                // append the first token to the previous parsedArg
-                // e.g. arg: abc`1 2 3`xyz`4 5 6` (contents in `` is after command sub)
-                // expected: [abc1, 2, 3xyz4, 5, 6]
-                if (!subOutputSegment.isEmpty()) {
-                    RegexArgument firstOutputArg = subOutputSegment.remove(0);
-                    appendParsedArgIntoSegment(parsedArgsSegment, firstOutputArg);
-                }
+        WordBuilder words = new WordBuilder(parsedArgs);
+        int state = UNQUOTED;
+        for (int i = 0; i < arg.length(); i++) {
+            char chr = arg.charAt(i);
+            int next = nextState(state, chr);
 
-                parsedArgsSegment.addAll(new ArrayList<>(subOutputSegment));
+            if (isBackQuoted(state)) {
+                if (!isBackQuoted(next)) {
+                    // end of command substitution: only unquoted output is split into words
+                    // e.g. arg: abc`1 2 3`xyz`4 5 6` (contents in `` is after command sub)
+                    // expected: [abc1, 2, 3xyz4, 5, 6]
+                    String subOutput = subOutputs.next();
+                    if (next == UNQUOTED) {
+                        words.appendWords(StringUtils.tokenize(subOutput));
+                    } else {
+                        words.append(subOutput);
+                    }
+                }
+            } else if (next == state) {
+                if (state == UNQUOTED && GLOB_CHARS.indexOf(chr) >= 0) {
+                    // e.g. each unquoted * matches a (possibly empty) sequence of non-slash chars
+                    words.appendGlobChar(chr);
+                } else {
+                    words.append(chr);
+                }
+            } else if (next == UNQUOTED) {
+                // end of quote: even empty quotes make an argument
+                words.startWord();
+            }
+            state = next;
+        }
+        words.finishWord();
+    }
 
-            } else {
-                // don't tokenize subCommand output
-                appendParsedArgIntoSegment(parsedArgsSegment,
-                        makeRegexArgument(subCommandOutput));
+    private static boolean hasSpecialChar(String arg) {
+        for (int i = 0; i < arg.length(); i++) {
+            char chr = arg.charAt(i);
+            if (chr == CHAR_SINGLE_QUOTE || chr == CHAR_DOUBLE_QUOTE || chr == CHAR_BACK_QUOTE
+                    || GlobPattern.WILDCARD_CHARS.indexOf(chr) >= 0) {
+                return true;
             }
-        } else {
-            // ongoing single quote
-            parsedArg.append(chr);
         }
-        return resetParsedArgs;
+        return false;
     }
 
     public static RegexArgument makeRegexArgument() {
@@ -189,13 +235,88 @@ public final class ArgumentResolver {
         return new RegexArgument(str);
     }
 
+    /**
+     * Evaluates every command substitution and returns their outputs in the same order.
+     */
+    private static List<String> evaluateSubCommands(List<String> subCommands)
+            throws AbstractApplicationException, ShellException, FileNotFoundException {
+        if (subCommands.size() > 1 && isConcurrencySafe(subCommands)) {
+            return evaluateConcurrently(subCommands);
+        }
+        List<String> subOutputs = new ArrayList<>(subCommands.size());
+        for (String subCommand : subCommands) {
+            subOutputs.add(evaluateSubCommand(subCommand));
+        }
+        return subOutputs;
+    }
+
+    private static boolean isConcurrencySafe(List<String> subCommands) {
+        for (String subCommand : subCommands) {
+            if (StringUtils.isBlank(subCommand)) {
+                continue;
+            }
+            try {
+                if (!ConcurrencyAnalyzer.isConcurrencySafe(CommandBuilder.parseCommand(subCommand, APP_RUNNER))) {
+                    return false;
+                }
+            } catch (ShellException e) {
+                // evaluated serially, so that the error is raised after the substitutions before it
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> evaluateConcurrently(List<String> subCommands)
+            throws AbstractApplicationException, ShellException, FileNotFoundException {
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(subCommands.size(), MAX_SUBSTITUTION_THREADS),
+                ThreadUtils.newThreadFactory(false, "substitution-worker"));
+        try {
+            List<Future<String>> results = new ArrayList<>(subCommands.size());
+            for (String subCommand : subCommands) {
+                results.add(executor.submit(() -> evaluateSubCommand(subCommand)));
+            }
+
+            List<String> subOutputs = new ArrayList<>(subCommands.size());
+            for (Future<String> result : results) {
+                subOutputs.add(result.get());
+            }
+            return subOutputs;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShellException(E_INTERRUPTED, e);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause)
+            throws AbstractApplicationException, ShellException, FileNotFoundException {
+        if (cause instanceof AbstractApplicationException) {
+            throw (AbstractApplicationException) cause;
+        }
+        if (cause instanceof ShellException) {
+            throw (ShellException) cause;
+        }
+        if (cause instanceof FileNotFoundException) {
+            throw (FileNotFoundException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        throw (Error) cause;
+    }
+
     static String evaluateSubCommand(String commandString) throws AbstractApplicationException, ShellException, FileNotFoundException {
         if (StringUtils.isBlank(commandString)) {
             return "";
         }
 
         OutputStream outputStream = new ByteArrayOutputStream();
-        Command command = CommandBuilder.parseCommand(commandString, new ApplicationRunner());
+        Command command = CommandBuilder.parseCommand(commandString, APP_RUNNER);
         command.evaluate(System.in, outputStream);
         String output = outputStream.toString();
         if (output.endsWith(STRING_NEWLINE)) {
@@ -219,4 +340,90 @@ public final class ArgumentResolver {
             parsedArgsSegment.add(lastParsedArg);
         }
     }
+
+    /**
+     * Builds the words of one argument in a single buffer. A word is only turned into a
+     * {@link RegexArgument} for globing if it has an unquoted wildcard.
+     */
+    private static final class WordBuilder {
+        private final List<String> parsedArgs;
+        private final StringBuilder word = new StringBuilder();
+        private boolean hasWord;
+
+        /**
+         * Positions of the unquoted glob characters in word, or null if there are none.
+         */
+        private BitSet globChars;
+        private boolean hasWildcard;
+
+        private WordBuilder(List<String> parsedArgs) {
+            this.parsedArgs = parsedArgs;
+        }
+
+        private void startWord() {
+            hasWord = true;
+        }
+
+        private void append(char chr) {
+            word.append(chr);
+            hasWord = true;
+        }
+
+        private void append(String str) {
+            word.append(str);
+            hasWord = true;
+        }
+
+        private void appendGlobChar(char chr) {
+            if (globChars == null) {
+                globChars = new BitSet();
+            }
+            globChars.set(word.length());
+            hasWildcard = hasWildcard || GlobPattern.WILDCARD_CHARS.indexOf(chr) >= 0;
+            append(chr);
+        }
+
+        /**
+         * Appends the first word to the current word and starts a new word for each of the others.
+         */
+        private void appendWords(String... words) {
+            for (int i = 0; i < words.length; i++) {
+                if (i > 0) {
+                    finishWord();
+                }
+                append(words[i]);
+            }
+        }
+
+        private void finishWord() {
+            if (!hasWord) {
+                return;
+            }
+            if (!hasWildcard) {
+                parsedArgs.add(word.toString());
+            } else {
+                parsedArgs.addAll(toRegexArgument().globFiles());
+            }
+            word.setLength(0);
+            globChars = null;
+            hasWildcard = false;
+            hasWord = false;
+        }
+
+        private RegexArgument toRegexArgument() {
+            RegexArgument regexArgument = makeRegexArgument();
+            int start = 0;
+            for (int index = globChars.nextSetBit(0); index >= 0; index = globChars.nextSetBit(index + 1)) {
+                if (index > start) {
+                    regexArgument.merge(word.substring(start, index));
+                }
+                regexArgument.appendGlobChar(word.charAt(index));
+                start = index + 1;
+            }
+            if (start < word.length()) {
+                regexArgument.merge(word.substring(start));
+            }
+            return regexArgument;
+        }
+    }
 }
@@ -0,0 +1,235 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_BROKEN_PIPE;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_INTERRUPTED;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_STREAM_CLOSED;
+
+/**
+ * A fixed-capacity byte pipe between one writer thread and one reader thread.
+ * <p>
+ * The writer blocks while the buffer is full and the reader blocks while it is empty, so a slow
+ * reader applies backpressure to the writer. Closing the write end signals end of stream to the
+ * reader. Closing the read end makes further writes fail with a {@link BrokenPipeException}.
+ */
+public final class BoundedPipe {
+    private final byte[] buffer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final InputStream inputStream = new PipeInputStream();
+    private final OutputStream outputStream = new PipeOutputStream();
+
+    private int readPos;
+    private int count;
+    private boolean writerClosed;
+    private boolean readerClosed;
+
+    public BoundedPipe(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.buffer = new byte[capacity];
+    }
+
+    /**
+     * Returns the read end of the pipe. Closing it closes the read end.
+     */
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    /**
+     * Returns the write end of the pipe. Closing it closes the write end.
+     */
+    public OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    public void closeReader() {
+        lock.lock();
+        try {
+            readerClosed = true;
+            count = 0;
+            notFull.signalAll();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void closeWriter() {
+        lock.lock();
+        try {
+            writerClosed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns true if the reader has stopped consuming, i.e. anything still written would be lost.
+     */
+    public boolean isReaderClosed() {
+        lock.lock();
+        try {
+            return readerClosed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks whether the given exception, or any of its causes, comes from writing into a pipe whose
+     * read end was closed.
+     *
+     * @param throwable Throwable to be inspected
+     * @return true if a BrokenPipeException is part of the cause chain
+     */
+    public static boolean isBrokenPipe(Throwable throwable) {
+        Throwable current = throwable;
+        while (current != null) {
+            if (current instanceof BrokenPipeException) {
+                return true;
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+
+    private int read(byte[] dest, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            while (count == 0 && !writerClosed && !readerClosed) {
+                awaitSignal(notEmpty);
+            }
+            if (readerClosed) {
+                throw new IOException(E_STREAM_CLOSED);
+            }
+            if (count == 0) {
+                return -1;
+            }
+            int toRead = Math.min(len, count);
+            int firstPart = Math.min(toRead, buffer.length - readPos);
+            System.arraycopy(buffer, readPos, dest, off, firstPart);
+            System.arraycopy(buffer, 0, dest, off + firstPart, toRead - firstPart);
+            readPos = (readPos + toRead) % buffer.length;
+            count -= toRead;
+            notFull.signalAll();
+            return toRead;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(byte[] src, int off, int len) throws IOException {
+        int written = 0;
+        lock.lock();
+        try {
+            while (written < len) {
+                while (count == buffer.length && !readerClosed && !writerClosed) {
+                    awaitSignal(notFull);
+                }
+                if (readerClosed) {
+                    throw new BrokenPipeException();
+                }
+                if (writerClosed) {
+                    throw new IOException(E_STREAM_CLOSED);
+                }
+                int writePos = (readPos + count) % buffer.length;
+                int toWrite = Math.min(len - written, buffer.length - count);
+                int firstPart = Math.min(toWrite, buffer.length - writePos);
+                System.arraycopy(src, off + written, buffer, writePos, firstPart);
+                System.arraycopy(src, off + written + firstPart, buffer, 0, toWrite - firstPart);
+                count += toWrite;
+                written += toWrite;
+                notEmpty.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int available() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void awaitSignal(Condition condition) throws InterruptedIOException {
+        try {
+            condition.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(E_INTERRUPTED);
+        }
+    }
+
+    /**
+     * Thrown when writing into a pipe whose reader has gone away.
+     */
+    public static final class BrokenPipeException extends IOException {
+        private static final long serialVersionUID = 2613154271874513907L;
+
+        public BrokenPipeException() {
+            super(E_BROKEN_PIPE);
+        }
+    }
+
+    private final class PipeInputStream extends InputStream {
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int result = BoundedPipe.this.read(single, 0, 1);
+            return result == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] dest, int off, int len) throws IOException {
+            return BoundedPipe.this.read(dest, off, len);
+        }
+
+        @Override
+        public int available() {
+            return BoundedPipe.this.available();
+        }
+
+        @Override
+        public void close() {
+            closeReader();
+        }
+    }
+
+    private final class PipeOutputStream extends OutputStream {
+        @Override
+        public void write(int value) throws IOException {
+            BoundedPipe.this.write(new byte[]{(byte) value}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] src, int off, int len) throws IOException {
+            BoundedPipe.this.write(src, off, len);
+        }
+
+        @Override
+        public void close() {
+            closeWriter();
+        }
+    }
+}
@@ -8,8 +8,7 @@ import sg.edu.nus.comp.cs4218.impl.cmd.SequenceCommand;
 
 import java.util.LinkedList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Objects;
 
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_SYNTAX;
 import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_PIPE;
@@ -19,25 +18,16 @@ import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_SEMICOLON;
 import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
 
 public final class CommandBuilder {
-    /**
-     * Regular expression for extracting valid arguments from the command string:
-     * (NO_QUOTE | SINGLE_QUOTE | NESTED_BACK_QUOTE | DOUBLE_QUOTE | BACK_QUOTE)+
-     * <p>
-     * The order matters because it affects the matching priority.
-     * <p>
-     * NO_QUOTE: [^'\"`|<>;\\s]+
-     * SINGLE_QUOTE: '[^']*'
-     * NESTED_BACK_QUOTE: \"([^\"`]*`.*?`[^\"`]*)+\"
-     * DOUBLE_QUOTE: \"[^\"]*\"
-     * BACK_QUOTE: `[^`]*`
-     */
-    private static final Pattern ARGUMENT_REGEX = Pattern
-            .compile("([^'\"`|<>;\\s]+|'[^']*'|\"([^\"`]*`.*?`[^\"`]*)+\"|\"[^\"]*\"|`[^`]*`)+");
-
     private static final int NO_CHANGE = 0;
     private static final int RESET_TOKEN = 1;
     private static final int RESET_TOKEN_PIPE = 2;
 
+    /**
+     * Parsed command trees by command string. Commands never change after they are built and keep no
+     * state between evaluations, so one tree can be evaluated any number of times, even concurrently.
+     */
+    private static final LruCache<CacheKey, Command> PARSE_CACHE = new LruCache<>(ShellOptions::getParseCacheSize);
+
     private CommandBuilder() {
     }
 
@@ -46,12 +36,60 @@ public final class CommandBuilder {
      * <p>
      * CallCommand takes in a list of tokens, PipeCommand takes in a list of CallCommands,
      * and SequenceCommand takes in a list of CallCommands / PipeCommands.
+     * <p>
+     * Arguments are found by a {@link CommandLexer} in a single pass over the command string.
+     * <p>
+     * Recently parsed command strings are answered from a bounded LRU cache of size
+     * {@link ShellOptions#getParseCacheSize()}. Entries are only reused for the same ApplicationRunner
+     * instance and while no {@link ShellOptions} value has changed.
      *
      * @return Final command to be evaluated.
      * @throws ShellException If the provided command string has an invalid syntax.
      */
     public static Command parseCommand(String commandString, ApplicationRunner appRunner)
             throws ShellException {
+        if (ShellOptions.getParseCacheSize() == 0 || commandString == null) {
+            return parseUncached(commandString, appRunner);
+        }
+        CacheKey key = new CacheKey(commandString, appRunner, ShellOptions.getGeneration());
+        Command command = PARSE_CACHE.get(key);
+        if (command == null) {
+            command = parseUncached(commandString, appRunner);
+            PARSE_CACHE.put(key, command);
+        }
+        return command;
+    }
+
+    /**
+     * Parses the command string once into a command that can be evaluated many times with different
+     * streams, without looking it up again.
+     *
+     * @throws ShellException If the provided command string has an invalid syntax.
+     */
+    public static PreparedCommand prepare(String commandString, ApplicationRunner appRunner) throws ShellException {
+        return new PreparedCommand(commandString, parseUncached(commandString, appRunner));
+    }
+
+    public static long getCacheHits() {
+        return PARSE_CACHE.getHits();
+    }
+
+    public static long getCacheMisses() {
+        return PARSE_CACHE.getMisses();
+    }
+
+    public static int getCacheSize() {
+        return PARSE_CACHE.size();
+    }
+
+    /**
+     * Empties the parsed-command cache and resets its hit and miss counters.
+     */
+    public static void clearCache() {
+        PARSE_CACHE.clear();
+    }
+
+    private static Command parseUncached(String commandString, ApplicationRunner appRunner) throws ShellException {
         if (StringUtils.isBlank(commandString) || commandString.contains(STRING_NEWLINE)) {
             throw new ShellException(E_SYNTAX);
         }
@@ -61,28 +99,28 @@ public final class CommandBuilder {
         List<String> tokens = new LinkedList<>();
         int state = NO_CHANGE;
 
-        String commandSubstring = commandString;
-        while (!commandSubstring.isEmpty()) {
-            commandSubstring = commandSubstring.trim();
-            Matcher matcher = ARGUMENT_REGEX.matcher(commandSubstring);
-
-            // no valid arguments found
-            if (!matcher.find()) {
-                throw new ShellException(E_SYNTAX);
-            }
-
-            // found a valid argument at the start of the command substring
-            if (matcher.start() == 0) {
-                tokens.add(matcher.group());
-                commandSubstring = commandSubstring.substring(matcher.end());
+        // leading and trailing whitespace is never part of an argument
+        String trimmed = commandString.trim();
+        CommandLexer lexer = new CommandLexer(trimmed);
+        boolean isArgumentExpected = true;
+        int position = 0;
+        while (position < trimmed.length()) {
+            int end = lexer.argumentEnd(position);
+
+            // found a valid argument at the current position
+            if (end > position) {
+                tokens.add(trimmed.substring(position, end));
+                isArgumentExpected = false;
+                position = lexer.skipWhitespace(end);
                 continue;
             }
 
-            // found a valid argument but not at the start of the command substring
-            char firstChar = commandSubstring.charAt(0);
-            commandSubstring = commandSubstring.substring(1);
+            // no valid argument at the current position
+            char firstChar = trimmed.charAt(position);
+            position = lexer.skipWhitespace(position + 1);
 
             state = parseSpecialChar(firstChar, tokens, callCmdsForPipe, cmdsForSequence, appRunner);
+            isArgumentExpected = true;
             if (state == RESET_TOKEN_PIPE) {
                 callCmdsForPipe = new LinkedList<>();
             }
@@ -91,21 +129,26 @@ public final class CommandBuilder {
             }
         }
 
+        // no valid arguments found, or none after the last special character
+        if (isArgumentExpected) {
+            throw new ShellException(E_SYNTAX);
+        }
+
         return buildCommand(tokens, callCmdsForPipe, cmdsForSequence, appRunner);
     }
 
     private static Command buildCommand(List<String> tokens, List<CallCommand> callCmdsForPipe,
                                         List<Command> cmdsForSequence, ApplicationRunner appRunner) {
-        Command finalCommand = new CallCommand(tokens, appRunner);
+        Command finalCommand = new CallCommand(List.copyOf(tokens), appRunner);
         if (!callCmdsForPipe.isEmpty()) {
             // add CallCommand as part of ongoing PipeCommand
             callCmdsForPipe.add((CallCommand) finalCommand);
-            finalCommand = new PipeCommand(callCmdsForPipe);
+            finalCommand = new PipeCommand(List.copyOf(callCmdsForPipe));
         }
         if (!cmdsForSequence.isEmpty()) {
             // add CallCommand / PipeCommand as part of ongoing SequenceCommand
             cmdsForSequence.add(finalCommand);
-            finalCommand = new SequenceCommand(cmdsForSequence);
+            finalCommand = new SequenceCommand(List.copyOf(cmdsForSequence));
         }
         return finalCommand;
     }
@@ -126,7 +169,7 @@ public final class CommandBuilder {
                     throw new ShellException(E_SYNTAX);
                 } else {
                     // add CallCommand as part of a PipeCommand
-                    callCmdsForPipe.add(new CallCommand(tokens, appRunner));
+                    callCmdsForPipe.add(new CallCommand(List.copyOf(tokens), appRunner));
                     state = RESET_TOKEN;
                 }
                 break;
@@ -137,14 +180,14 @@ public final class CommandBuilder {
                     throw new ShellException(E_SYNTAX);
                 } else if (callCmdsForPipe.isEmpty()) {
                     // add CallCommand as part of a SequenceCommand
-                    cmdsForSequence.add(new CallCommand(tokens, appRunner));
+                    cmdsForSequence.add(new CallCommand(List.copyOf(tokens), appRunner));
                     state = RESET_TOKEN;
                 } else {
                     // add CallCommand as part of ongoing PipeCommand
-                    callCmdsForPipe.add(new CallCommand(tokens, appRunner));
+                    callCmdsForPipe.add(new CallCommand(List.copyOf(tokens), appRunner));
 
                     // add PipeCommand as part of a SequenceCommand
-                    cmdsForSequence.add(new PipeCommand(callCmdsForPipe));
+                    cmdsForSequence.add(new PipeCommand(List.copyOf(callCmdsForPipe)));
                     state = RESET_TOKEN_PIPE;
                 }
                 break;
@@ -154,4 +197,38 @@ public final class CommandBuilder {
         }
         return state;
     }
+
+    /**
+     * Cache key of a command string. Commands hold their ApplicationRunner and the options in effect
+     * when they were built, so both are part of the key.
+     */
+    private static final class CacheKey {
+        private final String commandString;
+        private final ApplicationRunner appRunner;
+        private final int generation;
+
+        private CacheKey(String commandString, ApplicationRunner appRunner, int generation) {
+            this.commandString = commandString;
+            this.appRunner = appRunner;
+            this.generation = generation;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey key = (CacheKey) other;
+            return appRunner == key.appRunner && generation == key.generation
+                    && commandString.equals(key.commandString);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(commandString, System.identityHashCode(appRunner), generation);
+        }
+    }
 }
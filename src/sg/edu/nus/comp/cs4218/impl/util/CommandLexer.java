@@ -0,0 +1,194 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_BACK_QUOTE;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_DOUBLE_QUOTE;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_PIPE;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_REDIR_INPUT;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_REDIR_OUTPUT;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_SEMICOLON;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_SINGLE_QUOTE;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_SPACE;
+
+/**
+ * Linear-time lexer that finds the arguments of a command string for {@link CommandBuilder}.
+ * <p>
+ * An argument is one or more of the following units, tried in this order at each position:
+ * <ul>
+ *     <li>NO_QUOTE: a run of characters other than <code>' " ` | &lt; &gt; ;</code> and whitespace</li>
+ *     <li>SINGLE_QUOTE: <code>'</code> up to the next <code>'</code></li>
+ *     <li>NESTED_BACK_QUOTE: <code>"</code>, one or more groups of <code>[^"`]* `...` [^"`]*</code>,
+ *     then <code>"</code>. The part between backquotes may contain anything but a line terminator and
+ *     is as short as possible, but grows if the rest of the unit cannot be matched otherwise</li>
+ *     <li>DOUBLE_QUOTE: <code>"</code> up to the next <code>"</code></li>
+ *     <li>BACK_QUOTE: <code>`</code> up to the next <code>`</code></li>
+ * </ul>
+ * This is exactly what the regular expression
+ * <code>([^'"`|&lt;&gt;;\s]+|'[^']*'|"([^"`]*`.*?`[^"`]*)+"|"[^"]*"|`[^`]*`)+</code> matches, but the
+ * search for the end of every NESTED_BACK_QUOTE unit is precomputed right to left, so lexing never
+ * backtracks and takes time linear in the length of the command string.
+ */
+final class CommandLexer {
+    private static final int NO_MATCH = -1;
+
+    private final String command;
+    private final int length;
+
+    /**
+     * Index of the next <code>"</code> or <code>`</code> after each position, or length.
+     */
+    private int[] nextQuote;
+
+    /**
+     * End of the NESTED_BACK_QUOTE unit whose first backquoted part starts at each backquote, or NO_MATCH.
+     */
+    private int[] nestedEnd;
+
+    CommandLexer(String command) {
+        this.command = command;
+        this.length = command.length();
+    }
+
+    /**
+     * Returns the first index from position on that is not whitespace in the sense of
+     * {@link String#trim()}.
+     */
+    int skipWhitespace(int position) {
+        int index = position;
+        while (index < length && command.charAt(index) <= CHAR_SPACE) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the end of the argument starting at start, or start if no argument starts there.
+     */
+    int argumentEnd(int start) {
+        int position = start;
+        while (position < length) {
+            int end = unitEnd(position);
+            if (end == NO_MATCH) {
+                break;
+            }
+            position = end;
+        }
+        return position;
+    }
+
+    private int unitEnd(int position) {
+        char chr = command.charAt(position);
+        if (isNoQuote(chr)) {
+            int end = position + 1;
+            while (end < length && isNoQuote(command.charAt(end))) {
+                end++;
+            }
+            return end;
+        }
+        switch (chr) {
+            case CHAR_SINGLE_QUOTE:
+            case CHAR_BACK_QUOTE:
+                return closingEnd(chr, position);
+            case CHAR_DOUBLE_QUOTE:
+                int end = nestedBackQuoteEnd(position);
+                return end == NO_MATCH ? closingEnd(chr, position) : end;
+            default:
+                return NO_MATCH;
+        }
+    }
+
+    private int closingEnd(char quote, int position) {
+        int closing = command.indexOf(quote, position + 1);
+        return closing < 0 ? NO_MATCH : closing + 1;
+    }
+
+    private int nestedBackQuoteEnd(int position) {
+        if (nextQuote == null) {
+            precompute();
+        }
+        int firstQuote = nextQuote[position];
+        if (firstQuote == length || command.charAt(firstQuote) != CHAR_BACK_QUOTE) {
+            return NO_MATCH;
+        }
+        return nestedEnd[firstQuote];
+    }
+
+    /**
+     * Fills nextQuote and nestedEnd in one right-to-left pass.
+     * <p>
+     * For an opening backquote at r, the closing backquote is tried at each later backquote e on the
+     * same line, nearest first. After e comes <code>[^"`]*</code> up to the next quote q: if q is
+     * <code>"</code> the unit ends after it, if q is another backquote a new group starts there,
+     * which succeeds exactly when nestedEnd[q] does. firstEnd[e] keeps the result of the first
+     * closing backquote at or after e on its line that works.
+     */
+    private void precompute() {
+        nextQuote = new int[length + 1];
+        nestedEnd = new int[length + 1];
+        int[] nextBackQuote = new int[length + 1];
+        int[] nextLineEnd = new int[length + 1];
+        int[] firstEnd = new int[length + 1];
+
+        int quote = length;
+        int backQuote = length;
+        int lineEnd = length;
+        nextQuote[length] = length;
+        nextBackQuote[length] = length;
+        nextLineEnd[length] = length;
+        for (int i = length - 1; i >= 0; i--) {
+            nextQuote[i] = quote;
+            nextBackQuote[i] = backQuote;
+            nextLineEnd[i] = lineEnd;
+
+            char chr = command.charAt(i);
+            if (chr == CHAR_BACK_QUOTE) {
+                int next = nextBackQuote[i];
+                boolean isNextOnLine = next < nextLineEnd[i];
+                nestedEnd[i] = isNextOnLine ? firstEnd[next] : NO_MATCH;
+
+                int afterClosing = nextQuote[i];
+                int closingEnd = NO_MATCH;
+                if (afterClosing < length) {
+                    closingEnd = command.charAt(afterClosing) == CHAR_DOUBLE_QUOTE
+                            ? afterClosing + 1
+                            : nestedEnd[afterClosing];
+                }
+                firstEnd[i] = closingEnd == NO_MATCH && isNextOnLine ? firstEnd[next] : closingEnd;
+                backQuote = i;
+            }
+            if (chr == CHAR_BACK_QUOTE || chr == CHAR_DOUBLE_QUOTE) {
+                quote = i;
+            }
+            if (isLineTerminator(chr)) {
+                lineEnd = i;
+            }
+        }
+    }
+
+    private static boolean isNoQuote(char chr) {
+        switch (chr) {
+            case CHAR_SINGLE_QUOTE:
+            case CHAR_DOUBLE_QUOTE:
+            case CHAR_BACK_QUOTE:
+            case CHAR_PIPE:
+            case CHAR_REDIR_INPUT:
+            case CHAR_REDIR_OUTPUT:
+            case CHAR_SEMICOLON:
+            case ' ':
+            case '\t':
+            case '\n':
+            case '\u000B':
+            case '\f':
+            case '\r':
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Line terminators, which <code>.</code> does not match in a regular expression.
+     */
+    private static boolean isLineTerminator(char chr) {
+        return chr == '\n' || chr == '\r' || chr == '\u0085' || chr == '\u2028' || chr == '\u2029';
+    }
+}
@@ -0,0 +1,173 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import sg.edu.nus.comp.cs4218.Command;
+import sg.edu.nus.comp.cs4218.exception.InvalidArgsException;
+import sg.edu.nus.comp.cs4218.impl.cmd.CallCommand;
+import sg.edu.nus.comp.cs4218.impl.cmd.PipeCommand;
+import sg.edu.nus.comp.cs4218.impl.parser.CatArgsParser;
+import sg.edu.nus.comp.cs4218.impl.parser.CutArgsParser;
+import sg.edu.nus.comp.cs4218.impl.parser.GrepArgsParser;
+import sg.edu.nus.comp.cs4218.impl.parser.PasteArgsParser;
+import sg.edu.nus.comp.cs4218.impl.parser.SortArgsParser;
+import sg.edu.nus.comp.cs4218.impl.parser.UniqArgsParser;
+import sg.edu.nus.comp.cs4218.impl.parser.WcArgsParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static sg.edu.nus.comp.cs4218.impl.util.ApplicationRunner.APP_CAT;
+import static sg.edu.nus.comp.cs4218.impl.util.ApplicationRunner.APP_CUT;
+import static sg.edu.nus.comp.cs4218.impl.util.ApplicationRunner.APP_ECHO;
+import static sg.edu.nus.comp.cs4218.impl.util.ApplicationRunner.APP_GREP;
+import static sg.edu.nus.comp.cs4218.impl.util.ApplicationRunner.APP_LS;
+import static sg.edu.nus.comp.cs4218.impl.util.ApplicationRunner.APP_PASTE;
+import static sg.edu.nus.comp.cs4218.impl.util.ApplicationRunner.APP_SORT;
+import static sg.edu.nus.comp.cs4218.impl.util.ApplicationRunner.APP_UNIQ;
+import static sg.edu.nus.comp.cs4218.impl.util.ApplicationRunner.APP_WC;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_BACK_QUOTE;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_REDIR_INPUT;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_REDIR_OUTPUT;
+
+/**
+ * Decides whether a command can run at the same time as its neighbours in a SequenceCommand.
+ * <p>
+ * A command is only concurrency safe if it neither changes shell or filesystem state nor reads the
+ * shared stdin. Anything else (cd, mv, rm, cp, tee, exit, unknown apps, <code>&gt;</code> redirection,
+ * command substitution, uniq with an output file, or reading stdin) must stay serial.
+ */
+public final class ConcurrencyAnalyzer {
+    private static final String STDIN_ARG = "-";
+    private static final String REDIR_INPUT = String.valueOf(CHAR_REDIR_INPUT);
+    private static final String REDIR_OUTPUT = String.valueOf(CHAR_REDIR_OUTPUT);
+
+    /**
+     * Apps that never read stdin and never write files.
+     */
+    private static final Set<String> NO_INPUT_APPS = Set.of(APP_ECHO, APP_LS);
+
+    /**
+     * Apps that never write files, but read stdin unless given file operands.
+     */
+    private static final Set<String> READER_APPS = Set.of(APP_CAT, APP_CUT, APP_GREP, APP_PASTE, APP_SORT,
+            APP_UNIQ, APP_WC);
+
+    private ConcurrencyAnalyzer() {
+    }
+
+    /**
+     * Checks whether the command may be evaluated concurrently with other concurrency safe commands.
+     *
+     * @param command Command to be checked
+     * @return true if the command has no side effects and does not read the shared stdin
+     */
+    public static boolean isConcurrencySafe(Command command) {
+        if (command instanceof CallCommand) {
+            return isSafeCall(((CallCommand) command).getArgsList(), true);
+        }
+        if (command instanceof PipeCommand) {
+            List<CallCommand> callCommands = ((PipeCommand) command).getCallCommands();
+            if (callCommands == null || callCommands.isEmpty()) {
+                return false;
+            }
+            for (int i = 0; i < callCommands.size(); i++) {
+                if (!isSafeCall(callCommands.get(i).getArgsList(), i == 0)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param argsList      unresolved tokens of a CallCommand, quotes included
+     * @param isStdinShared Boolean option indicating that the command's stdin is the shared stdin
+     */
+    private static boolean isSafeCall(List<String> argsList, boolean isStdinShared) {
+        if (argsList == null || argsList.isEmpty()) {
+            return false;
+        }
+        for (String arg : argsList) {
+            if (REDIR_OUTPUT.equals(arg) || arg.indexOf(CHAR_BACK_QUOTE) >= 0) {
+                return false;
+            }
+        }
+
+        String app = argsList.get(0);
+        if (NO_INPUT_APPS.contains(app)) {
+            return true;
+        }
+        if (!READER_APPS.contains(app)) {
+            return false;
+        }
+
+        List<String> appArgs = new ArrayList<>();
+        boolean isInputRedirected = false;
+        for (int i = 1; i < argsList.size(); i++) {
+            if (REDIR_INPUT.equals(argsList.get(i))) {
+                isInputRedirected = true;
+                i++;
+                continue;
+            }
+            appArgs.add(argsList.get(i));
+        }
+        List<String> inputFiles = getInputFiles(app, appArgs.toArray(new String[0]));
+        if (inputFiles == null) {
+            return false;
+        }
+        if (!isStdinShared || isInputRedirected) {
+            return true;
+        }
+        return !inputFiles.isEmpty() && !inputFiles.contains(STDIN_ARG);
+    }
+
+    /**
+     * Returns the files that a reader app reads, as its own parser reads args, so that option values such
+     * as those of <code>sort -k</code> or <code>grep -e</code> are never taken for files. Stdin is "-", or
+     * no file at all for apps that then read it.
+     *
+     * @param app  name of an app in {@link #READER_APPS}
+     * @param args arguments of the app, without input redirection
+     * @return list of files read, or null if args do not parse or the app also writes a file
+     */
+    private static List<String> getInputFiles(String app, String... args) {
+        try {
+            switch (app) {
+            case APP_CAT:
+                CatArgsParser catArgsParser = new CatArgsParser();
+                catArgsParser.parse(args);
+                return Arrays.asList(catArgsParser.getFiles());
+            case APP_CUT:
+                CutArgsParser cutArgsParser = new CutArgsParser();
+                cutArgsParser.parse(args);
+                return Arrays.asList(cutArgsParser.getFiles());
+            case APP_GREP:
+                GrepArgsParser grepArgsParser = new GrepArgsParser();
+                grepArgsParser.parse(args);
+                List<String> grepFiles = new ArrayList<>(grepArgsParser.getPatternFiles());
+                grepFiles.addAll(Arrays.asList(grepArgsParser.getFileNames()));
+                return grepFiles;
+            case APP_PASTE:
+                PasteArgsParser pasteArgsParser = new PasteArgsParser();
+                pasteArgsParser.parse(args);
+                return pasteArgsParser.getFiles();
+            case APP_SORT:
+                SortArgsParser sortArgsParser = new SortArgsParser();
+                sortArgsParser.parse(args);
+                return sortArgsParser.getFiles();
+            case APP_UNIQ:
+                UniqArgsParser uniqArgsParser = new UniqArgsParser();
+                uniqArgsParser.parse(args);
+                return uniqArgsParser.hasOutputFile() ? null : uniqArgsParser.getFiles();
+            default:
+                WcArgsParser wcArgsParser = new WcArgsParser();
+                wcArgsParser.parse(args);
+                return wcArgsParser.getFiles();
+            }
+        } catch (InvalidArgsException e) {
+            return null;
+        }
+    }
+}
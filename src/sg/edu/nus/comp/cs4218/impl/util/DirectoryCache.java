@@ -0,0 +1,318 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+ * Session-wide cache of directory listings and of the basic attributes of their entries, shared by
+ * globbing, ls and cd.
+ * <p>
+ * A cached listing is only returned while its directory is unchanged:
+ * <ul>
+ *     <li>every cached directory is registered with a {@link WatchService}, and any event on it drops
+ *     its listing</li>
+ *     <li>events arrive asynchronously and not every filesystem delivers them, so every lookup also
+ *     compares the modification time and file key of the directory with the ones it was listed with</li>
+ *     <li>a directory modified less than {@link #RACY_WINDOW_MILLIS} before it was listed is not cached,
+ *     as a later change within the same timestamp tick would leave its modification time unchanged</li>
+ * </ul>
+ * The shell's own commands that create, move or delete files drop the affected listings at once through
+ * {@link #invalidate(Path)}. The number of cached directories is bounded by
+ * {@link ShellOptions#getDirectoryCacheSize()}.
+ */
+public final class DirectoryCache {
+    static final long RACY_WINDOW_MILLIS = 2000;
+
+    private static final LruCache<Path, Listing> LISTINGS = new LruCache<>(
+            ShellOptions::getDirectoryCacheSize, DirectoryCache::cancelWatch);
+    private static final Object WATCH_LOCK = new Object();
+    private static WatchService watchService;
+    private static boolean isWatchUnavailable;
+
+    private DirectoryCache() {
+    }
+
+    /**
+     * Lists the entries of a directory, in no particular order.
+     *
+     * @param directory Directory to list
+     * @return Unmodifiable list of the entries of directory
+     * @throws IOException If directory does not exist, is not a directory or cannot be read
+     */
+    public static List<Entry> list(Path directory) throws IOException {
+        return getListing(directory.toAbsolutePath()).entries;
+    }
+
+    /**
+     * Looks up the attributes of a file, from the listing of its parent directory when possible.
+     *
+     * @param path File to look up
+     * @return Entry of path, or null if it does not exist
+     */
+    public static Entry getEntry(Path path) {
+        Path absolute = path.toAbsolutePath();
+        Path parent = absolute.getParent();
+        Path name = absolute.getFileName();
+        if (parent != null && name != null && !isRelativeName(name.toString())) {
+            try {
+                Entry entry = getListing(parent).byName.get(name.toString());
+                if (entry != null) {
+                    return entry;
+                }
+            } catch (IOException | SecurityException e) {
+                // the parent cannot be listed, so look up the file itself
+            }
+        }
+        // also covers names that compare equal on case-insensitive filesystems
+        return readEntry(absolute);
+    }
+
+    /**
+     * Drops the cached listings that a change to path can affect: that of its parent directory, and those
+     * of path and every directory below it.
+     *
+     * @param path File or directory that was created, modified, moved or deleted
+     */
+    public static void invalidate(Path path) {
+        Path absolute = path.toAbsolutePath();
+        Path parent = absolute.getParent();
+        if (parent != null) {
+            LISTINGS.remove(parent);
+        }
+        LISTINGS.removeIf(directory -> directory.startsWith(absolute));
+    }
+
+    /**
+     * Drops every cached listing.
+     */
+    public static void clear() {
+        LISTINGS.clear();
+    }
+
+    static boolean isCached(Path directory) {
+        processEvents();
+        return LISTINGS.get(directory.toAbsolutePath()) != null;
+    }
+
+    static boolean isWatching() {
+        synchronized (WATCH_LOCK) {
+            return watchService != null;
+        }
+    }
+
+    private static Listing getListing(Path directory) throws IOException {
+        processEvents();
+        long listedAt = System.currentTimeMillis();
+        BasicFileAttributes attributes = Files.readAttributes(directory, BasicFileAttributes.class);
+        if (!attributes.isDirectory()) {
+            throw new NotDirectoryException(directory.toString());
+        }
+
+        Listing cached = LISTINGS.get(directory);
+        if (cached != null) {
+            if (cached.isCurrent(attributes)) {
+                return cached;
+            }
+            LISTINGS.remove(directory);
+        }
+
+        boolean isCacheable = ShellOptions.getDirectoryCacheSize() > 0
+                && attributes.lastModifiedTime().toMillis() + RACY_WINDOW_MILLIS < listedAt;
+        // watch before reading, so that no change after the listing is missed
+        WatchKey watchKey = isCacheable ? watch(directory) : null;
+        Listing listing;
+        try {
+            listing = new Listing(readEntries(directory), attributes, watchKey);
+        } catch (IOException | RuntimeException e) {
+            cancelWatch(watchKey);
+            throw e;
+        }
+        if (isCacheable) {
+            LISTINGS.put(directory, listing);
+        }
+        return listing;
+    }
+
+    private static List<Entry> readEntries(Path directory) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                Entry entry = readEntry(path);
+                // entries deleted while listing are left out
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        } catch (DirectoryIteratorException e) {
+            throw e.getCause();
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    private static Entry readEntry(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class,
+                    LinkOption.NOFOLLOW_LINKS);
+            return new Entry(path, attributes.isDirectory(), attributes.isSymbolicLink(), Files.isHidden(path));
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+    }
+
+    private static boolean isRelativeName(String name) {
+        return ".".equals(name) || "..".equals(name);
+    }
+
+    /**
+     * Registers directory with the watch service, or returns null if it cannot be watched.
+     */
+    private static WatchKey watch(Path directory) {
+        WatchService service = getWatchService();
+        if (service == null) {
+            return null;
+        }
+        try {
+            return directory.register(service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // e.g. the limit on watches is reached; the modification time check still applies
+            return null;
+        }
+    }
+
+    private static WatchService getWatchService() {
+        synchronized (WATCH_LOCK) {
+            if (watchService == null && !isWatchUnavailable) {
+                try {
+                    watchService = FileSystems.getDefault().newWatchService();
+                } catch (IOException | UnsupportedOperationException e) {
+                    isWatchUnavailable = true;
+                }
+            }
+            return watchService;
+        }
+    }
+
+    /**
+     * Drops the listings of every directory that the watch service reported a change in.
+     */
+    private static void processEvents() {
+        WatchService service;
+        synchronized (WATCH_LOCK) {
+            service = watchService;
+        }
+        if (service == null) {
+            return;
+        }
+        WatchKey key = service.poll();
+        while (key != null) {
+            key.pollEvents();
+            LISTINGS.remove((Path) key.watchable());
+            // listings are watched again when they are next cached
+            key.cancel();
+            key = service.poll();
+        }
+    }
+
+    private static void cancelWatch(Listing listing) {
+        cancelWatch(listing.watchKey);
+    }
+
+    private static void cancelWatch(WatchKey watchKey) {
+        if (watchKey != null) {
+            watchKey.cancel();
+        }
+    }
+
+    /**
+     * One file in a directory listing. Its type is read once, without following symbolic links.
+     */
+    public static final class Entry {
+        private final Path path;
+        private final boolean isDirectory;
+        private final boolean isSymbolicLink;
+        private final boolean isHidden;
+
+        private Entry(Path path, boolean isDirectory, boolean isSymbolicLink, boolean isHidden) {
+            this.path = path;
+            this.isDirectory = isDirectory;
+            this.isSymbolicLink = isSymbolicLink;
+            this.isHidden = isHidden;
+        }
+
+        public String getName() {
+            Path name = path.getFileName();
+            return name == null ? path.toString() : name.toString();
+        }
+
+        /**
+         * Returns whether this is a directory, or a symbolic link to one. The target of a link is not
+         * cached, and is looked up on every call.
+         */
+        public boolean isDirectory() {
+            return isSymbolicLink ? Files.isDirectory(path) : isDirectory;
+        }
+
+        /**
+         * Returns whether this exists, which is false only for a symbolic link whose target does not.
+         */
+        public boolean exists() {
+            return !isSymbolicLink || Files.exists(path);
+        }
+
+        public boolean isSymbolicLink() {
+            return isSymbolicLink;
+        }
+
+        public boolean isHidden() {
+            return isHidden;
+        }
+    }
+
+    /**
+     * Entries of a directory, with the attributes the directory had before they were read.
+     */
+    private static final class Listing {
+        private final List<Entry> entries;
+        private final Map<String, Entry> byName;
+        private final FileTime lastModifiedTime;
+        private final Object fileKey;
+        private final WatchKey watchKey;
+
+        private Listing(List<Entry> entries, BasicFileAttributes attributes, WatchKey watchKey) {
+            this.entries = entries;
+            this.byName = new HashMap<>();
+            for (Entry entry : entries) {
+                byName.put(entry.getName(), entry);
+            }
+            this.lastModifiedTime = attributes.lastModifiedTime();
+            this.fileKey = attributes.fileKey();
+            this.watchKey = watchKey;
+        }
+
+        private boolean isCurrent(BasicFileAttributes attributes) {
+            return (watchKey == null || watchKey.isValid())
+                    && lastModifiedTime.equals(attributes.lastModifiedTime())
+                    && Objects.equals(fileKey, attributes.fileKey());
+        }
+    }
+}
@@ -12,6 +12,7 @@ public class ErrorConstants {
     public static final String E_NO_ISTREAM = "InputStream not provided";
     public static final String E_NO_INPUT = "No InputStream and no filenames";
     public static final String E_NO_FILE_ARGS = "No files provided";
+    public static final String E_BROKEN_PIPE = "Broken pipe";
 
     // Arguments related
     public static final String E_MISSING_ARG = "Missing Argument";
@@ -43,6 +44,7 @@ public class ErrorConstants {
 
     // `grep` related
     public static final String E_NO_REGEX = "No regular expression supplied";
+    public static final String E_NOT_REGULAR = "Pattern cannot be matched by the DFA engine";
 
     // `mkdir` related
     public static final String E_NO_FOLDERS = "No folder names are supplied";
@@ -55,6 +57,7 @@ public class ErrorConstants {
     public static final String E_SYNTAX = "Invalid syntax";
     public static final String E_GENERAL = "Exception Caught";
     public static final String E_IO_EXCEPTION = "IOException";
+    public static final String E_INTERRUPTED = "Interrupted";
     public static final String E_ILLEGAL_FLAG = "illegal option -- ";
 
 }
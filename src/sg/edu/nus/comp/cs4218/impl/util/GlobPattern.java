@@ -0,0 +1,493 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Glob pattern over file paths, compiled once and matched without regular expressions.
+ * <p>
+ * Within one path segment:
+ * <ul>
+ *     <li><code>*</code> matches any sequence of characters and <code>?</code> any single character</li>
+ *     <li><code>[abc]</code> and <code>[a-z]</code> match one character of the set, <code>[!a-z]</code>
+ *     or <code>[^a-z]</code> one character outside it</li>
+ *     <li><code>{a,b}</code> matches any of its comma-separated alternatives, which may hold wildcards
+ *     and nested braces, but not <code>/</code></li>
+ *     <li><code>\</code> makes the next character literal</li>
+ * </ul>
+ * A segment that is exactly <code>**</code> matches zero or more directories. An unclosed
+ * <code>[</code> or <code>{</code> is literal. A trailing <code>/</code> only matches directories.
+ */
+public final class GlobPattern {
+    /**
+     * Characters that make an unquoted word a pattern rather than a file name.
+     */
+    public static final String WILDCARD_CHARS = "*?[{";
+
+    private static final char SEPARATOR = '/';
+    private static final char ESCAPE = '\\';
+    private static final String RECURSIVE = "**";
+    private static final String SPECIAL_CHARS = "\\*?[]{},";
+
+    private static final int ANY_CHAR = -1;
+    private static final int ANY_STRING = -2;
+
+    /**
+     * Elements below this value refer to a character class: CLASS_BASE - element is its index.
+     */
+    private static final int CLASS_BASE = -3;
+
+    private final String pattern;
+    private final boolean isAbsolute;
+    private final boolean isDirectoryOnly;
+    private final List<Segment> segments;
+
+    private GlobPattern(String pattern, boolean isAbsolute, boolean isDirectoryOnly, List<Segment> segments) {
+        this.pattern = pattern;
+        this.isAbsolute = isAbsolute;
+        this.isDirectoryOnly = isDirectoryOnly;
+        this.segments = segments;
+    }
+
+    /**
+     * Compiles the glob pattern.
+     *
+     * @param pattern Glob pattern, with <code>/</code> separating path segments
+     * @return GlobPattern that can be matched and expanded any number of times
+     */
+    public static GlobPattern compile(String pattern) {
+        List<Segment> segments = new ArrayList<>();
+        int start = 0;
+        while (start <= pattern.length()) {
+            int end = pattern.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = pattern.length();
+            }
+            String text = pattern.substring(start, end);
+            boolean isRepeatedRecursive = RECURSIVE.equals(text) && !segments.isEmpty()
+                    && segments.get(segments.size() - 1).isRecursive;
+            if (!text.isEmpty() && !isRepeatedRecursive) {
+                segments.add(new Segment(text));
+            }
+            start = end + 1;
+        }
+        boolean isAbsolute = !pattern.isEmpty() && pattern.charAt(0) == SEPARATOR;
+        boolean isDirectoryOnly = pattern.length() > 1 && pattern.charAt(pattern.length() - 1) == SEPARATOR;
+        return new GlobPattern(pattern, isAbsolute, isDirectoryOnly, segments);
+    }
+
+    /**
+     * Appends str to glob with every special character escaped, so that it only matches itself.
+     */
+    public static void appendEscaped(StringBuilder glob, CharSequence str) {
+        for (int i = 0; i < str.length(); i++) {
+            char chr = str.charAt(i);
+            if (SPECIAL_CHARS.indexOf(chr) >= 0) {
+                glob.append(ESCAPE);
+            }
+            glob.append(chr);
+        }
+    }
+
+    /**
+     * Checks whether the path, with <code>/</code> separating its segments, matches this pattern.
+     * Only the text is compared: the filesystem is not accessed.
+     */
+    public boolean matches(String path) {
+        if (path.isEmpty() || isAbsolute != (path.charAt(0) == SEPARATOR)) {
+            return false;
+        }
+        List<String> names = new ArrayList<>();
+        for (String name : path.split(String.valueOf(SEPARATOR))) {
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        return matchesFrom(names, 0, 0);
+    }
+
+    private boolean matchesFrom(List<String> names, int nameIndex, int segmentIndex) {
+        if (segmentIndex == segments.size()) {
+            return nameIndex == names.size();
+        }
+        Segment segment = segments.get(segmentIndex);
+        if (segment.isRecursive) {
+            for (int next = nameIndex; next <= names.size(); next++) {
+                if (matchesFrom(names, next, segmentIndex + 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return nameIndex < names.size() && segment.matches(names.get(nameIndex))
+                && matchesFrom(names, nameIndex + 1, segmentIndex + 1);
+    }
+
+    /**
+     * Finds the existing files that match this pattern.
+     * <p>
+     * Directories are listed one at a time through {@link DirectoryCache}, and only the entries that can
+     * still lead to a match are visited. Segments without wildcards are looked up directly. Directories
+     * that cannot be read are skipped, and <code>**</code> does not follow symbolic links.
+     *
+     * @param currentDirectory Directory that a relative pattern starts from
+     * @return Sorted list of matching paths, written relative to currentDirectory unless the pattern is
+     * absolute, or an empty list if nothing matches
+     */
+    public List<String> expand(Path currentDirectory) {
+        Set<String> matches = new TreeSet<>();
+        if (!segments.isEmpty()) {
+            if (isAbsolute) {
+                expand(Paths.get(File.separator), File.separator, 0, matches);
+            } else {
+                expand(currentDirectory, "", 0, matches);
+            }
+        }
+        return new ArrayList<>(matches);
+    }
+
+    /**
+     * Adds the matches of the segments from index on below dir, whose text so far is prefix.
+     */
+    private void expand(Path dir, String prefix, int index, Set<String> matches) {
+        Segment segment = segments.get(index);
+        boolean isLast = index == segments.size() - 1;
+
+        if (segment.isRecursive) {
+            if (isLast) {
+                addAll(dir, prefix, matches);
+                return;
+            }
+            // match the next segment here, and keep descending; one listing serves both
+            Segment next = segments.get(index + 1);
+            if (next.literals != null) {
+                expand(dir, prefix, index + 1, matches);
+            }
+            forEachEntry(dir, entry -> {
+                String name = entry.getName();
+                if (next.literals == null && next.matches(name)) {
+                    visit(dir, entry, prefix + name, index + 1, matches);
+                }
+                if (!entry.isSymbolicLink() && entry.isDirectory()) {
+                    expand(dir.resolve(name), prefix + name + File.separator, index, matches);
+                }
+            });
+            return;
+        }
+
+        if (segment.literals != null) {
+            for (String literal : segment.literals) {
+                DirectoryCache.Entry entry = DirectoryCache.getEntry(dir.resolve(literal));
+                if (entry != null) {
+                    visit(dir, entry, prefix + literal, index, matches);
+                }
+            }
+            return;
+        }
+
+        forEachEntry(dir, entry -> {
+            String name = entry.getName();
+            if (segment.matches(name)) {
+                visit(dir, entry, prefix + name, index, matches);
+            }
+        });
+    }
+
+    /**
+     * Continues with the existing entry of dir whose name matched the segment at index.
+     */
+    private void visit(Path dir, DirectoryCache.Entry entry, String text, int index, Set<String> matches) {
+        if (index < segments.size() - 1) {
+            if (entry.isDirectory()) {
+                expand(dir.resolve(entry.getName()), text + File.separator, index + 1, matches);
+            }
+        } else if (!isDirectoryOnly || entry.isDirectory()) {
+            matches.add(isDirectoryOnly ? text + File.separator : text);
+        }
+    }
+
+    /**
+     * Adds everything below dir, for a trailing <code>**</code>.
+     */
+    private void addAll(Path dir, String prefix, Set<String> matches) {
+        forEachEntry(dir, entry -> {
+            String text = prefix + entry.getName();
+            boolean isDirectory = !entry.isSymbolicLink() && entry.isDirectory();
+            if (isDirectory || !isDirectoryOnly) {
+                matches.add(isDirectoryOnly ? text + File.separator : text);
+            }
+            if (isDirectory) {
+                addAll(dir.resolve(entry.getName()), text + File.separator, matches);
+            }
+        });
+    }
+
+    private static void forEachEntry(Path dir, EntryVisitor visitor) {
+        List<DirectoryCache.Entry> entries;
+        try {
+            entries = DirectoryCache.list(dir);
+        } catch (IOException | SecurityException e) {
+            // unreadable directories have no matches
+            return;
+        }
+        for (DirectoryCache.Entry entry : entries) {
+            visitor.visit(entry);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    private interface EntryVisitor {
+        void visit(DirectoryCache.Entry entry);
+    }
+
+    /**
+     * One path segment, compiled into the alternatives left after expanding its braces.
+     * <p>
+     * Every alternative is an array of elements: a character matches itself, and ANY_CHAR, ANY_STRING
+     * and character class references match as <code>?</code>, <code>*</code> and <code>[...]</code>.
+     */
+    private static final class Segment {
+        private final boolean isRecursive;
+
+        /**
+         * Unescaped alternatives if none of them has a wildcard, otherwise null.
+         */
+        private final List<String> literals;
+        private final List<int[]> alternatives = new ArrayList<>();
+        private final List<CharClass> classes = new ArrayList<>();
+
+        private Segment(String text) {
+            this.isRecursive = RECURSIVE.equals(text);
+            List<String> expanded = new ArrayList<>();
+            expandBraces(text, expanded);
+
+            boolean hasWildcard = isRecursive;
+            List<String> unescaped = new ArrayList<>();
+            for (String alternative : expanded) {
+                int[] elements = compileAlternative(alternative);
+                alternatives.add(elements);
+                StringBuilder literal = new StringBuilder();
+                for (int element : elements) {
+                    if (element < 0) {
+                        hasWildcard = true;
+                        break;
+                    }
+                    literal.append((char) element);
+                }
+                unescaped.add(literal.toString());
+            }
+            this.literals = hasWildcard ? null : unescaped;
+        }
+
+        private boolean matches(String name) {
+            for (int[] elements : alternatives) {
+                if (matches(elements, name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Matches left to right, going back to just after the last <code>*</code> on a mismatch.
+         * Every other element matches exactly one character, so this takes at most
+         * O(elements * name length) steps.
+         */
+        private boolean matches(int[] elements, String name) {
+            int element = 0;
+            int position = 0;
+            int lastStar = -1;
+            int starPosition = 0;
+            while (position < name.length()) {
+                if (element < elements.length && elements[element] == ANY_STRING) {
+                    lastStar = element++;
+                    starPosition = position;
+                } else if (element < elements.length && matchesChar(elements[element], name.charAt(position))) {
+                    element++;
+                    position++;
+                } else if (lastStar >= 0) {
+                    element = lastStar + 1;
+                    position = ++starPosition;
+                } else {
+                    return false;
+                }
+            }
+            while (element < elements.length && elements[element] == ANY_STRING) {
+                element++;
+            }
+            return element == elements.length;
+        }
+
+        private boolean matchesChar(int element, char chr) {
+            if (element >= 0) {
+                return element == chr;
+            }
+            return element == ANY_CHAR || classes.get(CLASS_BASE - element).matches(chr);
+        }
+
+        private int[] compileAlternative(String text) {
+            int[] elements = new int[text.length()];
+            int count = 0;
+            int index = 0;
+            while (index < text.length()) {
+                char chr = text.charAt(index);
+                if (chr == ESCAPE && index + 1 < text.length()) {
+                    elements[count++] = text.charAt(index + 1);
+                    index += 2;
+                    continue;
+                }
+                int classEnd = chr == '[' ? findClassEnd(text, index) : -1;
+                if (classEnd >= 0) {
+                    classes.add(new CharClass(text, index + 1, classEnd));
+                    elements[count++] = CLASS_BASE - (classes.size() - 1);
+                    index = classEnd + 1;
+                    continue;
+                }
+                if (chr == '*') {
+                    // consecutive stars match the same as one
+                    if (count == 0 || elements[count - 1] != ANY_STRING) {
+                        elements[count++] = ANY_STRING;
+                    }
+                } else {
+                    elements[count++] = chr == '?' ? ANY_CHAR : chr;
+                }
+                index++;
+            }
+            int[] compiled = new int[count];
+            System.arraycopy(elements, 0, compiled, 0, count);
+            return compiled;
+        }
+    }
+
+    /**
+     * Returns the index of the <code>]</code> closing the class opened at start, or -1 if it is unclosed.
+     * A <code>]</code> right after the opening bracket or its negation is a member of the class.
+     */
+    private static int findClassEnd(String text, int start) {
+        int index = start + 1;
+        if (index < text.length() && (text.charAt(index) == '!' || text.charAt(index) == '^')) {
+            index++;
+        }
+        if (index < text.length() && text.charAt(index) == ']') {
+            index++;
+        }
+        while (index < text.length()) {
+            char chr = text.charAt(index);
+            if (chr == ESCAPE) {
+                index += 2;
+                continue;
+            }
+            if (chr == ']') {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds every brace-free variant of text to expanded, keeping escapes and character classes as they are.
+     */
+    private static void expandBraces(String text, List<String> expanded) {
+        int open = -1;
+        int depth = 0;
+        List<Integer> commas = new ArrayList<>();
+        int index = 0;
+        while (index < text.length()) {
+            char chr = text.charAt(index);
+            if (chr == ESCAPE) {
+                index += 2;
+                continue;
+            }
+            int classEnd = chr == '[' ? findClassEnd(text, index) : -1;
+            if (classEnd >= 0) {
+                index = classEnd + 1;
+                continue;
+            }
+            if (chr == '{') {
+                if (depth++ == 0) {
+                    open = index;
+                }
+            } else if (chr == ',' && depth == 1) {
+                commas.add(index);
+            } else if (chr == '}' && depth > 0 && --depth == 0) {
+                String prefix = text.substring(0, open);
+                String suffix = text.substring(index + 1);
+                int start = open + 1;
+                commas.add(index);
+                for (int comma : commas) {
+                    expandBraces(prefix + text.substring(start, comma) + suffix, expanded);
+                    start = comma + 1;
+                }
+                return;
+            }
+            index++;
+        }
+
+        if (depth > 0) {
+            // the first brace is never closed, so it is literal
+            expandBraces(text.substring(0, open) + ESCAPE + text.substring(open), expanded);
+            return;
+        }
+        expanded.add(text);
+    }
+
+    /**
+     * Set of characters from a bracket expression.
+     */
+    private static final class CharClass {
+        private final boolean isNegated;
+        private final StringBuilder ranges = new StringBuilder();
+
+        /**
+         * @param text  Text holding the class
+         * @param start Index just after the opening bracket
+         * @param end   Index of the closing bracket
+         */
+        private CharClass(String text, int start, int end) {
+            int index = start;
+            boolean isNegated = index < end && (text.charAt(index) == '!' || text.charAt(index) == '^');
+            if (isNegated) {
+                index++;
+            }
+            this.isNegated = isNegated;
+
+            while (index < end) {
+                char low = text.charAt(index);
+                if (low == ESCAPE && index + 1 < end) {
+                    low = text.charAt(++index);
+                }
+                index++;
+                char high = low;
+                if (index + 1 < end && text.charAt(index) == '-') {
+                    high = text.charAt(index + 1);
+                    if (high == ESCAPE && index + 2 < end) {
+                        high = text.charAt(index + 2);
+                        index++;
+                    }
+                    index += 2;
+                }
+                ranges.append(low).append(high);
+            }
+        }
+
+        private boolean matches(char chr) {
+            for (int i = 0; i < ranges.length(); i += 2) {
+                if (ranges.charAt(i) <= chr && chr <= ranges.charAt(i + 1)) {
+                    return !isNegated;
+                }
+            }
+            return isNegated;
+        }
+    }
+}
@@ -64,6 +64,7 @@ public final class IOUtils {
         } catch (FileNotFoundException e) {
             throw new ShellException(E_FILE_NOT_FOUND, e);
         }
+        DirectoryCache.invalidate(Paths.get(resolvedFileName));
 
         return fileOutputStream;
     }
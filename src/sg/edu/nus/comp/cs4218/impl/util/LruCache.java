@@ -0,0 +1,139 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Thread-safe map that evicts its least recently used entry once it holds more than its capacity,
+ * and counts lookup hits and misses.
+ * <p>
+ * The capacity is read on every insertion, so a cache backed by a {@link ShellOptions} value follows
+ * changes to that option. A capacity of 0 disables the cache. Values that hold resources can be released
+ * through a removal listener, which is called for every value that leaves the cache.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the cached values
+ */
+public final class LruCache<K, V> {
+    private final IntSupplier capacity;
+    private final Consumer<? super V> removalListener;
+    private final Map<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public LruCache(IntSupplier capacity) {
+        this(capacity, value -> {
+        });
+    }
+
+    /**
+     * @param capacity        Supplies the maximum number of entries
+     * @param removalListener Called outside the lock with every value that is evicted, replaced, removed or
+     *                        cleared
+     */
+    public LruCache(IntSupplier capacity, Consumer<? super V> removalListener) {
+        this.capacity = capacity;
+        this.removalListener = removalListener;
+    }
+
+    /**
+     * Returns the value cached for key and marks it as most recently used, or null if there is none.
+     */
+    public V get(K key) {
+        V value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Caches value for key, evicting the least recently used entries beyond the capacity.
+     */
+    public void put(K key, V value) {
+        int maxSize = capacity.getAsInt();
+        List<V> removed = new ArrayList<>();
+        synchronized (entries) {
+            if (maxSize > 0) {
+                V previous = entries.put(key, value);
+                if (previous != null && previous != value) {
+                    removed.add(previous);
+                }
+            }
+            Iterator<V> eldest = entries.values().iterator();
+            while (entries.size() > maxSize) {
+                removed.add(eldest.next());
+                eldest.remove();
+            }
+        }
+        removed.forEach(removalListener);
+    }
+
+    public void remove(K key) {
+        V removed;
+        synchronized (entries) {
+            removed = entries.remove(key);
+        }
+        if (removed != null) {
+            removalListener.accept(removed);
+        }
+    }
+
+    /**
+     * Removes every entry whose key matches filter.
+     */
+    public void removeIf(Predicate<? super K> filter) {
+        List<V> removed = new ArrayList<>();
+        synchronized (entries) {
+            Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<K, V> entry = iterator.next();
+                if (filter.test(entry.getKey())) {
+                    removed.add(entry.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+        removed.forEach(removalListener);
+    }
+
+    /**
+     * Removes every entry and resets the hit and miss counters.
+     */
+    public void clear() {
+        List<V> removed;
+        synchronized (entries) {
+            removed = new ArrayList<>(entries.values());
+            entries.clear();
+        }
+        removed.forEach(removalListener);
+        hits.reset();
+        misses.reset();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+}
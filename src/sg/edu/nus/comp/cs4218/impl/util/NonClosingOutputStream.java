@@ -0,0 +1,77 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Forwards writes to a shared output stream without ever closing it, so that several commands can
+ * write through to the same stdout one after another.
+ * <p>
+ * The first IOException raised by the underlying stream is recorded instead of being thrown, and
+ * everything written after it is discarded. Callers check {@link #getWriteException()} once the
+ * writer has finished.
+ */
+public class NonClosingOutputStream extends OutputStream {
+    private final OutputStream target;
+    private IOException writeException;
+
+    public NonClosingOutputStream(OutputStream target) {
+        this.target = target;
+    }
+
+    @Override
+    public void write(int value) {
+        if (writeException != null) {
+            return;
+        }
+        try {
+            target.write(value);
+        } catch (IOException e) {
+            writeException = e;
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes) {
+        write(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void write(byte[] bytes, int off, int len) {
+        if (writeException != null) {
+            return;
+        }
+        try {
+            target.write(bytes, off, len);
+        } catch (IOException e) {
+            writeException = e;
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (writeException != null) {
+            return;
+        }
+        try {
+            target.flush();
+        } catch (IOException e) {
+            writeException = e;
+        }
+    }
+
+    /**
+     * Flushes instead of closing; the underlying stream stays open for the next writer.
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Returns the first IOException raised by the underlying stream, or null if every write succeeded.
+     */
+    public IOException getWriteException() {
+        return writeException;
+    }
+}
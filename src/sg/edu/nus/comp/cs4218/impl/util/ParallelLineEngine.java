@@ -0,0 +1,327 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_INTERRUPTED;
+
+/**
+ * Data-parallel engine for applications that process every line independently.
+ * <p>
+ * The input is split into line-aligned chunks of roughly {@link ShellOptions#getParallelChunkSize()}
+ * bytes, each chunk is processed on the common fork-join pool and the results are handed back in input
+ * order on the calling thread. The first chunk is processed on the calling thread as soon as it is read,
+ * so small inputs pay nothing for the pool and the first result does not wait for more input. A chunk
+ * is also cut early, at a line end, whenever the input has no more data available yet, so the lines of
+ * a slow producer are processed as they arrive rather than once a whole chunk has been written.
+ * <p>
+ * Lines are split exactly like {@link BufferedReader#readLine()}. Byte input is only cut right after
+ * a <code>\n</code>, which never falls inside a character of the ASCII-compatible charsets listed in
+ * {@link #SPLITTABLE_CHARSETS}; any other default charset processes the input as one chunk.
+ * <p>
+ * A caller that needs only part of the result can stop the input being read any further once a chunk
+ * result is consumed. An interrupted calling thread stops before it reads the next chunk.
+ */
+public final class ParallelLineEngine {
+    private static final Set<Charset> SPLITTABLE_CHARSETS = Set.of(StandardCharsets.UTF_8,
+            StandardCharsets.US_ASCII, StandardCharsets.ISO_8859_1);
+    private static final byte LINE_FEED = '\n';
+
+    private ParallelLineEngine() {
+    }
+
+    /**
+     * Applies a function to a chunk of consecutive lines. Must be safe to call from several threads.
+     */
+    public interface ChunkFunction<R> {
+        R apply(List<String> lines);
+    }
+
+    /**
+     * Receives chunk results on the calling thread, in input order.
+     */
+    public interface ResultConsumer<R> {
+        void accept(R result) throws IOException;
+    }
+
+    /**
+     * Processes every line of a byte stream. Decoding, with the default charset, also happens in
+     * parallel. The stream is read to the end but not closed.
+     *
+     * @param input    InputStream containing the lines
+     * @param function ChunkFunction applied to every chunk of lines
+     * @param consumer ResultConsumer receiving the chunk results in order
+     * @throws IOException if reading the input or consuming a result fails
+     */
+    public static <R> void processLines(InputStream input, ChunkFunction<R> function, ResultConsumer<R> consumer)
+            throws IOException {
+        processLines(input, function, consumer, () -> false);
+    }
+
+    /**
+     * Processes the lines of a byte stream until isFinished returns true after a chunk result is consumed,
+     * or the end of the stream. The stream is not closed.
+     *
+     * @param input      InputStream containing the lines
+     * @param function   ChunkFunction applied to every chunk of lines
+     * @param consumer   ResultConsumer receiving the chunk results in order
+     * @param isFinished BooleanSupplier telling, on the calling thread, whether no more results are needed
+     * @throws IOException if reading the input or consuming a result fails, or the thread is interrupted
+     */
+    public static <R> void processLines(InputStream input, ChunkFunction<R> function, ResultConsumer<R> consumer,
+                                        BooleanSupplier isFinished) throws IOException {
+        boolean isSplittable = SPLITTABLE_CHARSETS.contains(Charset.defaultCharset());
+        run(new ByteChunkSource(input, isSplittable), function, consumer, isFinished);
+    }
+
+    /**
+     * Processes every line of a reader. Lines are read on the calling thread and only the function runs
+     * in parallel. The reader is read to the end but not closed.
+     *
+     * @param reader   BufferedReader containing the lines
+     * @param function ChunkFunction applied to every chunk of lines
+     * @param consumer ResultConsumer receiving the chunk results in order
+     * @throws IOException if reading the input or consuming a result fails
+     */
+    public static <R> void processLines(BufferedReader reader, ChunkFunction<R> function,
+                                        ResultConsumer<R> consumer) throws IOException {
+        processLines(reader, function, consumer, () -> false);
+    }
+
+    /**
+     * Processes the lines of a reader until isFinished returns true after a chunk result is consumed, or
+     * the end of the reader. The reader is not closed.
+     *
+     * @param reader     BufferedReader containing the lines
+     * @param function   ChunkFunction applied to every chunk of lines
+     * @param consumer   ResultConsumer receiving the chunk results in order
+     * @param isFinished BooleanSupplier telling, on the calling thread, whether no more results are needed
+     * @throws IOException if reading the input or consuming a result fails, or the thread is interrupted
+     */
+    public static <R> void processLines(BufferedReader reader, ChunkFunction<R> function,
+                                        ResultConsumer<R> consumer, BooleanSupplier isFinished)
+            throws IOException {
+        run(new ReaderChunkSource(reader), function, consumer, isFinished);
+    }
+
+    private static <R> void run(ChunkSource source, ChunkFunction<R> function, ResultConsumer<R> consumer,
+                                BooleanSupplier isFinished) throws IOException {
+        Callable<List<String>> first = next(source);
+        if (first == null) {
+            return;
+        }
+        consumer.accept(function.apply(call(first)));
+        if (isFinished.getAsBoolean()) {
+            return;
+        }
+        Callable<List<String>> second = next(source);
+        if (second == null) {
+            return;
+        }
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int maxInFlight = Math.max(pool.getParallelism(), 1) * 2;
+        Deque<Future<R>> inFlight = new ArrayDeque<>();
+        try {
+            Callable<List<String>> chunk = second;
+            Callable<List<String>> nextChunk = next(source);
+            while (chunk != null) {
+                Callable<List<String>> lines = chunk;
+                inFlight.addLast(pool.submit(() -> function.apply(lines.call())));
+                if (inFlight.size() >= maxInFlight) {
+                    consumer.accept(await(inFlight.removeFirst()));
+                    if (isFinished.getAsBoolean()) {
+                        return;
+                    }
+                }
+                chunk = nextChunk;
+                nextChunk = chunk == null ? null : next(source);
+            }
+            while (!inFlight.isEmpty()) {
+                consumer.accept(await(inFlight.removeFirst()));
+                if (isFinished.getAsBoolean()) {
+                    return;
+                }
+            }
+        } finally {
+            for (Future<R> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Returns the next chunk of source, unless the calling thread is interrupted.
+     */
+    private static Callable<List<String>> next(ChunkSource source) throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException(E_INTERRUPTED);
+        }
+        return source.next();
+    }
+
+    private static List<String> call(Callable<List<String>> chunk) throws IOException {
+        try {
+            return chunk.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static <R> R await(Future<R> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(E_INTERRUPTED, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Decodes the bytes into lines, splitting them exactly like BufferedReader.
+     */
+    static List<String> decodeLines(byte[] bytes, int length) throws IOException {
+        List<String> lines = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes, 0, length)));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    /**
+     * Produces the chunks of an input in order. A chunk is a deferred computation of its lines, so that
+     * decoding can happen on the pool.
+     */
+    private interface ChunkSource {
+        Callable<List<String>> next() throws IOException;
+    }
+
+    private static final class ByteChunkSource implements ChunkSource {
+        private final InputStream input;
+        private final boolean isSplittable;
+        private byte[] carry = new byte[0];
+        private int carryLength;
+        private boolean isEndOfStream;
+
+        private ByteChunkSource(InputStream input, boolean isSplittable) {
+            this.input = input;
+            this.isSplittable = isSplittable;
+        }
+
+        @Override
+        public Callable<List<String>> next() throws IOException {
+            if (isEndOfStream && carryLength == 0) {
+                return null;
+            }
+            int chunkSize = ShellOptions.getParallelChunkSize();
+            byte[] buffer = new byte[Math.max(chunkSize, carryLength * 2)];
+            System.arraycopy(carry, 0, buffer, 0, carryLength);
+            int length = carryLength;
+            int cut = -1;
+            while (!isEndOfStream) {
+                if (length == buffer.length) {
+                    if (isSplittable && (cut = lastLineFeed(buffer, length)) >= 0) {
+                        break;
+                    }
+                    byte[] larger = new byte[buffer.length * 2];
+                    System.arraycopy(buffer, 0, larger, 0, length);
+                    buffer = larger;
+                }
+                int read = input.read(buffer, length, buffer.length - length);
+                if (read < 0) {
+                    isEndOfStream = true;
+                } else {
+                    length += read;
+                    if (isSplittable && input.available() == 0 && (cut = lastLineFeed(buffer, length)) >= 0) {
+                        break;
+                    }
+                }
+            }
+
+            if (length == 0) {
+                return null;
+            }
+            int chunkEnd = isEndOfStream ? length : cut + 1;
+            carryLength = length - chunkEnd;
+            carry = new byte[carryLength];
+            System.arraycopy(buffer, chunkEnd, carry, 0, carryLength);
+
+            byte[] chunk = buffer;
+            return () -> decodeLines(chunk, chunkEnd);
+        }
+
+        private static int lastLineFeed(byte[] bytes, int length) {
+            for (int i = length - 1; i >= 0; i--) {
+                if (bytes[i] == LINE_FEED) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class ReaderChunkSource implements ChunkSource {
+        private final BufferedReader reader;
+        private boolean isEndOfStream;
+
+        private ReaderChunkSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Callable<List<String>> next() throws IOException {
+            if (isEndOfStream) {
+                return null;
+            }
+            int chunkSize = ShellOptions.getParallelChunkSize();
+            List<String> lines = new ArrayList<>();
+            long chars = 0;
+            String line;
+            while (chars < chunkSize) {
+                line = reader.readLine();
+                if (line == null) {
+                    isEndOfStream = true;
+                    break;
+                }
+                lines.add(line);
+                chars += line.length() + 1;
+                if (!reader.ready()) {
+                    break;
+                }
+            }
+            if (lines.isEmpty()) {
+                return null;
+            }
+            return () -> lines;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import sg.edu.nus.comp.cs4218.Command;
+import sg.edu.nus.comp.cs4218.impl.cmd.CallCommand;
+import sg.edu.nus.comp.cs4218.impl.cmd.FileInputCommand;
+import sg.edu.nus.comp.cs4218.impl.cmd.SortUniqCommand;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static sg.edu.nus.comp.cs4218.impl.util.ApplicationRunner.APP_CAT;
+import static sg.edu.nus.comp.cs4218.impl.util.ApplicationRunner.APP_SORT;
+import static sg.edu.nus.comp.cs4218.impl.util.ApplicationRunner.APP_UNIQ;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_BACK_QUOTE;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_DOUBLE_QUOTE;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_FLAG_PREFIX;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_REDIR_INPUT;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_REDIR_OUTPUT;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.CHAR_SINGLE_QUOTE;
+
+/**
+ * Rewrites the stages of a PipeCommand into an equivalent but cheaper plan.
+ * <p>
+ * Rewrites:
+ * <ul>
+ *     <li><code>cat FILES | X</code> becomes X reading the files directly ({@link FileInputCommand})</li>
+ *     <li><code>sort [-r] [FILES] | uniq [-c]</code> becomes a single hash-aggregate-then-sort stage
+ *     ({@link SortUniqCommand})</li>
+ * </ul>
+ * Only stages made of plain words are rewritten, so that quoting, globbing, command substitution and
+ * redirection never need to be resolved ahead of time. Every fused stage checks its files again when
+ * it runs and falls back to the original stages if they are not all readable regular files.
+ */
+public final class PipelineOptimizer {
+    private static final String FLAG_REVERSE = "-r";
+    private static final String FLAG_COUNT = "-c";
+    /**
+     * Characters that make a word more than a plain word: glob wildcards, quotes and redirection.
+     */
+    private static final String SPECIAL_CHARS = GlobPattern.WILDCARD_CHARS + new String(new char[]{
+        CHAR_BACK_QUOTE, CHAR_DOUBLE_QUOTE, CHAR_SINGLE_QUOTE, CHAR_REDIR_INPUT, CHAR_REDIR_OUTPUT});
+
+    private PipelineOptimizer() {
+    }
+
+    /**
+     * Returns the stages to evaluate in place of the given Call Commands. The result has the same
+     * stages as the input when nothing can be rewritten.
+     *
+     * @param callCommands stages of a PipeCommand, in order
+     * @return List of Commands that produces the same output
+     */
+    public static List<Command> optimize(List<CallCommand> callCommands) {
+        List<Command> stages = new ArrayList<>();
+        for (int i = 0; i < callCommands.size(); i++) {
+            CallCommand current = callCommands.get(i);
+            Command fused = i + 1 < callCommands.size() ? fuseSortUniq(current, callCommands.get(i + 1)) : null;
+            if (fused == null) {
+                stages.add(current);
+            } else {
+                stages.add(fused);
+                i++;
+            }
+        }
+
+        if (stages.size() > 1 && stages.get(0) instanceof CallCommand) {
+            Command fused = fuseFileInput((CallCommand) stages.get(0), stages.get(1));
+            if (fused != null) {
+                stages.set(0, fused);
+                stages.remove(1);
+            }
+        }
+        return stages;
+    }
+
+    /**
+     * Fuses <code>cat FILES</code> with the stage reading its output.
+     */
+    private static Command fuseFileInput(CallCommand catCommand, Command consumer) {
+        List<String> args = getPlainArgs(catCommand, APP_CAT);
+        if (args == null || args.isEmpty() || hasFlag(args)) {
+            return null;
+        }
+        return new FileInputCommand(catCommand, consumer, args);
+    }
+
+    /**
+     * Fuses <code>sort [-r] [FILES]</code> with a following <code>uniq [-c]</code>.
+     */
+    private static Command fuseSortUniq(CallCommand sortCommand, CallCommand uniqCommand) {
+        List<String> sortArgs = getPlainArgs(sortCommand, APP_SORT);
+        List<String> uniqArgs = getPlainArgs(uniqCommand, APP_UNIQ);
+        if (sortArgs == null || uniqArgs == null) {
+            return null;
+        }
+        if (uniqArgs.size() > 1 || !uniqArgs.isEmpty() && !FLAG_COUNT.equals(uniqArgs.get(0))) {
+            return null;
+        }
+
+        boolean isReverseOrder = false;
+        List<String> fileNames = new ArrayList<>();
+        for (String arg : sortArgs) {
+            if (FLAG_REVERSE.equals(arg)) {
+                isReverseOrder = true;
+            } else if (arg.charAt(0) == CHAR_FLAG_PREFIX) {
+                // -n and -f compare different lines as equal, so grouping by identical lines differs
+                return null;
+            } else {
+                fileNames.add(arg);
+            }
+        }
+        return new SortUniqCommand(sortCommand, uniqCommand, fileNames, isReverseOrder, !uniqArgs.isEmpty());
+    }
+
+    /**
+     * Returns the arguments after the app name if the Call Command runs the given app and every token
+     * is a plain word, or null otherwise.
+     */
+    private static List<String> getPlainArgs(CallCommand callCommand, String app) {
+        List<String> argsList = callCommand.getArgsList();
+        if (argsList == null || argsList.isEmpty() || !app.equals(argsList.get(0))) {
+            return null;
+        }
+        for (String arg : argsList) {
+            if (arg.isEmpty()) {
+                return null;
+            }
+            for (int i = 0; i < arg.length(); i++) {
+                char chr = arg.charAt(i);
+                if (SPECIAL_CHARS.indexOf(chr) >= 0 || Character.isWhitespace(chr)) {
+                    return null;
+                }
+            }
+        }
+        return argsList.subList(1, argsList.size());
+    }
+
+    private static boolean hasFlag(List<String> args) {
+        for (String arg : args) {
+            if (arg.charAt(0) == CHAR_FLAG_PREFIX) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,42 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import sg.edu.nus.comp.cs4218.Command;
+import sg.edu.nus.comp.cs4218.exception.AbstractApplicationException;
+import sg.edu.nus.comp.cs4218.exception.ShellException;
+
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A command string that has been parsed once by {@link CommandBuilder#prepare} and can be evaluated
+ * any number of times with different streams.
+ */
+public final class PreparedCommand {
+    private final String commandString;
+    private final Command command;
+
+    PreparedCommand(String commandString, Command command) {
+        this.commandString = commandString;
+        this.command = command;
+    }
+
+    /**
+     * Evaluates the parsed command.
+     *
+     * @param stdin  InputStream to read from
+     * @param stdout OutputStream to write to
+     */
+    public void evaluate(InputStream stdin, OutputStream stdout)
+            throws AbstractApplicationException, ShellException, FileNotFoundException {
+        command.evaluate(stdin, stdout);
+    }
+
+    public String getCommandString() {
+        return commandString;
+    }
+
+    public Command getCommand() {
+        return command;
+    }
+}
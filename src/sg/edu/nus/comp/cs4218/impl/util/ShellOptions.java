@@ -0,0 +1,304 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Session-wide execution options of the shell.
+ * <p>
+ * Every option starts from a JVM system property (e.g. <code>-Dcs4218.pipe.mode=virtual</code>) and
+ * can be changed at runtime through its setter. Every setter bumps {@link #getGeneration()}, so that
+ * anything built from the previous values (such as cached command trees) can tell it is stale.
+ */
+public final class ShellOptions {
+    public static final String PROP_PIPE_MODE = "cs4218.pipe.mode";
+    public static final String PROP_PIPE_BUFFER = "cs4218.pipe.buffer";
+    public static final String PROP_PIPE_OPTIMIZE = "cs4218.pipe.optimize";
+    public static final String PROP_SEQUENCE_PARALLELISM = "cs4218.sequence.parallelism";
+    public static final String PROP_PARALLEL_CHUNK = "cs4218.parallel.chunk";
+    public static final String PROP_PARSE_CACHE = "cs4218.parse.cache";
+    public static final String PROP_DIRECTORY_CACHE = "cs4218.directory.cache";
+    public static final String PROP_SORT_MEMORY = "cs4218.sort.memory";
+    public static final String PROP_SORT_LOCALE = "cs4218.sort.locale";
+    public static final String PROP_GREP_ENGINE = "cs4218.grep.engine";
+
+    public static final int DEFAULT_PIPE_BUFFER = 64 * 1024;
+    public static final int DEFAULT_PARALLEL_CHUNK = 1024 * 1024;
+    public static final int DEFAULT_PARSE_CACHE = 256;
+    public static final int DEFAULT_DIRECTORY_CACHE = 1024;
+    public static final long MIN_SORT_MEMORY = 64 * 1024;
+
+    /**
+     * How the stages of a PipeCommand are executed.
+     * <p>
+     * SERIAL runs each stage to completion and buffers its whole output for the next stage.
+     * PLATFORM and VIRTUAL run every stage at the same time on its own thread, joined by bounded pipes.
+     * VIRTUAL falls back to PLATFORM when the runtime has no virtual threads (before Java 21).
+     */
+    public enum PipeMode {
+        SERIAL, PLATFORM, VIRTUAL
+    }
+
+    /**
+     * How grep matches a pattern that is not plain text.
+     * <p>
+     * AUTO matches it with a lazily built DFA, in time linear in the length of the line, if the pattern is
+     * regular (no backreferences, lookaround and the like), and with the regex engine otherwise.
+     * DFA always uses the DFA, and rejects patterns that are not regular.
+     * REGEX always uses the regex engine.
+     */
+    public enum GrepEngine {
+        AUTO, DFA, REGEX
+    }
+
+    private static volatile PipeMode pipeMode = parsePipeMode(System.getProperty(PROP_PIPE_MODE));
+    private static volatile int pipeBufferSize = parsePositiveInt(System.getProperty(PROP_PIPE_BUFFER),
+            DEFAULT_PIPE_BUFFER);
+    private static volatile boolean isPipeOptimized = parseBoolean(System.getProperty(PROP_PIPE_OPTIMIZE), true);
+    private static volatile int sequenceParallelism = parsePositiveInt(
+            System.getProperty(PROP_SEQUENCE_PARALLELISM), 1);
+    private static volatile int parallelChunkSize = parsePositiveInt(System.getProperty(PROP_PARALLEL_CHUNK),
+            DEFAULT_PARALLEL_CHUNK);
+
+    private static volatile int parseCacheSize = parseNonNegativeInt(System.getProperty(PROP_PARSE_CACHE),
+            DEFAULT_PARSE_CACHE);
+    private static volatile int directoryCacheSize = parseNonNegativeInt(
+            System.getProperty(PROP_DIRECTORY_CACHE), DEFAULT_DIRECTORY_CACHE);
+    private static volatile long sortMemory = parseSize(System.getProperty(PROP_SORT_MEMORY),
+            getDefaultSortMemory());
+    private static volatile Locale sortLocale = parseLocale(System.getProperty(PROP_SORT_LOCALE));
+    private static volatile GrepEngine grepEngine = parseGrepEngine(System.getProperty(PROP_GREP_ENGINE));
+    private static final AtomicInteger GENERATION = new AtomicInteger();
+
+    private ShellOptions() {
+    }
+
+    public static PipeMode getPipeMode() {
+        return pipeMode;
+    }
+
+    public static void setPipeMode(PipeMode mode) {
+        pipeMode = mode == null ? PipeMode.SERIAL : mode;
+        GENERATION.incrementAndGet();
+    }
+
+    public static int getPipeBufferSize() {
+        return pipeBufferSize;
+    }
+
+    public static void setPipeBufferSize(int size) {
+        pipeBufferSize = size > 0 ? size : DEFAULT_PIPE_BUFFER;
+        GENERATION.incrementAndGet();
+    }
+
+    /**
+     * Returns whether a PipeCommand rewrites its stages into an equivalent cheaper plan before running them.
+     * Turning this off runs every pipe exactly as written.
+     */
+    public static boolean isPipeOptimized() {
+        return isPipeOptimized;
+    }
+
+    public static void setPipeOptimized(boolean isOptimized) {
+        isPipeOptimized = isOptimized;
+        GENERATION.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of threads a SequenceCommand may use for independent commands.
+     * A value of 1 evaluates every command serially.
+     */
+    public static int getSequenceParallelism() {
+        return sequenceParallelism;
+    }
+
+    public static void setSequenceParallelism(int parallelism) {
+        sequenceParallelism = Math.max(parallelism, 1);
+        GENERATION.incrementAndGet();
+    }
+
+    /**
+     * Returns the approximate size of the line-aligned chunks that ParallelLineEngine processes in
+     * parallel. Inputs no larger than one chunk are processed serially.
+     */
+    public static int getParallelChunkSize() {
+        return parallelChunkSize;
+    }
+
+    public static void setParallelChunkSize(int size) {
+        parallelChunkSize = size > 0 ? size : DEFAULT_PARALLEL_CHUNK;
+        GENERATION.incrementAndGet();
+    }
+
+    /**
+     * Returns the maximum number of parsed command strings CommandBuilder keeps. 0 disables the cache.
+     */
+    public static int getParseCacheSize() {
+        return parseCacheSize;
+    }
+
+    public static void setParseCacheSize(int size) {
+        parseCacheSize = Math.max(size, 0);
+        GENERATION.incrementAndGet();
+    }
+
+    /**
+     * Returns the maximum number of directory listings DirectoryCache keeps. 0 disables the cache.
+     */
+    public static int getDirectoryCacheSize() {
+        return directoryCacheSize;
+    }
+
+    public static void setDirectoryCacheSize(int size) {
+        directoryCacheSize = Math.max(size, 0);
+        GENERATION.incrementAndGet();
+    }
+
+    /**
+     * Returns the approximate number of bytes of lines sort holds in memory. Larger inputs are sorted in
+     * runs of this size that are spilled to temporary files and merged.
+     */
+    public static long getSortMemory() {
+        return sortMemory;
+    }
+
+    public static void setSortMemory(long bytes) {
+        sortMemory = bytes > 0 ? Math.max(bytes, MIN_SORT_MEMORY) : getDefaultSortMemory();
+        GENERATION.incrementAndGet();
+    }
+
+    /**
+     * Returns the locale whose collation sort compares text in, or null to compare text by code unit. Set
+     * with a language tag such as <code>-Dcs4218.sort.locale=de-DE</code>.
+     */
+    public static Locale getSortLocale() {
+        return sortLocale;
+    }
+
+    public static void setSortLocale(Locale locale) {
+        sortLocale = locale;
+        GENERATION.incrementAndGet();
+    }
+
+    public static GrepEngine getGrepEngine() {
+        return grepEngine;
+    }
+
+    public static void setGrepEngine(GrepEngine engine) {
+        grepEngine = engine == null ? GrepEngine.AUTO : engine;
+        GENERATION.incrementAndGet();
+    }
+
+    /**
+     * Returns a quarter of the maximum heap size, leaving room for the rest of the shell.
+     */
+    static long getDefaultSortMemory() {
+        return Math.max(Runtime.getRuntime().maxMemory() / 4, MIN_SORT_MEMORY);
+    }
+
+    /**
+     * Returns a number that changes whenever any option is set.
+     */
+    public static int getGeneration() {
+        return GENERATION.get();
+    }
+
+    /**
+     * Parses a pipe mode name, ignoring case. Unknown or missing names give SERIAL.
+     *
+     * @param value String containing the mode name
+     * @return PipeMode represented by value
+     */
+    static PipeMode parsePipeMode(String value) {
+        if (StringUtils.isBlank(value)) {
+            return PipeMode.SERIAL;
+        }
+        try {
+            return PipeMode.valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            return PipeMode.SERIAL;
+        }
+    }
+
+    /**
+     * Parses a grep engine name, ignoring case. Unknown or missing names give AUTO.
+     */
+    static GrepEngine parseGrepEngine(String value) {
+        if (StringUtils.isBlank(value)) {
+            return GrepEngine.AUTO;
+        }
+        try {
+            return GrepEngine.valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            return GrepEngine.AUTO;
+        }
+    }
+
+    /**
+     * Parses a language tag. Missing or ill-formed tags give null.
+     */
+    static Locale parseLocale(String value) {
+        if (StringUtils.isBlank(value)) {
+            return null;
+        }
+        Locale locale = Locale.forLanguageTag(value.trim());
+        return locale.getLanguage().isEmpty() ? null : locale;
+    }
+
+    static boolean parseBoolean(String value, boolean defaultValue) {
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value.trim());
+    }
+
+    static int parseNonNegativeInt(String value, int defaultValue) {
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed >= 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Parses a number of bytes, optionally followed by a K, M or G suffix (ignoring case). Missing, invalid
+     * or non-positive sizes give defaultValue, and sizes below MIN_SORT_MEMORY are raised to it.
+     */
+    static long parseSize(String value, long defaultValue) {
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        String size = value.trim().toUpperCase(Locale.ENGLISH);
+        int shift = 0;
+        int suffix = "KMG".indexOf(size.charAt(size.length() - 1));
+        if (suffix >= 0) {
+            shift = 10 * (suffix + 1);
+            size = size.substring(0, size.length() - 1);
+        }
+        try {
+            long parsed = Long.parseLong(size);
+            if (parsed <= 0 || parsed > Long.MAX_VALUE >> shift) {
+                return defaultValue;
+            }
+            return Math.max(parsed << shift, MIN_SORT_MEMORY);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    static int parsePositiveInt(String value, int defaultValue) {
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
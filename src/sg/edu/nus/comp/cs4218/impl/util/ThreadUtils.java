@@ -0,0 +1,69 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class ThreadUtils {
+    /**
+     * Factory for virtual threads, or null when the runtime does not provide them (before Java 21).
+     * Looked up reflectively so that the shell still compiles and runs on older JDKs.
+     */
+    private static final ThreadFactory VIRTUAL_FACTORY = lookupVirtualThreadFactory();
+
+    private ThreadUtils() {
+    }
+
+    /**
+     * Returns true if the running JVM supports virtual threads.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_FACTORY != null;
+    }
+
+    /**
+     * Returns a factory producing threads of the requested kind.
+     * Platform threads are daemon threads so that a stuck stage never keeps the shell process alive.
+     *
+     * @param isVirtual  Boolean option to prefer virtual threads, if the runtime supports them
+     * @param namePrefix String prefix of the names given to platform threads
+     * @return ThreadFactory for the requested kind of thread
+     */
+    public static ThreadFactory newThreadFactory(boolean isVirtual, String namePrefix) {
+        if (isVirtual && VIRTUAL_FACTORY != null) {
+            return VIRTUAL_FACTORY;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Waits for the given thread to finish.
+     *
+     * @param thread Thread to be joined
+     * @return false if the waiting thread was interrupted, with its interrupt flag restored
+     */
+    public static boolean joinQuietly(Thread thread) {
+        try {
+            thread.join();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static ThreadFactory lookupVirtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            return null;
+        }
+    }
+}
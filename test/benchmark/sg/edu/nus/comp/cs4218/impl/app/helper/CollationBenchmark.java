@@ -0,0 +1,69 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Measures sorting random non-ASCII lines in a locale's collation, with collation keys computed once per
+ * line by {@link SortOrder}, against a Collator that compares both lines on every comparison, and against
+ * the <code>-f</code> order, which folds case but compares by code unit.
+ * <p>
+ * Run with: <code>mvn test-compile && java -Xmx8g -cp target/classes:target/test-classes
+ * sg.edu.nus.comp.cs4218.impl.app.helper.CollationBenchmark [number of lines] [language tag]</code>
+ */
+public final class CollationBenchmark {
+    private static final int DEFAULT_LINES = 5_000_000;
+    private static final String[] WORDS = {"Äpfel", "apfel", "über", "Ufer", "Straße", "strasse",
+        "été", "Ete", "Łódź", "lodz", "Ångström", "zebra", "Česko", "cesta"};
+
+    private CollationBenchmark() {
+    }
+
+    public static void main(String... args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+        Locale locale = args.length > 1 ? Locale.forLanguageTag(args[1]) : Locale.GERMANY;
+        List<String> lines = generate(count);
+        System.out.printf("%,d lines, %s%n", count, locale.toLanguageTag());
+        for (int round = 0; round < 2; round++) {
+            for (boolean isCaseIndependent : new boolean[]{false, true}) {
+                Collator collator = Collator.getInstance(locale);
+                collator.setStrength(isCaseIndependent ? Collator.SECONDARY : Collator.TERTIARY);
+                collator.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+                long comparatorMillis = time(lines, copy -> copy.sort(collator));
+                long keyedMillis = time(lines,
+                    new SortOrder(false, false, isCaseIndependent, false, List.of(), null, locale)::sort);
+                long codeUnitMillis = time(lines, new SortOrder(false, false, isCaseIndependent)::sort);
+                System.out.printf("  %-3s collator %,7d ms   collation keys %,7d ms   %s %,7d ms%n",
+                        isCaseIndependent ? "-f" : "", comparatorMillis, keyedMillis,
+                        isCaseIndependent ? "-f keys   " : "code units", codeUnitMillis);
+            }
+        }
+    }
+
+    /**
+     * Returns the milliseconds that sorter takes to sort a copy of lines.
+     */
+    private static long time(List<String> lines, Consumer<List<String>> sorter) {
+        List<String> copy = new ArrayList<>(lines);
+        long start = System.nanoTime();
+        sorter.accept(copy);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * Generates lines of a few words with accents and mixed case, followed by a number.
+     */
+    private static List<String> generate(int count) {
+        Random random = new Random(4218);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " "
+                    + random.nextInt(10_000));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,74 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures finding regular patterns in log-like lines with {@link DfaMatcher}, against the regex engine,
+ * for patterns the regex engine matches quickly and for one it backtracks on.
+ * <p>
+ * Run with: <code>mvn test-compile && java -cp target/classes:target/test-classes
+ * sg.edu.nus.comp.cs4218.impl.app.helper.DfaGrepBenchmark [number of lines]</code>
+ */
+public final class DfaGrepBenchmark {
+    private static final int DEFAULT_LINES = 200_000;
+    private static final String[] PATTERNS = {
+        "user[0-9]+ from 10\\.0\\.1[0-9]*\\.",
+        "(INFO|WARN) \\[worker-1[0-5]\\].*user9",
+        "^2023-04-0[1-7] .*[0-9]{3}$",
+        // the regex engine backtracks over every way of splitting the words of a line that has no "="
+        "(\\w+\\s?)+=",
+    };
+
+    private DfaGrepBenchmark() {
+    }
+
+    public static void main(String... args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+        List<String> lines = generate(count);
+        System.out.printf("%,d lines%n", count);
+        for (int round = 0; round < 3; round++) {
+            for (String pattern : PATTERNS) {
+                Pattern compiledPattern = Pattern.compile(pattern);
+                Matcher matcher = compiledPattern.matcher("");
+                DfaMatcher dfa = DfaMatcher.forPattern(compiledPattern);
+                long regexMillis = time(lines, line -> matcher.reset(line).find());
+                long dfaMillis = time(lines, dfa::find);
+                System.out.printf("  %-40s regex %,7d ms   dfa %,5d ms%n", pattern, regexMillis, dfaMillis);
+            }
+        }
+    }
+
+    /**
+     * Returns the milliseconds that finding a match in every line takes.
+     */
+    private static long time(List<String> lines, Predicate<String> finder) {
+        long start = System.nanoTime();
+        int matches = 0;
+        for (String line : lines) {
+            if (finder.test(line)) {
+                matches++;
+            }
+        }
+        if (matches < 0) {
+            throw new AssertionError();
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static List<String> generate(int count) {
+        Random random = new Random(4218);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(String.format("2023-04-%02d 12:%02d:%02d %s [worker-%d] login by user%d from 10.0.%d.%d",
+                    random.nextInt(28) + 1, random.nextInt(60), random.nextInt(60),
+                    random.nextBoolean() ? "INFO" : "WARN", random.nextInt(16), random.nextInt(1_000_000),
+                    random.nextInt(256), random.nextInt(256)));
+        }
+        return lines;
+    }
+}
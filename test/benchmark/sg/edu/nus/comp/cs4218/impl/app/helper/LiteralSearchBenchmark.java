@@ -0,0 +1,78 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures finding plain text patterns in log-like lines with {@link LiteralSearcher}, against the regex
+ * engine that grep used for every pattern, and against String.indexOf for case-sensitive patterns.
+ * <p>
+ * Run with: <code>mvn test-compile && java -Xmx2g -cp target/classes:target/test-classes
+ * sg.edu.nus.comp.cs4218.impl.app.helper.LiteralSearchBenchmark [number of lines]</code>
+ */
+public final class LiteralSearchBenchmark {
+    private static final int DEFAULT_LINES = 2_000_000;
+    private static final String[] PATTERNS = {"ERROR", "connection refused", "x"};
+    private static final String[] LEVELS = {"INFO", "DEBUG", "WARN", "ERROR"};
+    private static final String[] MESSAGES = {"request served in %d ms", "cache miss for key user:%d",
+        "connection refused by 10.0.0.%d", "retrying upload, attempt %d of 5", "Connection Refused at port %d"};
+
+    private LiteralSearchBenchmark() {
+    }
+
+    public static void main(String... args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+        List<String> lines = generate(count);
+        System.out.printf("%,d lines%n", count);
+        for (int round = 0; round < 3; round++) {
+            for (String pattern : PATTERNS) {
+                for (boolean isCaseInsensitive : new boolean[]{false, true}) {
+                    Pattern compiledPattern = isCaseInsensitive
+                            ? Pattern.compile(pattern, Pattern.CASE_INSENSITIVE)
+                            : Pattern.compile(pattern);
+                    Matcher matcher = compiledPattern.matcher("");
+                    LiteralSearcher searcher = LiteralSearcher.forPattern(compiledPattern);
+                    long regexMillis = time(lines, line -> matcher.reset(line).find());
+                    long literalMillis = time(lines, searcher::find);
+                    String indexOf = isCaseInsensitive ? "" : String.format("   indexOf %,6d ms",
+                            time(lines, line -> line.contains(pattern)));
+                    System.out.printf("  %-3s %-20s regex %,6d ms   literal %,6d ms%s%n",
+                            isCaseInsensitive ? "-i" : "", pattern, regexMillis, literalMillis, indexOf);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the milliseconds that finding a match in every line takes.
+     */
+    private static long time(List<String> lines, Predicate<String> finder) {
+        long start = System.nanoTime();
+        int matches = 0;
+        for (String line : lines) {
+            if (finder.test(line)) {
+                matches++;
+            }
+        }
+        if (matches < 0) {
+            throw new AssertionError();
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static List<String> generate(int count) {
+        Random random = new Random(4218);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(String.format("2023-04-%02d 12:%02d:%02d %-5s [worker-%d] ", random.nextInt(28) + 1,
+                    random.nextInt(60), random.nextInt(60), LEVELS[random.nextInt(LEVELS.length)],
+                    random.nextInt(16)) + String.format(MESSAGES[random.nextInt(MESSAGES.length)],
+                    random.nextInt(1000)));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,70 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Measures grep on a log-like file with {@link MappedFileSearcher}, against decoding every line through a
+ * BufferedReader as grep did for every file.
+ * <p>
+ * Run with: <code>mvn test-compile && java -Xmx2g -cp target/classes:target/test-classes
+ * sg.edu.nus.comp.cs4218.impl.app.helper.MappedGrepBenchmark [number of lines]</code>
+ */
+public final class MappedGrepBenchmark {
+    private static final int DEFAULT_LINES = 5_000_000;
+    private static final String[] PATTERNS = {"ERROR", "connection refused", "not in the file"};
+    private static final String[] LEVELS = {"INFO", "DEBUG", "WARN", "ERROR"};
+    private static final String[] MESSAGES = {"request served in %d ms", "cache miss for key user:%d",
+        "connection refused by 10.0.0.%d", "retrying upload, attempt %d of 5", "Connection Refused at port %d"};
+
+    private MappedGrepBenchmark() {
+    }
+
+    public static void main(String... args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+        File file = File.createTempFile("mapped-grep", ".log");
+        file.deleteOnExit();
+        generate(file, count);
+        System.out.printf("%,d lines, %,d bytes%n", count, file.length());
+        for (int round = 0; round < 3; round++) {
+            for (String pattern : PATTERNS) {
+                for (boolean isCaseInsensitive : new boolean[]{false, true}) {
+                    Pattern compiledPattern = isCaseInsensitive
+                            ? Pattern.compile(pattern, Pattern.CASE_INSENSITIVE)
+                            : Pattern.compile(pattern);
+                    MappedFileSearcher searcher = MappedFileSearcher.forPattern(compiledPattern);
+                    long start = System.nanoTime();
+                    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                        GrepHelper.writeMatches(reader, compiledPattern, "", false, Writer.nullWriter());
+                    }
+                    long readerMillis = (System.nanoTime() - start) / 1_000_000;
+                    start = System.nanoTime();
+                    searcher.writeMatches(file, "", false, Writer.nullWriter());
+                    long mappedMillis = (System.nanoTime() - start) / 1_000_000;
+                    System.out.printf("  %-3s %-20s reader %,6d ms   mapped %,6d ms%n",
+                            isCaseInsensitive ? "-i" : "", pattern, readerMillis, mappedMillis);
+                }
+            }
+        }
+    }
+
+    private static void generate(File file, int count) throws IOException {
+        Random random = new Random(4218);
+        try (Writer writer = new BufferedWriter(new FileWriter(file))) {
+            for (int i = 0; i < count; i++) {
+                writer.write(String.format("2023-04-%02d 12:%02d:%02d %-5s [worker-%d] ", random.nextInt(28) + 1,
+                        random.nextInt(60), random.nextInt(60), LEVELS[random.nextInt(LEVELS.length)],
+                        random.nextInt(16)) + String.format(MESSAGES[random.nextInt(MESSAGES.length)],
+                        random.nextInt(1000)));
+                writer.write('\n');
+            }
+        }
+    }
+}
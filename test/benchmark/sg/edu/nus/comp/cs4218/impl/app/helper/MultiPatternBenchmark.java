@@ -0,0 +1,83 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures finding any of a set of blocked ids in log-like lines with {@link AhoCorasickSearcher}, against
+ * the regex engine matching the same alternation.
+ * <p>
+ * Run with: <code>mvn test-compile && java -Xmx2g -cp target/classes:target/test-classes
+ * sg.edu.nus.comp.cs4218.impl.app.helper.MultiPatternBenchmark [number of lines]</code>
+ */
+public final class MultiPatternBenchmark {
+    private static final int DEFAULT_LINES = 20_000;
+    private static final int[] PATTERN_COUNTS = {10, 100, 1000};
+
+    private MultiPatternBenchmark() {
+    }
+
+    public static void main(String... args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+        List<String> lines = generate(count);
+        System.out.printf("%,d lines%n", count);
+        for (int round = 0; round < 3; round++) {
+            for (int patternCount : PATTERN_COUNTS) {
+                for (boolean isCaseInsensitive : new boolean[]{false, true}) {
+                    String pattern = blockedIds(patternCount);
+                    Pattern compiledPattern = isCaseInsensitive
+                            ? Pattern.compile(pattern, Pattern.CASE_INSENSITIVE)
+                            : Pattern.compile(pattern);
+                    Matcher matcher = compiledPattern.matcher("");
+                    AhoCorasickSearcher searcher = AhoCorasickSearcher.forPattern(compiledPattern);
+                    long regexMillis = time(lines, line -> matcher.reset(line).find());
+                    long automatonMillis = time(lines, searcher::find);
+                    System.out.printf("  %-3s %,5d ids   regex %,7d ms   automaton %,5d ms%n",
+                            isCaseInsensitive ? "-i" : "", patternCount, regexMillis, automatonMillis);
+                }
+            }
+        }
+    }
+
+    private static String blockedIds(int count) {
+        Random random = new Random(count);
+        StringJoiner ids = new StringJoiner("|");
+        for (int i = 0; i < count; i++) {
+            ids.add("user" + random.nextInt(1_000_000));
+        }
+        return ids.toString();
+    }
+
+    /**
+     * Returns the milliseconds that finding a match in every line takes.
+     */
+    private static long time(List<String> lines, Predicate<String> finder) {
+        long start = System.nanoTime();
+        int matches = 0;
+        for (String line : lines) {
+            if (finder.test(line)) {
+                matches++;
+            }
+        }
+        if (matches < 0) {
+            throw new AssertionError();
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static List<String> generate(int count) {
+        Random random = new Random(4218);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(String.format("2023-04-%02d 12:%02d:%02d INFO [worker-%d] login by user%d from 10.0.%d.%d",
+                    random.nextInt(28) + 1, random.nextInt(60), random.nextInt(60), random.nextInt(16),
+                    random.nextInt(1_000_000), random.nextInt(256), random.nextInt(256)));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,74 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Measures sorting random lines with <code>-n</code>, <code>-f</code> and <code>-r</code>, comparing the
+ * precomputed keys of {@link SortOrder} with the previous comparator, which folded and parsed both lines on
+ * every comparison, followed by a reversal.
+ * <p>
+ * Run with: <code>mvn test-compile && java -Xmx4g -cp target/classes:target/test-classes
+ * sg.edu.nus.comp.cs4218.impl.app.helper.SortBenchmark [number of lines]</code>
+ */
+public final class SortBenchmark {
+    private static final int DEFAULT_LINES = 10_000_000;
+    private static final String[] WORDS = {"Alpha", "bravo", "CHARLIE", "delta", "Echo", "foxtrot"};
+    private static final String[][] OPTIONS = {{"-n", "true", "false"}, {"-f", "false", "true"},
+        {"-nf", "true", "true"}};
+
+    private SortBenchmark() {
+    }
+
+    public static void main(String... args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+        List<String> lines = generate(count);
+        System.out.printf("%,d lines%n", count);
+        for (int round = 0; round < 2; round++) {
+            for (String[] option : OPTIONS) {
+                boolean isFirstWordNumber = Boolean.parseBoolean(option[1]);
+                boolean isCaseIndependent = Boolean.parseBoolean(option[2]);
+                for (boolean isReverseOrder : new boolean[]{false, true}) {
+                    long legacyMillis = time(lines, copy -> {
+                        copy.sort(SortOrderTest.legacyComparator(isFirstWordNumber, isCaseIndependent));
+                        if (isReverseOrder) {
+                            Collections.reverse(copy);
+                        }
+                    });
+                    long keyedMillis = time(lines,
+                        new SortOrder(isFirstWordNumber, isReverseOrder, isCaseIndependent)::sort);
+                    System.out.printf("  %-4s comparator %,7d ms   keys %,7d ms%n",
+                            option[0] + (isReverseOrder ? "r" : ""), legacyMillis, keyedMillis);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the milliseconds that sorter takes to sort a copy of lines.
+     */
+    private static long time(List<String> lines, Consumer<List<String>> sorter) {
+        List<String> copy = new ArrayList<>(lines);
+        long start = System.nanoTime();
+        sorter.accept(copy);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * Generates lines that start with a number, mostly small, sometimes negative or beyond a long.
+     */
+    private static List<String> generate(int count) {
+        Random random = new Random(4218);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String number = random.nextInt(100) == 0
+                    ? "1" + Long.toUnsignedString(random.nextLong()) + random.nextInt(1000)
+                    : Integer.toString(random.nextInt(1_000_000) - 1000);
+            lines.add(number + " " + WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(100));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,131 @@
+package sg.edu.nus.comp.cs4218.impl.cmd;
+
+import sg.edu.nus.comp.cs4218.Command;
+import sg.edu.nus.comp.cs4218.impl.util.ApplicationRunner;
+import sg.edu.nus.comp.cs4218.impl.util.CommandBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
+
+/**
+ * Measures time-to-first-byte and peak heap of a long <code>cat f; cat f; ...</code> sequence, comparing
+ * the streaming SequenceCommand with the previous collect-then-write strategy.
+ * <p>
+ * Run with: <code>mvn test-compile && java -cp target/classes:target/test-classes
+ * sg.edu.nus.comp.cs4218.impl.cmd.SequenceCommandBenchmark [commands] [linesPerFile]</code>
+ */
+public final class SequenceCommandBenchmark {
+    private static final int DEFAULT_COMMANDS = 50;
+    private static final int DEFAULT_LINES = 100_000;
+
+    private SequenceCommandBenchmark() {
+    }
+
+    public static void main(String... args) throws Exception {
+        int numOfCommands = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_COMMANDS;
+        int linesPerFile = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_LINES;
+
+        Path tempDir = Files.createTempDirectory("seq-bench");
+        Path file = tempDir.resolve("input.txt");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < linesPerFile; i++) {
+            content.append("line ").append(i).append(" of the sequence benchmark input").append(STRING_NEWLINE);
+        }
+        Files.writeString(file, content);
+
+        StringJoiner commandString = new StringJoiner("; ");
+        for (int i = 0; i < numOfCommands; i++) {
+            commandString.add("cat " + file);
+        }
+        SequenceCommand sequence = (SequenceCommand) CommandBuilder.parseCommand(commandString.toString(),
+                new ApplicationRunner());
+
+        System.out.printf("%d commands x %d bytes%n", numOfCommands, Files.size(file));
+        for (int round = 0; round < 3; round++) {
+            report("streaming", measure(output -> sequence.evaluate(System.in, output)));
+            report("buffered ", measure(output -> evaluateBuffered(sequence.getCommands(), output)));
+        }
+
+        Files.delete(file);
+        Files.delete(tempDir);
+    }
+
+    /**
+     * The collect-every-output-then-write strategy SequenceCommand used before it streamed.
+     */
+    private static void evaluateBuffered(List<Command> commands, OutputStream stdout) throws Exception {
+        List<String> outputLines = new LinkedList<>();
+        for (Command command : commands) {
+            OutputStream outputStream = new ByteArrayOutputStream();
+            command.evaluate(System.in, outputStream);
+            outputLines.add(outputStream.toString());
+        }
+        for (String outputLine : outputLines) {
+            stdout.write(outputLine.getBytes());
+        }
+    }
+
+    private static long[] measure(Evaluation evaluation) throws Exception {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        TimingOutputStream output = new TimingOutputStream();
+        long start = System.nanoTime();
+        evaluation.run(output);
+        long end = System.nanoTime();
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        return new long[]{output.firstWriteNanos - start, end - start, peakHeap, output.bytes};
+    }
+
+    private static void report(String name, long... result) {
+        System.out.printf("%s: first byte %8.2f ms, total %8.2f ms, peak heap %6d MB, %d bytes%n",
+                name, result[0] / 1e6, result[1] / 1e6, result[2] >> 20, result[3]);
+    }
+
+    private interface Evaluation {
+        void run(OutputStream output) throws Exception;
+    }
+
+    /**
+     * Discards output, remembering when the first byte arrived and how many bytes were written.
+     */
+    private static final class TimingOutputStream extends OutputStream {
+        private long firstWriteNanos;
+        private long bytes;
+
+        @Override
+        public void write(int value) {
+            write(new byte[]{(byte) value}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] src, int off, int len) {
+            if (bytes == 0 && len > 0) {
+                firstWriteNanos = System.nanoTime();
+            }
+            bytes += len;
+        }
+
+        @Override
+        public void close() {
+            // keep counting across commands
+        }
+    }
+}
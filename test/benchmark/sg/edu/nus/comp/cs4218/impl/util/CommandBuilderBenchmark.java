@@ -0,0 +1,71 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import sg.edu.nus.comp.cs4218.Command;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Measures repeated parsing and evaluation of the same command string with the parsed-command cache
+ * off, with the cache on, and through a prepared command.
+ * <p>
+ * Run with: <code>mvn test-compile && java -cp target/classes:target/test-classes
+ * sg.edu.nus.comp.cs4218.impl.util.CommandBuilderBenchmark [iterations]</code>
+ */
+public final class CommandBuilderBenchmark {
+    private static final int DEFAULT_ITERATIONS = 50_000;
+    private static final String COMMAND_STRING = "echo \"hello world\" 'and more' `echo sub` | grep -i hello"
+            + " | cut -c 1-5; echo done > /dev/null; echo a b c d e f g h i j k l m n o p";
+    private static final byte[] INPUT = new byte[0];
+
+    private CommandBuilderBenchmark() {
+    }
+
+    public static void main(String... args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+        ApplicationRunner appRunner = new ApplicationRunner();
+        int cacheSize = ShellOptions.getParseCacheSize();
+
+        System.out.printf("%d iterations of: %s%n", iterations, COMMAND_STRING);
+        for (int round = 0; round < 3; round++) {
+            ShellOptions.setParseCacheSize(0);
+            report("parse only, uncached", measure(iterations, () -> CommandBuilder.parseCommand(COMMAND_STRING,
+                    appRunner)));
+            report("evaluate, uncached  ", measure(iterations, () -> evaluate(CommandBuilder.parseCommand(
+                    COMMAND_STRING, appRunner))));
+
+            ShellOptions.setParseCacheSize(cacheSize);
+            CommandBuilder.clearCache();
+            report("evaluate, cached    ", measure(iterations, () -> evaluate(CommandBuilder.parseCommand(
+                    COMMAND_STRING, appRunner))));
+            System.out.printf("  cache hits %d, misses %d%n", CommandBuilder.getCacheHits(),
+                    CommandBuilder.getCacheMisses());
+
+            PreparedCommand prepared = CommandBuilder.prepare(COMMAND_STRING, appRunner);
+            report("evaluate, prepared  ", measure(iterations, () -> evaluate(prepared.getCommand())));
+        }
+    }
+
+    private static void evaluate(Command command) throws Exception {
+        command.evaluate(new ByteArrayInputStream(INPUT), new ByteArrayOutputStream());
+    }
+
+    private static long measure(int iterations, Step step) throws Exception {
+        for (int i = 0; i < iterations / 10; i++) {
+            step.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            step.run();
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    private static void report(String label, long nanosPerOp) {
+        System.out.printf("%s %,8d ns/op%n", label, nanosPerOp);
+    }
+
+    private interface Step {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,91 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares finding the arguments of long command lines with the regular expression that
+ * {@link CommandLexer} replaced against the lexer itself.
+ * <p>
+ * The regular expression restarts from every remaining substring, so the first line is quadratic for it.
+ * The second line nests backquotes inside double quotes, where the regular expression also backtracks
+ * and may overflow the stack.
+ * <p>
+ * Run with: <code>mvn test-compile && java -cp target/classes:target/test-classes
+ * sg.edu.nus.comp.cs4218.impl.util.CommandLexerBenchmark [line length]</code>
+ */
+public final class CommandLexerBenchmark {
+    private static final int DEFAULT_LENGTH = 20_000;
+    private static final int ITERATIONS = 20;
+    private static final Pattern ARGUMENT_REGEX = Pattern
+            .compile("([^'\"`|<>;\\s]+|'[^']*'|\"([^\"`]*`.*?`[^\"`]*)+\"|\"[^\"]*\"|`[^`]*`)+");
+
+    private CommandLexerBenchmark() {
+    }
+
+    public static void main(String... args) {
+        int length = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LENGTH;
+        String[] lines = {
+            "echo " + "ab 'c d' ".repeat(length / 9),
+            "echo \"`" + "a`\"`".repeat(length / 4) + "\""
+        };
+
+        for (String line : lines) {
+            System.out.printf("%,d characters: %s...%n", line.length(), line.substring(0, 20));
+            for (int round = 0; round < 3; round++) {
+                report("regex", measure(() -> countWithRegex(line)));
+                report("lexer", measure(() -> countWithLexer(line)));
+            }
+        }
+    }
+
+    private static int countWithRegex(String line) {
+        int count = 0;
+        String substring = line.trim();
+        while (!substring.isEmpty()) {
+            Matcher matcher = ARGUMENT_REGEX.matcher(substring);
+            if (!matcher.find() || matcher.start() != 0) {
+                break;
+            }
+            count++;
+            substring = substring.substring(matcher.end()).trim();
+        }
+        return count;
+    }
+
+    private static int countWithLexer(String line) {
+        CommandLexer lexer = new CommandLexer(line);
+        int count = 0;
+        int position = lexer.skipWhitespace(0);
+        while (position < line.length()) {
+            int end = lexer.argumentEnd(position);
+            if (end == position) {
+                break;
+            }
+            count++;
+            position = lexer.skipWhitespace(end);
+        }
+        return count;
+    }
+
+    private static String measure(Step step) {
+        try {
+            int count = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                count = step.run();
+            }
+            return String.format("%,10d us/op, %d arguments", (System.nanoTime() - start) / ITERATIONS / 1000, count);
+        } catch (StackOverflowError e) {
+            return "stack overflow";
+        }
+    }
+
+    private static void report(String label, String result) {
+        System.out.printf("  %s %s%n", label, result);
+    }
+
+    private interface Step {
+        int run();
+    }
+}
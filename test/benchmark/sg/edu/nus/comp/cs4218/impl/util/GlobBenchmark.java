@@ -0,0 +1,66 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Measures expanding recursive and pruned glob patterns over a generated tree.
+ * <p>
+ * Run with: <code>mvn test-compile && java -cp target/classes:target/test-classes
+ * sg.edu.nus.comp.cs4218.impl.util.GlobBenchmark [number of files]</code>
+ */
+public final class GlobBenchmark {
+    private static final int DEFAULT_FILES = 50_000;
+    private static final int FILES_PER_DIR = 50;
+    private static final int DIRS_PER_DIR = 10;
+    private static final String[] PATTERNS = {"src/**/*.java", "src/d1/**/f1?.java", "src/*/*/f[0-4].{java,txt}",
+        "**/none"};
+
+    private GlobBenchmark() {
+    }
+
+    public static void main(String... args) throws IOException {
+        int files = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FILES;
+        Path root = Files.createTempDirectory("glob-benchmark");
+        try {
+            generate(root.resolve("src"), files);
+            System.out.printf("%,d files%n", files);
+            for (int round = 0; round < 3; round++) {
+                for (String pattern : PATTERNS) {
+                    long start = System.nanoTime();
+                    List<String> matches = GlobPattern.compile(pattern).expand(root);
+                    long millis = (System.nanoTime() - start) / 1_000_000;
+                    System.out.printf("  %-28s %,8d matches %,6d ms%n", pattern, matches.size(), millis);
+                }
+            }
+        } finally {
+            try (Stream<Path> paths = Files.walk(root)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * Fills dir breadth first with directories of FILES_PER_DIR files each, until there are files files.
+     */
+    private static void generate(Path dir, int files) throws IOException {
+        ArrayDeque<Path> queue = new ArrayDeque<>();
+        queue.add(dir);
+        int created = 0;
+        while (created < files) {
+            Path current = queue.poll();
+            Files.createDirectories(current);
+            for (int i = 0; i < FILES_PER_DIR && created < files; i++, created++) {
+                Files.createFile(current.resolve("f" + i + (i % 2 == 0 ? ".java" : ".txt")));
+            }
+            for (int i = 0; i < DIRS_PER_DIR; i++) {
+                queue.add(current.resolve("d" + i));
+            }
+        }
+    }
+}
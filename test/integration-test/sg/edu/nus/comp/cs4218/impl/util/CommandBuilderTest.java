@@ -12,11 +12,15 @@ import sg.edu.nus.comp.cs4218.impl.cmd.CallCommand;
 import sg.edu.nus.comp.cs4218.impl.cmd.PipeCommand;
 import sg.edu.nus.comp.cs4218.impl.cmd.SequenceCommand;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
@@ -107,5 +111,91 @@ public class CommandBuilderTest {
         }
     }
 
+    @Test
+    void parseCommand_sameCommandString_returnsCachedCommand() throws ShellException {
+        CommandBuilder.clearCache();
+        Command first = CommandBuilder.parseCommand("echo cached | grep c", appRunner);
+        Command second = CommandBuilder.parseCommand("echo cached | grep c", appRunner);
+
+        assertSame(first, second);
+        assertEquals(1, CommandBuilder.getCacheHits());
+        assertEquals(1, CommandBuilder.getCacheMisses());
+    }
+
+    @Test
+    void parseCommand_differentApplicationRunner_parsesAgain() throws ShellException {
+        CommandBuilder.clearCache();
+        Command first = CommandBuilder.parseCommand("echo runner", appRunner);
+        Command second = CommandBuilder.parseCommand("echo runner", mock(ApplicationRunner.class));
+
+        assertNotSame(first, second);
+        assertEquals(0, CommandBuilder.getCacheHits());
+    }
 
+    @Test
+    void parseCommand_optionChanged_parsesAgain() throws ShellException {
+        CommandBuilder.clearCache();
+        boolean isOptimized = ShellOptions.isPipeOptimized();
+        Command first = CommandBuilder.parseCommand("echo option | wc", appRunner);
+        try {
+            ShellOptions.setPipeOptimized(!isOptimized);
+            Command second = CommandBuilder.parseCommand("echo option | wc", appRunner);
+
+            assertNotSame(first, second);
+            assertEquals(!isOptimized, ((PipeCommand) second).isOptimized());
+        } finally {
+            ShellOptions.setPipeOptimized(isOptimized);
+        }
+    }
+
+    @Test
+    void parseCommand_moreCommandStringsThanCapacity_evictsLeastRecentlyUsed() throws ShellException {
+        CommandBuilder.clearCache();
+        int capacity = ShellOptions.getParseCacheSize();
+        try {
+            ShellOptions.setParseCacheSize(2);
+            Command first = CommandBuilder.parseCommand("echo 1", appRunner);
+            CommandBuilder.parseCommand("echo 2", appRunner);
+            CommandBuilder.parseCommand("echo 1", appRunner);
+            CommandBuilder.parseCommand("echo 3", appRunner);
+
+            assertEquals(2, CommandBuilder.getCacheSize());
+            assertSame(first, CommandBuilder.parseCommand("echo 1", appRunner));
+            assertEquals(2, CommandBuilder.getCacheHits());
+        } finally {
+            ShellOptions.setParseCacheSize(capacity);
+        }
+    }
+
+    @Test
+    void parseCommand_cacheDisabled_parsesEveryTime() throws ShellException {
+        CommandBuilder.clearCache();
+        int capacity = ShellOptions.getParseCacheSize();
+        try {
+            ShellOptions.setParseCacheSize(0);
+
+            assertNotSame(CommandBuilder.parseCommand("echo a", appRunner),
+                    CommandBuilder.parseCommand("echo a", appRunner));
+            assertEquals(0, CommandBuilder.getCacheSize());
+        } finally {
+            ShellOptions.setParseCacheSize(capacity);
+        }
+    }
+
+    @Test
+    void prepare_validCommandString_evaluatesWithEachStream() throws Exception {
+        ApplicationRunner realRunner = new ApplicationRunner();
+        PreparedCommand prepared = CommandBuilder.prepare("grep a", realRunner);
+
+        for (String input : List.of("apple\nberry\n", "banana\n")) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            prepared.evaluate(new ByteArrayInputStream(input.getBytes()), output);
+            assertEquals(input.split("\n")[0] + System.lineSeparator(), output.toString());
+        }
+    }
+
+    @Test
+    void prepare_invalidCommandString_throwsShellException() {
+        assertThrowsExactly(ShellException.class, () -> CommandBuilder.prepare("echo `test", appRunner));
+    }
 }
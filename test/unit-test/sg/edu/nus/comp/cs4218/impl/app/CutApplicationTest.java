@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.PosixFilePermission;
@@ -497,37 +498,33 @@ public class CutApplicationTest {
     }
 
     @Test
-    public void cutLines_validInputStreamWithCharPo_returnsCorrectOutput() {
-        CutApplication cutAppSpy = spy(cutApplication);
-
-        try (MockedStatic<IOUtils> ioUtils = mockStatic(IOUtils.class)) {
-            ioUtils.when(() -> IOUtils.getLinesFromInputStream(testInputStream))
-                    .thenReturn(inputArray);
-
-            List<String> actual = assertDoesNotThrow(
-                    () -> cutAppSpy.cutLines(true, false, testRanges, testInputStream)
-            );
-
-            List<String> expectedList = Arrays.asList(expectedOutCharPo.split(System.lineSeparator()));
-            assertEquals(expectedList, actual);
-        }
+    public void cutLines_validInputStreamWithCharPo_returnsCorrectOutput() throws ShellException {
+        // the lines are decoded in the default charset, which may not have the pound sign
+        Charset charset = Charset.defaultCharset();
+        String pound = new String("£".getBytes(charset), charset);
+        InputStream input = new ByteArrayInputStream(String.join(System.lineSeparator(), inputArray)
+                .getBytes(charset));
+
+        List<String> actual = cutApplication.cutLines(true, false, testRanges, input);
+
+        List<String> expectedList = Arrays.asList(expectedOutCharPo.replace("£", pound)
+                .split(System.lineSeparator()));
+        assertEquals(expectedList, actual);
     }
 
     @Test
-    public void cutLines_validInputStreamWithBytePo_returnsCorrectOutput() {
-        CutApplication cutAppSpy = spy(cutApplication);
-
-        try (MockedStatic<IOUtils> ioUtils = mockStatic(IOUtils.class)) {
-            ioUtils.when(() -> IOUtils.getLinesFromInputStream(testInputStream))
-                    .thenReturn(inputArray);
-
-            List<String> actual = assertDoesNotThrow(
-                    () -> cutAppSpy.cutLines(false, true, testRanges, testInputStream)
-            );
-
-            List<String> expectedList = Arrays.asList(expectedOutBytePo.split(System.lineSeparator()));
-            assertEquals(expectedList, actual);
-        }
+    public void cutLines_validInputStreamWithBytePo_returnsCorrectOutput() throws ShellException {
+        Charset charset = Charset.defaultCharset();
+        byte[] firstLine = inputArray.get(0).getBytes(charset);
+        InputStream input = new ByteArrayInputStream(String.join(System.lineSeparator(), inputArray)
+                .getBytes(charset));
+
+        List<String> actual = cutApplication.cutLines(false, true, testRanges, input);
+
+        // bytes 1, 23 and 1 to 23 of the first line, which split the pound sign in UTF-8
+        String expectedFirstLine = new String(firstLine, 0, 1, charset) + new String(firstLine, 22, 1, charset)
+                + new String(firstLine, 0, 23, charset);
+        assertEquals(List.of(expectedFirstLine, "HHello this is"), actual);
     }
 
     @Test
@@ -3,34 +3,48 @@ package sg.edu.nus.comp.cs4218.impl.app;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.MockedStatic;
+import org.mockito.stubbing.Answer;
+import sg.edu.nus.comp.cs4218.Environment;
 import sg.edu.nus.comp.cs4218.exception.GrepException;
 import sg.edu.nus.comp.cs4218.impl.app.helper.GrepHelper;
 import sg.edu.nus.comp.cs4218.impl.parser.GrepArgsParser;
 import sg.edu.nus.comp.cs4218.impl.util.ErrorConstants;
 import sg.edu.nus.comp.cs4218.impl.util.IOUtils;
+import sg.edu.nus.comp.cs4218.impl.util.ShellOptions;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.StringJoiner;
 import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
@@ -48,6 +62,7 @@ import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_IS_DIR;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NO_INPUT;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NO_ISTREAM;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NO_OSTREAM;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NOT_REGULAR;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NULL_POINTER;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_SYNTAX;
 import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
@@ -71,6 +86,20 @@ public class GrepApplicationTest {
         this.grepApplication = new GrepApplication();
     }
 
+    /**
+     * Answers a call to one of the writeFrom methods by writing output to its Writer argument.
+     */
+    private static Answer<Void> writes(String output) {
+        return invocation -> {
+            for (Object argument : invocation.getArguments()) {
+                if (argument instanceof Writer) {
+                    ((Writer) argument).write(output);
+                }
+            }
+            return null;
+        };
+    }
+
     @Test
     void checkRunException_withValidPatternFilesInputOutputStream_runsSuccessfully() {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
@@ -180,7 +209,8 @@ public class GrepApplicationTest {
         when(mockGrepParser.getPattern()).thenReturn(pattern);
         when(mockGrepParser.getFileNames()).thenReturn(new String[]{fileName});
 
-        doReturn("1").when(grepAppSpy).grepFromFiles(eq(pattern), eq(false), eq(true), eq(false), eq(fileName));
+        doAnswer(writes("1")).when(grepAppSpy)
+                .writeFromFiles(eq(pattern), eq(false), eq(true), eq(false), any(Writer.class), eq(fileName));
 
         assertDoesNotThrow(
                 () -> grepAppSpy.run(inputArgs, inputStream, outputStream)
@@ -192,7 +222,7 @@ public class GrepApplicationTest {
         verify(mockGrepParser).isCount();
         verify(mockGrepParser).getFileNames();
         verify(mockGrepParser).getPattern();
-        verify(grepAppSpy).grepFromFiles(eq(pattern), eq(false), eq(true), eq(false), eq(fileName));
+        verify(grepAppSpy).writeFromFiles(eq(pattern), eq(false), eq(true), eq(false), any(Writer.class), eq(fileName));
 
         String expected = "1";
         assertEquals(expected, outputStream.toString().trim());
@@ -221,7 +251,8 @@ public class GrepApplicationTest {
         when(mockGrepParser.getPattern()).thenReturn(pattern);
         when(mockGrepParser.getFileNames()).thenReturn(new String[0]);
 
-        doReturn("2").when(grepAppSpy).grepFromStdin(eq(pattern), eq(false), eq(true), eq(false), eq(inputStream));
+        doAnswer(writes("2")).when(grepAppSpy)
+                .writeFromStdin(eq(pattern), eq(false), eq(true), eq(false), eq(inputStream), any(Writer.class));
 
         assertDoesNotThrow(
                 () -> grepAppSpy.run(inputArgs, inputStream, outputStream)
@@ -233,7 +264,7 @@ public class GrepApplicationTest {
         verify(mockGrepParser).isCount();
         verify(mockGrepParser).getFileNames();
         verify(mockGrepParser).getPattern();
-        verify(grepAppSpy).grepFromStdin(eq(pattern), eq(false), eq(true), eq(false), eq(inputStream));
+        verify(grepAppSpy).writeFromStdin(eq(pattern), eq(false), eq(true), eq(false), eq(inputStream), any(Writer.class));
 
         String expected = "2";
         assertEquals(expected, outputStream.toString().trim());
@@ -267,9 +298,9 @@ public class GrepApplicationTest {
         when(mockGrepParser.getFileNames()).thenReturn(new String[]{fileName, DASH});
 
         String expected = fileName + ": " + 2 + STRING_NEWLINE + STANDARD_INPUT + ": " + 2;
-        doReturn(expected)
+        doAnswer(writes(expected))
                 .when(grepAppSpy)
-                .grepFromFileAndStdin(eq(pattern), eq(true), eq(true), eq(true), eq(inputStream), eq(new String[]{fileName, DASH}));
+                .writeFromFileAndStdin(eq(pattern), eq(true), eq(true), eq(true), eq(inputStream), any(Writer.class), eq(fileName), eq(DASH));
 
         assertDoesNotThrow(
                 () -> grepAppSpy.run(inputArgs, inputStream, outputStream)
@@ -281,7 +312,7 @@ public class GrepApplicationTest {
         verify(mockGrepParser).isCount();
         verify(mockGrepParser).getFileNames();
         verify(mockGrepParser).getPattern();
-        verify(grepAppSpy).grepFromFileAndStdin(eq(pattern), eq(true), eq(true), eq(true), eq(inputStream), eq(new String[]{fileName, DASH}));
+        verify(grepAppSpy).writeFromFileAndStdin(eq(pattern), eq(true), eq(true), eq(true), eq(inputStream), any(Writer.class), eq(fileName), eq(DASH));
 
         assertEquals(expected, outputStream.toString().trim());
     }
@@ -312,13 +343,359 @@ public class GrepApplicationTest {
 
         doThrow(Exception.class)
                 .when(grepAppSpy)
-                .grepFromFiles(eq(pattern), eq(false), eq(true), eq(false), eq(fileName));
+                .writeFromFiles(eq(pattern), eq(false), eq(true), eq(false), any(Writer.class), eq(fileName));
 
         assertThrows(GrepException.class,
                 () -> grepAppSpy.run(inputArgs, inputStream, outputStream)
         );
     }
 
+    @Test
+    void run_withLargeStdin_writesMatchesBeforeInputEnds() {
+        byte[] input = (HELLO1 + STRING_NEWLINE).repeat(200_000).getBytes();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        int[] writtenAtEnd = {-1};
+        InputStream inputStream = new ByteArrayInputStream(input) {
+            @Override
+            public synchronized int read(byte[] bytes, int offset, int length) {
+                int read = super.read(bytes, offset, length);
+                if (read < 0 && writtenAtEnd[0] < 0) {
+                    writtenAtEnd[0] = outputStream.size();
+                }
+                return read;
+            }
+        };
+        ShellOptions.setParallelChunkSize(64 * 1024);
+        try {
+            assertDoesNotThrow(() -> grepApplication.run(new String[]{HELLO1}, inputStream, outputStream));
+        } finally {
+            ShellOptions.setParallelChunkSize(0);
+        }
+
+        assertTrue(writtenAtEnd[0] > 0);
+        assertEquals(input.length, outputStream.size());
+    }
+
+    @Test
+    void run_withCountFlagMissingAndValidFile_writesErrorsAndCountsInFileOrder(@TempDir Path tempDir) throws Exception {
+        Path filePath = tempDir.resolve(FILE_NAME1);
+        Files.write(filePath, Arrays.asList(HELLO1, HEY, HELLO1));
+        String missing = tempDir.resolve("missing.txt").toString();
+        String file = filePath.toString();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        grepApplication.run(new String[]{C_FLAG, HELLO1, missing, file, tempDir.toString()},
+                new ByteArrayInputStream(new byte[0]), outputStream);
+
+        String expected = missing + ": " + E_FILE_NOT_FOUND + STRING_NEWLINE + file + ": " + 2 + STRING_NEWLINE
+                + tempDir + ": " + E_IS_DIR + STRING_NEWLINE;
+        assertEquals(expected, outputStream.toString());
+    }
+
+    @Test
+    void writeFromFileAndStdin_withInvalidPatternAfterMissingFile_throwsWithoutWritingAnything(@TempDir Path tempDir) throws Exception {
+        Path filePath = tempDir.resolve(FILE_NAME1);
+        Files.write(filePath, Arrays.asList(HELLO1));
+        StringWriter writer = new StringWriter();
+
+        GrepException exception = assertThrows(GrepException.class, () -> grepApplication.writeFromFileAndStdin(
+                "[", false, false, false, new ByteArrayInputStream(new byte[0]), writer,
+                tempDir.resolve("missing.txt").toString(), filePath.toString()));
+
+        assertEquals(new GrepException(E_INVALID_REGEX).getMessage(), exception.getMessage());
+        assertEquals("", writer.toString());
+    }
+
+    @Test
+    void run_withManyFilesAndStdin_writesResultsInArgumentOrder(@TempDir Path tempDir) throws Exception {
+        List<String> args = new ArrayList<>(List.of(HELLO1));
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            String file = tempDir.resolve("file" + i + ".txt").toString();
+            if (i == 7) {
+                expected.append(file).append(": ").append(E_FILE_NOT_FOUND).append(STRING_NEWLINE);
+            } else {
+                Files.write(Path.of(file), Collections.nCopies(i % 3, HELLO1 + i));
+                for (int j = 0; j < i % 3; j++) {
+                    expected.append(file).append(": ").append(HELLO1).append(i).append(STRING_NEWLINE);
+                }
+            }
+            args.add(file);
+            if (i == 20) {
+                args.add(DASH);
+                expected.append(STANDARD_INPUT).append(": ").append(HELLO1).append(STRING_NEWLINE);
+            }
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        grepApplication.run(args.toArray(new String[0]), new ByteArrayInputStream(HELLO1.getBytes()), outputStream);
+
+        assertEquals(expected.toString(), outputStream.toString());
+    }
+
+    @Test
+    void run_withMaxCountFlag_writesAndCountsAtMostThatManyLinesOfEachInput(@TempDir Path tempDir) throws Exception {
+        String file = tempDir.resolve(FILE_NAME1).toString();
+        Files.write(Path.of(file), Arrays.asList(HELLO1 + 1, HEY, HELLO1 + 2, HELLO1 + 3));
+        String stdin = String.join(STRING_NEWLINE, HELLO1 + 4, HELLO1 + 5, HELLO1 + 6);
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        ByteArrayOutputStream counts = new ByteArrayOutputStream();
+
+        grepApplication.run(new String[]{"-m", "2", HELLO1, file, DASH},
+                new ByteArrayInputStream(stdin.getBytes()), lines);
+        grepApplication.run(new String[]{"-cm2", HELLO1, file, DASH},
+                new ByteArrayInputStream(stdin.getBytes()), counts);
+
+        assertEquals(file + ": " + HELLO1 + 1 + STRING_NEWLINE + file + ": " + HELLO1 + 2 + STRING_NEWLINE
+                + STANDARD_INPUT + ": " + HELLO1 + 4 + STRING_NEWLINE
+                + STANDARD_INPUT + ": " + HELLO1 + 5 + STRING_NEWLINE, lines.toString());
+        assertEquals(file + ": 2" + STRING_NEWLINE + STANDARD_INPUT + ": 2" + STRING_NEWLINE, counts.toString());
+    }
+
+    @Test
+    void run_withZeroMaxCount_writesNoLines() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        grepApplication.run(new String[]{"-m", "0", "-c", HELLO1}, new ByteArrayInputStream(HELLO1.getBytes()),
+                outputStream);
+
+        assertEquals("0" + STRING_NEWLINE, outputStream.toString());
+    }
+
+    @Test
+    void run_withQuietFlag_writesNothingAfterFirstMatchingFile(@TempDir Path tempDir) throws Exception {
+        List<String> args = new ArrayList<>(List.of("-q", HELLO1));
+        String missing = tempDir.resolve("missing.txt").toString();
+        args.add(missing);
+        for (int i = 0; i < 20; i++) {
+            String file = tempDir.resolve("file" + i + ".txt").toString();
+            Files.write(Path.of(file), List.of(i == 5 ? HELLO1 : HEY));
+            args.add(file);
+        }
+        args.add(tempDir.resolve("missing2.txt").toString());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        grepApplication.run(args.toArray(new String[0]), new ByteArrayInputStream(new byte[0]), outputStream);
+
+        assertEquals(missing + ": " + E_FILE_NOT_FOUND + STRING_NEWLINE, outputStream.toString());
+    }
+
+    @Test
+    void run_withQuietFlagAndEndlessStdin_returnsAfterFirstMatch() {
+        InputStream endless = new InputStream() {
+            private final byte[] line = (HELLO1 + STRING_NEWLINE).getBytes();
+            private int index;
+
+            @Override
+            public int read() {
+                return line[index++ % line.length];
+            }
+        };
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> grepApplication.run(new String[]{"-q", HELLO1}, endless, outputStream));
+
+        assertEquals("", outputStream.toString());
+    }
+
+    @Test
+    void run_withListFilesFlag_writesNamesOfMatchingInputs(@TempDir Path tempDir) throws Exception {
+        String file1 = tempDir.resolve(FILE_NAME1).toString();
+        String file2 = tempDir.resolve("file2.txt").toString();
+        Files.write(Path.of(file1), Arrays.asList(HELLO1, HELLO1, HEY));
+        Files.write(Path.of(file2), List.of(HEY));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        grepApplication.run(new String[]{"-l", HELLO1, file1, file2, DASH},
+                new ByteArrayInputStream(HELLO1.getBytes()), outputStream);
+
+        assertEquals(file1 + STRING_NEWLINE + STANDARD_INPUT + STRING_NEWLINE, outputStream.toString());
+    }
+
+    @Test
+    void run_withContextFlags_writesMergedWindowsWithSeparators() throws Exception {
+        String input = String.join(STRING_NEWLINE, "a", HELLO1, "b", "c", HELLO1, "d", "e", "f", "g", HELLO1)
+                + STRING_NEWLINE;
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        grepApplication.run(new String[]{"-A1", "-B", "2", HELLO1}, new ByteArrayInputStream(input.getBytes()),
+                outputStream);
+
+        String expected = String.join(STRING_NEWLINE, "a", HELLO1, "b", "c", HELLO1, "d", "--", "f", "g", HELLO1)
+                + STRING_NEWLINE;
+        assertEquals(expected, outputStream.toString());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"-A0", "-B0", "-C0"})
+    void run_withZeroContextFlag_separatesMatchesThatAreNotAdjacent(String flag) throws Exception {
+        String input = String.join(STRING_NEWLINE, HELLO1, HELLO1, "a", HELLO1) + STRING_NEWLINE;
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        grepApplication.run(new String[]{flag, HELLO1}, new ByteArrayInputStream(input.getBytes()), outputStream);
+
+        String expected = String.join(STRING_NEWLINE, HELLO1, HELLO1, "--", HELLO1) + STRING_NEWLINE;
+        assertEquals(expected, outputStream.toString());
+    }
+
+    @Test
+    void run_withContextFlagAndManyInputs_marksContextLinesAndSeparatesInputs(@TempDir Path tempDir)
+            throws Exception {
+        String file1 = tempDir.resolve(FILE_NAME1).toString();
+        String file2 = tempDir.resolve("file2.txt").toString();
+        String file3 = tempDir.resolve("file3.txt").toString();
+        Files.write(Path.of(file1), Arrays.asList(HEY, HELLO1));
+        Files.write(Path.of(file2), List.of(HEY));
+        Files.write(Path.of(file3), Arrays.asList(HELLO1, HEY));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        grepApplication.run(new String[]{"-C", "1", HELLO1, file1, file2, DASH, file3},
+                new ByteArrayInputStream(HELLO1.getBytes()), outputStream);
+
+        String expected = file1 + "- " + HEY + STRING_NEWLINE + file1 + ": " + HELLO1 + STRING_NEWLINE
+                + "--" + STRING_NEWLINE + STANDARD_INPUT + ": " + HELLO1 + STRING_NEWLINE
+                + "--" + STRING_NEWLINE + file3 + ": " + HELLO1 + STRING_NEWLINE + file3 + "- " + HEY
+                + STRING_NEWLINE;
+        assertEquals(expected, outputStream.toString());
+    }
+
+    @Test
+    void run_withContextAndMaxCountFlags_writesTrailingContextOfLastMatch(@TempDir Path tempDir)
+            throws Exception {
+        Path file = tempDir.resolve(FILE_NAME1);
+        Files.write(file, Arrays.asList(HELLO1, HEY, HELLO1, HELLO2));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        grepApplication.run(new String[]{"-m1", "-A2", HELLO1, file.toString()},
+                new ByteArrayInputStream(new byte[0]), outputStream);
+
+        assertEquals(String.join(STRING_NEWLINE, HELLO1, HEY, HELLO1) + STRING_NEWLINE, outputStream.toString());
+    }
+
+    @Test
+    void run_withRecursiveFlagAndDirectory_writesMatchesOfTextFilesInPathOrder(@TempDir Path tempDir) throws Exception {
+        Path sub = Files.createDirectories(tempDir.resolve("sub"));
+        Files.write(tempDir.resolve("b.txt"), Arrays.asList(HELLO1, HEY));
+        Files.write(sub.resolve("a.txt"), Arrays.asList(HEY + HELLO1));
+        Files.write(sub.resolve("c.bin"), (HELLO1 + "\0").getBytes());
+        String dir = tempDir.toString();
+        String sep = File.separator;
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        grepApplication.run(new String[]{"-r", HELLO1, dir}, new ByteArrayInputStream(new byte[0]), outputStream);
+
+        String expected = dir + sep + "b.txt: " + HELLO1 + STRING_NEWLINE
+                + dir + sep + "sub" + sep + "a.txt: " + HEY + HELLO1 + STRING_NEWLINE;
+        assertEquals(expected, outputStream.toString());
+    }
+
+    @Test
+    void run_withRecursiveFlagAndFileNamedStdin_searchesFileNotStdin(@TempDir Path tempDir) throws Exception {
+        Files.write(tempDir.resolve("-"), Arrays.asList(HELLO1));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        String previousDirectory = Environment.getCurrentDirectory();
+        Environment.setCurrentDirectory(tempDir.toString());
+        try {
+            grepApplication.run(new String[]{"-r", HELLO1, "."},
+                    new ByteArrayInputStream((HELLO1 + " stdin").getBytes()), outputStream);
+        } finally {
+            Environment.setCurrentDirectory(previousDirectory);
+        }
+
+        assertEquals("." + File.separator + "-: " + HELLO1 + STRING_NEWLINE, outputStream.toString());
+    }
+
+    @Test
+    void run_withRecursiveFlagAndEmptyDirectory_writesNothing(@TempDir Path tempDir) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        grepApplication.run(new String[]{"-rc", HELLO1, tempDir.toString()},
+                new ByteArrayInputStream(HELLO1.getBytes()), outputStream);
+
+        assertEquals("", outputStream.toString());
+    }
+
+    @Test
+    void run_withPatternOptionsAndPatternFile_writesLinesMatchingAnyPattern(@TempDir Path tempDir) throws Exception {
+        Path patternFile = tempDir.resolve("patterns.txt");
+        Files.write(patternFile, Arrays.asList("user42", "user7"));
+        Path filePath = tempDir.resolve(FILE_NAME1);
+        Files.write(filePath, Arrays.asList("id=USER7", "id=user8", HELLO1, "id=user42x", HEY));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        grepApplication.run(new String[]{"-i", "-e", HELLO1, "-f", patternFile.toString(), filePath.toString()},
+                new ByteArrayInputStream(new byte[0]), outputStream);
+
+        String expected = "id=USER7" + STRING_NEWLINE + HELLO1 + STRING_NEWLINE + "id=user42x" + STRING_NEWLINE;
+        assertEquals(expected, outputStream.toString());
+    }
+
+    @Test
+    void run_withRegexAndLiteralPatternOptions_matchesEachPatternOnItsOwn() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        String input = String.join(STRING_NEWLINE, "ab", "b", "ac", "c", "xyz") + STRING_NEWLINE;
+
+        grepApplication.run(new String[]{"-e", "^a", "-e", "c$", "-e", "y"},
+                new ByteArrayInputStream(input.getBytes()), outputStream);
+
+        assertEquals(String.join(STRING_NEWLINE, "ab", "ac", "c", "xyz") + STRING_NEWLINE, outputStream.toString());
+    }
+
+    @Test
+    void run_withMissingPatternFile_throwsGrepException(@TempDir Path tempDir) {
+        String missing = tempDir.resolve("missing.txt").toString();
+
+        assertThrows(GrepException.class, () -> grepApplication.run(new String[]{"-f", missing},
+                new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void run_withEachGrepEngine_writesSameLines() throws Exception {
+        String input = String.join(STRING_NEWLINE, "aab", "ab", "b", "aaa", "ba") + STRING_NEWLINE;
+        String[] args = {"^(a|aa)*b$"};
+        try {
+            for (ShellOptions.GrepEngine engine : ShellOptions.GrepEngine.values()) {
+                ShellOptions.setGrepEngine(engine);
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+                grepApplication.run(args, new ByteArrayInputStream(input.getBytes()), outputStream);
+
+                assertEquals(String.join(STRING_NEWLINE, "aab", "ab", "b") + STRING_NEWLINE,
+                        outputStream.toString(), engine::name);
+            }
+        } finally {
+            ShellOptions.setGrepEngine(null);
+        }
+    }
+
+    @Test
+    void run_withDfaEngineAndBackreference_throwsNotRegularGrepException() {
+        ShellOptions.setGrepEngine(ShellOptions.GrepEngine.DFA);
+        try {
+            GrepException exception = assertThrows(GrepException.class, () -> grepApplication.run(
+                    new String[]{"(a)\\1"}, new ByteArrayInputStream("aa".getBytes()), new ByteArrayOutputStream()));
+            assertTrue(exception.getMessage().contains(E_NOT_REGULAR));
+        } finally {
+            ShellOptions.setGrepEngine(null);
+        }
+    }
+
+    @Test
+    void searchFiles_withFailingFile_consumesEarlierResultsThenThrows() {
+        List<Integer> consumed = new ArrayList<>();
+
+        IOException exception = assertThrows(IOException.class, () -> GrepHelper.searchFiles(10, index -> {
+            if (index == 4) {
+                throw new IOException(HEY);
+            }
+            return index;
+        }, consumed::add));
+
+        assertEquals(HEY, exception.getMessage());
+        assertEquals(List.of(0, 1, 2, 3), consumed);
+    }
+
     @Test
     void run_withStdOutThrowsIOException_throwsIOGrepException(@TempDir Path tempDir) throws Exception {
         String pattern = HELLO1;
@@ -348,7 +725,8 @@ public class GrepApplicationTest {
         when(mockGrepParser.getPattern()).thenReturn(pattern);
         when(mockGrepParser.getFileNames()).thenReturn(new String[]{fileName});
 
-        doReturn("1").when(grepAppSpy).grepFromFiles(eq(pattern), eq(false), eq(true), eq(false), eq(fileName));
+        doAnswer(writes("1")).when(grepAppSpy)
+                .writeFromFiles(eq(pattern), eq(false), eq(true), eq(false), any(Writer.class), eq(fileName));
 
         GrepException exception = assertThrows(GrepException.class,
                 () -> grepAppSpy.run(inputArgs, inputStream, outputStream)
@@ -485,6 +863,27 @@ public class GrepApplicationTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    void grepFromStdin_singleMatchingEmptyLine_returnsEmptyLine() {
+        InputStream inputStream = new ByteArrayInputStream((STRING_NEWLINE + HELLO1 + STRING_NEWLINE).getBytes());
+
+        String actual = assertDoesNotThrow(
+                () -> grepApplication.grepFromStdin("^$", false, false, false, inputStream)
+        );
+
+        assertEquals(STRING_NEWLINE, actual);
+    }
+
+    @Test
+    void run_singleMatchingEmptyLineInStdin_writesEmptyLine() throws Exception {
+        InputStream inputStream = new ByteArrayInputStream((STRING_NEWLINE + HELLO1 + STRING_NEWLINE).getBytes());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        grepApplication.run(new String[]{"^$"}, inputStream, outputStream);
+
+        assertEquals(STRING_NEWLINE, outputStream.toString());
+    }
+
     @Test
     void grepFromStdin_withAllFlagsAndStdIn_returnsFileNameWithCaseInsensitivePatternCount() {
         String pattern = HELLO3;
@@ -704,6 +1103,29 @@ public class GrepApplicationTest {
         }
     }
 
+    @Test
+    void grepResultsFromFiles_withManyFiles_returnsResultsInArgumentOrder(@TempDir Path tempDir) throws Exception {
+        String[] fileNames = new String[30];
+        StringJoiner expectedLines = new StringJoiner(STRING_NEWLINE);
+        StringJoiner expectedCounts = new StringJoiner(STRING_NEWLINE);
+        for (int i = 0; i < fileNames.length; i++) {
+            fileNames[i] = tempDir.resolve("file" + i + ".txt").toString();
+            if (i == 12) {
+                Files.createDirectory(Path.of(fileNames[i]));
+                expectedLines.add(fileNames[i] + ": " + E_IS_DIR);
+                expectedCounts.add(fileNames[i] + ": " + E_IS_DIR);
+                continue;
+            }
+            Files.write(Path.of(fileNames[i]), Arrays.asList(HELLO2 + i, HEY));
+            expectedLines.add(fileNames[i] + ": " + HELLO2 + i);
+            expectedCounts.add(fileNames[i] + ": " + 1);
+        }
+
+        ArrayList<String> actual = GrepHelper.grepResultsFromFiles(HELLO3, false, true, fileNames);
+
+        assertEquals(List.of(expectedLines.toString(), expectedCounts.toString()), actual);
+    }
+
     @Test
     void grepResultsFromFiles_withValidFileAsDirectory_returnsFileIsDirectoryResult(@TempDir Path tempDir) throws Exception {
 
@@ -9,19 +9,22 @@ import org.mockito.MockedStatic;
 import sg.edu.nus.comp.cs4218.exception.SortException;
 import sg.edu.nus.comp.cs4218.impl.parser.SortArgsParser;
 import sg.edu.nus.comp.cs4218.impl.util.IOUtils;
+import sg.edu.nus.comp.cs4218.impl.util.ShellOptions;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -30,7 +33,6 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
@@ -42,7 +44,12 @@ import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_IS_DIR;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NO_PERM;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NULL_ARGS;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_NULL_POINTER;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_READING_FILE;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_STREAM_CLOSED;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_SYNTAX;
+import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_TOO_MANY_ARGS;
 import static sg.edu.nus.comp.cs4218.impl.util.ErrorConstants.E_WRITE_STREAM;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
 
 
 public class SortApplicationTest {
@@ -51,6 +58,7 @@ public class SortApplicationTest {
     private ByteArrayOutputStream testOutputStream;
     private String inputString;
     private String inputStringOfNums;
+    private String sortedInputString;
     private List<String> inputArray;
     private String[] expectedFileNames;
     private String[] argsFiles;
@@ -65,6 +73,7 @@ public class SortApplicationTest {
         inputStringOfNums = "-50" + System.lineSeparator() + "10" + System.lineSeparator()
                 + "-20" + System.lineSeparator() + "100" + System.lineSeparator()
                 + "Hello" + System.lineSeparator();
+        sortedInputString = "This is the 2nd line." + System.lineSeparator() + "This is the first line." + System.lineSeparator();
         inputArray = Arrays.asList(inputString.split(System.lineSeparator()));
 
         expectedFileNames = new String[]{"file.txt"};
@@ -89,7 +98,6 @@ public class SortApplicationTest {
     @Test
     public void run_noFileNamesSpecified_usesStdinAndWritesToStdoutSuccessfully() throws Exception {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        System.setOut(new PrintStream(outputStream));
 
         SortApplication sortAppSpy = spy(sortApplication);
         SortArgsParser mockSortParser = mock(SortArgsParser.class);
@@ -103,10 +111,6 @@ public class SortApplicationTest {
         when(mockSortParser.isCaseIndependent()).thenReturn(true);
         when(mockSortParser.isReadingFromStdin()).thenReturn(true);
 
-        doReturn(inputString)
-                .when(sortAppSpy)
-                .sortFromStdin(eq(false), eq(false), eq(true), eq(testInputStream));
-
         assertDoesNotThrow(
                 () -> sortAppSpy.run(argsStdin, testInputStream, outputStream)
         );
@@ -116,15 +120,15 @@ public class SortApplicationTest {
         verify(mockSortParser).isReverseOrder();
         verify(mockSortParser).isCaseIndependent();
         verify(mockSortParser).isReadingFromStdin();
-        verify(sortAppSpy).sortFromStdin(eq(false), eq(false), eq(true), eq(testInputStream));
 
-        assertEquals(inputString, outputStream.toString());
+        assertEquals(sortedInputString, outputStream.toString());
     }
 
     @Test
-    public void run_fileNameSpecified_usesFilesAndWritesToStdoutSuccessfully() throws Exception {
+    public void run_fileNameSpecified_usesFilesAndWritesToStdoutSuccessfully(@TempDir Path tempDir) throws Exception {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        System.setOut(new PrintStream(outputStream));
+        Path filePath = tempDir.resolve(expectedFileNames[0]);
+        Files.writeString(filePath, inputString);
 
         SortApplication sortAppSpy = spy(sortApplication);
         SortArgsParser mockSortParser = mock(SortArgsParser.class);
@@ -136,11 +140,7 @@ public class SortApplicationTest {
         when(mockSortParser.isFirstWordNumber()).thenReturn(false);
         when(mockSortParser.isReverseOrder()).thenReturn(false);
         when(mockSortParser.isCaseIndependent()).thenReturn(true);
-        when(mockSortParser.getFiles()).thenReturn(Arrays.asList(expectedFileNames));
-
-        doReturn(inputString)
-                .when(sortAppSpy)
-                .sortFromFiles(eq(false), eq(false), eq(true), eq(expectedFileNames));
+        when(mockSortParser.getFiles()).thenReturn(List.of(filePath.toString()));
 
         assertDoesNotThrow(
                 () -> sortAppSpy.run(argsFiles, testInputStream, outputStream)
@@ -151,39 +151,35 @@ public class SortApplicationTest {
         verify(mockSortParser).isReverseOrder();
         verify(mockSortParser).isCaseIndependent();
         verify(mockSortParser).getFiles();
-        verify(sortAppSpy).sortFromFiles(eq(false), eq(false), eq(true), eq(expectedFileNames));
 
-        assertEquals(inputString, outputStream.toString());
+        assertEquals(sortedInputString, outputStream.toString());
     }
 
     @Test
-    public void run_sortFromStdinThrowsException_throwsSortException() throws Exception {
+    public void run_stdinReadThrowsIOException_throwsSortException() throws Exception {
         SortApplication sortAppSpy = spy(sortApplication);
         SortArgsParser mockSortParser = mock(SortArgsParser.class);
 
+        InputStream exInputStream = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException();
+            }
+        };
+
         doReturn(mockSortParser)
                 .when(sortAppSpy)
                 .parseArgs(argsStdin);
 
-        when(mockSortParser.isFirstWordNumber()).thenReturn(false);
-        when(mockSortParser.isReverseOrder()).thenReturn(false);
-        when(mockSortParser.isCaseIndependent()).thenReturn(true);
         when(mockSortParser.isReadingFromStdin()).thenReturn(true);
 
-        doThrow(SortException.class)
-                .when(sortAppSpy)
-                .sortFromStdin(false, false, true, testInputStream);
-
-        assertThrows(SortException.class,
-                () -> sortAppSpy.run(argsStdin, testInputStream, testOutputStream)
+        SortException exception = assertThrows(SortException.class,
+                () -> sortAppSpy.run(argsStdin, exInputStream, testOutputStream)
         );
 
+        assertTrue(exception.getMessage().contains(E_STREAM_CLOSED));
         verify(sortAppSpy).parseArgs(eq(argsStdin));
-        verify(mockSortParser).isFirstWordNumber();
-        verify(mockSortParser).isReverseOrder();
-        verify(mockSortParser).isCaseIndependent();
         verify(mockSortParser).isReadingFromStdin();
-        verify(sortAppSpy).sortFromStdin(eq(false), eq(false), eq(true), eq(testInputStream));
     }
 
     @Test
@@ -212,10 +208,6 @@ public class SortApplicationTest {
         when(mockSortParser.isCaseIndependent()).thenReturn(true);
         when(mockSortParser.isReadingFromStdin()).thenReturn(true);
 
-        doReturn(inputString)
-                .when(sortAppSpy)
-                .sortFromStdin(eq(false), eq(false), eq(true), eq(testInputStream));
-
         SortException exception = assertThrows(SortException.class,
                 () -> sortAppSpy.run(argsStdin, testInputStream, exOutputStream)
         );
@@ -227,8 +219,43 @@ public class SortApplicationTest {
         verify(mockSortParser).isReverseOrder();
         verify(mockSortParser).isCaseIndependent();
         verify(mockSortParser).isReadingFromStdin();
-        verify(sortAppSpy).sortFromStdin(eq(false), eq(false), eq(true), eq(testInputStream));
-        assertTrue(exception.getMessage().contains(E_WRITE_STREAM));
+    }
+
+    @Test
+    public void run_inputLargerThanSortMemory_sortsThroughTemporaryRuns() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        StringBuilder input = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String line = (i * 7919 % 5000) + " line";
+            input.append(line).append(STRING_NEWLINE);
+            expected.add(line);
+        }
+        sortApplication.sortInputString(true, true, false, expected);
+        long sortMemory = ShellOptions.getSortMemory();
+        ShellOptions.setSortMemory(ShellOptions.MIN_SORT_MEMORY);
+        try {
+            sortApplication.run(new String[]{"-nr"}, new ByteArrayInputStream(input.toString().getBytes()),
+                    outputStream);
+        } finally {
+            ShellOptions.setSortMemory(sortMemory);
+        }
+
+        assertEquals(String.join(STRING_NEWLINE, expected) + STRING_NEWLINE, outputStream.toString());
+    }
+
+    @Test
+    public void run_sortLocaleSet_sortsByCollation() throws Exception {
+        String input = String.join(STRING_NEWLINE, "z", "B", "a") + STRING_NEWLINE;
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ShellOptions.setSortLocale(Locale.GERMANY);
+        try {
+            sortApplication.run(new String[]{}, new ByteArrayInputStream(input.getBytes()), outputStream);
+        } finally {
+            ShellOptions.setSortLocale(null);
+        }
+
+        assertEquals(String.join(STRING_NEWLINE, "a", "B", "z") + STRING_NEWLINE, outputStream.toString());
     }
 
     @Test
@@ -266,6 +293,123 @@ public class SortApplicationTest {
         }
     }
 
+    @Test
+    public void run_mergeSortedFiles_writesMergedLines(@TempDir Path tempDir) throws Exception {
+        Path first = Files.writeString(tempDir.resolve("first.txt"), String.join(STRING_NEWLINE, "-5", "2", "10"));
+        Path second = Files.writeString(tempDir.resolve("second.txt"), String.join(STRING_NEWLINE, "1", "2", "3"));
+        InputStream stdin = new ByteArrayInputStream(("4" + STRING_NEWLINE + "20").getBytes());
+
+        sortApplication.run(new String[]{"-mn", first.toString(), "-", second.toString()}, stdin, testOutputStream);
+
+        String expected = String.join(STRING_NEWLINE, "-5", "1", "2", "2", "3", "4", "10", "20") + STRING_NEWLINE;
+        assertEquals(expected, testOutputStream.toString());
+    }
+
+    @Test
+    public void run_mergeReverseCaseIndependent_placesEqualLinesOfLaterFilesFirst(@TempDir Path tempDir)
+            throws Exception {
+        Path first = Files.writeString(tempDir.resolve("first.txt"), String.join(STRING_NEWLINE, "b", "a"));
+        Path second = Files.writeString(tempDir.resolve("second.txt"), String.join(STRING_NEWLINE, "C", "A"));
+
+        sortApplication.run(new String[]{"-mrf", first.toString(), second.toString()}, null, testOutputStream);
+
+        assertEquals(String.join(STRING_NEWLINE, "C", "b", "A", "a") + STRING_NEWLINE, testOutputStream.toString());
+    }
+
+    @Test
+    public void run_mergeMissingFile_throwsSortException(@TempDir Path tempDir) {
+        SortException exception = assertThrows(SortException.class, () -> sortApplication.run(
+                new String[]{"-m", tempDir.resolve("missing.txt").toString()}, testInputStream, testOutputStream));
+
+        assertTrue(exception.getMessage().contains(E_FILE_NOT_FOUND));
+    }
+
+    @Test
+    public void run_mergeUnreadableStdin_throwsReadingSortException() {
+        InputStream stdin = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException();
+            }
+        };
+
+        SortException exception = assertThrows(SortException.class,
+                () -> sortApplication.run(new String[]{"-m"}, stdin, testOutputStream));
+
+        assertTrue(exception.getMessage().contains(E_READING_FILE));
+    }
+
+    @Test
+    public void run_mergeUnwritableStdout_throwsWriteSortException() {
+        OutputStream stdout = new OutputStream() {
+            @Override
+            public void write(int value) throws IOException {
+                throw new IOException();
+            }
+        };
+
+        SortException exception = assertThrows(SortException.class,
+                () -> sortApplication.run(new String[]{"-m"}, testInputStream, stdout));
+
+        assertTrue(exception.getMessage().contains(E_WRITE_STREAM));
+    }
+
+    @Test
+    public void run_checkSortedInput_writesNothing() throws Exception {
+        InputStream stdin = new ByteArrayInputStream(String.join(STRING_NEWLINE, "3", "2", "2", "-1").getBytes());
+
+        sortApplication.run(new String[]{"-cnr"}, stdin, testOutputStream);
+
+        assertEquals("", testOutputStream.toString());
+    }
+
+    @Test
+    public void run_checkUnsortedInput_throwsSortExceptionNamingFirstDisorder() {
+        InputStream stdin = new ByteArrayInputStream(String.join(STRING_NEWLINE, "a", "B", "c", "b").getBytes());
+
+        SortException exception = assertThrows(SortException.class,
+                () -> sortApplication.run(new String[]{"-cf"}, stdin, testOutputStream));
+
+        assertTrue(exception.getMessage().contains("-:4: disorder: b"));
+    }
+
+    @Test
+    public void run_checkSeveralFiles_throwsSortException() {
+        SortException exception = assertThrows(SortException.class,
+                () -> sortApplication.run(new String[]{"-c", "a.txt", "b.txt"}, testInputStream, testOutputStream));
+
+        assertTrue(exception.getMessage().contains(E_TOO_MANY_ARGS));
+    }
+
+    @Test
+    public void run_checkAndMerge_throwsSortException() {
+        SortException exception = assertThrows(SortException.class,
+                () -> sortApplication.run(new String[]{"-cm"}, testInputStream, testOutputStream));
+
+        assertTrue(exception.getMessage().contains(E_SYNTAX));
+    }
+
+    @Test
+    public void run_keyFieldDelimiterAndUnique_writesOneLinePerKey() throws Exception {
+        InputStream stdin = new ByteArrayInputStream(
+                String.join(STRING_NEWLINE, "b,10,x", "a,9,y", "c,10,z", "d,100,w").getBytes());
+
+        sortApplication.run(new String[]{"-t,", "-k", "2,2", "-nu"}, stdin, testOutputStream);
+
+        assertEquals(String.join(STRING_NEWLINE, "a,9,y", "b,10,x", "d,100,w") + STRING_NEWLINE,
+                testOutputStream.toString());
+    }
+
+    @Test
+    public void run_checkUniqueWithEqualLines_throwsSortException() {
+        InputStream stdin = new ByteArrayInputStream(String.join(STRING_NEWLINE, "a", "b", "b").getBytes());
+
+        SortException exception = assertThrows(SortException.class,
+                () -> sortApplication.run(new String[]{"-cu"}, stdin, testOutputStream));
+
+        assertTrue(exception.getMessage().contains("-:3: disorder: b"));
+    }
+
     @Test
     public void sortFromFiles_nullFileNames_throwsSortException() {
         SortException exception = assertThrows(SortException.class,
@@ -0,0 +1,100 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AhoCorasickSearcherTest {
+    /**
+     * Few letters, so that alternatives share prefixes and suffixes, with letters whose case the regex
+     * engine folds only with UNICODE_CASE.
+     */
+    private static final String ALPHABET = "abAB kKéÉı";
+
+    private static String random(Random random, int minLength, int maxLength) {
+        StringBuilder text = new StringBuilder();
+        int length = minLength + random.nextInt(maxLength - minLength + 1);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void find_randomLinesAndAlternatives_agreesWithRegex(boolean isCaseInsensitive) {
+        Random random = new Random(4218);
+        for (int i = 0; i < 1000; i++) {
+            StringJoiner alternatives = new StringJoiner("|");
+            int count = 2 + random.nextInt(6);
+            for (int j = 0; j < count; j++) {
+                alternatives.add(random(random, 1, 4));
+            }
+            String pattern = alternatives.toString();
+            Pattern compiledPattern = isCaseInsensitive
+                    ? Pattern.compile(pattern, Pattern.CASE_INSENSITIVE)
+                    : Pattern.compile(pattern);
+            AhoCorasickSearcher searcher = AhoCorasickSearcher.forPattern(compiledPattern);
+            assertNotNull(searcher, pattern);
+            for (int j = 0; j < 50; j++) {
+                String line = random(random, 0, 20);
+                assertEquals(compiledPattern.matcher(line).find(), searcher.find(line),
+                        () -> "'" + pattern + "' in '" + line + "'");
+            }
+        }
+    }
+
+    @Test
+    void find_manyTokens_findsOnlyLinesWithOne() {
+        StringJoiner tokens = new StringJoiner("|");
+        for (int i = 0; i < 1000; i++) {
+            tokens.add("user" + (i * 7919 % 100_000));
+        }
+        AhoCorasickSearcher searcher = AhoCorasickSearcher.forPattern(Pattern.compile(tokens.toString()));
+
+        assertTrue(searcher.find("blocked id=user7919 at 12:00"));
+        assertTrue(searcher.find("user0"));
+        assertFalse(searcher.find("blocked id=user1 at 12:00"));
+        assertFalse(searcher.find(""));
+    }
+
+    @Test
+    void find_alternativeInsideAnother_findsShorterAtEndOfLonger() {
+        AhoCorasickSearcher searcher = AhoCorasickSearcher.forPattern(Pattern.compile("abcd|bc"));
+
+        assertTrue(searcher.find("xabcx"));
+        assertTrue(searcher.find("abcd"));
+        assertFalse(searcher.find("abd"));
+    }
+
+    @Test
+    void forPattern_samePatternAgain_returnsSameSearcher() {
+        Pattern compiledPattern = Pattern.compile("foo|bar");
+
+        assertSame(AhoCorasickSearcher.forPattern(compiledPattern), AhoCorasickSearcher.forPattern(compiledPattern));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"abc", "a||b", "|a", "a|", "a|b.", "a|(?:b)", "a|b\\|c", "a|😀"})
+    void forPattern_notAnAlternationOfPlainText_returnsNull(String pattern) {
+        assertNull(AhoCorasickSearcher.forPattern(Pattern.compile(pattern)));
+    }
+
+    @Test
+    void forPattern_otherFlags_returnsNull() {
+        assertNull(AhoCorasickSearcher.forPattern(Pattern.compile("a|b", Pattern.CASE_INSENSITIVE
+                | Pattern.UNICODE_CASE)));
+        assertNull(AhoCorasickSearcher.forPattern(Pattern.compile("a|b", Pattern.LITERAL)));
+    }
+}
@@ -0,0 +1,120 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
+
+public class ContextLineWriterTest {
+    private static final String PREFIX = "f: ";
+    private static final String CONTEXT_PREFIX = "f- ";
+
+    /**
+     * Returns what the context lines of every match look like, worked out from all the lines at once.
+     */
+    private static String expected(List<String> lines, BitSet matches, int before, int after, long maxCount,
+                                   boolean isAfterGroup) {
+        BitSet counted = new BitSet();
+        BitSet written = new BitSet();
+        long count = 0;
+        for (int i = matches.nextSetBit(0); i >= 0 && count < maxCount; i = matches.nextSetBit(i + 1)) {
+            counted.set(i);
+            written.set(Math.max(0, i - before), (int) Math.min(lines.size(), (long) i + after + 1));
+            count++;
+        }
+        StringBuilder expected = new StringBuilder();
+        int last = -1;
+        for (int i = written.nextSetBit(0); i >= 0; i = written.nextSetBit(i + 1)) {
+            if (last < 0 ? isAfterGroup : i > last + 1) {
+                expected.append(ContextLineWriter.GROUP_SEPARATOR).append(STRING_NEWLINE);
+            }
+            expected.append(counted.get(i) ? PREFIX : CONTEXT_PREFIX).append(lines.get(i)).append(STRING_NEWLINE);
+            last = i;
+        }
+        return expected.toString();
+    }
+
+    /**
+     * Writes lines through context in chunks of random sizes.
+     */
+    private static void writeInChunks(ContextLineWriter context, List<String> lines, BitSet matches,
+                                      Random random) throws IOException {
+        int start = 0;
+        while (start < lines.size() && !context.isFinished()) {
+            int end = Math.min(lines.size(), start + 1 + random.nextInt(8));
+            context.write(lines.subList(start, end), matches.get(start, end));
+            start = end;
+        }
+    }
+
+    @Test
+    void write_randomMatchesAndChunks_writesEachWindowOnceInOrder() throws IOException {
+        Random random = new Random(4218);
+        for (int round = 0; round < 2000; round++) {
+            int size = random.nextInt(40);
+            List<String> lines = new ArrayList<>();
+            BitSet matches = new BitSet();
+            for (int i = 0; i < size; i++) {
+                lines.add("line" + i);
+                if (random.nextInt(6) == 0) {
+                    matches.set(i);
+                }
+            }
+            int before = random.nextInt(4);
+            int after = random.nextInt(4);
+            long maxCount = random.nextBoolean() ? Long.MAX_VALUE : random.nextInt(4);
+            boolean isAfterGroup = random.nextBoolean();
+            StringWriter writer = new StringWriter();
+            ContextLineWriter context = new ContextLineWriter(PREFIX, CONTEXT_PREFIX, before, after, maxCount,
+                    isAfterGroup, writer);
+
+            writeInChunks(context, lines, matches, random);
+
+            assertEquals(expected(lines, matches, before, after, maxCount, isAfterGroup), writer.toString());
+            assertEquals(Math.min(matches.cardinality(), maxCount), context.getCount());
+        }
+    }
+
+    @Test
+    void write_beforeContextLargerThanPreallocatedRing_writesEveryHeldLine() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            lines.add("line" + i);
+        }
+        BitSet matches = new BitSet();
+        matches.set(2000);
+        matches.set(4999);
+        StringWriter writer = new StringWriter();
+        ContextLineWriter context = new ContextLineWriter(PREFIX, CONTEXT_PREFIX, 1500, 0, Long.MAX_VALUE,
+                false, writer);
+
+        writeInChunks(context, lines, matches, new Random(4218));
+
+        assertEquals(expected(lines, matches, 1500, 0, Long.MAX_VALUE, false), writer.toString());
+    }
+
+    @Test
+    void isFinished_maxCountReached_isTrueOnceTrailingContextIsWritten() throws IOException {
+        StringWriter writer = new StringWriter();
+        ContextLineWriter context = new ContextLineWriter("", "", 0, 2, 1, false, writer);
+        BitSet matches = new BitSet();
+        matches.set(0);
+        matches.set(1);
+
+        context.write(List.of("a", "a"), matches);
+        assertFalse(context.isFinished());
+        context.write(List.of("b", "c"), new BitSet());
+
+        assertTrue(context.isFinished());
+        assertEquals("a" + STRING_NEWLINE + "a" + STRING_NEWLINE + "b" + STRING_NEWLINE, writer.toString());
+    }
+}
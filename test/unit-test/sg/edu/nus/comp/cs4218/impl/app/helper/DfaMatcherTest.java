@@ -0,0 +1,136 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DfaMatcherTest {
+    /**
+     * Characters of the lines: letters of both cases, line terminators that '.' and '$' treat specially,
+     * letters the regex engine folds only with UNICODE_CASE, a surrogate pair and lone surrogates.
+     */
+    private static final String[] LINE_CHARS = {"a", "b", "A", "B", "1", "_", " ", "-", "\n", "\r", "\u0085",
+        "\u2028", "é", "É", "k", "K", "😀", "\uD83D", "\uDE00"};
+    private static final String[] ATOMS = {"a", "b", "A", "k", "é", ".", "\\d", "\\w", "\\W", "\\s", "\\S",
+        "\\n", "\\r", "\\.", "-", "[ab]", "[^a]", "[a-c]", "[A-Z_]", "[^\\w\\s]", "[a-]", "[\\d-]", "[\\x41-\\x61]",
+        "\\u00e9", "[\\uD7FF-\\uE000]", "\\x2D", "^", "$"};
+    private static final String[] QUANTIFIERS = {"", "", "", "*", "+", "?", "*?", "{2}", "{0,2}", "{1,}", "{2,3}?"};
+
+    private static String randomLine(Random random) {
+        StringBuilder line = new StringBuilder();
+        int length = random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            line.append(LINE_CHARS[random.nextInt(LINE_CHARS.length)]);
+        }
+        return line.toString();
+    }
+
+    private static String randomPattern(Random random, int depth) {
+        StringBuilder pattern = new StringBuilder();
+        int alternatives = random.nextInt(4) == 0 ? 2 : 1;
+        for (int a = 0; a < alternatives; a++) {
+            if (a > 0) {
+                pattern.append('|');
+            }
+            int length = 1 + random.nextInt(3);
+            for (int i = 0; i < length; i++) {
+                String atom = depth < 2 && random.nextInt(5) == 0
+                        ? "(" + (random.nextBoolean() ? "?:" : "") + randomPattern(random, depth + 1) + ")"
+                        : ATOMS[random.nextInt(ATOMS.length)];
+                pattern.append(atom);
+                if (atom.indexOf('^') < 0 && atom.indexOf('$') < 0) {
+                    pattern.append(QUANTIFIERS[random.nextInt(QUANTIFIERS.length)]);
+                }
+            }
+        }
+        return pattern.toString();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void find_randomPatternsAndLines_agreesWithRegex(boolean isCaseInsensitive) {
+        Random random = new Random(4218);
+        for (int i = 0; i < 3000; i++) {
+            String pattern = randomPattern(random, 0);
+            Pattern compiledPattern = isCaseInsensitive
+                    ? Pattern.compile(pattern, Pattern.CASE_INSENSITIVE)
+                    : Pattern.compile(pattern);
+            DfaMatcher matcher = DfaMatcher.forPattern(compiledPattern);
+            assertNotNull(matcher, pattern);
+            for (int j = 0; j < 40; j++) {
+                String line = randomLine(random);
+                assertEquals(compiledPattern.matcher(line).find(), matcher.find(line),
+                        () -> "'" + pattern + "' in '" + line + "'");
+            }
+        }
+    }
+
+    @Test
+    void find_nestedAlternationThatBacktracks_takesLinearTime() {
+        DfaMatcher matcher = DfaMatcher.forPattern(Pattern.compile("^(a|aa)*b$"));
+        String line = "a".repeat(100_000);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            assertFalse(matcher.find(line));
+            assertTrue(matcher.find(line + "b"));
+        });
+    }
+
+    @Test
+    void find_moreDfaStatesThanTheCacheHolds_agreesWithRegex() {
+        // the DFA of this pattern remembers the last 15 characters, one state for each of 2^15 of them
+        Pattern compiledPattern = Pattern.compile("a[ab]{14}$");
+        DfaMatcher matcher = DfaMatcher.forPattern(compiledPattern);
+        Random random = new Random(4218);
+        for (int i = 0; i < 200; i++) {
+            StringBuilder line = new StringBuilder();
+            for (int j = 0; j < 5000; j++) {
+                line.append(random.nextBoolean() ? 'a' : 'b');
+            }
+            line.append(random.nextBoolean() ? "a" : "b").append("b".repeat(13 + random.nextInt(2)));
+            assertEquals(compiledPattern.matcher(line).find(), matcher.find(line.toString()));
+        }
+    }
+
+    @Test
+    void find_surrogates_readsPairsAsOneCharacterAndLoneOnesOnTheirOwn() {
+        DfaMatcher matcher = DfaMatcher.forPattern(Pattern.compile("[\\uD7FF-\\uE000]x"));
+
+        assertFalse(matcher.find("😀x"));
+        assertTrue(matcher.find("\uDE00x"));
+        assertTrue(matcher.find("x\uD83Dx"));
+        assertTrue(DfaMatcher.forPattern(Pattern.compile("^.x$")).find("😀x"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"(a)\\1", "a(?=b)", "(?<!a)b", "(?>a)", "a*+", "(?i)a", "\\ba", "a\\z", "\\p{L}",
+        "\\Qa\\E", "[a[b]]", "[a&&b]", "^*", "(a$)?", "\\x{41}", "\\0101", "\\uD83D\\uDE00", "a{100000}"})
+    void forPattern_notRegularSubset_returnsNull(String pattern) {
+        assertNull(DfaMatcher.forPattern(Pattern.compile(pattern)));
+    }
+
+    @Test
+    void forPattern_otherFlags_returnsNull() {
+        assertNull(DfaMatcher.forPattern(Pattern.compile("a", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE)));
+        assertNull(DfaMatcher.forPattern(Pattern.compile("a", Pattern.MULTILINE)));
+    }
+
+    @Test
+    void forPattern_namedGroupAndReluctantQuantifier_returnsMatcher() {
+        DfaMatcher matcher = DfaMatcher.forPattern(Pattern.compile("(?<word>ab)+?c"));
+
+        assertTrue(matcher.find("xababc"));
+        assertFalse(matcher.find("abac"));
+    }
+}
@@ -0,0 +1,148 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
+
+public class ExternalSorterTest {
+    private static final long IN_MEMORY = Long.MAX_VALUE;
+
+    private static List<String> randomLines(int count) {
+        Random random = new Random(4218);
+        String[] words = {"apple", "Apple", "APPLE", "banana", "Banana", "10 x", "010 x", "9 y", "-3 z", ""};
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add(words[random.nextInt(words.length)] + (random.nextInt(4) == 0 ? "" : " " + i % 7));
+        }
+        return lines;
+    }
+
+    private static String expectedOutput(List<String> sorted) {
+        return sorted.isEmpty() ? STRING_NEWLINE : String.join(STRING_NEWLINE, sorted) + STRING_NEWLINE;
+    }
+
+    private static String sort(List<String> lines, SortOrder order, long memoryBudget) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ExternalSorter sorter = new ExternalSorter(order, memoryBudget)) {
+            for (String line : lines) {
+                sorter.add(line);
+            }
+            sorter.writeTo(output);
+        }
+        return output.toString();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "false, false, false",
+        "false, false, true",
+        "false, true, false",
+        "false, true, true",
+        "true, false, false",
+        "true, true, true"
+    })
+    void writeTo_manyRuns_matchesStableInMemorySort(boolean isFirstWordNumber, boolean isCaseIndependent,
+                                                    boolean isReverse) throws IOException {
+        List<String> lines = randomLines(3000);
+        SortOrder order = new SortOrder(isFirstWordNumber, isReverse, isCaseIndependent);
+
+        String expected = expectedOutput(SortOrderTest.legacySort(lines, isFirstWordNumber, isReverse,
+                isCaseIndependent));
+
+        assertEquals(expected, sort(lines, order, IN_MEMORY));
+        // at most about 30 lines per run, so that runs are also merged in several passes
+        assertEquals(expected, sort(lines, order, 2500));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "false, 9223372036854775807",
+        "true, 9223372036854775807",
+        "false, 2500",
+        "true, 2500"
+    })
+    void readBytes_defaultOrder_matchesStringSort(boolean isReverse, long memoryBudget) throws IOException {
+        List<String> lines = randomLines(3000);
+        String expected = expectedOutput(SortOrderTest.legacySort(lines, false, isReverse, false));
+        byte[] input = (String.join(STRING_NEWLINE, lines) + STRING_NEWLINE).getBytes(Charset.defaultCharset());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ExternalSorter sorter = new ExternalSorter(new SortOrder(false, isReverse, false), memoryBudget)) {
+            InputStream remainder = sorter.readBytes(new ByteArrayInputStream(input));
+            // over the budget, the lines already read as bytes are sorted along with the rest
+            if (remainder != null) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(remainder));
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    sorter.add(line);
+                }
+            }
+            sorter.writeTo(output);
+        }
+
+        assertEquals(expected, output.toString());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "false, false",
+        "false, true",
+        "true, false",
+        "true, true"
+    })
+    void writeTo_uniqueManyRuns_matchesUniqueInMemorySort(boolean isCaseIndependent, boolean isReverse)
+            throws IOException {
+        List<String> lines = randomLines(3000);
+        SortOrder order = new SortOrder(false, isReverse, isCaseIndependent, true, List.of(), null, null);
+        List<String> sorted = new ArrayList<>(lines);
+        order.sort(sorted);
+
+        String expected = expectedOutput(sorted);
+
+        assertEquals(expected, sort(lines, order, IN_MEMORY));
+        assertEquals(expected, sort(lines, order, 2500));
+    }
+
+    @Test
+    void readBytes_keyedOrder_returnsInputUnread() throws IOException {
+        InputStream input = new ByteArrayInputStream(new byte[]{'a'});
+        try (ExternalSorter sorter = new ExternalSorter(new SortOrder(true, false, false), IN_MEMORY)) {
+            assertSame(input, sorter.readBytes(input));
+        }
+    }
+
+    @Test
+    void writeTo_noLines_writesSingleNewline() throws IOException {
+        assertEquals(STRING_NEWLINE, sort(List.of(), new SortOrder(false, false, false), IN_MEMORY));
+    }
+
+    @Test
+    void add_budgetReached_spillsRunsThatCloseDeletes() throws IOException {
+        ExternalSorter sorter = new ExternalSorter(new SortOrder(false, false, false), 1);
+        sorter.add("b");
+        sorter.add("a");
+        assertTrue(sorter.getRunCount() >= 2);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        sorter.writeTo(output);
+        sorter.close();
+
+        assertEquals("a" + STRING_NEWLINE + "b" + STRING_NEWLINE, output.toString());
+        assertEquals(0, sorter.getRunCount());
+    }
+}
@@ -0,0 +1,97 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sg.edu.nus.comp.cs4218.Environment;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileTreeWalkerTest {
+    private static final String TEXT = "text";
+
+    @Test
+    void listFiles_nestedDirectories_listsFilesInNameOrder(@TempDir Path tempDir) throws Exception {
+        Files.createDirectories(tempDir.resolve("b/d"));
+        Files.createDirectories(tempDir.resolve("empty"));
+        for (String name : new String[]{"c.txt", "a.txt", "b/d/f.txt", "b/e.txt"}) {
+            Files.writeString(tempDir.resolve(name), TEXT);
+        }
+        String root = tempDir.toString();
+        String sep = File.separator;
+
+        List<String> files = FileTreeWalker.listFiles(root);
+
+        assertEquals(List.of(root + sep + "a.txt", root + sep + "b" + sep + "d" + sep + "f.txt",
+                root + sep + "b" + sep + "e.txt", root + sep + "c.txt"), files);
+    }
+
+    @Test
+    void listFiles_manyFilesAndDirectories_keepsOrderOfSerialWalk(@TempDir Path tempDir) throws Exception {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Path directory = Files.createDirectory(tempDir.resolve("dir" + (char) ('a' + i)));
+            for (int j = 0; j < 100; j++) {
+                String name = String.format("file%03d.txt", j);
+                Files.writeString(directory.resolve(name), TEXT);
+                expected.add(tempDir + File.separator + directory.getFileName() + File.separator + name);
+            }
+        }
+
+        assertEquals(expected, FileTreeWalker.listFiles(tempDir.toString()));
+    }
+
+    @Test
+    void listFiles_binaryFile_isLeftOut(@TempDir Path tempDir) throws Exception {
+        Files.write(tempDir.resolve("binary.bin"), new byte[]{'x', 0, 'y'});
+        byte[] lateNul = new byte[FileTreeWalker.SNIFF_SIZE + 1];
+        Arrays.fill(lateNul, (byte) 'x');
+        lateNul[FileTreeWalker.SNIFF_SIZE] = 0;
+        Files.write(tempDir.resolve("late.txt"), lateNul);
+        Files.createFile(tempDir.resolve("empty.txt"));
+
+        assertEquals(List.of(tempDir + File.separator + "empty.txt", tempDir + File.separator + "late.txt"),
+                FileTreeWalker.listFiles(tempDir.toString()));
+    }
+
+    @Test
+    void listFiles_stdinFilesAndMissingNames_keepsThemInPlace(@TempDir Path tempDir) throws Exception {
+        Path file = Files.writeString(tempDir.resolve("file.bin"), "\0");
+        Path directory = Files.createDirectory(tempDir.resolve("dir"));
+        Files.writeString(directory.resolve("a.txt"), TEXT);
+        String missing = tempDir.resolve("missing").toString();
+
+        List<String> files = FileTreeWalker.listFiles("-", file.toString(), missing, directory + File.separator);
+
+        assertEquals(List.of("-", file.toString(), missing, directory + File.separator + "a.txt"), files);
+    }
+
+    @Test
+    void listFiles_fileNamedStdinUnderCurrentDirectory_isNamedAsPath(@TempDir Path tempDir) throws Exception {
+        Files.writeString(tempDir.resolve("-"), TEXT);
+        Files.writeString(tempDir.resolve("a.txt"), TEXT);
+        String previousDirectory = Environment.getCurrentDirectory();
+        Environment.setCurrentDirectory(tempDir.toString());
+        try {
+            assertEquals(List.of("." + File.separator + "-", "a.txt"), FileTreeWalker.listFiles("."));
+        } finally {
+            Environment.setCurrentDirectory(previousDirectory);
+        }
+    }
+
+    @Test
+    void hasDirectory_onlyFilesAndStdin_returnsFalse(@TempDir Path tempDir) throws Exception {
+        Path file = Files.writeString(tempDir.resolve("a.txt"), TEXT);
+
+        assertFalse(FileTreeWalker.hasDirectory("-", file.toString()));
+        assertTrue(FileTreeWalker.hasDirectory(file.toString(), tempDir.toString()));
+    }
+}
@@ -0,0 +1,87 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LiteralSearcherTest {
+    /**
+     * Letters whose case the regex engine folds only with UNICODE_CASE, next to their ASCII look-alikes.
+     */
+    private static final String ALPHABET = "aAbBkK éÉKſıİsSiI-:0";
+
+    private static String random(Random random, int maxLength) {
+        StringBuilder text = new StringBuilder();
+        int length = random.nextInt(maxLength + 1);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void find_randomLinesAndPatterns_agreesWithRegex(boolean isCaseInsensitive) {
+        Random random = new Random(4218);
+        for (int i = 0; i < 2000; i++) {
+            String pattern = random(random, 4);
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            Pattern compiledPattern = isCaseInsensitive
+                    ? Pattern.compile(pattern, Pattern.CASE_INSENSITIVE)
+                    : Pattern.compile(pattern);
+            LiteralSearcher searcher = LiteralSearcher.forPattern(compiledPattern);
+            assertNotNull(searcher, pattern);
+            for (int j = 0; j < 50; j++) {
+                String line = random(random, 30);
+                assertEquals(compiledPattern.matcher(line).find(), searcher.find(line),
+                        () -> "'" + pattern + "' in '" + line + "'");
+            }
+        }
+    }
+
+    @Test
+    void find_caseInsensitive_foldsOnlyAsciiLetters() {
+        LiteralSearcher searcher = LiteralSearcher.forPattern(Pattern.compile("Error", Pattern.CASE_INSENSITIVE));
+
+        assertTrue(searcher.find("an ERROR occurred"));
+        assertTrue(searcher.find("error"));
+        assertFalse(searcher.find("erro"));
+        assertFalse(LiteralSearcher.forPattern(Pattern.compile("k", Pattern.CASE_INSENSITIVE)).find("K"));
+        assertFalse(LiteralSearcher.forPattern(Pattern.compile("é", Pattern.CASE_INSENSITIVE)).find("É"));
+    }
+
+    @Test
+    void find_repeatedCharactersAndShortLines_findsEveryOccurrence() {
+        LiteralSearcher searcher = LiteralSearcher.forPattern(Pattern.compile("aab"));
+
+        assertTrue(searcher.find("aaab"));
+        assertTrue(searcher.find("xxaabxx"));
+        assertFalse(searcher.find("aa"));
+        assertFalse(searcher.find("abab"));
+        assertFalse(searcher.find(""));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"a.b", "^a", "a$", "a|b", "a?", "a*", "a+", "(a)", "[a]", "a{2}", "\\d", "😀"})
+    void forPattern_regexSyntaxOrSurrogates_returnsNull(String pattern) {
+        assertNull(LiteralSearcher.forPattern(Pattern.compile(pattern)));
+    }
+
+    @Test
+    void forPattern_otherFlags_returnsNull() {
+        assertNull(LiteralSearcher.forPattern(Pattern.compile("a", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE)));
+        assertNull(LiteralSearcher.forPattern(Pattern.compile("a", Pattern.COMMENTS)));
+        assertNull(LiteralSearcher.forPattern(Pattern.compile("a", Pattern.LITERAL)));
+    }
+}
@@ -0,0 +1,144 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MappedFileSearcherTest {
+    private static final String ALPHABET = "aAbBkK éÉ€ſı-";
+    private static final String[] TERMINATORS = {"\n", "\r", "\r\n"};
+    /**
+     * Bytes that are not valid UTF-8 on their own: a continuation byte and a truncated sequence.
+     */
+    private static final byte[][] INVALID_UTF8 = {{(byte) 0x80}, {(byte) 0xE2, (byte) 0x82}};
+
+    /**
+     * Returns random text that charset can encode, in which 'é' stands in for the characters it cannot.
+     */
+    private static String random(Random random, int maxLength, Charset charset) {
+        StringBuilder text = new StringBuilder();
+        int length = random.nextInt(maxLength + 1);
+        for (int i = 0; i < length; i++) {
+            char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            text.append(charset.newEncoder().canEncode(c) ? c : 'é');
+        }
+        return text.toString();
+    }
+
+    private static byte[] randomFile(Random random, Charset charset) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int lines = random.nextInt(20);
+        for (int i = 0; i < lines; i++) {
+            bytes.write(random(random, 12, charset).getBytes(charset));
+            if (StandardCharsets.UTF_8.equals(charset) && random.nextInt(8) == 0) {
+                bytes.write(INVALID_UTF8[random.nextInt(INVALID_UTF8.length)]);
+                bytes.write(random(random, 4, charset).getBytes(charset));
+            }
+            if (i < lines - 1 || random.nextBoolean()) {
+                bytes.write(TERMINATORS[random.nextInt(TERMINATORS.length)].getBytes(charset));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String readerMatches(byte[] content, Pattern compiledPattern, Charset charset,
+                                        boolean isCountLines) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(content), charset));
+        StringWriter writer = new StringWriter();
+        long count = GrepHelper.writeMatches(reader, compiledPattern, "p: ", isCountLines, writer);
+        return writer + "#" + count;
+    }
+
+    private static String mappedMatches(MappedFileSearcher searcher, File file, boolean isCountLines)
+            throws IOException {
+        StringWriter writer = new StringWriter();
+        long count = searcher.writeMatches(file, "p: ", isCountLines, writer);
+        return writer + "#" + count;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"UTF-8", "ISO-8859-1"})
+    void writeMatches_randomFilesAndWindows_agreesWithReader(String charsetName, @TempDir Path tempDir)
+            throws IOException {
+        Charset charset = Charset.forName(charsetName);
+        Random random = new Random(4218);
+        File file = tempDir.resolve("lines.txt").toFile();
+        for (int i = 0; i < 500; i++) {
+            String pattern = random(random, 3, charset);
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            boolean isCaseInsensitive = random.nextBoolean();
+            Pattern compiledPattern = isCaseInsensitive
+                    ? Pattern.compile(pattern, Pattern.CASE_INSENSITIVE)
+                    : Pattern.compile(pattern);
+            // small windows end inside lines, and may hold no line end at all
+            long windowSize = 1 + random.nextInt(40);
+            MappedFileSearcher searcher = MappedFileSearcher.forPattern(compiledPattern, charset, windowSize);
+            assertNotNull(searcher, pattern);
+            byte[] content = randomFile(random, charset);
+            Files.write(file.toPath(), content);
+            boolean isCountLines = random.nextInt(4) == 0;
+
+            assertEquals(readerMatches(content, compiledPattern, charset, isCountLines),
+                    mappedMatches(searcher, file, isCountLines), () -> "'" + pattern + "' in window " + windowSize);
+        }
+    }
+
+    @Test
+    void writeMatches_lineLongerThanWindow_findsMatchesAfterIt(@TempDir Path tempDir) throws IOException {
+        File file = tempDir.resolve("long.txt").toFile();
+        Files.write(file.toPath(), "error one\nxxxxxxxxxxxxxxxxxxxxxxxxxerror\nerror two\r\nnone\n"
+                .getBytes(StandardCharsets.UTF_8));
+        MappedFileSearcher searcher = MappedFileSearcher.forPattern(Pattern.compile("ERROR", Pattern.CASE_INSENSITIVE),
+                StandardCharsets.UTF_8, 16);
+
+        assertEquals("p: error one\np: xxxxxxxxxxxxxxxxxxxxxxxxxerror\np: error two\n#3",
+                mappedMatches(searcher, file, false).replace(System.lineSeparator(), "\n"));
+    }
+
+    @Test
+    void writeMatches_emptyFile_findsNothing(@TempDir Path tempDir) throws IOException {
+        File file = Files.createFile(tempDir.resolve("empty.txt")).toFile();
+        MappedFileSearcher searcher = MappedFileSearcher.forPattern(Pattern.compile("a"), StandardCharsets.UTF_8,
+                MappedFileSearcher.DEFAULT_WINDOW_SIZE);
+
+        assertEquals("#0", mappedMatches(searcher, file, false));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"a.b", "a\nb", "a\rb", "\uFFFD"})
+    void forPattern_regexOrUndecodableText_returnsNull(String pattern) {
+        assertNull(MappedFileSearcher.forPattern(Pattern.compile(pattern), StandardCharsets.UTF_8,
+                MappedFileSearcher.DEFAULT_WINDOW_SIZE));
+    }
+
+    @Test
+    void forPattern_charsetCannotEncodeOrIsUnsupported_returnsNull() {
+        Pattern compiledPattern = Pattern.compile("é");
+
+        assertNull(MappedFileSearcher.forPattern(compiledPattern, StandardCharsets.US_ASCII, 16));
+        assertNull(MappedFileSearcher.forPattern(Pattern.compile("€"), StandardCharsets.ISO_8859_1, 16));
+        assertNull(MappedFileSearcher.forPattern(Pattern.compile("a"), StandardCharsets.UTF_16, 16));
+        assertNotNull(MappedFileSearcher.forPattern(compiledPattern, StandardCharsets.ISO_8859_1, 16));
+    }
+}
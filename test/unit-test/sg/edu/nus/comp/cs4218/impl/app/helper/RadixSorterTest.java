@@ -0,0 +1,170 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static sg.edu.nus.comp.cs4218.impl.util.StringUtils.STRING_NEWLINE;
+
+public class RadixSorterTest {
+    private static final long IN_MEMORY = Long.MAX_VALUE;
+    private static final String ALPHABET = "aAbB0 -_~\u00E9\u00C9\u00DF\u0100\u4E2D\u20AC\u07FF\u0800";
+
+    private static InputStream stream(String text, Charset charset) {
+        return new ByteArrayInputStream(text.getBytes(charset));
+    }
+
+    private static String sortAsStrings(List<String> lines, boolean isReverseOrder) {
+        List<String> sorted = new ArrayList<>(lines);
+        Collections.sort(sorted);
+        if (isReverseOrder) {
+            Collections.reverse(sorted);
+        }
+        return String.join(STRING_NEWLINE, sorted) + STRING_NEWLINE;
+    }
+
+    private static String sortAsBytes(RadixSorter sorter, boolean isReverseOrder, Charset charset)
+            throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        sorter.writeTo(output, isReverseOrder, false);
+        return output.toString(charset);
+    }
+
+    private static List<String> randomLines(int count, int maxLength) {
+        Random random = new Random(4218);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder line = new StringBuilder();
+            int length = random.nextInt(maxLength);
+            for (int j = 0; j < length; j++) {
+                line.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void writeTo_randomUtf8Lines_matchesStringOrder(boolean isReverseOrder) throws IOException {
+        List<String> lines = randomLines(20_000, 12);
+        RadixSorter sorter = new RadixSorter(StandardCharsets.UTF_8, IN_MEMORY);
+
+        assertTrue(sorter.read(stream(String.join("\n", lines), StandardCharsets.UTF_8)));
+
+        assertTrue(sorter.isByteOrderExact());
+        assertEquals(sortAsStrings(lines, isReverseOrder), sortAsBytes(sorter, isReverseOrder, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writeTo_longCommonPrefixes_sortsWithoutRecursion() throws IOException {
+        String prefix = "x".repeat(100_000);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            lines.add(prefix + (char) ('z' - i % 26) + i);
+        }
+        RadixSorter sorter = new RadixSorter(StandardCharsets.UTF_8, IN_MEMORY);
+        assertTrue(sorter.read(stream(String.join("\n", lines), StandardCharsets.UTF_8)));
+
+        assertEquals(sortAsStrings(lines, false), sortAsBytes(sorter, false, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void read_severalInputsAndLineEndings_splitsLikeReadLine() throws IOException {
+        RadixSorter sorter = new RadixSorter(StandardCharsets.UTF_8, IN_MEMORY);
+
+        assertTrue(sorter.read(stream("d\r\nb\rc\n\ne", StandardCharsets.UTF_8)));
+        assertTrue(sorter.read(stream("a", StandardCharsets.UTF_8)));
+
+        assertEquals(String.join(STRING_NEWLINE, "", "a", "b", "c", "d", "e") + STRING_NEWLINE,
+                sortAsBytes(sorter, false, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writeTo_unique_skipsIdenticalLines() throws IOException {
+        RadixSorter sorter = new RadixSorter(StandardCharsets.UTF_8, IN_MEMORY);
+        assertTrue(sorter.read(stream("b\na\nb\n\na\n", StandardCharsets.UTF_8)));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        sorter.writeTo(output, true, true);
+
+        assertEquals(String.join(STRING_NEWLINE, "b", "a", "") + STRING_NEWLINE, output.toString());
+    }
+
+    @Test
+    void writeTo_noLines_writesSingleNewline() throws IOException {
+        RadixSorter sorter = new RadixSorter(StandardCharsets.UTF_8, IN_MEMORY);
+        assertTrue(sorter.read(stream("", StandardCharsets.UTF_8)));
+
+        assertEquals(STRING_NEWLINE, sortAsBytes(sorter, false, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void read_invalidUtf8_keepsNothingAndReturnsWholeInput() throws IOException {
+        byte[][] invalid = {{(byte) 0xC0, (byte) 0x80}, {(byte) 0xED, (byte) 0xA0, (byte) 0x80},
+            {(byte) 0xE2, (byte) 0x82}, {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80}, {(byte) 0xFF}};
+        for (byte[] bytes : invalid) {
+            RadixSorter sorter = new RadixSorter(StandardCharsets.UTF_8, IN_MEMORY);
+            assertTrue(sorter.read(stream("b\na", StandardCharsets.UTF_8)));
+
+            InputStream input = new ByteArrayInputStream(bytes);
+            assertFalse(sorter.read(input));
+
+            assertEquals(2, sorter.getLineCount());
+            assertArrayEquals(bytes, sorter.getRemainder(input).readAllBytes());
+        }
+    }
+
+    @Test
+    void read_overBudget_keepsNothingAndReturnsWholeInput() throws IOException {
+        String text = "line\n".repeat(1000);
+        InputStream input = stream(text, StandardCharsets.UTF_8);
+        RadixSorter sorter = new RadixSorter(StandardCharsets.UTF_8, 1000);
+
+        assertFalse(sorter.read(input));
+
+        assertEquals(0, sorter.getLineCount());
+        assertEquals(text, new String(sorter.getRemainder(input).readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void isByteOrderExact_supplementaryAndPrivateUseCharacters_isFalse() throws IOException {
+        RadixSorter onlySupplementary = new RadixSorter(StandardCharsets.UTF_8, IN_MEMORY);
+        onlySupplementary.read(stream("\uD83D\uDE00\n\u4E2D", StandardCharsets.UTF_8));
+        RadixSorter both = new RadixSorter(StandardCharsets.UTF_8, IN_MEMORY);
+        both.read(stream("\uD83D\uDE00\n\uE000", StandardCharsets.UTF_8));
+
+        assertTrue(onlySupplementary.isByteOrderExact());
+        assertEquals(sortAsStrings(List.of("\uD83D\uDE00", "\u4E2D"), false),
+                sortAsBytes(onlySupplementary, false, StandardCharsets.UTF_8));
+        assertFalse(both.isByteOrderExact());
+    }
+
+    @Test
+    void read_singleByteCharsets_acceptsOnlyTheirBytes() throws IOException {
+        byte[] bytes = {'b', '\n', (byte) 0xE9, '\n', 'a'};
+        RadixSorter latin1 = new RadixSorter(StandardCharsets.ISO_8859_1, IN_MEMORY);
+        RadixSorter ascii = new RadixSorter(StandardCharsets.US_ASCII, IN_MEMORY);
+
+        assertTrue(latin1.read(new ByteArrayInputStream(bytes)));
+        assertFalse(ascii.read(new ByteArrayInputStream(bytes)));
+
+        assertEquals(sortAsStrings(List.of("b", "\u00E9", "a"), false),
+                sortAsBytes(latin1, false, StandardCharsets.ISO_8859_1));
+    }
+}
@@ -0,0 +1,208 @@
+package sg.edu.nus.comp.cs4218.impl.app.helper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigInteger;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SortOrderTest {
+    private static final String[] PREFIXES = {"", "-", "--", "0", "007", "-0", "7", "-7", "42", "-42", "x", "X",
+        "9223372036854775807", "9223372036854775808", "-9223372036854775809", "123456789012345678",
+        "1234567890123456789", "00000000000000000000000001", "a1", "A1", "١٢", "É", "é", " "};
+    /**
+     * Prefixes among which the legacy comparator is transitive with -n, which it is not once numbers and
+     * other chunks are mixed, so that a sort of them has a well-defined result.
+     */
+    private static final String[] NUMBER_PREFIXES = {"0", "007", "-0", "7", "-7", "42", "-42",
+        "9223372036854775807", "9223372036854775808", "-9223372036854775809", "1234567890123456789", "١٢"};
+    private static final String[] SUFFIXES = {"", " ", "a", "B", "1", "-1", "b2", "ß"};
+
+    /**
+     * The comparator that sort used before keys were precomputed, which the keys must reproduce.
+     */
+    static Comparator<String> legacyComparator(boolean isFirstWordNumber, boolean isCaseIndependent) {
+        return (str1, str2) -> {
+            String temp1 = isCaseIndependent ? str1.toLowerCase(Locale.ENGLISH) : str1;
+            String temp2 = isCaseIndependent ? str2.toLowerCase(Locale.ENGLISH) : str2;
+            if (isFirstWordNumber && !temp1.isEmpty() && !temp2.isEmpty()) {
+                String chunk1 = SortHelper.getChunk(temp1);
+                String chunk2 = SortHelper.getChunk(temp2);
+                char first1 = chunk1.length() == 1 || chunk1.charAt(0) != '-' ? chunk1.charAt(0) : chunk1.charAt(1);
+                char first2 = chunk2.length() == 1 || chunk2.charAt(0) != '-' ? chunk2.charAt(0) : chunk2.charAt(1);
+                int result = Character.isDigit(first1) && Character.isDigit(first2)
+                        ? new BigInteger(chunk1).compareTo(new BigInteger(chunk2))
+                        : chunk1.compareTo(chunk2);
+                if (result != 0) {
+                    return result;
+                }
+                return temp1.substring(chunk1.length()).compareTo(temp2.substring(chunk2.length()));
+            }
+            return temp1.compareTo(temp2);
+        };
+    }
+
+    static List<String> legacySort(List<String> lines, boolean isFirstWordNumber, boolean isReverseOrder,
+                                   boolean isCaseIndependent) {
+        List<String> sorted = new ArrayList<>(lines);
+        sorted.sort(legacyComparator(isFirstWordNumber, isCaseIndependent));
+        if (isReverseOrder) {
+            Collections.reverse(sorted);
+        }
+        return sorted;
+    }
+
+    private static List<String> randomLines(String[] prefixes, int count, long seed) {
+        Random random = new Random(seed);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add(prefixes[random.nextInt(prefixes.length)] + SUFFIXES[random.nextInt(SUFFIXES.length)]);
+        }
+        return lines;
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "false, false, false",
+        "false, true, false",
+        "false, false, true",
+        "false, true, true",
+        "true, false, false",
+        "true, true, false",
+        "true, false, true",
+        "true, true, true"
+    })
+    void sort_mixedLines_matchesStableSortThenReverse(boolean isFirstWordNumber, boolean isReverseOrder,
+                                                      boolean isCaseIndependent) {
+        SortOrder order = new SortOrder(isFirstWordNumber, isReverseOrder, isCaseIndependent);
+        // large enough for keys to be computed in parallel
+        for (int count : new int[]{50, 20_000}) {
+            List<String> lines = randomLines(isFirstWordNumber ? NUMBER_PREFIXES : PREFIXES, count, count);
+            List<String> expected = legacySort(lines, isFirstWordNumber, isReverseOrder, isCaseIndependent);
+
+            order.sort(lines);
+
+            assertEquals(expected, lines);
+        }
+    }
+
+    @Test
+    void sort_fixedSizeList_sortsInPlace() {
+        List<String> lines = Arrays.asList("b", "a", "c");
+
+        new SortOrder(false, true, false).sort(lines);
+
+        assertEquals(List.of("c", "b", "a"), lines);
+    }
+
+    @Test
+    void sort_keyFieldsWithDelimiter_comparesFieldsInTurn() {
+        List<String> lines = new ArrayList<>(List.of("x,10,b", "y,9,b", "z,10,a", "w,-1"));
+
+        new SortOrder(true, false, false, false, List.of(new int[]{3, 3}, new int[]{2, 2}), ',', null).sort(lines);
+
+        assertEquals(List.of("w,-1", "z,10,a", "y,9,b", "x,10,b"), lines);
+    }
+
+    @Test
+    void sort_keyFieldsWithoutDelimiter_includesLeadingBlanksInFields() {
+        List<String> lines = new ArrayList<>(List.of("a  20 x", "b 3 y", "c\t100 z", "d"));
+
+        new SortOrder(true, false, false, false, List.<int[]>of(new int[]{2, 2}), null, null).sort(lines);
+        assertEquals(List.of("d", "b 3 y", "a  20 x", "c\t100 z"), lines);
+
+        // as strings, the blanks that start a field are compared too
+        new SortOrder(false, false, false, false, List.<int[]>of(new int[]{2, 0}), null, null).sort(lines);
+        assertEquals(List.of("d", "c\t100 z", "a  20 x", "b 3 y"), lines);
+    }
+
+    @Test
+    void sort_unique_keepsFirstOfEqualLines() {
+        List<String> lines = new ArrayList<>(List.of("b", "A", "a", "B", "c", "a"));
+
+        new SortOrder(false, false, true, true, List.of(), null, null).sort(lines);
+        assertEquals(List.of("A", "b", "c"), lines);
+
+        lines = new ArrayList<>(List.of("b", "a", "b", "a"));
+        new SortOrder(false, true, false, true, List.of(), null, null).sort(lines);
+        assertEquals(List.of("b", "a"), lines);
+
+        lines = new ArrayList<>(List.of("1,x", "2,y", "1,z"));
+        new SortOrder(true, true, false, true, List.<int[]>of(new int[]{1, 1}), ',', null).sort(lines);
+        assertEquals(List.of("2,y", "1,z"), lines);
+    }
+
+    @Test
+    void sort_collationLocale_matchesCollatorOrder() {
+        List<String> lines = new ArrayList<>();
+        for (String prefix : PREFIXES) {
+            for (String suffix : SUFFIXES) {
+                lines.add(prefix + suffix);
+            }
+        }
+        Collections.shuffle(lines, new Random(4218));
+        for (boolean isCaseIndependent : new boolean[]{false, true}) {
+            Collator collator = Collator.getInstance(Locale.GERMANY);
+            collator.setStrength(isCaseIndependent ? Collator.SECONDARY : Collator.TERTIARY);
+            collator.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+            List<String> expected = new ArrayList<>(lines);
+            expected.sort(collator);
+            List<String> actual = new ArrayList<>(lines);
+
+            new SortOrder(false, false, isCaseIndependent, false, List.of(), null, Locale.GERMANY).sort(actual);
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void sort_collationLocaleCaseIndependent_placesAccentsAndCaseNearBaseLetter() {
+        List<String> lines = new ArrayList<>(List.of("b", "\u00C4", "a", "A", "\u00E4", "B"));
+
+        new SortOrder(false, false, true, true, List.of(), null, Locale.GERMANY).sort(lines);
+
+        assertEquals(List.of("a", "\u00C4", "b"), lines);
+    }
+
+    @Test
+    void sort_collationLocaleWithNumbers_ordersNumbersFirstThenCollatedText() {
+        List<String> lines = new ArrayList<>(List.of("x", "10 b", "1 b", "1 \u00E4", "1 a", "-2"));
+
+        new SortOrder(true, false, false, false, List.of(), null, Locale.GERMANY).sort(lines);
+
+        assertEquals(List.of("-2", "1 a", "1 \u00E4", "1 b", "10 b", "x"), lines);
+    }
+
+    @Test
+    void compare_everyPairOfPrefixes_agreesWithLegacyComparator() {
+        List<String> lines = new ArrayList<>();
+        for (String prefix : PREFIXES) {
+            for (String suffix : SUFFIXES) {
+                lines.add(prefix + suffix);
+            }
+        }
+        for (boolean isFirstWordNumber : new boolean[]{false, true}) {
+            for (boolean isCaseIndependent : new boolean[]{false, true}) {
+                SortOrder order = new SortOrder(isFirstWordNumber, false, isCaseIndependent);
+                Comparator<String> legacy = legacyComparator(isFirstWordNumber, isCaseIndependent);
+                for (String line1 : lines) {
+                    for (String line2 : lines) {
+                        int expected = Integer.signum(legacy.compare(line1, line2));
+                        int actual = Integer.signum(order.compare(order.keyOf(line1, 0), order.keyOf(line2, 0)));
+                        assertEquals(expected, actual, () -> "'" + line1 + "' vs '" + line2 + "'");
+                    }
+                }
+            }
+        }
+    }
+}
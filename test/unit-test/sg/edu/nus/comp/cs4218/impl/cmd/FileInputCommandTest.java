@@ -0,0 +1,80 @@
+package sg.edu.nus.comp.cs4218.impl.cmd;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import sg.edu.nus.comp.cs4218.impl.util.ApplicationRunner;
+import sg.edu.nus.comp.cs4218.impl.util.ShellOptions.PipeMode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FileInputCommandTest {
+    private static final String[] CONTENTS = {"", "\n", "a", "a\n", "a\nb\n", "  a  \n\n\t\n", "a\r\nb\r\n",
+            "x \n y \n", "\n\nfirst after blanks\n", "ünïcödé\n"};
+
+    @TempDir
+    private Path tempDir;
+
+    private static List<CallCommand> pipe(String pipeString) {
+        List<CallCommand> callCommands = new ArrayList<>();
+        for (String commandString : pipeString.split(" \\| ")) {
+            callCommands.add(new CallCommand(Arrays.asList(commandString.split(" ")), new ApplicationRunner()));
+        }
+        return callCommands;
+    }
+
+    private static String evaluate(String pipeString, boolean isOptimized) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new PipeCommand(pipe(pipeString), PipeMode.SERIAL, isOptimized)
+                .evaluate(new ByteArrayInputStream(new byte[0]), output);
+        return output.toString();
+    }
+
+    private String writeFiles(String... contents) throws IOException {
+        StringBuilder fileNames = new StringBuilder();
+        for (int i = 0; i < contents.length; i++) {
+            Path file = tempDir.resolve("file" + i + ".txt");
+            Files.writeString(file, contents[i]);
+            fileNames.append(' ').append(file);
+        }
+        return fileNames.toString();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"wc -c", "grep a", "cut -c 1-2", "sort"})
+    void evaluate_eachSingleFile_matchesUnoptimizedPipe(String consumer) throws Exception {
+        for (String content : CONTENTS) {
+            String pipeString = "cat" + writeFiles(content) + " | " + consumer;
+
+            assertEquals(evaluate(pipeString, false), evaluate(pipeString, true), content);
+        }
+    }
+
+    @Test
+    void evaluate_multipleFiles_matchesUnoptimizedPipe() throws Exception {
+        for (String first : CONTENTS) {
+            for (String second : CONTENTS) {
+                String pipeString = "cat" + writeFiles(first, second, "  ") + " | wc -c";
+
+                assertEquals(evaluate(pipeString, false), evaluate(pipeString, true), first + "|" + second);
+            }
+        }
+    }
+
+    @Test
+    void evaluate_missingFile_fallsBackToCatErrors() throws Exception {
+        String pipeString = "cat" + writeFiles("a\n") + " " + tempDir.resolve("missing.txt") + " | grep :";
+
+        assertEquals(evaluate(pipeString, false), evaluate(pipeString, true));
+    }
+}
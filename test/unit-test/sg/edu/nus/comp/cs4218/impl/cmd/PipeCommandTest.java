@@ -2,24 +2,44 @@ package sg.edu.nus.comp.cs4218.impl.cmd;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import sg.edu.nus.comp.cs4218.exception.AbstractApplicationException;
 import sg.edu.nus.comp.cs4218.exception.ShellException;
+import sg.edu.nus.comp.cs4218.impl.util.ApplicationRunner;
+import sg.edu.nus.comp.cs4218.impl.util.ShellOptions.PipeMode;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static sg.edu.nus.comp.cs4218.CommandTestUtils.INVALID_COMMAND;
 import static sg.edu.nus.comp.cs4218.CommandTestUtils.SHELL_EXCEPTION;
+import static sg.edu.nus.comp.cs4218.CommandTestUtils.VALID_TEST_STRING;
 import static sg.edu.nus.comp.cs4218.CommandTestUtils.generateCallCommands;
 import static sg.edu.nus.comp.cs4218.CommandTestUtils.generateValidAndInvalidCallCommands;
 
@@ -76,4 +96,221 @@ public class PipeCommandTest {
 
         assertEquals(String.format(INVALID_COMMAND), exception.getMessage());
     }
+
+    @Test
+    void evaluate_platformModeValidCommandStrings_runApplication()
+            throws FileNotFoundException, AbstractApplicationException, ShellException {
+        PipeCommand testPipe = new PipeCommand(generateCallCommands(5), PipeMode.PLATFORM);
+
+        testPipe.evaluate(inputStream, outputStream);
+
+        assertEquals(TEST_INPUT_STRING, outputStream.toString());
+    }
+
+    @Test
+    void evaluate_virtualModeValidCommandStrings_runApplication()
+            throws FileNotFoundException, AbstractApplicationException, ShellException {
+        PipeCommand testPipe = new PipeCommand(generateCallCommands(5), PipeMode.VIRTUAL);
+
+        testPipe.evaluate(inputStream, outputStream);
+
+        assertEquals(TEST_INPUT_STRING, outputStream.toString());
+    }
+
+    @Test
+    void evaluate_platformModeInputLargerThanPipe_outputMatchesInput()
+            throws FileNotFoundException, AbstractApplicationException, ShellException {
+        byte[] input = new byte[1024 * 1024];
+        Arrays.fill(input, (byte) 'a');
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PipeCommand testPipe = new PipeCommand(generateCallCommands(3), PipeMode.PLATFORM);
+
+        testPipe.evaluate(new ByteArrayInputStream(input), output);
+
+        assertArrayEquals(input, output.toByteArray());
+    }
+
+    @Test
+    void evaluate_platformModeInvalidCommandString_throwShellException()
+            throws FileNotFoundException, AbstractApplicationException, ShellException {
+        List<CallCommand> commands = generateValidAndInvalidCallCommands(new ShellException(INVALID_COMMAND));
+
+        PipeCommand testPipe = new PipeCommand(commands, PipeMode.PLATFORM);
+
+        Throwable exception = assertThrowsExactly(ShellException.class, () -> testPipe.evaluate(inputStream, outputStream));
+
+        assertEquals(String.format(SHELL_EXCEPTION, INVALID_COMMAND), exception.getMessage());
+        assertEquals(String.format(VALID_TEST_STRING, 1), outputStream.toString());
+    }
+
+    @Test
+    void evaluate_platformModeDownstreamIgnoresInput_noBrokenPipeError()
+            throws FileNotFoundException, AbstractApplicationException, ShellException {
+        CallCommand producer = mock(CallCommand.class);
+        doAnswer(args -> {
+            OutputStream output = args.getArgument(1);
+            byte[] chunk = new byte[4096];
+            for (int i = 0; i < 1024; i++) {
+                output.write(chunk);
+            }
+            return null;
+        }).when(producer).evaluate(any(), any());
+        CallCommand consumer = mock(CallCommand.class);
+        doAnswer(args -> {
+            InputStream input = args.getArgument(0);
+            input.close();
+            OutputStream output = args.getArgument(1);
+            output.write(TEST_INPUT_STRING.getBytes());
+            return null;
+        }).when(consumer).evaluate(any(), any());
+
+        PipeCommand testPipe = new PipeCommand(List.of(producer, consumer), PipeMode.PLATFORM);
+        testPipe.evaluate(inputStream, outputStream);
+
+        assertEquals(TEST_INPUT_STRING, outputStream.toString());
+    }
+
+    @Test
+    void evaluate_platformModeDownstreamFinishesFirst_stopsUpstreamAtItsNextWrite()
+            throws FileNotFoundException, AbstractApplicationException, ShellException {
+        CallCommand producer = mock(CallCommand.class);
+        doAnswer(args -> {
+            OutputStream output = args.getArgument(1);
+            while (true) {
+                output.write(TEST_INPUT_STRING.getBytes());
+            }
+        }).when(producer).evaluate(any(), any());
+        CallCommand consumer = mock(CallCommand.class);
+        doAnswer(args -> {
+            OutputStream output = args.getArgument(1);
+            output.write(TEST_INPUT_STRING.getBytes());
+            return null;
+        }).when(consumer).evaluate(any(), any());
+
+        PipeCommand testPipe = new PipeCommand(List.of(producer, consumer), PipeMode.PLATFORM, false);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> testPipe.evaluate(inputStream, outputStream));
+
+        assertEquals(TEST_INPUT_STRING, outputStream.toString());
+    }
+
+    @Test
+    void evaluate_platformModeRedirectedUpstreamOutlivesDownstream_writesAllOfItsOutput(@TempDir Path tempDir)
+            throws Exception {
+        Path outFile = tempDir.resolve("out.txt");
+        CountDownLatch isDownstreamDone = new CountDownLatch(1);
+        ApplicationRunner appRunner = mock(ApplicationRunner.class);
+        doAnswer(args -> {
+            isDownstreamDone.await();
+            Thread.sleep(100);
+            OutputStream output = args.getArgument(3);
+            for (int i = 0; i < 1000; i++) {
+                output.write(String.format(VALID_TEST_STRING, i).getBytes());
+            }
+            return null;
+        }).when(appRunner).runApp(eq("upstream"), any(), any(), any());
+        doAnswer(args -> {
+            isDownstreamDone.countDown();
+            return null;
+        }).when(appRunner).runApp(eq("downstream"), any(), any(), any());
+        List<CallCommand> commands = List.of(
+                new CallCommand(new ArrayList<>(List.of("upstream", ">", outFile.toString())), appRunner),
+                new CallCommand(new ArrayList<>(List.of("downstream")), appRunner));
+
+        for (PipeMode pipeMode : List.of(PipeMode.PLATFORM, PipeMode.VIRTUAL)) {
+            Files.deleteIfExists(outFile);
+            PipeCommand testPipe = new PipeCommand(commands, pipeMode, false);
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> testPipe.evaluate(inputStream, outputStream));
+
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < 1000; i++) {
+                expected.append(String.format(VALID_TEST_STRING, i));
+            }
+            assertEquals(expected.toString(), Files.readString(outFile));
+        }
+    }
+
+    @Test
+    void evaluate_sameCommandEvaluatedTwiceAtOnce_stopsOnlyStagesOfFinishedEvaluation() throws Exception {
+        InputStream blockedInput = new ByteArrayInputStream(new byte[0]);
+        OutputStream blockedOutput = new ByteArrayOutputStream();
+        CountDownLatch isOtherStarted = new CountDownLatch(1);
+        CountDownLatch isBlockedDone = new CountDownLatch(1);
+        ApplicationRunner appRunner = mock(ApplicationRunner.class);
+        doAnswer(args -> {
+            if (args.getArgument(2) == blockedInput) {
+                OutputStream output = args.getArgument(3);
+                while (true) {
+                    output.write(TEST_INPUT_STRING.getBytes());
+                }
+            }
+            isOtherStarted.countDown();
+            isBlockedDone.await();
+            ((InputStream) args.getArgument(2)).transferTo(args.getArgument(3));
+            return null;
+        }).when(appRunner).runApp(eq("upstream"), any(), any(), any());
+        doAnswer(args -> {
+            if (args.getArgument(3) != blockedOutput) {
+                ((InputStream) args.getArgument(2)).transferTo(args.getArgument(3));
+            }
+            return null;
+        }).when(appRunner).runApp(eq("downstream"), any(), any(), any());
+        List<CallCommand> commands = List.of(new CallCommand(new ArrayList<>(List.of("upstream")), appRunner),
+                new CallCommand(new ArrayList<>(List.of("downstream")), appRunner));
+        PipeCommand testPipe = new PipeCommand(commands, PipeMode.PLATFORM, false);
+        AtomicReference<Exception> otherFailure = new AtomicReference<>();
+        Thread other = new Thread(() -> {
+            try {
+                testPipe.evaluate(inputStream, outputStream);
+            } catch (Exception e) {
+                otherFailure.set(e);
+            }
+        });
+
+        other.start();
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            isOtherStarted.await();
+            testPipe.evaluate(blockedInput, blockedOutput);
+            isBlockedDone.countDown();
+            other.join();
+        });
+
+        assertNull(otherFailure.get());
+        assertEquals(TEST_INPUT_STRING, outputStream.toString());
+    }
+
+    @Test
+    void evaluate_platformModeSlowFirstStage_firstOutputArrivesBeforeFirstStageFinishes()
+            throws FileNotFoundException, AbstractApplicationException, ShellException {
+        CountDownLatch firstOutput = new CountDownLatch(1);
+        AtomicBoolean isStreamed = new AtomicBoolean(false);
+        CallCommand producer = mock(CallCommand.class);
+        doAnswer(args -> {
+            OutputStream output = args.getArgument(1);
+            output.write("first ".getBytes());
+            output.flush();
+            isStreamed.set(firstOutput.await(5, TimeUnit.SECONDS));
+            output.write("last".getBytes());
+            return null;
+        }).when(producer).evaluate(any(), any());
+        CallCommand forwarder = mock(CallCommand.class);
+        doAnswer(args -> {
+            InputStream input = args.getArgument(0);
+            OutputStream output = args.getArgument(1);
+            input.transferTo(output);
+            return null;
+        }).when(forwarder).evaluate(any(), any());
+        OutputStream signallingOutput = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] bytes, int off, int len) {
+                super.write(bytes, off, len);
+                firstOutput.countDown();
+            }
+        };
+
+        PipeCommand testPipe = new PipeCommand(List.of(producer, forwarder), PipeMode.PLATFORM);
+        testPipe.evaluate(inputStream, signallingOutput);
+
+        assertTrue(isStreamed.get());
+        assertEquals("first last", signallingOutput.toString());
+    }
 }
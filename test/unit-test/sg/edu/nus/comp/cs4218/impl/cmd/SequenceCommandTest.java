@@ -14,11 +14,20 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static sg.edu.nus.comp.cs4218.CommandTestUtils.INVALID_COMMAND;
 import static sg.edu.nus.comp.cs4218.CommandTestUtils.SHELL_EXCEPTION;
 import static sg.edu.nus.comp.cs4218.CommandTestUtils.VALID_TEST_STRING;
@@ -118,4 +127,126 @@ public class SequenceCommandTest {
         assertEquals(expectedOutput, outputStream.toString());
     }
 
+    @Test
+    void evaluate_validCommandStrings_earlierOutputWrittenBeforeLaterCommandRuns()
+            throws FileNotFoundException, AbstractApplicationException, ShellException {
+        AtomicBoolean isStreamed = new AtomicBoolean(false);
+        Command firstCommand = mock(Command.class);
+        doAnswer(args -> {
+            OutputStream output = args.getArgument(1);
+            output.write(String.format(VALID_TEST_STRING, 0).getBytes());
+            return null;
+        }).when(firstCommand).evaluate(any(), any());
+        Command secondCommand = mock(Command.class);
+        doAnswer(args -> {
+            isStreamed.set(outputStream.toString().equals(String.format(VALID_TEST_STRING, 0)));
+            return null;
+        }).when(secondCommand).evaluate(any(), any());
+
+        SequenceCommand testSequence = new SequenceCommand(List.of(firstCommand, secondCommand));
+
+        testSequence.evaluate(inputStream, outputStream);
+
+        assertTrue(isStreamed.get());
+    }
+
+    @Test
+    void evaluate_commandClosesOutputStream_stdoutRemainsOpen()
+            throws FileNotFoundException, AbstractApplicationException, ShellException {
+        AtomicBoolean isClosed = new AtomicBoolean(false);
+        OutputStream trackingOutput = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                isClosed.set(true);
+            }
+        };
+        Command closingCommand = mock(Command.class);
+        doAnswer(args -> {
+            OutputStream output = args.getArgument(1);
+            output.write(String.format(VALID_TEST_STRING, 0).getBytes());
+            output.close();
+            return null;
+        }).when(closingCommand).evaluate(any(), any());
+
+        SequenceCommand testSequence = new SequenceCommand(List.of(closingCommand, closingCommand));
+
+        testSequence.evaluate(inputStream, trackingOutput);
+
+        assertFalse(isClosed.get());
+        assertEquals(String.format(VALID_TEST_STRING, 0) + String.format(VALID_TEST_STRING, 0),
+                trackingOutput.toString());
+    }
+
+    private static CallCommand mockCallCommand(List<String> argsList, String output, Runnable action)
+            throws FileNotFoundException, AbstractApplicationException, ShellException {
+        CallCommand mockCommand = mock(CallCommand.class);
+        when(mockCommand.getArgsList()).thenReturn(argsList);
+        doAnswer(args -> {
+            action.run();
+            OutputStream outputStream = args.getArgument(1);
+            outputStream.write(output.getBytes());
+            return null;
+        }).when(mockCommand).evaluate(any(), any());
+        return mockCommand;
+    }
+
+    @Test
+    void evaluate_concurrentIndependentCommands_runTogetherAndKeepOrder()
+            throws FileNotFoundException, AbstractApplicationException, ShellException {
+        CountDownLatch secondStarted = new CountDownLatch(1);
+        AtomicBoolean isConcurrent = new AtomicBoolean(false);
+        CallCommand first = mockCallCommand(List.of("echo", "first"), String.format(VALID_TEST_STRING, 0), () -> {
+            try {
+                isConcurrent.set(secondStarted.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CallCommand second = mockCallCommand(List.of("echo", "second"), String.format(VALID_TEST_STRING, 1),
+                secondStarted::countDown);
+
+        SequenceCommand testSequence = new SequenceCommand(List.of(first, second), 2);
+
+        testSequence.evaluate(inputStream, outputStream);
+
+        assertTrue(isConcurrent.get());
+        assertEquals(String.format(VALID_TEST_STRING, 0) + String.format(VALID_TEST_STRING, 1),
+                outputStream.toString());
+    }
+
+    @Test
+    void evaluate_concurrentWithSerialCommand_serialCommandActsAsBarrier()
+            throws FileNotFoundException, AbstractApplicationException, ShellException {
+        StringBuilder events = new StringBuilder();
+        CallCommand before = mockCallCommand(List.of("echo", "a"), "a", () -> events.append("a"));
+        CallCommand barrier = mockCallCommand(List.of("cd", "dir"), "", () -> events.append("cd"));
+        CallCommand after = mockCallCommand(List.of("echo", "b"), "b", () -> events.append("b"));
+
+        SequenceCommand testSequence = new SequenceCommand(List.of(before, barrier, after), 4);
+
+        testSequence.evaluate(inputStream, outputStream);
+
+        assertEquals("acdb", events.toString());
+        assertEquals("ab", outputStream.toString());
+    }
+
+    @Test
+    void evaluate_concurrentCommandFails_errorMessageWrittenInPlace()
+            throws FileNotFoundException, AbstractApplicationException, ShellException {
+        CallCommand first = mockCallCommand(List.of("echo", "a"), String.format(VALID_TEST_STRING, 0), () -> { });
+        CallCommand failing = mock(CallCommand.class);
+        when(failing.getArgsList()).thenReturn(List.of("cat", "missing.txt"));
+        doAnswer(args -> {
+            throw new ShellException(INVALID_COMMAND);
+        }).when(failing).evaluate(any(), any());
+        CallCommand last = mockCallCommand(List.of("echo", "b"), String.format(VALID_TEST_STRING, 1), () -> { });
+
+        SequenceCommand testSequence = new SequenceCommand(List.of(first, failing, last), 3);
+
+        testSequence.evaluate(inputStream, outputStream);
+
+        assertEquals(String.format(VALID_TEST_STRING, 0)
+                + String.format(SHELL_EXCEPTION + System.lineSeparator(), INVALID_COMMAND)
+                + String.format(VALID_TEST_STRING, 1), outputStream.toString());
+    }
 }
@@ -0,0 +1,70 @@
+package sg.edu.nus.comp.cs4218.impl.cmd;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import sg.edu.nus.comp.cs4218.impl.util.ApplicationRunner;
+import sg.edu.nus.comp.cs4218.impl.util.ShellOptions.PipeMode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SortUniqCommandTest {
+    private static final String[] INPUTS = {"", "\n", "a", "b\na\nb\n", "B\nb\na\nA\nb\n", "  lead\nlead\n  lead\n",
+            "3\n10\n3\n2\n", "x\r\ny\r\nx\r\n", "\n\n\t\n \n"};
+
+    @TempDir
+    private Path tempDir;
+
+    private static List<CallCommand> pipe(String pipeString) {
+        List<CallCommand> callCommands = new ArrayList<>();
+        for (String commandString : pipeString.split(" \\| ")) {
+            callCommands.add(new CallCommand(Arrays.asList(commandString.split(" ")), new ApplicationRunner()));
+        }
+        return callCommands;
+    }
+
+    private static String evaluate(String pipeString, String input, boolean isOptimized) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new PipeCommand(pipe(pipeString), PipeMode.SERIAL, isOptimized)
+                .evaluate(new ByteArrayInputStream(input.getBytes()), output);
+        return output.toString();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"sort | uniq", "sort | uniq -c", "sort -r | uniq", "sort -r | uniq -c"})
+    void evaluate_stdin_matchesUnoptimizedPipe(String pipeString) throws Exception {
+        for (String input : INPUTS) {
+            assertEquals(evaluate(pipeString, input, false), evaluate(pipeString, input, true), input);
+        }
+    }
+
+    @Test
+    void evaluate_files_matchesUnoptimizedPipe() throws Exception {
+        Path first = Files.writeString(tempDir.resolve("first.txt"), "b\na\n");
+        Path second = Files.writeString(tempDir.resolve("second.txt"), "a\nc");
+        String pipeString = "sort " + first + " " + second + " | uniq -c";
+
+        assertEquals(evaluate(pipeString, "", false), evaluate(pipeString, "", true));
+    }
+
+    @Test
+    void evaluate_missingFile_fallsBackToSortError() {
+        String pipeString = "sort " + tempDir.resolve("missing.txt") + " | uniq";
+
+        Exception unoptimized = assertThrows(Exception.class,
+                () -> evaluate(pipeString, "", false));
+        Exception optimized = assertThrows(Exception.class,
+                () -> evaluate(pipeString, "", true));
+        assertEquals(unoptimized.getMessage(), optimized.getMessage());
+    }
+}
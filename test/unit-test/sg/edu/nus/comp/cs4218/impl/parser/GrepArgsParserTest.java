@@ -164,7 +164,13 @@ public class GrepArgsParserTest {
     @Test
     void isCount_uppercaseFlagGiven_shouldReturnErrorMessage() {
         InvalidArgsException thrown = assertThrows(InvalidArgsException.class, () -> grepArgsParser.parse("-C"));
-        assertEquals(thrown.getMessage(), E_ILLEGAL_OPTION + "C");
+        assertEquals("Missing Argument", thrown.getMessage());
+    }
+
+    @Test
+    void isCount_uppercaseFlagWithValueGiven_shouldReturnFalse() throws InvalidArgsException {
+        grepArgsParser.parse("-C", "2", "pattern");
+        assertFalse(grepArgsParser.isCount());
     }
 
     @Test
@@ -191,6 +197,19 @@ public class GrepArgsParserTest {
         assertFalse(grepArgsParser.isPrintFileName());
     }
 
+    @Test
+    void isRecursive_validFlagGiven_shouldReturnTrue() throws InvalidArgsException {
+        grepArgsParser.parse("-ir", "pattern", "folder");
+        assertTrue(grepArgsParser.isRecursive());
+        assertTrue(grepArgsParser.isCaseInsensitive());
+    }
+
+    @Test
+    void isRecursive_differentFlagGiven_shouldReturnFalse() throws InvalidArgsException {
+        grepArgsParser.parse("-i", "pattern");
+        assertFalse(grepArgsParser.isRecursive());
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"test", "4218", "!!", "\"white shark\"", "\"wow 4218\"", "'haha'", "'1010'", "^GNU", "and$", "..cept", "t[wo]o"})
     void parse_validPatterns_shouldReturnGivenPattern(String input) throws InvalidArgsException {
@@ -217,6 +236,103 @@ public class GrepArgsParserTest {
         assertArrayEquals(grepArgsParser.getFileNames(), new String[]{"-"});
     }
 
+    @Test
+    void getFileNames_recursiveWithoutFileNames_shouldReturnCurrentDirectory() throws InvalidArgsException {
+        grepArgsParser.parse("-r", "pattern");
+        assertArrayEquals(new String[]{"."}, grepArgsParser.getFileNames());
+    }
+
+    @Test
+    void getPattern_repeatedPatternOptions_shouldReturnPatternsOnePerLine() throws InvalidArgsException {
+        grepArgsParser.parse("-i", "-e", "foo", "-cebar", "-f", "patterns.txt", "example.txt");
+        assertEquals("foo\nbar", grepArgsParser.getPattern());
+        assertEquals(List.of("patterns.txt"), grepArgsParser.getPatternFiles());
+        assertArrayEquals(new String[]{"example.txt"}, grepArgsParser.getFileNames());
+        assertTrue(grepArgsParser.isCaseInsensitive());
+        assertTrue(grepArgsParser.isCount());
+    }
+
+    @Test
+    void getFileNames_patternFileOnly_shouldReturnStdin() throws InvalidArgsException {
+        grepArgsParser.parse("-f", "patterns.txt");
+        assertEquals("", grepArgsParser.getPattern());
+        assertArrayEquals(new String[]{"-"}, grepArgsParser.getFileNames());
+    }
+
+    @Test
+    void parse_patternOptionWithoutValue_shouldReturnErrorMessage() {
+        InvalidArgsException thrown = assertThrows(InvalidArgsException.class, () -> grepArgsParser.parse("-e"));
+        assertEquals("Missing Argument", thrown.getMessage());
+    }
+
+    @Test
+    void parse_invalidPatternOption_shouldThrowErrorMessage() {
+        InvalidArgsException thrown = assertThrows(InvalidArgsException.class,
+                () -> grepArgsParser.parse("-e", "ok", "-e", "[", "example.txt"));
+        assertTrue(thrown.getMessage().startsWith("Invalid pattern: "));
+    }
+
+    @Test
+    void getMaxCount_earlyExitOptions_shouldReturnLastMaxCount() throws InvalidArgsException {
+        grepArgsParser.parse("-q", "-m", "5", "-lm2", "foo", "example.txt");
+        assertEquals(2, grepArgsParser.getMaxCount());
+        assertTrue(grepArgsParser.isQuiet());
+        assertTrue(grepArgsParser.isListFiles());
+        assertEquals("foo", grepArgsParser.getPattern());
+    }
+
+    @Test
+    void getMaxCount_noMaxCountOption_shouldReturnNoLimit() throws InvalidArgsException {
+        grepArgsParser.parse("foo", "example.txt");
+        assertEquals(Long.MAX_VALUE, grepArgsParser.getMaxCount());
+        assertFalse(grepArgsParser.isQuiet());
+        assertFalse(grepArgsParser.isListFiles());
+    }
+
+    @Test
+    void getContext_contextOptions_shouldLetAfterAndBeforeOverrideContext() throws InvalidArgsException {
+        grepArgsParser.parse("-A", "1", "-C3", "-i", "foo", "example.txt");
+        assertEquals(1, grepArgsParser.getAfterContext());
+        assertEquals(3, grepArgsParser.getBeforeContext());
+        assertTrue(grepArgsParser.isCaseInsensitive());
+        assertArrayEquals(new String[]{"example.txt"}, grepArgsParser.getFileNames());
+    }
+
+    @Test
+    void hasContext_zeroOrNoContext_shouldTellThemApart() throws InvalidArgsException {
+        grepArgsParser.parse("-C", "0", "foo");
+        assertTrue(grepArgsParser.hasContext());
+        assertEquals(0, grepArgsParser.getAfterContext());
+        assertEquals(0, grepArgsParser.getBeforeContext());
+
+        GrepArgsParser noContextParser = new GrepArgsParser();
+        noContextParser.parse("foo");
+        assertFalse(noContextParser.hasContext());
+    }
+
+    @Test
+    void getContext_hugeContext_shouldReturnIntegerMax() throws InvalidArgsException {
+        grepArgsParser.parse("-B", "99999999999", "foo");
+        assertEquals(Integer.MAX_VALUE, grepArgsParser.getBeforeContext());
+        assertEquals(0, grepArgsParser.getAfterContext());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"-A", "-B", "-C"})
+    void parse_invalidContext_shouldThrowErrorMessage(String flag) {
+        InvalidArgsException thrown = assertThrows(InvalidArgsException.class,
+                () -> grepArgsParser.parse(flag, "two", "foo"));
+        assertEquals("Invalid syntax", thrown.getMessage());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"-1", "x", "1e3", "9999999999999999999"})
+    void parse_invalidMaxCount_shouldThrowErrorMessage(String maxCount) {
+        InvalidArgsException thrown = assertThrows(InvalidArgsException.class,
+                () -> grepArgsParser.parse("-m", maxCount, "foo"));
+        assertEquals("Invalid syntax", thrown.getMessage());
+    }
+
     @Test
     void getFileNames_twoArgs_shouldReturnOneFileName() throws InvalidArgsException {
         grepArgsParser.parse("'test'", "-", "example.txt");
@@ -16,6 +16,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -167,6 +168,53 @@ public class SortArgsParserTest {
         assertFalse(sortArgsParser.isCaseIndependent());
     }
 
+    @Test
+    void isMerge_validFlagGiven_shouldReturnTrue() throws InvalidArgsException {
+        sortArgsParser.parse("-m", "a.txt", "b.txt");
+        assertTrue(sortArgsParser.isMerge());
+        assertFalse(sortArgsParser.isCheck());
+    }
+
+    @Test
+    void isCheck_validFlagGiven_shouldReturnTrue() throws InvalidArgsException {
+        sortArgsParser.parse("-cn", "a.txt");
+        assertTrue(sortArgsParser.isCheck());
+        assertFalse(sortArgsParser.isMerge());
+    }
+
+    @Test
+    void getKeyFields_attachedAndSeparateValues_shouldReturnFieldsInOrder() throws InvalidArgsException {
+        sortArgsParser.parse("-nk2,3", "-t", ",", "-k", "4", "-u", "example.txt");
+        assertEquals(2, sortArgsParser.getKeyFields().size());
+        assertArrayEquals(new int[]{2, 3}, sortArgsParser.getKeyFields().get(0));
+        assertArrayEquals(new int[]{4, 0}, sortArgsParser.getKeyFields().get(1));
+        assertEquals(',', sortArgsParser.getDelimiter());
+        assertTrue(sortArgsParser.isFirstWordNumber());
+        assertTrue(sortArgsParser.isUnique());
+        assertEquals(List.of("example.txt"), sortArgsParser.getFiles());
+    }
+
+    @Test
+    void getDelimiter_attachedValue_shouldReturnDelimiter() throws InvalidArgsException {
+        sortArgsParser.parse("-rt:");
+        assertEquals(':', sortArgsParser.getDelimiter());
+        assertTrue(sortArgsParser.isReverseOrder());
+        assertTrue(sortArgsParser.getKeyFields().isEmpty());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "1,0", "a", "1,", ",2", "1.2", ""})
+    void parse_invalidKeyField_shouldThrowException(String field) {
+        assertThrows(InvalidArgsException.class, () -> sortArgsParser.parse("-k", field));
+    }
+
+    @Test
+    void parse_missingOrInvalidDelimiter_shouldThrowException() {
+        assertThrows(InvalidArgsException.class, () -> sortArgsParser.parse("-t"));
+        assertThrows(InvalidArgsException.class, () -> new SortArgsParser().parse("-t", "ab"));
+        assertThrows(InvalidArgsException.class, () -> new SortArgsParser().parse("-t", ",", "-t;"));
+    }
+
     @Test
     void getFileNames_oneArg_shouldReturnOneFileName() throws InvalidArgsException {
         sortArgsParser.parse("-r", "example.txt");
@@ -1,7 +1,9 @@
 package sg.edu.nus.comp.cs4218.impl.util;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.NullAndEmptySource;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -12,11 +14,15 @@ import sg.edu.nus.comp.cs4218.exception.ShellException;
 import sg.edu.nus.comp.cs4218.impl.cmd.CallCommand;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
@@ -87,17 +93,66 @@ public class ArgumentResolverTest {
     }
 
     @Test
-    void parseArguments_emptyList_returnParsedList() throws FileNotFoundException, AbstractApplicationException, ShellException {
+    void parseArguments_plainArguments_returnSameList() throws FileNotFoundException, AbstractApplicationException, ShellException {
         List<String> argsList = List.of("test1", "test2", "test3");
-        try (MockedStatic<ArgumentResolver> argumentResolver = mockStatic(ArgumentResolver.class)) {
-            argumentResolver.when(() -> ArgumentResolver.resolveOneArgument(any())).thenAnswer(i -> List.of((String) i.getArgument(0)));
-            argumentResolver.when(() -> ArgumentResolver.parseArguments(argsList)).thenCallRealMethod();
 
-            List<String> actualArgsList = ArgumentResolver.parseArguments(argsList);
-            argumentResolver.verify(() -> ArgumentResolver.resolveOneArgument(any()), times(argsList.size()));
+        List<String> actualArgsList = ArgumentResolver.parseArguments(argsList);
 
-            assertIterableEquals(argsList, actualArgsList);
-        }
+        assertIterableEquals(argsList, actualArgsList);
+    }
+
+    @Test
+    void parseArguments_severalSafeSubCommands_splicesOutputsInOrder()
+            throws FileNotFoundException, AbstractApplicationException, ShellException {
+        List<String> argsList = List.of("echo", "`echo a b`", "x`echo c`y`echo d e`", "\"`echo f  g`\"", "``");
+
+        List<String> actualArgsList = ArgumentResolver.parseArguments(argsList);
+
+        assertIterableEquals(List.of("echo", "a", "b", "xcyd", "e", "f g"), actualArgsList);
+    }
+
+    @Test
+    void parseArguments_unsafeSubCommand_evaluatesInOrder(@TempDir Path tempDir)
+            throws FileNotFoundException, AbstractApplicationException, ShellException {
+        Path file = tempDir.resolve("out.txt");
+        List<String> argsList = List.of("`echo written > " + file + "`", "`cat " + file + "`", "`cat " + file + "`");
+
+        List<String> actualArgsList = ArgumentResolver.parseArguments(argsList);
+
+        assertIterableEquals(List.of("written", "written"), actualArgsList);
+    }
+
+    @Test
+    void parseArguments_globBeforeSubCommand_doesNotSeeItsFiles(@TempDir Path tempDir)
+            throws IOException, AbstractApplicationException, ShellException {
+        Path existing = Files.createFile(tempDir.resolve("a.txt"));
+        Path created = tempDir.resolve("b.txt");
+        List<String> argsList = List.of(tempDir + "/*.txt", "`echo b > " + created + "`",
+                "`echo c > " + created + "`", tempDir + "/*.txt");
+
+        List<String> actualArgsList = ArgumentResolver.parseArguments(argsList);
+
+        assertIterableEquals(List.of(existing.toString(), existing.toString(), created.toString()), actualArgsList);
+    }
+
+    @ParameterizedTest
+    @MethodSource("quotedArguments")
+    void resolveOneArgument_quotedArguments_returnUnquotedList(String arg, List<String> expectedArgs)
+            throws FileNotFoundException, AbstractApplicationException, ShellException {
+        assertIterableEquals(expectedArgs, ArgumentResolver.resolveOneArgument(arg));
+    }
+
+    static Stream<Arguments> quotedArguments() {
+        return Stream.of(
+                Arguments.of("", List.of()),
+                Arguments.of("''", List.of("")),
+                Arguments.of("\"\"", List.of("")),
+                Arguments.of("a'b'\"c\"d", List.of("abcd")),
+                Arguments.of("'*'\"*\"", List.of("**")),
+                Arguments.of("`echo '*'`", List.of("*")),
+                Arguments.of("'unclosed", List.of("unclosed")),
+                Arguments.of("a`echo b", List.of("a"))
+        );
     }
 
     @ParameterizedTest
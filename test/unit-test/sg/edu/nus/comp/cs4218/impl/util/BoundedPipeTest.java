@@ -0,0 +1,90 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoundedPipeTest {
+
+    @Test
+    void constructor_nonPositiveCapacity_throwsIllegalArgumentException() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> new BoundedPipe(0));
+    }
+
+    @Test
+    void read_writerClosedAfterWriting_returnsDataThenEndOfStream() throws IOException {
+        BoundedPipe pipe = new BoundedPipe(16);
+        pipe.getOutputStream().write("hello".getBytes());
+        pipe.closeWriter();
+
+        InputStream input = pipe.getInputStream();
+        assertArrayEquals("hello".getBytes(), input.readAllBytes());
+        assertEquals(-1, input.read());
+    }
+
+    @Test
+    void write_moreDataThanCapacity_blocksUntilReaderConsumes() throws Exception {
+        BoundedPipe pipe = new BoundedPipe(8);
+        byte[] data = new byte[10_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        Thread writer = new Thread(() -> {
+            try (OutputStream output = pipe.getOutputStream()) {
+                output.write(data);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        writer.start();
+
+        byte[] received = pipe.getInputStream().readAllBytes();
+        writer.join();
+
+        assertArrayEquals(data, received);
+    }
+
+    @Test
+    void write_readerClosed_throwsBrokenPipeException() {
+        BoundedPipe pipe = new BoundedPipe(4);
+        pipe.closeReader();
+
+        assertTrue(pipe.isReaderClosed());
+        assertThrowsExactly(BoundedPipe.BrokenPipeException.class,
+                () -> pipe.getOutputStream().write("data".getBytes()));
+    }
+
+    @Test
+    void write_writerClosed_throwsIOException() {
+        BoundedPipe pipe = new BoundedPipe(4);
+        pipe.closeWriter();
+
+        assertThrowsExactly(IOException.class, () -> pipe.getOutputStream().write(1));
+    }
+
+    @Test
+    void read_singleBytes_returnsUnsignedValues() throws IOException {
+        BoundedPipe pipe = new BoundedPipe(4);
+        pipe.getOutputStream().write(new byte[]{(byte) 0xFF, 1});
+
+        assertEquals(2, pipe.getInputStream().available());
+        assertEquals(0xFF, pipe.getInputStream().read());
+        assertEquals(1, pipe.getInputStream().read());
+    }
+
+    @Test
+    void isBrokenPipe_wrappedBrokenPipe_returnsTrue() {
+        Exception wrapped = new IllegalStateException(new IOException(new BoundedPipe.BrokenPipeException()));
+
+        assertTrue(BoundedPipe.isBrokenPipe(wrapped));
+        assertFalse(BoundedPipe.isBrokenPipe(new IOException("other failure")));
+    }
+}
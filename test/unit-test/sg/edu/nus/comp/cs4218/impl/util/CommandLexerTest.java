@@ -0,0 +1,163 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import sg.edu.nus.comp.cs4218.Command;
+import sg.edu.nus.comp.cs4218.exception.ShellException;
+import sg.edu.nus.comp.cs4218.impl.cmd.CallCommand;
+import sg.edu.nus.comp.cs4218.impl.cmd.PipeCommand;
+import sg.edu.nus.comp.cs4218.impl.cmd.SequenceCommand;
+
+import java.time.Duration;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class CommandLexerTest {
+    private static final Pattern ARGUMENT_REGEX = Pattern
+            .compile("([^'\"`|<>;\\s]+|'[^']*'|\"([^\"`]*`.*?`[^\"`]*)+\"|\"[^\"]*\"|`[^`]*`)+");
+    private static final String ERROR = "ERROR";
+    private static final char[] ALPHABET = {'a', 'b', '-', '*', ' ', ' ', '\t', '\r', '\u000B', '\u0001', '\u0085',
+            '\u2028', '\'', '"', '"', '`', '`', '|', ';', '<', '>'};
+    private static final int FUZZ_RUNS = 50_000;
+    private static final int MAX_FUZZ_LENGTH = 24;
+    private static final int LONG_LINE = 100_000;
+    private static final Duration LINEAR_TIME = Duration.ofSeconds(5);
+
+    /**
+     * Parses with the regular expression tokenizer that CommandLexer replaced.
+     */
+    private static String parseWithRegex(String commandString) {
+        if (StringUtils.isBlank(commandString) || commandString.contains(StringUtils.STRING_NEWLINE)) {
+            return ERROR;
+        }
+        List<String> parts = new LinkedList<>();
+        List<String> pipe = new LinkedList<>();
+        List<String> tokens = new LinkedList<>();
+        String commandSubstring = commandString;
+        while (!commandSubstring.isEmpty()) {
+            commandSubstring = commandSubstring.trim();
+            Matcher matcher = ARGUMENT_REGEX.matcher(commandSubstring);
+            if (!matcher.find()) {
+                return ERROR;
+            }
+            if (matcher.start() == 0) {
+                tokens.add(matcher.group());
+                commandSubstring = commandSubstring.substring(matcher.end());
+                continue;
+            }
+            char firstChar = commandSubstring.charAt(0);
+            commandSubstring = commandSubstring.substring(1);
+            if (firstChar == '<' || firstChar == '>') {
+                tokens.add(String.valueOf(firstChar));
+            } else if ((firstChar == '|' || firstChar == ';') && !tokens.isEmpty()) {
+                pipe.add(describeTokens(tokens));
+                tokens = new LinkedList<>();
+                if (firstChar == ';') {
+                    parts.add(pipe.size() == 1 ? pipe.get(0) : "P" + pipe);
+                    pipe = new LinkedList<>();
+                }
+            } else {
+                return ERROR;
+            }
+        }
+        pipe.add(describeTokens(tokens));
+        parts.add(pipe.size() == 1 ? pipe.get(0) : "P" + pipe);
+        return parts.size() == 1 ? parts.get(0) : "S" + parts;
+    }
+
+    private static String parseWithLexer(String commandString) {
+        try {
+            return describe(CommandBuilder.prepare(commandString, null).getCommand());
+        } catch (ShellException e) {
+            return ERROR;
+        }
+    }
+
+    private static String describe(Command command) {
+        if (command instanceof CallCommand) {
+            return describeTokens(((CallCommand) command).getArgsList());
+        }
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        if (command instanceof PipeCommand) {
+            ((PipeCommand) command).getCallCommands().forEach(call -> joiner.add(describe(call)));
+            return "P" + joiner;
+        }
+        ((SequenceCommand) command).getCommands().forEach(part -> joiner.add(describe(part)));
+        return "S" + joiner;
+    }
+
+    private static String describeTokens(List<String> tokens) {
+        return "{" + String.join("\u0000", tokens) + "}";
+    }
+
+    private static String randomCommand(Random random) {
+        StringBuilder builder = new StringBuilder();
+        int length = 1 + random.nextInt(MAX_FUZZ_LENGTH);
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+        }
+        return builder.toString();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"echo a", " echo  a ", "echo a\u0001", "echo a\tb", "echo a |", "| echo", "echo a;;",
+            "echo 'a b'c\"d\"`e`", "echo \"a `b` c\"", "echo \"`a\"`\"", "echo \"a `b\" `c` d\"", "echo 'unclosed",
+            "echo \"`a", "a<b>c", "a | b ; c | d", "a;b|c", "echo \"`a\u0085b`\"", "echo \"`a`b`c`\"d\"",
+            "echo \"x`a` y `b`z\" w", "echo `a", "echo a >", "echo < ; b", "echo \"\"\"\"`"})
+    void parseCommand_knownCases_matchesRegexTokenizer(String commandString) {
+        assertEquals(parseWithRegex(commandString), parseWithLexer(commandString));
+    }
+
+    @Test
+    void parseCommand_randomCommands_matchesRegexTokenizer() {
+        Random random = new Random(4218);
+        for (int i = 0; i < FUZZ_RUNS; i++) {
+            String commandString = randomCommand(random);
+            assertEquals(parseWithRegex(commandString), parseWithLexer(commandString), commandString);
+        }
+    }
+
+    @Test
+    void parseCommand_longSimpleLine_matchesRegexTokenizer() {
+        String commandString = "echo " + "ab ".repeat(LONG_LINE / 3) + "| grep a";
+
+        assertEquals(parseWithRegex(commandString), parseWithLexer(commandString));
+    }
+
+    @Test
+    void parseCommand_longUnclosedNestedQuote_throwsInLinearTime() {
+        String commandString = "echo \"" + "`a".repeat(LONG_LINE / 2);
+
+        assertTimeoutPreemptively(LINEAR_TIME, () -> assertThrows(ShellException.class,
+                () -> CommandBuilder.prepare(commandString, null)));
+    }
+
+    @Test
+    void parseCommand_longNestedQuote_parsesInLinearTime() throws Exception {
+        String argument = "\"`" + "a`\"`".repeat(LONG_LINE / 4) + "\"";
+
+        CallCommand command = (CallCommand) assertTimeoutPreemptively(LINEAR_TIME,
+                () -> CommandBuilder.prepare("echo " + argument, null).getCommand());
+
+        assertEquals(List.of("echo", argument), command.getArgsList());
+    }
+
+    @Test
+    void parseCommand_longMixedQuoteArgument_parsesAsOneToken() throws Exception {
+        String argument = "'a b'\"c d\"`e`f".repeat(LONG_LINE / 14);
+
+        CallCommand command = (CallCommand) assertTimeoutPreemptively(LINEAR_TIME,
+                () -> CommandBuilder.prepare("echo " + argument + " x", null).getCommand());
+
+        assertEquals(List.of("echo", argument, "x"), command.getArgsList());
+    }
+}
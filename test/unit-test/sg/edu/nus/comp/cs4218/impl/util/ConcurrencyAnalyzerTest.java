@@ -0,0 +1,109 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import sg.edu.nus.comp.cs4218.Command;
+import sg.edu.nus.comp.cs4218.impl.cmd.CallCommand;
+import sg.edu.nus.comp.cs4218.impl.cmd.PipeCommand;
+import sg.edu.nus.comp.cs4218.impl.cmd.SequenceCommand;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrencyAnalyzerTest {
+
+    private static CallCommand callCommand(String commandString) {
+        return new CallCommand(Arrays.asList(commandString.split(" ")), new ApplicationRunner());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"echo hello world", "ls", "ls -R dir", "cat a.txt", "cat -n a.txt b.txt",
+            "grep pattern a.txt", "cut -c 1-3 a.txt", "sort -nr a.txt", "wc -l a.txt", "paste a.txt b.txt",
+            "uniq -c a.txt", "cat < a.txt", "wc -l < a.txt", "sort -k 2 a.txt", "sort -t , -k2 a.txt"})
+    void isConcurrencySafe_readOnlyCommands_returnsTrue(String commandString) {
+        assertTrue(ConcurrencyAnalyzer.isConcurrencySafe(callCommand(commandString)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"cd dir", "mv a.txt b.txt", "rm a.txt", "cp a.txt b.txt", "exit", "tee a.txt",
+            "echo hello > a.txt", "cat a.txt > b.txt", "uniq a.txt b.txt", "echo `rm a.txt`", "unknownApp a.txt"})
+    void isConcurrencySafe_commandsWithSideEffects_returnsFalse(String commandString) {
+        assertFalse(ConcurrencyAnalyzer.isConcurrencySafe(callCommand(commandString)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"cat", "cat -", "cat a.txt -", "grep pattern", "cut -c 1-3", "sort -n", "wc",
+            "paste - a.txt", "uniq", "sort -k 2", "sort -k2", "sort -t , -k 2", "sort -k 2 -"})
+    void isConcurrencySafe_commandsReadingSharedStdin_returnsFalse(String commandString) {
+        assertFalse(ConcurrencyAnalyzer.isConcurrencySafe(callCommand(commandString)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"grep -e a -e b", "grep -ea -eb", "grep -f patterns.txt", "grep -f - a.txt",
+            "grep -f- a.txt", "grep -e a -f patterns.txt -"})
+    void isConcurrencySafe_grepPatternOptionsReadingSharedStdin_returnsFalse(String commandString) {
+        assertFalse(ConcurrencyAnalyzer.isConcurrencySafe(callCommand(commandString)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"grep -e a a.txt", "grep -e a -e b a.txt b.txt", "grep -f patterns.txt a.txt"})
+    void isConcurrencySafe_grepPatternOptionsWithFiles_returnsTrue(String commandString) {
+        assertTrue(ConcurrencyAnalyzer.isConcurrencySafe(callCommand(commandString)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"grep -m 3 pattern", "grep -m3 pattern", "grep -q -m 1 pattern", "grep -m 3 pattern -"})
+    void isConcurrencySafe_grepMaxCountReadingSharedStdin_returnsFalse(String commandString) {
+        assertFalse(ConcurrencyAnalyzer.isConcurrencySafe(callCommand(commandString)));
+    }
+
+    @Test
+    void isConcurrencySafe_grepMaxCountWithFile_returnsTrue() {
+        assertTrue(ConcurrencyAnalyzer.isConcurrencySafe(callCommand("grep -m 3 pattern a.txt")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"grep -A 2 pattern", "grep -B 2 pattern", "grep -C 2 pattern", "grep -C2 pattern",
+            "grep -A 1 -B 1 pattern -"})
+    void isConcurrencySafe_grepContextReadingSharedStdin_returnsFalse(String commandString) {
+        assertFalse(ConcurrencyAnalyzer.isConcurrencySafe(callCommand(commandString)));
+    }
+
+    @Test
+    void isConcurrencySafe_grepContextWithFile_returnsTrue() {
+        assertTrue(ConcurrencyAnalyzer.isConcurrencySafe(callCommand("grep -C 2 pattern a.txt")));
+    }
+
+    @Test
+    void isConcurrencySafe_pipeReadingFromFile_returnsTrue() {
+        Command pipe = new PipeCommand(List.of(callCommand("cat a.txt"), callCommand("grep x"),
+                callCommand("wc -l")));
+
+        assertTrue(ConcurrencyAnalyzer.isConcurrencySafe(pipe));
+    }
+
+    @Test
+    void isConcurrencySafe_pipeWithSideEffect_returnsFalse() {
+        Command pipe = new PipeCommand(List.of(callCommand("cat a.txt"), callCommand("tee b.txt")));
+
+        assertFalse(ConcurrencyAnalyzer.isConcurrencySafe(pipe));
+    }
+
+    @Test
+    void isConcurrencySafe_pipeReadingSharedStdin_returnsFalse() {
+        Command pipe = new PipeCommand(List.of(callCommand("grep x"), callCommand("wc -l")));
+
+        assertFalse(ConcurrencyAnalyzer.isConcurrencySafe(pipe));
+    }
+
+    @Test
+    void isConcurrencySafe_otherCommandTypes_returnsFalse() {
+        Command sequence = new SequenceCommand(List.of(callCommand("echo a"), callCommand("echo b")));
+
+        assertFalse(ConcurrencyAnalyzer.isConcurrencySafe(sequence));
+    }
+}
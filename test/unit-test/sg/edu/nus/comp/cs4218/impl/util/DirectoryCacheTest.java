@@ -0,0 +1,158 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class DirectoryCacheTest {
+    private static final FileTime OLD_TIME = FileTime.fromMillis(System.currentTimeMillis() - 60_000);
+
+    @TempDir
+    private Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        DirectoryCache.clear();
+    }
+
+    private static List<String> names(Path directory) throws IOException {
+        return DirectoryCache.list(directory).stream().map(DirectoryCache.Entry::getName).sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> freshNames(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private Path createSettledDirectory(String... files) throws IOException {
+        Path dir = Files.createDirectory(tempDir.resolve("dir"));
+        for (String file : files) {
+            Files.createFile(dir.resolve(file));
+        }
+        Files.setLastModifiedTime(dir, OLD_TIME);
+        return dir;
+    }
+
+    @Test
+    void list_settledDirectory_cachesListingIdenticalToFreshOne() throws IOException {
+        Path dir = createSettledDirectory("b.txt", "a.txt", ".hidden");
+
+        List<DirectoryCache.Entry> first = DirectoryCache.list(dir);
+
+        assertTrue(DirectoryCache.isCached(dir));
+        assertSame(first, DirectoryCache.list(dir));
+        assertEquals(freshNames(dir), names(dir));
+    }
+
+    @Test
+    void list_recentlyModifiedDirectory_isNotCached() throws IOException {
+        Files.createFile(tempDir.resolve("a.txt"));
+
+        assertEquals(List.of("a.txt"), names(tempDir));
+        assertFalse(DirectoryCache.isCached(tempDir));
+    }
+
+    @Test
+    void list_directoryModified_returnsFreshListing() throws IOException {
+        Path dir = createSettledDirectory("a.txt");
+        DirectoryCache.list(dir);
+
+        Files.createFile(dir.resolve("b.txt"));
+
+        assertEquals(List.of("a.txt", "b.txt"), names(dir));
+    }
+
+    @Test
+    void list_changeHiddenFromModificationTime_droppedByWatchService() throws IOException, InterruptedException {
+        Path dir = createSettledDirectory("a.txt");
+        DirectoryCache.list(dir);
+        assumeTrue(DirectoryCache.isWatching());
+
+        Files.createFile(dir.resolve("b.txt"));
+        Files.setLastModifiedTime(dir, OLD_TIME);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (DirectoryCache.isCached(dir) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("a.txt", "b.txt"), names(dir));
+    }
+
+    @Test
+    void list_cacheDisabled_cachesNothing() throws IOException {
+        Path dir = createSettledDirectory("a.txt");
+        int size = ShellOptions.getDirectoryCacheSize();
+        ShellOptions.setDirectoryCacheSize(0);
+        try {
+            assertEquals(List.of("a.txt"), names(dir));
+            assertFalse(DirectoryCache.isCached(dir));
+        } finally {
+            ShellOptions.setDirectoryCacheSize(size);
+        }
+    }
+
+    @Test
+    void list_notADirectory_throwsException() throws IOException {
+        Path file = Files.createFile(tempDir.resolve("a.txt"));
+
+        assertThrows(NotDirectoryException.class, () -> DirectoryCache.list(file));
+        assertThrows(NoSuchFileException.class, () -> DirectoryCache.list(tempDir.resolve("missing")));
+    }
+
+    @Test
+    void invalidate_file_dropsParentAndDescendantListings() throws IOException {
+        Path dir = createSettledDirectory();
+        Path sub = Files.createDirectory(dir.resolve("sub"));
+        Files.setLastModifiedTime(sub, OLD_TIME);
+        Files.setLastModifiedTime(dir, OLD_TIME);
+        Files.setLastModifiedTime(tempDir, OLD_TIME);
+        DirectoryCache.list(tempDir);
+        DirectoryCache.list(dir);
+        DirectoryCache.list(sub);
+
+        DirectoryCache.invalidate(dir);
+
+        assertFalse(DirectoryCache.isCached(tempDir));
+        assertFalse(DirectoryCache.isCached(dir));
+        assertFalse(DirectoryCache.isCached(sub));
+    }
+
+    @Test
+    void getEntry_existingFiles_returnsTheirTypes() throws IOException {
+        Path dir = createSettledDirectory("a.txt");
+        Path sub = Files.createDirectory(dir.resolve("sub"));
+        Path link = Files.createSymbolicLink(dir.resolve("link"), sub);
+        Path dangling = Files.createSymbolicLink(dir.resolve("dangling"), dir.resolve("missing"));
+
+        DirectoryCache.Entry file = DirectoryCache.getEntry(dir.resolve("a.txt"));
+        assertNotNull(file);
+        assertFalse(file.isDirectory());
+        assertTrue(DirectoryCache.getEntry(sub).isDirectory());
+        assertTrue(DirectoryCache.getEntry(link).isDirectory());
+        assertTrue(DirectoryCache.getEntry(link).isSymbolicLink());
+        assertFalse(DirectoryCache.getEntry(dangling).exists());
+        assertNull(DirectoryCache.getEntry(dir.resolve("missing")));
+        assertTrue(DirectoryCache.getEntry(sub.resolve("..")).isDirectory());
+    }
+}
@@ -0,0 +1,119 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GlobPatternTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private void createFiles(String... paths) throws IOException {
+        for (String path : paths) {
+            Path file = tempDir.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.createFile(file);
+        }
+    }
+
+    private List<String> expand(String pattern) {
+        return GlobPattern.compile(pattern).expand(tempDir).stream()
+                .map(path -> path.replace(File.separatorChar, '/'))
+                .collect(Collectors.toList());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "*.txt, a.txt, true",
+        "*.txt, dir/a.txt, false",
+        "a?c, abc, true",
+        "a?c, ac, false",
+        "[a-c]x, bx, true",
+        "[a-c]x, dx, false",
+        "[!a-c]x, dx, true",
+        "[^a-c]x, ax, false",
+        "[]a]x, ]x, true",
+        "[a-]x, -x, true",
+        "*.{java,txt}, Main.java, true",
+        "*.{java,txt}, notes.md, false",
+        "{a,b{c,d}}z, bdz, true",
+        "{a,b{c,d}}z, bz, false",
+        "a*b*c, aXbYbZc, true",
+        "a*b*c, aXbYbZ, false",
+        "**/*.java, Main.java, true",
+        "**/*.java, a/b/c/Main.java, true",
+        "src/**/*.java, src/Main.java, true",
+        "src/**/*.java, test/Main.java, false",
+        "src/**, src/a/b, true",
+        "\\*, *, true",
+        "\\*, a, false",
+        "[ab, [ab, true",
+        "{a\\,b}, 'a,b', true",
+        "{ab, {ab, true"
+    })
+    void matches_patterns_matchesExpectedPaths(String pattern, String path, boolean expected) {
+        assertEquals(expected, GlobPattern.compile(pattern).matches(path), pattern + " ~ " + path);
+    }
+
+    @Test
+    void expand_singleDirectory_returnsSortedMatches() throws IOException {
+        createFiles("b.txt", "a.txt", "c.md", "dir/d.txt");
+
+        assertEquals(List.of("a.txt", "b.txt"), expand("*.txt"));
+    }
+
+    @Test
+    void expand_wildcardDirectories_walksEveryLevel() throws IOException {
+        createFiles("src/a/x.java", "src/b/y.java", "src/b/z.txt", "test/a/x.java");
+
+        assertEquals(List.of("src/a/x.java", "src/b/y.java"), expand("src/*/*.java"));
+        assertEquals(List.of("src/a/", "src/b/"), expand("src/*/"));
+    }
+
+    @Test
+    void expand_recursive_matchesAtAnyDepth() throws IOException {
+        createFiles("src/Main.java", "src/a/b/Deep.java", "src/a/notes.txt", "test/T.java");
+
+        assertEquals(List.of("src/Main.java", "src/a/b/Deep.java"), expand("src/**/*.java"));
+        assertEquals(List.of("src/Main.java", "src/a/b/Deep.java", "test/T.java"), expand("**/*.java"));
+        assertEquals(List.of("src/Main.java", "src/a", "src/a/b", "src/a/b/Deep.java", "src/a/notes.txt"),
+                expand("src/**"));
+    }
+
+    @Test
+    void expand_braces_matchesEachAlternativeOnce() throws IOException {
+        createFiles("src/Main.java", "test/Main.java", "docs/Main.java");
+
+        assertEquals(List.of("src/Main.java", "test/Main.java"), expand("{src,test}/*.java"));
+        assertEquals(List.of("src/Main.java", "test/Main.java"), expand("{src,test,missing}/Main.java"));
+    }
+
+    @Test
+    void expand_noMatch_returnsEmptyList() throws IOException {
+        createFiles("a.txt");
+
+        assertTrue(expand("*.md").isEmpty());
+        assertTrue(expand("missing/*.txt").isEmpty());
+        assertTrue(expand("a.txt/*").isEmpty());
+    }
+
+    @Test
+    void expand_absolutePattern_returnsAbsolutePaths() throws IOException {
+        createFiles("x1.log", "x2.log");
+        String root = tempDir.toAbsolutePath().toString().replace(File.separatorChar, '/');
+
+        assertEquals(List.of(root + "/x1.log", root + "/x2.log"), expand(root + "/x?.log"));
+    }
+}
@@ -12,12 +12,15 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 public class IOUtilsTest {
@@ -51,6 +54,17 @@ public class IOUtilsTest {
         });
     }
 
+    @Test
+    void openOutputStream_cachedDirectory_dropsCachedListing(@TempDir Path tempDir) throws Exception {
+        Files.setLastModifiedTime(tempDir, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        DirectoryCache.list(tempDir);
+        assertTrue(DirectoryCache.isCached(tempDir));
+
+        IOUtils.openOutputStream(tempDir.resolve("new.txt").toString()).close();
+
+        assertFalse(DirectoryCache.isCached(tempDir));
+    }
+
     @Test
     void openOutputStream_invalidDirectory_throwShellException(@TempDir Path tempDir) {
         String filename = "test" + File.separator + "openOutputStream_invalidDirectory_throwShellException.txt";
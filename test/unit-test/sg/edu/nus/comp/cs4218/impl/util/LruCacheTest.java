@@ -0,0 +1,99 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class LruCacheTest {
+
+    @Test
+    void get_afterPut_returnsValueAndCountsHit() {
+        LruCache<String, Integer> cache = new LruCache<>(() -> 2);
+        cache.put("a", 1);
+
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void put_beyondCapacity_evictsLeastRecentlyUsed() {
+        LruCache<String, Integer> cache = new LruCache<>(() -> 2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+    }
+
+    @Test
+    void put_capacityLowered_shrinksOnNextPut() {
+        AtomicInteger capacity = new AtomicInteger(3);
+        LruCache<String, Integer> cache = new LruCache<>(capacity::get);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        capacity.set(1);
+        cache.put("d", 4);
+
+        assertEquals(1, cache.size());
+        assertEquals(4, cache.get("d"));
+    }
+
+    @Test
+    void put_zeroCapacity_cachesNothing() {
+        LruCache<String, Integer> cache = new LruCache<>(() -> 0);
+        cache.put("a", 1);
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void clear_nonEmptyCache_removesEntriesAndResetsCounters() {
+        LruCache<String, Integer> cache = new LruCache<>(() -> 2);
+        cache.put("a", 1);
+        cache.get("a");
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    void removalListener_evictRemoveAndClear_receivesEveryRemovedValue() {
+        List<Integer> removed = new ArrayList<>();
+        LruCache<String, Integer> cache = new LruCache<>(() -> 2, removed::add);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.put("b", 4);
+        cache.remove("c");
+        cache.clear();
+
+        assertEquals(List.of(1, 2, 3, 4), removed);
+    }
+
+    @Test
+    void removeIf_matchingKeys_removesOnlyThose() {
+        List<Integer> removed = new ArrayList<>();
+        LruCache<String, Integer> cache = new LruCache<>(() -> 3, removed::add);
+        cache.put("a1", 1);
+        cache.put("b", 2);
+        cache.put("a2", 3);
+        cache.removeIf(key -> key.startsWith("a"));
+
+        assertEquals(List.of(1, 3), removed);
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.get("b"));
+    }
+}
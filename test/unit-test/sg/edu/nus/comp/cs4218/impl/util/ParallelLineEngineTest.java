@@ -0,0 +1,189 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParallelLineEngineTest {
+    private static final int SMALL_CHUNK = 16;
+
+    @BeforeEach
+    void setUp() {
+        ShellOptions.setParallelChunkSize(SMALL_CHUNK);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ShellOptions.setParallelChunkSize(ShellOptions.DEFAULT_PARALLEL_CHUNK);
+    }
+
+    private static String numberedLines(int count, String separator) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append("line ").append(i).append(separator);
+        }
+        return builder.toString();
+    }
+
+    private static List<String> expectedLines(String input) throws Exception {
+        return IOUtils.getLinesFromInputStream(new ByteArrayInputStream(input.getBytes()));
+    }
+
+    private static List<String> processBytes(String input) throws IOException {
+        List<String> output = new ArrayList<>();
+        ParallelLineEngine.processLines(new ByteArrayInputStream(input.getBytes()), lines -> lines, output::addAll);
+        return output;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "single", "single\n", "a\nb\nc", "\n\n\n", "a\r\nb\r\nc\r\n", "a\rb\rc",
+            "no line feed in a line much longer than one chunk\nshort\n", "ünïcödé\nlïnës\nàcròss\nchünks\n"})
+    void processLines_inputStream_splitsLinesLikeBufferedReader(String input) throws Exception {
+        assertEquals(expectedLines(input), processBytes(input));
+    }
+
+    @Test
+    void processLines_manyChunks_keepsInputOrder() throws Exception {
+        String input = numberedLines(5000, "\n");
+
+        assertEquals(expectedLines(input), processBytes(input));
+    }
+
+    @Test
+    void processLines_crlfOnChunkBoundaries_keepsLinesIntact() throws Exception {
+        String input = numberedLines(1000, "\r\n");
+
+        assertEquals(expectedLines(input), processBytes(input));
+    }
+
+    @Test
+    void processLines_manyChunks_appliesFunctionPerChunk() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        String input = numberedLines(5000, "\n");
+
+        ParallelLineEngine.processLines(new ByteArrayInputStream(input.getBytes()), lines -> {
+            calls.incrementAndGet();
+            return lines;
+        }, lines -> { });
+
+        assertTrue(calls.get() > 1);
+    }
+
+    @Test
+    void processLines_singleChunk_runsFunctionOnCallingThread() throws IOException {
+        ShellOptions.setParallelChunkSize(ShellOptions.DEFAULT_PARALLEL_CHUNK);
+        List<String> threadNames = new ArrayList<>();
+
+        ParallelLineEngine.processLines(new ByteArrayInputStream("a\nb\n".getBytes()), lines -> {
+            threadNames.add(Thread.currentThread().getName());
+            return lines;
+        }, lines -> { });
+
+        assertEquals(List.of(Thread.currentThread().getName()), threadNames);
+    }
+
+    @Test
+    void processLines_slowProducer_consumesFirstLinesBeforeInputEnds() throws IOException {
+        ShellOptions.setParallelChunkSize(ShellOptions.DEFAULT_PARALLEL_CHUNK);
+        CountDownLatch consumed = new CountDownLatch(1);
+        List<String> output = new ArrayList<>();
+
+        ParallelLineEngine.processLines(new StallingInputStream("a\nb\n", consumed), lines -> lines, lines -> {
+            output.addAll(lines);
+            consumed.countDown();
+        });
+
+        assertEquals(List.of("a", "b"), output);
+    }
+
+    @Test
+    void processLines_readerFromSlowProducer_consumesFirstLinesBeforeInputEnds() throws IOException {
+        ShellOptions.setParallelChunkSize(ShellOptions.DEFAULT_PARALLEL_CHUNK);
+        CountDownLatch consumed = new CountDownLatch(1);
+        List<String> output = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new StallingInputStream("a\nb\n", consumed)));
+
+        ParallelLineEngine.processLines(reader, lines -> lines, lines -> {
+            output.addAll(lines);
+            consumed.countDown();
+        });
+
+        assertEquals(List.of("a", "b"), output);
+    }
+
+    @Test
+    void processLines_reader_keepsInputOrder() throws IOException {
+        String input = numberedLines(5000, "\n");
+        List<String> output = new ArrayList<>();
+
+        ParallelLineEngine.processLines(new BufferedReader(new StringReader(input)), lines -> lines, output::addAll);
+
+        assertEquals(List.of(input.split("\n")), output);
+    }
+
+    @Test
+    void processLines_functionThrows_rethrowsOnCallingThread() {
+        String input = numberedLines(5000, "\n");
+
+        assertThrowsExactly(IllegalStateException.class, () -> ParallelLineEngine.processLines(
+                new ByteArrayInputStream(input.getBytes()), lines -> {
+                    throw new IllegalStateException();
+                }, lines -> { }));
+    }
+
+    /**
+     * Hands out its content, then ends only once the latch is released, failing if that takes too long.
+     */
+    private static final class StallingInputStream extends InputStream {
+        private final byte[] content;
+        private final CountDownLatch endLatch;
+        private int position;
+
+        private StallingInputStream(String content, CountDownLatch endLatch) {
+            this.content = content.getBytes();
+            this.endLatch = endLatch;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0];
+        }
+
+        @Override
+        public int read(byte[] dest, int off, int len) throws IOException {
+            if (position < content.length) {
+                int count = Math.min(len, content.length - position);
+                System.arraycopy(content, position, dest, off, count);
+                position += count;
+                return count;
+            }
+            try {
+                if (!endLatch.await(5, TimeUnit.SECONDS)) {
+                    throw new IOException("no result consumed before the end of the input");
+                }
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package sg.edu.nus.comp.cs4218.impl.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import sg.edu.nus.comp.cs4218.Command;
+import sg.edu.nus.comp.cs4218.impl.cmd.CallCommand;
+import sg.edu.nus.comp.cs4218.impl.cmd.FileInputCommand;
+import sg.edu.nus.comp.cs4218.impl.cmd.SortUniqCommand;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PipelineOptimizerTest {
+
+    private static List<CallCommand> pipe(String pipeString) {
+        List<CallCommand> callCommands = new ArrayList<>();
+        for (String commandString : pipeString.split(" \\| ")) {
+            callCommands.add(new CallCommand(Arrays.asList(commandString.split(" ")), new ApplicationRunner()));
+        }
+        return callCommands;
+    }
+
+    @Test
+    void optimize_catFilesIntoConsumer_fusesIntoFileInputCommand() {
+        List<CallCommand> callCommands = pipe("cat a.txt b.txt | grep x");
+
+        List<Command> stages = PipelineOptimizer.optimize(callCommands);
+
+        assertEquals(1, stages.size());
+        FileInputCommand fused = assertInstanceOf(FileInputCommand.class, stages.get(0));
+        assertEquals(List.of("a.txt", "b.txt"), fused.getFileNames());
+        assertSame(callCommands.get(1), fused.getConsumer());
+    }
+
+    @Test
+    void optimize_sortIntoUniqCount_fusesIntoSortUniqCommand() {
+        List<Command> stages = PipelineOptimizer.optimize(pipe("sort -r a.txt | uniq -c"));
+
+        assertEquals(1, stages.size());
+        SortUniqCommand fused = assertInstanceOf(SortUniqCommand.class, stages.get(0));
+        assertEquals(List.of("a.txt"), fused.getFileNames());
+        assertTrue(fused.isReverseOrder());
+        assertTrue(fused.isCount());
+    }
+
+    @Test
+    void optimize_catSortUniq_fusesBothRewrites() {
+        List<Command> stages = PipelineOptimizer.optimize(pipe("cat a.txt | sort | uniq | wc -l"));
+
+        assertEquals(2, stages.size());
+        FileInputCommand fused = assertInstanceOf(FileInputCommand.class, stages.get(0));
+        SortUniqCommand sortUniq = assertInstanceOf(SortUniqCommand.class, fused.getConsumer());
+        assertTrue(sortUniq.getFileNames().isEmpty());
+        assertFalse(sortUniq.isCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"cat | grep x", "cat -n a.txt | grep x", "cat - a.txt | grep x", "cat *.txt | grep x",
+            "cat 'a b.txt' | grep x", "cat `ls` | grep x", "cat a.txt > b.txt | grep x", "sort -n | uniq",
+            "cat g?.txt | grep x", "cat [ab].txt | grep x", "cat {a,b}.txt | grep x", "sort g?.txt | uniq",
+            "sort -f | uniq -c", "sort | uniq -d", "sort | uniq a.txt", "sort | grep x | uniq", "echo a | grep a"})
+    void optimize_unsupportedPatterns_keepsStages(String pipeString) {
+        List<CallCommand> callCommands = pipe(pipeString);
+
+        assertEquals(callCommands, PipelineOptimizer.optimize(callCommands));
+    }
+}
@@ -8,13 +8,8 @@ import sg.edu.nus.comp.cs4218.Environment;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
@@ -23,15 +18,12 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mockStatic;
-import static org.mockito.Mockito.spy;
-import static org.mockito.Mockito.when;
 import static sg.edu.nus.comp.cs4218.CommandTestUtils.generateTestFiles;
 
 public class RegexArgumentTest {
 
     private static final List<String> EXPECTED_STRS = List.of("TestRegexString1", "TestRegexString2", "TestRegexString3",
             "TestRegexString4", "TestRegexString5");
-    private static final String FILE_SEPARATOR = File.separatorChar == '\\' ? "\\" + File.separator : File.separator;
 
     @Test
     void merge_validStringArgument_correctRegexString() {
@@ -63,7 +55,7 @@ public class RegexArgumentTest {
         validateRegexArgument(regexArgs, "", "", false);
 
         regexArgs.appendAsterisk();
-        validateRegexArgument(regexArgs, "*", String.format("[^%s]*", FILE_SEPARATOR), true);
+        validateRegexArgument(regexArgs, "*", "*", true);
     }
 
     @Test
@@ -73,20 +65,26 @@ public class RegexArgumentTest {
         validateRegexArgument(regexArgs, "", "", false);
 
         regexArgs.append('A');
-        validateRegexArgument(regexArgs, "A", String.format("%s", Pattern.quote("A")), false);
+        validateRegexArgument(regexArgs, "A", "A", false);
     }
 
     @Test
-    void constructor_validInputArguments_correctRegexArgument() {
+    void append_globCharacter_escapedInGlob() {
+        RegexArgument regexArgs = new RegexArgument();
 
-        RegexArgument regexArgs = new RegexArgument(EXPECTED_STRS.get(0) + "*", EXPECTED_STRS.get(1), true);
-        StringBuilder expectedRegex = new StringBuilder();
-        expectedRegex.append(".*");
-        for (char chr : EXPECTED_STRS.get(0).toCharArray()) {
-            expectedRegex.append(Pattern.quote(String.valueOf(chr)));
-        }
-        expectedRegex.append(String.format("[^%s]*", FILE_SEPARATOR));
-        validateRegexArgument(regexArgs, EXPECTED_STRS.get(1), expectedRegex.toString(), true);
+        regexArgs.append('*');
+        regexArgs.merge("a?[b]");
+        validateRegexArgument(regexArgs, "*a?[b]", "\\*a\\?\\[b\\]", false);
+    }
+
+    @Test
+    void appendGlobChar_wildcardAndOther_onlyWildcardMakesRegex() {
+        RegexArgument regexArgs = new RegexArgument();
+
+        regexArgs.appendGlobChar(',');
+        validateRegexArgument(regexArgs, ",", ",", false);
+        regexArgs.appendGlobChar('?');
+        validateRegexArgument(regexArgs, ",?", ",?", true);
     }
 
     @Test
@@ -94,7 +92,7 @@ public class RegexArgumentTest {
         List<String> fileNames = List.of("test1.txt", "test2.txt", "test3.txt", "test4.txt", "notValid.txt", "test5.notValid");
         List<String> expectedFiles = fileNames.subList(0, 4);
 
-        String testDirName = String.format("testDir%stestDir2%s", FILE_SEPARATOR, FILE_SEPARATOR);
+        String testDirName = String.format("testDir%stestDir2%s", File.separator, File.separator);
         expectedFiles = expectedFiles.stream().map(x -> testDirName + x).collect(Collectors.toList());
         Path testDir = tempDir.resolve(testDirName);
         generateTestFiles(testDir, fileNames);
@@ -102,26 +100,9 @@ public class RegexArgumentTest {
         try (MockedStatic<Environment> envMockStatic = mockStatic(Environment.class)) {
             envMockStatic.when(Environment::getCurrentDirectory).thenReturn(tempDir.toString());
 
-            RegexArgument regexArgs = spy(new RegexArgument());
-            when(regexArgs.isRegex()).thenReturn(true);
-            List<String> plaintext = (List<String>) assertDoesNotThrow(() -> ReflectionSupport.tryToReadFieldValue(regexArgs.getClass().getDeclaredField("plaintext"), regexArgs).get());
-            List<String> regex = (List<String>) assertDoesNotThrow(() -> ReflectionSupport.tryToReadFieldValue(regexArgs.getClass().getDeclaredField("regex"), regexArgs).get());
-
-
-            for (char chr : testDirName.toCharArray()) {
-                plaintext.add(String.valueOf(chr));
-                regex.add(Pattern.quote(String.valueOf(chr)));
-            }
-            String globParameters = "test*.txt";
-            for (char chr : globParameters.toCharArray()) {
-                if (chr == '*') {
-                    regex.add(String.format("[^\\%s]*", File.separator));
-                    plaintext.add("*");
-                    continue;
-                }
-                regex.add(Pattern.quote(String.valueOf(chr)));
-                plaintext.add(String.valueOf(chr));
-            }
+            RegexArgument regexArgs = new RegexArgument(testDirName + "test");
+            regexArgs.appendAsterisk();
+            regexArgs.merge(".txt");
 
             List<String> actualFiles = regexArgs.globFiles();
             assertIterableEquals(expectedFiles, actualFiles);
@@ -129,66 +110,34 @@ public class RegexArgumentTest {
     }
 
     @Test
-    void globFiles_regexFalse_returnTestFiles() {
-        RegexArgument regexArgs = new RegexArgument();
-        List<String> plaintext = (List<String>) assertDoesNotThrow(() -> ReflectionSupport.tryToReadFieldValue(regexArgs.getClass().getDeclaredField("plaintext"), regexArgs).get());
-        plaintext.add(EXPECTED_STRS.get(0));
-        List<String> actualFiles = regexArgs.globFiles();
-        assertIterableEquals(List.of(EXPECTED_STRS.get(0)), actualFiles);
-    }
-
-    @Test
-    void traverseAndFilter_noAbsoluteNoDir_returnFilteredList(@TempDir Path tempDir) throws IOException, NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        List<String> fileNames = List.of("test1.txt", "test2.txt", "test3.txt", "test4.txt", "notValid.txt", "test5.notValid");
-        List<String> expectedFiles = fileNames.subList(0, 4);
-
-        generateTestFiles(tempDir, fileNames);
-
-        RegexArgument regexArgument = new RegexArgument();
-        Method traverseAndFilter = regexArgument.getClass().getDeclaredMethod("traverseAndFilter", Pattern.class, File.class, boolean.class, boolean.class);
-        traverseAndFilter.setAccessible(true);
+    void globFiles_quotedAsteriskOnly_returnPlainText(@TempDir Path tempDir) throws IOException {
+        generateTestFiles(tempDir, List.of("a*b", "axb"));
 
         try (MockedStatic<Environment> envMockStatic = mockStatic(Environment.class)) {
             envMockStatic.when(Environment::getCurrentDirectory).thenReturn(tempDir.toString());
 
-            List<?> actualFiles = (List<?>) traverseAndFilter.invoke(regexArgument, Pattern.compile("test[\\d].txt"), tempDir.toFile(), false, false);
-            actualFiles = actualFiles.stream().map(x -> Paths.get((String) x).getFileName().toString()).collect(Collectors.toList());
+            RegexArgument regexArgs = new RegexArgument("a*");
+            regexArgs.appendGlobChar('?');
 
-            assertFalse(actualFiles.isEmpty());
-
-            actualFiles.forEach(x -> assertTrue(expectedFiles.contains(x)));
+            assertIterableEquals(List.of("a*b"), regexArgs.globFiles());
         }
     }
 
     @Test
-    void traverseAndFilter_absoluteWithDir_returnFilteredList(@TempDir Path tempDir)
-            throws IOException, NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        List<String> fileNamesWithDir = List.of("test/test1.txt", "test/test2.txt", "test2/test3.txt", "test2/test4.txt", "test/notValid.txt", "test2/test5.notValid");
-        List<String> expectedDir = List.of("test", "test2");
-        Files.createDirectories(tempDir.resolve("test"));
-        Files.createDirectories(tempDir.resolve("test2"));
-        Files.createDirectories(tempDir.resolve("NotValid"));
-
-        generateTestFiles(tempDir, fileNamesWithDir);
-        RegexArgument regexArgument = new RegexArgument();
-        Method traverseAndFilter = regexArgument.getClass().getDeclaredMethod("traverseAndFilter", Pattern.class, File.class, boolean.class, boolean.class);
-        traverseAndFilter.setAccessible(true);
-
-        List<?> actualFiles2 = (List<?>) traverseAndFilter.invoke(regexArgument, Pattern.compile(".*test[\\d]" + FILE_SEPARATOR), tempDir.toFile(), true, true);
-        actualFiles2 = actualFiles2.stream().map(x -> Paths.get((String) x).getFileName().toString()).collect(Collectors.toList());
-        assertFalse(actualFiles2.isEmpty());
-
-        actualFiles2.forEach(x -> assertTrue(expectedDir.contains(x)));
-
+    void globFiles_regexFalse_returnTestFiles() {
+        RegexArgument regexArgs = new RegexArgument();
+        regexArgs.merge(EXPECTED_STRS.get(0));
+        List<String> actualFiles = regexArgs.globFiles();
+        assertIterableEquals(List.of(EXPECTED_STRS.get(0)), actualFiles);
     }
 
-    private void validateRegexArgument(RegexArgument regexArgs, String expectedPlainText, String expectedRegex, boolean expectedIsRegex) {
-        List<String> plaintext = (List<String>) assertDoesNotThrow(() -> ReflectionSupport.tryToReadFieldValue(regexArgs.getClass().getDeclaredField("plaintext"), regexArgs).get());
-        List<String> regex = (List<String>) assertDoesNotThrow(() -> ReflectionSupport.tryToReadFieldValue(regexArgs.getClass().getDeclaredField("regex"), regexArgs).get());
+    private void validateRegexArgument(RegexArgument regexArgs, String expectedPlainText, String expectedGlob, boolean expectedIsRegex) {
+        CharSequence plaintext = (CharSequence) assertDoesNotThrow(() -> ReflectionSupport.tryToReadFieldValue(regexArgs.getClass().getDeclaredField("plaintext"), regexArgs).get());
+        CharSequence glob = (CharSequence) assertDoesNotThrow(() -> ReflectionSupport.tryToReadFieldValue(regexArgs.getClass().getDeclaredField("glob"), regexArgs).get());
         boolean isRegex = (boolean) assertDoesNotThrow(() -> ReflectionSupport.tryToReadFieldValue(regexArgs.getClass().getDeclaredField("hasWildcard"), regexArgs).get());
 
-        assertEquals(expectedPlainText, String.join("", plaintext));
-        assertEquals(expectedRegex, String.join("", regex));
+        assertEquals(expectedPlainText, plaintext.toString());
+        assertEquals(expectedGlob, glob.toString());
         assertEquals(expectedIsRegex, isRegex);
     }
 }